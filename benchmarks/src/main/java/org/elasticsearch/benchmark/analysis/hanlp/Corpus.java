@@ -0,0 +1,78 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.benchmark.analysis.hanlp;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Chinese texts bundled with the benchmarks:
+ * <ul>
+ * <li>{@code short} - query like strings of a few characters</li>
+ * <li>{@code medium} - single paragraphs of one to three sentences</li>
+ * <li>{@code long} - a single text of {@value #LONG_TEXT_LENGTH} characters without any line break, built by
+ * concatenating the medium paragraphs</li>
+ * </ul>
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public final class Corpus {
+
+    static final int LONG_TEXT_LENGTH = 256 * 1024;
+
+    private Corpus() {
+    }
+
+    public static String[] load(String name) throws IOException {
+        switch (name.toLowerCase(Locale.ROOT)) {
+            case "short":
+                return read("short.txt");
+            case "medium":
+                return read("medium.txt");
+            case "long":
+                String[] paragraphs = read("medium.txt");
+                StringBuilder text = new StringBuilder(LONG_TEXT_LENGTH + 256);
+                for (int i = 0; text.length() < LONG_TEXT_LENGTH; i++) {
+                    text.append(paragraphs[i % paragraphs.length]);
+                }
+                text.setLength(LONG_TEXT_LENGTH);
+                return new String[]{text.toString()};
+            default:
+                throw new IllegalArgumentException("unknown corpus [" + name + "]");
+        }
+    }
+
+    private static String[] read(String resource) throws IOException {
+        List<String> texts = new ArrayList<>();
+        try (InputStream stream = Corpus.class.getResourceAsStream("/corpus/" + resource);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() == false) {
+                    texts.add(line);
+                }
+            }
+        }
+        return texts.toArray(new String[texts.size()]);
+    }
+
+}
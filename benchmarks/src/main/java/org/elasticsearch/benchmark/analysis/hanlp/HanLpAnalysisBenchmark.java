@@ -0,0 +1,176 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.benchmark.analysis.hanlp;
+
+import com.hankcs.lucene.HanLPTokenizer;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.analysis.HanLpAnalyzer;
+import org.elasticsearch.index.analysis.HanLpTokenizer;
+import org.elasticsearch.indices.analysis.hanlp.HanLpSegmentCache;
+import org.elasticsearch.indices.analysis.hanlp.HanLpSegmentExecutor;
+import org.elasticsearch.indices.analysis.hanlp.HanLpSegmentPool;
+import org.elasticsearch.indices.analysis.hanlp.SegmentConfig;
+import org.elasticsearch.indices.analysis.hanlp.Segmenter;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the hanlp tokenizer and analyzer over the bundled {@link Corpus}, for every combination of the segment
+ * flags. Besides the number of corpus passes per second, the {@code tokens} and {@code chars} counters report
+ * tokens/sec and chars/sec; ns/char is {@code 1e9 / chars}. Run with {@code -prof gc} to get the allocation rate.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class HanLpAnalysisBenchmark {
+
+    @Param({"short", "medium", "long"})
+    public String corpus;
+
+    // crf and hmm need models the portable distribution doesn't ship
+    @Param({"viterbi", "dijkstra", "nshort", "speed"})
+    public String segmenter;
+
+    @Param({"false", "true"})
+    public boolean indexMode;
+
+    @Param({"false", "true"})
+    public boolean nameRecognize;
+
+    @Param({"false", "true"})
+    public boolean placeRecognize;
+
+    @Param({"false", "true"})
+    public boolean organizationRecognize;
+
+    @Param({"false", "true"})
+    public boolean speechTagging;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private String[] texts;
+    private HanLpSegmentExecutor segmentExecutor;
+    private HanLpSegmentPool segmentPool;
+    private Tokenizer tokenizer;
+    private Tokenizer luceneTokenizer;
+    private Analyzer analyzer;
+
+    @Setup
+    public void setUp() throws IOException {
+        texts = Corpus.load(corpus);
+
+        SegmentConfig config = new SegmentConfig(Segmenter.fromString(segmenter), indexMode, nameRecognize,
+                                                 SegmentConfig.DEFAULT.translatedNameRecognize(),
+                                                 SegmentConfig.DEFAULT.japaneseNameRecognize(), placeRecognize,
+                                                 organizationRecognize, SegmentConfig.DEFAULT.useCustomDictionary(),
+                                                 speechTagging, SegmentConfig.DEFAULT.numberQuantifierRecognize(),
+                                                 threads);
+        segmentExecutor = new HanLpSegmentExecutor(Settings.EMPTY);
+        segmentPool = new HanLpSegmentPool(Settings.EMPTY, new HanLpSegmentCache(Settings.EMPTY), segmentExecutor);
+        tokenizer = new HanLpTokenizer(segmentPool.acquire(config), config, config.speechTagging());
+        luceneTokenizer = new HanLPTokenizer(segmentPool.acquire(config), null, config.speechTagging());
+        analyzer = new HanLpAnalyzer(segmentPool, config);
+    }
+
+    @TearDown
+    public void tearDown() {
+        analyzer.close();
+        segmentPool.close();
+        segmentExecutor.close();
+    }
+
+    @Benchmark
+    public void tokenizer(Counters counters) throws IOException {
+        for (String text : texts) {
+            tokenizer.setReader(new StringReader(text));
+            consume(tokenizer, text, counters);
+        }
+    }
+
+    /**
+     * Baseline for {@link #tokenizer}: the tokenizer of the HanLP Lucene plugin, which {@code hanlp_tokenizer} used
+     * before. Compare {@code gc.alloc.rate.norm} with {@code -prof gc}.
+     */
+    @Benchmark
+    public void luceneTokenizer(Counters counters) throws IOException {
+        for (String text : texts) {
+            luceneTokenizer.setReader(new StringReader(text));
+            consume(luceneTokenizer, text, counters);
+        }
+    }
+
+    @Benchmark
+    public void analyzer(Counters counters) throws IOException {
+        for (String text : texts) {
+            consume(analyzer.tokenStream("field", text), text, counters);
+        }
+    }
+
+    private static void consume(TokenStream stream, String text, Counters counters) throws IOException {
+        try {
+            stream.reset();
+            while (stream.incrementToken()) {
+                counters.tokens++;
+            }
+            stream.end();
+        } finally {
+            stream.close();
+        }
+        counters.chars += text.length();
+    }
+
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class Counters {
+
+        public long tokens;
+        public long chars;
+
+        @Setup(Level.Iteration)
+        public void clean() {
+            tokens = 0;
+            chars = 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.action.hanlp.reload;
+
+import org.elasticsearch.action.support.nodes.BaseNodeResponse;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.indices.analysis.hanlp.HanLpCustomDictionary;
+
+import java.io.IOException;
+
+/**
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class NodeReloadCustomDictionaryResponse extends BaseNodeResponse {
+
+    private HanLpCustomDictionary.ReloadType type;
+    private int words;
+    private long tookInMillis;
+    private String failure;
+
+    NodeReloadCustomDictionaryResponse() {
+    }
+
+    public NodeReloadCustomDictionaryResponse(DiscoveryNode node, String failure) {
+        super(node);
+        this.type = HanLpCustomDictionary.ReloadType.NONE;
+        this.failure = failure;
+    }
+
+    public NodeReloadCustomDictionaryResponse(DiscoveryNode node, HanLpCustomDictionary.ReloadResult result) {
+        super(node);
+        this.type = result.type();
+        this.words = result.words();
+        this.tookInMillis = result.tookInMillis();
+    }
+
+    public HanLpCustomDictionary.ReloadType getType() {
+        return type;
+    }
+
+    public int getWords() {
+        return words;
+    }
+
+    public long getTookInMillis() {
+        return tookInMillis;
+    }
+
+    /**
+     * Why the node failed to reload its custom dictionary, {@code null} if it didn't.
+     */
+    public String getFailure() {
+        return failure;
+    }
+
+    public static NodeReloadCustomDictionaryResponse readNodeResponse(StreamInput in) throws IOException {
+        NodeReloadCustomDictionaryResponse response = new NodeReloadCustomDictionaryResponse();
+        response.readFrom(in);
+        return response;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        type = HanLpCustomDictionary.ReloadType.values()[in.readByte()];
+        words = in.readVInt();
+        tookInMillis = in.readVLong();
+        failure = in.readOptionalString();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeByte((byte) type.ordinal());
+        out.writeVInt(words);
+        out.writeVLong(tookInMillis);
+        out.writeOptionalString(failure);
+    }
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.action.hanlp.reload;
+
+import org.elasticsearch.action.Action;
+import org.elasticsearch.client.ElasticsearchClient;
+
+/**
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class ReloadCustomDictionaryAction
+    extends Action<ReloadCustomDictionaryRequest, ReloadCustomDictionaryResponse, ReloadCustomDictionaryRequestBuilder> {
+
+    public static final ReloadCustomDictionaryAction INSTANCE = new ReloadCustomDictionaryAction();
+    public static final String NAME = "cluster:admin/hanlp/custom_dictionary/reload";
+
+    private ReloadCustomDictionaryAction() {
+        super(NAME);
+    }
+
+    @Override
+    public ReloadCustomDictionaryResponse newResponse() {
+        return new ReloadCustomDictionaryResponse();
+    }
+
+    @Override
+    public ReloadCustomDictionaryRequestBuilder newRequestBuilder(ElasticsearchClient client) {
+        return new ReloadCustomDictionaryRequestBuilder(client, this);
+    }
+
+}
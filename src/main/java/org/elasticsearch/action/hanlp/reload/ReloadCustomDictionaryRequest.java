@@ -0,0 +1,64 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.action.hanlp.reload;
+
+import org.elasticsearch.action.support.nodes.BaseNodesRequest;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+
+/**
+ * Reloads the custom dictionary on the given nodes, all of them by default.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class ReloadCustomDictionaryRequest extends BaseNodesRequest<ReloadCustomDictionaryRequest> {
+
+    private boolean full;
+
+    public ReloadCustomDictionaryRequest() {
+    }
+
+    public ReloadCustomDictionaryRequest(String... nodesIds) {
+        super(nodesIds);
+    }
+
+    /**
+     * Whether to rebuild the custom dictionary even if the files were only appended to or didn't change.
+     */
+    public boolean full() {
+        return full;
+    }
+
+    public ReloadCustomDictionaryRequest full(boolean full) {
+        this.full = full;
+        return this;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        full = in.readBoolean();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeBoolean(full);
+    }
+
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.action.hanlp.reload;
+
+import org.elasticsearch.action.support.nodes.NodesOperationRequestBuilder;
+import org.elasticsearch.client.ElasticsearchClient;
+
+/**
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class ReloadCustomDictionaryRequestBuilder extends NodesOperationRequestBuilder<ReloadCustomDictionaryRequest,
+    ReloadCustomDictionaryResponse, ReloadCustomDictionaryRequestBuilder> {
+
+    public ReloadCustomDictionaryRequestBuilder(ElasticsearchClient client, ReloadCustomDictionaryAction action) {
+        super(client, action, new ReloadCustomDictionaryRequest());
+    }
+
+    public ReloadCustomDictionaryRequestBuilder setFull(boolean full) {
+        request.full(full);
+        return this;
+    }
+
+}
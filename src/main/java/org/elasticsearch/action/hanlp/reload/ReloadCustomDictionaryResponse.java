@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.action.hanlp.reload;
+
+import org.elasticsearch.action.support.nodes.BaseNodesResponse;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+
+import java.io.IOException;
+
+/**
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class ReloadCustomDictionaryResponse extends BaseNodesResponse<NodeReloadCustomDictionaryResponse>
+    implements ToXContent {
+
+    ReloadCustomDictionaryResponse() {
+    }
+
+    public ReloadCustomDictionaryResponse(ClusterName clusterName, NodeReloadCustomDictionaryResponse[] nodes) {
+        super(clusterName, nodes);
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        nodes = new NodeReloadCustomDictionaryResponse[in.readVInt()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = NodeReloadCustomDictionaryResponse.readNodeResponse(in);
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeVInt(nodes.length);
+        for (NodeReloadCustomDictionaryResponse node : nodes) {
+            node.writeTo(out);
+        }
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.field(Fields.CLUSTER_NAME, getClusterName().value());
+        builder.startObject(Fields.NODES);
+        for (NodeReloadCustomDictionaryResponse node : nodes) {
+            builder.startObject(node.getNode().id());
+            builder.field(Fields.NAME, node.getNode().name());
+            builder.field(Fields.TYPE, node.getType().getName());
+            builder.field(Fields.WORDS, node.getWords());
+            builder.timeValueField(Fields.TOOK_IN_MILLIS, Fields.TOOK, node.getTookInMillis());
+            if (node.getFailure() != null) {
+                builder.field(Fields.FAILURE, node.getFailure());
+            }
+            builder.endObject();
+        }
+        builder.endObject();
+        return builder;
+    }
+
+    static final class Fields {
+        static final XContentBuilderString CLUSTER_NAME = new XContentBuilderString("cluster_name");
+        static final XContentBuilderString NODES = new XContentBuilderString("nodes");
+        static final XContentBuilderString NAME = new XContentBuilderString("name");
+        static final XContentBuilderString TYPE = new XContentBuilderString("type");
+        static final XContentBuilderString WORDS = new XContentBuilderString("words");
+        static final XContentBuilderString TOOK = new XContentBuilderString("took");
+        static final XContentBuilderString TOOK_IN_MILLIS = new XContentBuilderString("took_in_millis");
+        static final XContentBuilderString FAILURE = new XContentBuilderString("failure");
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.action.hanlp.reload;
+
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.nodes.BaseNodeRequest;
+import org.elasticsearch.action.support.nodes.TransportNodesAction;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.indices.analysis.hanlp.HanLpCustomDictionary;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class TransportReloadCustomDictionaryAction extends TransportNodesAction<ReloadCustomDictionaryRequest,
+    ReloadCustomDictionaryResponse, TransportReloadCustomDictionaryAction.NodeRequest, NodeReloadCustomDictionaryResponse> {
+
+    private final HanLpCustomDictionary customDictionary;
+
+    @Inject
+    public TransportReloadCustomDictionaryAction(Settings settings, ClusterName clusterName, ThreadPool threadPool,
+                                                 ClusterService clusterService, TransportService transportService,
+                                                 ActionFilters actionFilters,
+                                                 IndexNameExpressionResolver indexNameExpressionResolver,
+                                                 HanLpCustomDictionary customDictionary) {
+        super(settings, ReloadCustomDictionaryAction.NAME, clusterName, threadPool, clusterService, transportService,
+              actionFilters, indexNameExpressionResolver, ReloadCustomDictionaryRequest.class, NodeRequest.class,
+              ThreadPool.Names.GENERIC);
+        this.customDictionary = customDictionary;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    protected ReloadCustomDictionaryResponse newResponse(ReloadCustomDictionaryRequest request,
+                                                         AtomicReferenceArray responses) {
+        List<NodeReloadCustomDictionaryResponse> nodes = new ArrayList<>();
+        for (int i = 0; i < responses.length(); i++) {
+            Object response = responses.get(i);
+            if (response instanceof NodeReloadCustomDictionaryResponse) {
+                nodes.add((NodeReloadCustomDictionaryResponse) response);
+            }
+        }
+        return new ReloadCustomDictionaryResponse(clusterName,
+                                                  nodes.toArray(new NodeReloadCustomDictionaryResponse[nodes.size()]));
+    }
+
+    @Override
+    protected NodeRequest newNodeRequest(String nodeId, ReloadCustomDictionaryRequest request) {
+        return new NodeRequest(nodeId, request);
+    }
+
+    @Override
+    protected NodeReloadCustomDictionaryResponse newNodeResponse() {
+        return new NodeReloadCustomDictionaryResponse();
+    }
+
+    @Override
+    protected NodeReloadCustomDictionaryResponse nodeOperation(NodeRequest request) {
+        try {
+            return new NodeReloadCustomDictionaryResponse(clusterService.localNode(),
+                                                          customDictionary.reload(request.full));
+        } catch (Exception e) {
+            logger.warn("failed to reload custom dictionary", e);
+            return new NodeReloadCustomDictionaryResponse(clusterService.localNode(),
+                                                          ExceptionsHelper.detailedMessage(e));
+        }
+    }
+
+    @Override
+    protected boolean accumulateExceptions() {
+        return false;
+    }
+
+    public static class NodeRequest extends BaseNodeRequest {
+
+        private boolean full;
+
+        public NodeRequest() {
+        }
+
+        NodeRequest(String nodeId, ReloadCustomDictionaryRequest request) {
+            super(request, nodeId);
+            this.full = request.full();
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            super.readFrom(in);
+            full = in.readBoolean();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeBoolean(full);
+        }
+
+    }
+
+}
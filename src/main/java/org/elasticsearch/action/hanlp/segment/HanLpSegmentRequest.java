@@ -0,0 +1,126 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.action.hanlp.segment;
+
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionRequestValidationException;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.settings.Settings;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.elasticsearch.action.ValidateActions.addValidationError;
+
+/**
+ * Segments many texts at once on the node receiving the request. The texts are segmented with the flags of a built-in
+ * hanlp analyzer or tokenizer, {@code hanlp} by default, overridden by the segment settings of {@link #config()}.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpSegmentRequest extends ActionRequest<HanLpSegmentRequest> {
+
+    public static final String DEFAULT_TOKENIZER = "hanlp";
+
+    private String tokenizer = DEFAULT_TOKENIZER;
+    private Settings config = Settings.EMPTY;
+    private List<String> texts = new ArrayList<>();
+
+    public HanLpSegmentRequest() {
+    }
+
+    public HanLpSegmentRequest(String... texts) {
+        addTexts(texts);
+    }
+
+    /**
+     * Name of the built-in analyzer or tokenizer whose flags the texts are segmented with: {@code hanlp},
+     * {@code hanlp_tokenizer} or {@code hanlp_speed}.
+     */
+    public HanLpSegmentRequest tokenizer(String tokenizer) {
+        this.tokenizer = tokenizer;
+        return this;
+    }
+
+    public String tokenizer() {
+        return tokenizer;
+    }
+
+    /**
+     * Segment settings, such as {@code segmenter} or {@code indexMode}, overriding the flags of the tokenizer.
+     */
+    public HanLpSegmentRequest config(Settings config) {
+        this.config = config;
+        return this;
+    }
+
+    public Settings config() {
+        return config;
+    }
+
+    public HanLpSegmentRequest addTexts(String... texts) {
+        this.texts.addAll(Arrays.asList(texts));
+        return this;
+    }
+
+    public List<String> texts() {
+        return texts;
+    }
+
+    @Override
+    public ActionRequestValidationException validate() {
+        ActionRequestValidationException validationException = null;
+        if (tokenizer == null) {
+            validationException = addValidationError("tokenizer is missing", validationException);
+        }
+        if (texts.isEmpty()) {
+            validationException = addValidationError("texts are missing", validationException);
+        }
+        for (int i = 0; i < texts.size(); i++) {
+            if (texts.get(i) == null) {
+                validationException = addValidationError("text [" + i + "] is null", validationException);
+            }
+        }
+        return validationException;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        tokenizer = in.readString();
+        config = Settings.readSettingsFromStream(in);
+        int size = in.readVInt();
+        texts = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            texts.add(in.readString());
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeString(tokenizer);
+        Settings.writeSettingsToStream(config, out);
+        out.writeVInt(texts.size());
+        for (String text : texts) {
+            out.writeString(text);
+        }
+    }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.action.hanlp.segment;
+
+import org.elasticsearch.action.ActionRequestBuilder;
+import org.elasticsearch.client.ElasticsearchClient;
+import org.elasticsearch.common.settings.Settings;
+
+/**
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpSegmentRequestBuilder
+    extends ActionRequestBuilder<HanLpSegmentRequest, HanLpSegmentResponse, HanLpSegmentRequestBuilder> {
+
+    public HanLpSegmentRequestBuilder(ElasticsearchClient client, HanLpSegmentAction action) {
+        super(client, action, new HanLpSegmentRequest());
+    }
+
+    public HanLpSegmentRequestBuilder setTokenizer(String tokenizer) {
+        request.tokenizer(tokenizer);
+        return this;
+    }
+
+    public HanLpSegmentRequestBuilder setConfig(Settings config) {
+        request.config(config);
+        return this;
+    }
+
+    public HanLpSegmentRequestBuilder addTexts(String... texts) {
+        request.addTexts(texts);
+        return this;
+    }
+
+}
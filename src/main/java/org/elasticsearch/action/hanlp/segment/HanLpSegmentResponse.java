@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.action.hanlp.segment;
+
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.admin.indices.analyze.AnalyzeResponse.AnalyzeToken;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tokens of every text of a {@link HanLpSegmentRequest}, in the order of the texts. Each token is reported like by
+ * the analyze API, its type being the nature of the term.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpSegmentResponse extends ActionResponse implements ToXContent {
+
+    private List<List<AnalyzeToken>> texts;
+
+    HanLpSegmentResponse() {
+    }
+
+    public HanLpSegmentResponse(List<List<AnalyzeToken>> texts) {
+        this.texts = texts;
+    }
+
+    /**
+     * Tokens of the text at {@code index} in the request.
+     */
+    public List<AnalyzeToken> getTokens(int index) {
+        return texts.get(index);
+    }
+
+    public int getTextCount() {
+        return texts.size();
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        int size = in.readVInt();
+        texts = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int tokenCount = in.readVInt();
+            List<AnalyzeToken> tokens = new ArrayList<>(tokenCount);
+            for (int j = 0; j < tokenCount; j++) {
+                tokens.add(AnalyzeToken.readAnalyzeToken(in));
+            }
+            texts.add(tokens);
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeVInt(texts.size());
+        for (List<AnalyzeToken> tokens : texts) {
+            out.writeVInt(tokens.size());
+            for (AnalyzeToken token : tokens) {
+                token.writeTo(out);
+            }
+        }
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startArray(Fields.TEXTS);
+        for (List<AnalyzeToken> tokens : texts) {
+            builder.startObject();
+            builder.startArray(Fields.TOKENS);
+            for (AnalyzeToken token : tokens) {
+                token.toXContent(builder, params);
+            }
+            builder.endArray();
+            builder.endObject();
+        }
+        builder.endArray();
+        return builder;
+    }
+
+    static final class Fields {
+        static final XContentBuilderString TEXTS = new XContentBuilderString("texts");
+        static final XContentBuilderString TOKENS = new XContentBuilderString("tokens");
+    }
+
+}
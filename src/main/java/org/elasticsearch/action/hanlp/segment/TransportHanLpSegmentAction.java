@@ -0,0 +1,159 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.action.hanlp.segment;
+
+import com.hankcs.hanlp.seg.Segment;
+
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.admin.indices.analyze.AnalyzeResponse.AnalyzeToken;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.HandledTransportAction;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.index.analysis.HanLpTokenizer;
+import org.elasticsearch.indices.analysis.hanlp.HanLpIndicesAnalysis;
+import org.elasticsearch.indices.analysis.hanlp.HanLpSegmentExecutor;
+import org.elasticsearch.indices.analysis.hanlp.HanLpSegmentPool;
+import org.elasticsearch.indices.analysis.hanlp.SegmentConfig;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.elasticsearch.indices.analysis.hanlp.Settings.THREADS;
+
+/**
+ * Segments the texts of a request on the node receiving it. The request is handled on the {@code index} thread pool,
+ * like the analyze API, and its texts are spread over that thread and the {@link HanLpSegmentExecutor}. Every text is
+ * tokenized by a {@link HanLpTokenizer} on a segment of the {@link HanLpSegmentPool}, so the tokens are the ones of
+ * the analyzer and the segment cache is shared with indexing.
+ * <p>
+ * Only the config of the analyzer or tokenizer itself gets segments pooled for it. A config overridden by the request
+ * uses the pooled segments of an analyzer or tokenizer configured the same, and builds segments that are dropped
+ * afterwards otherwise, so requests can't grow the pool without bound. Its {@code threads} are capped to the ones of
+ * the analyzer or tokenizer, or to the size of the executor if higher, which doesn't change the tokens.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class TransportHanLpSegmentAction extends HandledTransportAction<HanLpSegmentRequest, HanLpSegmentResponse> {
+
+    private final HanLpIndicesAnalysis indicesAnalysis;
+    private final HanLpSegmentPool segmentPool;
+    private final HanLpSegmentExecutor segmentExecutor;
+
+    @Inject
+    public TransportHanLpSegmentAction(Settings settings, ThreadPool threadPool, TransportService transportService,
+                                       ActionFilters actionFilters,
+                                       IndexNameExpressionResolver indexNameExpressionResolver,
+                                       HanLpIndicesAnalysis indicesAnalysis, HanLpSegmentPool segmentPool,
+                                       HanLpSegmentExecutor segmentExecutor) {
+        super(settings, HanLpSegmentAction.NAME, threadPool, transportService, actionFilters,
+              indexNameExpressionResolver, HanLpSegmentRequest.class);
+        this.indicesAnalysis = indicesAnalysis;
+        this.segmentPool = segmentPool;
+        this.segmentExecutor = segmentExecutor;
+    }
+
+    @Override
+    protected void doExecute(final HanLpSegmentRequest request, final ActionListener<HanLpSegmentResponse> listener) {
+        threadPool.executor(ThreadPool.Names.INDEX).execute(new AbstractRunnable() {
+            @Override
+            public void onFailure(Throwable t) {
+                listener.onFailure(t);
+            }
+
+            @Override
+            protected void doRun() {
+                SegmentConfig defaults = indicesAnalysis.config(request.tokenizer());
+                if (defaults == null) {
+                    throw new IllegalArgumentException("unknown hanlp tokenizer [" + request.tokenizer() + "]");
+                }
+                SegmentConfig config = config(request.config(), defaults, segmentExecutor.size());
+                listener.onResponse(new HanLpSegmentResponse(segment(segmentExecutor, segmentPool, config,
+                                                                     config.equals(defaults), request.texts())));
+            }
+        });
+    }
+
+    /**
+     * Returns the config of a request overriding {@code defaults} with {@code settings}, with at most
+     * {@code executorSize} threads unless {@code defaults} has more.
+     */
+    static SegmentConfig config(Settings settings, SegmentConfig defaults, int executorSize) {
+        SegmentConfig config = SegmentConfig.parse(settings, "", defaults);
+        int maxThreads = Math.max(defaults.threads(), executorSize);
+        if (config.threads() <= maxThreads) {
+            return config;
+        }
+        return SegmentConfig.parse(Settings.settingsBuilder().put(settings).put(THREADS, maxThreads).build(), "", defaults);
+    }
+
+    /**
+     * Tokenizes every text of {@code texts} in parallel, returns their tokens in the same order.
+     *
+     * @param pooled whether {@code config} may get segments pooled for it, or only use the ones pooled already
+     */
+    static List<List<AnalyzeToken>> segment(HanLpSegmentExecutor segmentExecutor, final HanLpSegmentPool segmentPool,
+                                            final SegmentConfig config, final boolean pooled,
+                                            final List<String> texts) {
+        final AtomicReferenceArray<List<AnalyzeToken>> tokens = new AtomicReferenceArray<>(texts.size());
+        segmentExecutor.forEach(texts.size(), new HanLpSegmentExecutor.IndexConsumer() {
+            @Override
+            public void accept(int index) throws IOException {
+                Segment segment = pooled ? segmentPool.acquire(config) : segmentPool.acquireIfPooled(config);
+                tokens.set(index, tokenize(segment, config, texts.get(index)));
+            }
+        });
+        List<List<AnalyzeToken>> result = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            result.add(tokens.get(i));
+        }
+        return result;
+    }
+
+    private static List<AnalyzeToken> tokenize(Segment segment, SegmentConfig config, String text) throws IOException {
+        List<AnalyzeToken> tokens = new ArrayList<>();
+        try (Tokenizer tokenizer = new HanLpTokenizer(segment, config, config.speechTagging())) {
+            CharTermAttribute termAtt = tokenizer.addAttribute(CharTermAttribute.class);
+            OffsetAttribute offsetAtt = tokenizer.addAttribute(OffsetAttribute.class);
+            PositionIncrementAttribute positionAtt = tokenizer.addAttribute(PositionIncrementAttribute.class);
+            TypeAttribute typeAtt = tokenizer.addAttribute(TypeAttribute.class);
+
+            tokenizer.setReader(new StringReader(text));
+            tokenizer.reset();
+            int position = -1;
+            while (tokenizer.incrementToken()) {
+                position += positionAtt.getPositionIncrement();
+                tokens.add(new AnalyzeToken(termAtt.toString(), position, offsetAtt.startOffset(),
+                                            offsetAtt.endOffset(), typeAtt.type(), null));
+            }
+            tokenizer.end();
+        }
+        return tokens;
+    }
+
+}
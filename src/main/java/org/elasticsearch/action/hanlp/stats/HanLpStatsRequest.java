@@ -0,0 +1,34 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.action.hanlp.stats;
+
+import org.elasticsearch.action.support.nodes.BaseNodesRequest;
+
+/**
+ * Collects the hanlp analysis stats of the given nodes, all of them by default.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpStatsRequest extends BaseNodesRequest<HanLpStatsRequest> {
+
+    public HanLpStatsRequest() {
+    }
+
+    public HanLpStatsRequest(String... nodesIds) {
+        super(nodesIds);
+    }
+
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.action.hanlp.stats;
+
+import org.elasticsearch.action.support.nodes.BaseNodeResponse;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+import org.elasticsearch.indices.analysis.hanlp.HanLpAnalysisStats;
+import org.elasticsearch.indices.analysis.hanlp.HanLpDictionaryStats;
+import org.elasticsearch.indices.analysis.hanlp.HanLpSegmentExecutorStats;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * HanLP analysis stats of a node: throughput and latency of its analyzers and tokenizers, the dictionaries it loaded
+ * and how its segment pool, segment cache, segment memo and segment executor are used.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class NodeHanLpStats extends BaseNodeResponse implements ToXContent {
+
+    private Map<String, HanLpAnalysisStats> analyzers;
+    private Map<String, HanLpAnalysisStats> tokenizers;
+    private List<HanLpDictionaryStats> dictionaries;
+    private long poolHits;
+    private long poolMisses;
+    private int poolConfigurations;
+    private long cacheEntries;
+    private long cacheMemorySizeInBytes;
+    private long cacheHits;
+    private long cacheMisses;
+    private long cacheEvictions;
+    private long memoHits;
+    private long memoMisses;
+    private HanLpSegmentExecutorStats executor;
+
+    NodeHanLpStats() {
+    }
+
+    public NodeHanLpStats(DiscoveryNode node, Map<String, HanLpAnalysisStats> analyzers,
+                          Map<String, HanLpAnalysisStats> tokenizers, List<HanLpDictionaryStats> dictionaries,
+                          long poolHits, long poolMisses, int poolConfigurations, long cacheEntries,
+                          long cacheMemorySizeInBytes, long cacheHits, long cacheMisses, long cacheEvictions,
+                          long memoHits, long memoMisses, HanLpSegmentExecutorStats executor) {
+        super(node);
+        this.analyzers = analyzers;
+        this.tokenizers = tokenizers;
+        this.dictionaries = dictionaries;
+        this.poolHits = poolHits;
+        this.poolMisses = poolMisses;
+        this.poolConfigurations = poolConfigurations;
+        this.cacheEntries = cacheEntries;
+        this.cacheMemorySizeInBytes = cacheMemorySizeInBytes;
+        this.cacheHits = cacheHits;
+        this.cacheMisses = cacheMisses;
+        this.cacheEvictions = cacheEvictions;
+        this.memoHits = memoHits;
+        this.memoMisses = memoMisses;
+        this.executor = executor;
+    }
+
+    /**
+     * Stats of the analyzers, keyed by the comma separated names of the analyzers sharing them.
+     */
+    public Map<String, HanLpAnalysisStats> getAnalyzers() {
+        return analyzers;
+    }
+
+    public Map<String, HanLpAnalysisStats> getTokenizers() {
+        return tokenizers;
+    }
+
+    public List<HanLpDictionaryStats> getDictionaries() {
+        return dictionaries;
+    }
+
+    public long getPoolHits() {
+        return poolHits;
+    }
+
+    public long getPoolMisses() {
+        return poolMisses;
+    }
+
+    public int getPoolConfigurations() {
+        return poolConfigurations;
+    }
+
+    public long getCacheEntries() {
+        return cacheEntries;
+    }
+
+    public long getCacheMemorySizeInBytes() {
+        return cacheMemorySizeInBytes;
+    }
+
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    public long getCacheEvictions() {
+        return cacheEvictions;
+    }
+
+    /**
+     * Share of the lookups the segment cache answered, {@code 0} before the first lookup.
+     */
+    public double getCacheHitRatio() {
+        long lookups = cacheHits + cacheMisses;
+        return lookups == 0 ? 0 : (double) cacheHits / lookups;
+    }
+
+    public long getMemoHits() {
+        return memoHits;
+    }
+
+    public long getMemoMisses() {
+        return memoMisses;
+    }
+
+    public HanLpSegmentExecutorStats getExecutor() {
+        return executor;
+    }
+
+    public static NodeHanLpStats readNodeStats(StreamInput in) throws IOException {
+        NodeHanLpStats stats = new NodeHanLpStats();
+        stats.readFrom(in);
+        return stats;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        analyzers = readAnalysisStats(in);
+        tokenizers = readAnalysisStats(in);
+        int size = in.readVInt();
+        dictionaries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            dictionaries.add(HanLpDictionaryStats.readDictionaryStats(in));
+        }
+        poolHits = in.readVLong();
+        poolMisses = in.readVLong();
+        poolConfigurations = in.readVInt();
+        cacheEntries = in.readVLong();
+        cacheMemorySizeInBytes = in.readVLong();
+        cacheHits = in.readVLong();
+        cacheMisses = in.readVLong();
+        cacheEvictions = in.readVLong();
+        memoHits = in.readVLong();
+        memoMisses = in.readVLong();
+        executor = HanLpSegmentExecutorStats.readSegmentExecutorStats(in);
+    }
+
+    private static Map<String, HanLpAnalysisStats> readAnalysisStats(StreamInput in) throws IOException {
+        int size = in.readVInt();
+        Map<String, HanLpAnalysisStats> stats = new TreeMap<>();
+        for (int i = 0; i < size; i++) {
+            stats.put(in.readString(), HanLpAnalysisStats.readAnalysisStats(in));
+        }
+        return stats;
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        writeAnalysisStats(out, analyzers);
+        writeAnalysisStats(out, tokenizers);
+        out.writeVInt(dictionaries.size());
+        for (HanLpDictionaryStats dictionary : dictionaries) {
+            dictionary.writeTo(out);
+        }
+        out.writeVLong(poolHits);
+        out.writeVLong(poolMisses);
+        out.writeVInt(poolConfigurations);
+        out.writeVLong(cacheEntries);
+        out.writeVLong(cacheMemorySizeInBytes);
+        out.writeVLong(cacheHits);
+        out.writeVLong(cacheMisses);
+        out.writeVLong(cacheEvictions);
+        out.writeVLong(memoHits);
+        out.writeVLong(memoMisses);
+        executor.writeTo(out);
+    }
+
+    private static void writeAnalysisStats(StreamOutput out, Map<String, HanLpAnalysisStats> stats)
+        throws IOException {
+        out.writeVInt(stats.size());
+        for (Map.Entry<String, HanLpAnalysisStats> entry : stats.entrySet()) {
+            out.writeString(entry.getKey());
+            entry.getValue().writeTo(out);
+        }
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        writeAnalysisStats(builder, params, Fields.ANALYZERS, analyzers);
+        writeAnalysisStats(builder, params, Fields.TOKENIZERS, tokenizers);
+
+        builder.startObject(Fields.DICTIONARIES);
+        for (HanLpDictionaryStats dictionary : dictionaries) {
+            dictionary.toXContent(builder, params);
+        }
+        builder.endObject();
+
+        builder.startObject(Fields.SEGMENT_POOL);
+        builder.field(Fields.HITS, poolHits);
+        builder.field(Fields.MISSES, poolMisses);
+        builder.field(Fields.CONFIGURATIONS, poolConfigurations);
+        builder.endObject();
+
+        builder.startObject(Fields.SEGMENT_CACHE);
+        builder.field(Fields.ENTRIES, cacheEntries);
+        builder.byteSizeField(Fields.MEMORY_SIZE_IN_BYTES, Fields.MEMORY_SIZE, cacheMemorySizeInBytes);
+        builder.field(Fields.HITS, cacheHits);
+        builder.field(Fields.MISSES, cacheMisses);
+        builder.field(Fields.HIT_RATIO, getCacheHitRatio());
+        builder.field(Fields.EVICTIONS, cacheEvictions);
+        builder.endObject();
+
+        builder.startObject(Fields.SEGMENT_MEMO);
+        builder.field(Fields.HITS, memoHits);
+        builder.field(Fields.MISSES, memoMisses);
+        builder.endObject();
+
+        builder.startObject(Fields.SEGMENT_EXECUTOR);
+        executor.toXContent(builder, params);
+        builder.endObject();
+        return builder;
+    }
+
+    private static void writeAnalysisStats(XContentBuilder builder, Params params, XContentBuilderString name,
+                                           Map<String, HanLpAnalysisStats> stats) throws IOException {
+        builder.startObject(name);
+        for (Map.Entry<String, HanLpAnalysisStats> entry : stats.entrySet()) {
+            builder.startObject(entry.getKey());
+            entry.getValue().toXContent(builder, params);
+            builder.endObject();
+        }
+        builder.endObject();
+    }
+
+    static final class Fields {
+        static final XContentBuilderString ANALYZERS = new XContentBuilderString("analyzers");
+        static final XContentBuilderString TOKENIZERS = new XContentBuilderString("tokenizers");
+        static final XContentBuilderString DICTIONARIES = new XContentBuilderString("dictionaries");
+        static final XContentBuilderString SEGMENT_POOL = new XContentBuilderString("segment_pool");
+        static final XContentBuilderString SEGMENT_CACHE = new XContentBuilderString("segment_cache");
+        static final XContentBuilderString SEGMENT_MEMO = new XContentBuilderString("segment_memo");
+        static final XContentBuilderString SEGMENT_EXECUTOR = new XContentBuilderString("segment_executor");
+        static final XContentBuilderString HITS = new XContentBuilderString("hits");
+        static final XContentBuilderString MISSES = new XContentBuilderString("misses");
+        static final XContentBuilderString HIT_RATIO = new XContentBuilderString("hit_ratio");
+        static final XContentBuilderString CONFIGURATIONS = new XContentBuilderString("configurations");
+        static final XContentBuilderString ENTRIES = new XContentBuilderString("entries");
+        static final XContentBuilderString MEMORY_SIZE = new XContentBuilderString("memory_size");
+        static final XContentBuilderString MEMORY_SIZE_IN_BYTES = new XContentBuilderString("memory_size_in_bytes");
+        static final XContentBuilderString EVICTIONS = new XContentBuilderString("evictions");
+    }
+
+}
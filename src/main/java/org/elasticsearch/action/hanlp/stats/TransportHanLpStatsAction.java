@@ -0,0 +1,123 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.action.hanlp.stats;
+
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.nodes.BaseNodeRequest;
+import org.elasticsearch.action.support.nodes.TransportNodesAction;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.indices.analysis.hanlp.HanLpAnalysisMetrics;
+import org.elasticsearch.indices.analysis.hanlp.HanLpAnalyzerRegistry;
+import org.elasticsearch.indices.analysis.hanlp.HanLpSegmentCache;
+import org.elasticsearch.indices.analysis.hanlp.HanLpSegmentMemo;
+import org.elasticsearch.indices.analysis.hanlp.HanLpSegmentExecutor;
+import org.elasticsearch.indices.analysis.hanlp.HanLpSegmentPool;
+import org.elasticsearch.indices.analysis.hanlp.HanLpWarmer;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class TransportHanLpStatsAction extends TransportNodesAction<HanLpStatsRequest, HanLpStatsResponse,
+    TransportHanLpStatsAction.NodeRequest, NodeHanLpStats> {
+
+    private final HanLpAnalyzerRegistry analyzerRegistry;
+    private final HanLpAnalysisMetrics metrics;
+    private final HanLpWarmer warmer;
+    private final HanLpSegmentPool segmentPool;
+    private final HanLpSegmentCache segmentCache;
+    private final HanLpSegmentMemo segmentMemo;
+    private final HanLpSegmentExecutor segmentExecutor;
+
+    @Inject
+    public TransportHanLpStatsAction(Settings settings, ClusterName clusterName, ThreadPool threadPool,
+                                     ClusterService clusterService, TransportService transportService,
+                                     ActionFilters actionFilters,
+                                     IndexNameExpressionResolver indexNameExpressionResolver,
+                                     HanLpAnalyzerRegistry analyzerRegistry, HanLpAnalysisMetrics metrics,
+                                     HanLpWarmer warmer, HanLpSegmentPool segmentPool, HanLpSegmentCache segmentCache,
+                                     HanLpSegmentMemo segmentMemo, HanLpSegmentExecutor segmentExecutor) {
+        super(settings, HanLpStatsAction.NAME, clusterName, threadPool, clusterService, transportService,
+              actionFilters, indexNameExpressionResolver, HanLpStatsRequest.class, NodeRequest.class,
+              ThreadPool.Names.MANAGEMENT);
+        this.analyzerRegistry = analyzerRegistry;
+        this.metrics = metrics;
+        this.warmer = warmer;
+        this.segmentPool = segmentPool;
+        this.segmentCache = segmentCache;
+        this.segmentMemo = segmentMemo;
+        this.segmentExecutor = segmentExecutor;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    protected HanLpStatsResponse newResponse(HanLpStatsRequest request, AtomicReferenceArray responses) {
+        List<NodeHanLpStats> nodes = new ArrayList<>();
+        for (int i = 0; i < responses.length(); i++) {
+            Object response = responses.get(i);
+            if (response instanceof NodeHanLpStats) {
+                nodes.add((NodeHanLpStats) response);
+            }
+        }
+        return new HanLpStatsResponse(clusterName, nodes.toArray(new NodeHanLpStats[nodes.size()]));
+    }
+
+    @Override
+    protected NodeRequest newNodeRequest(String nodeId, HanLpStatsRequest request) {
+        return new NodeRequest(nodeId, request);
+    }
+
+    @Override
+    protected NodeHanLpStats newNodeResponse() {
+        return new NodeHanLpStats();
+    }
+
+    @Override
+    protected NodeHanLpStats nodeOperation(NodeRequest request) {
+        return new NodeHanLpStats(clusterService.localNode(), analyzerRegistry.stats(), metrics.tokenizerStats(),
+                                  warmer.dictionaryStats(), segmentPool.hitCount(), segmentPool.missCount(),
+                                  segmentPool.configurationCount(), segmentCache.entryCount(),
+                                  segmentCache.memorySizeInBytes(), segmentCache.hitCount(), segmentCache.missCount(),
+                                  segmentCache.evictionCount(), segmentMemo.hitCount(), segmentMemo.missCount(),
+                                  segmentExecutor.stats());
+    }
+
+    @Override
+    protected boolean accumulateExceptions() {
+        return false;
+    }
+
+    public static class NodeRequest extends BaseNodeRequest {
+
+        public NodeRequest() {
+        }
+
+        NodeRequest(String nodeId, HanLpStatsRequest request) {
+            super(request, nodeId);
+        }
+
+    }
+
+}
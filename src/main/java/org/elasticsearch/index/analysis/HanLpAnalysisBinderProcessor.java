@@ -23,6 +23,7 @@ public class HanLpAnalysisBinderProcessor extends AnalysisModule.AnalysisBinderP
     @Override
     public void processAnalyzers(AnalyzersBindings analyzersBindings) {
         analyzersBindings.processAnalyzer("hanlp", HanLpAnalyzerProvider.class);
+        analyzersBindings.processAnalyzer("hanlp_speed", HanLpSpeedAnalyzerProvider.class);
     }
 
     @Override
@@ -30,12 +31,24 @@ public class HanLpAnalysisBinderProcessor extends AnalysisModule.AnalysisBinderP
         tokenizersBindings.processTokenizer("hanlp_tokenizer", HanLpTokenizerTokenizerFactory.class);
         // This is an alias to "hanlp_tokenizer"; it's here for backwards compat
         tokenizersBindings.processTokenizer("hanlp_sentence", HanLpTokenizerTokenizerFactory.class);
+        tokenizersBindings.processTokenizer("hanlp_speed", HanLpSpeedTokenizerFactory.class);
+    }
+
+    @Override
+    public void processCharFilters(CharFiltersBindings charFiltersBindings) {
+        charFiltersBindings.processCharFilter("hanlp_normalize", HanLpNormalizeCharFilterFactory.class);
     }
 
     @Override
     public void processTokenFilters(TokenFiltersBindings tokenFiltersBindings) {
         // This is a noop token filter; it's here for backwards compat before we had "hanlp_tokenizer"
         tokenFiltersBindings.processTokenFilter("hanlp_word", HanLpNoOpTokenFilterFactory.class);
+        tokenFiltersBindings.processTokenFilter("hanlp_stop", HanLpStopTokenFilterFactory.class);
+        tokenFiltersBindings.processTokenFilter("hanlp_pos_filter", HanLpPosTokenFilterFactory.class);
+        tokenFiltersBindings.processTokenFilter("hanlp_t2s", HanLpTraditionalToSimplifiedTokenFilterFactory.class);
+        tokenFiltersBindings.processTokenFilter("hanlp_s2t", HanLpSimplifiedToTraditionalTokenFilterFactory.class);
+        tokenFiltersBindings.processTokenFilter("hanlp_pinyin", HanLpPinyinTokenFilterFactory.class);
+        tokenFiltersBindings.processTokenFilter("hanlp_synonym", HanLpSynonymTokenFilterFactory.class);
     }
 
 }
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.index.analysis;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.elasticsearch.indices.analysis.hanlp.HanLpAnalysisMetric;
+import org.elasticsearch.indices.analysis.hanlp.HanLpSegmentPool;
+import org.elasticsearch.indices.analysis.hanlp.SegmentConfig;
+
+/**
+ * Same as {@link com.hankcs.lucene.HanLPAnalyzer}, but checks its segments out of the node {@link HanLpSegmentPool}
+ * instead of building a new one for every token stream components.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpAnalyzer extends Analyzer {
+
+    private final HanLpSegmentPool segmentPool;
+    private final SegmentConfig config;
+    private final HanLpAnalysisMetric metric = new HanLpAnalysisMetric();
+
+    public HanLpAnalyzer(HanLpSegmentPool segmentPool, SegmentConfig config) {
+        this.segmentPool = segmentPool;
+        this.config = config;
+    }
+
+    public SegmentConfig config() {
+        return config;
+    }
+
+    public HanLpAnalysisMetric metric() {
+        return metric;
+    }
+
+    @Override
+    protected TokenStreamComponents createComponents(String fieldName) {
+        return new TokenStreamComponents(new HanLpTokenizer(segmentPool.acquire(config), config,
+                                                            config.speechTagging(), metric));
+    }
+
+}
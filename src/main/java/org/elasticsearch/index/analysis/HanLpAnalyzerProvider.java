@@ -15,46 +15,39 @@
  */
 package org.elasticsearch.index.analysis;
 
-import static org.elasticsearch.indices.analysis.hanlp.Settings.*;
-
-import com.hankcs.lucene.HanLPAnalyzer;
-
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.assistedinject.Assisted;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.settings.IndexSettingsService;
+import org.elasticsearch.indices.analysis.hanlp.SegmentConfig;
 
 /**
  * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
  */
-public class HanLpAnalyzerProvider extends AbstractIndexAnalyzerProvider<HanLPAnalyzer> {
+public class HanLpAnalyzerProvider extends AbstractIndexAnalyzerProvider<HanLpAnalyzer> {
 
-    private final HanLPAnalyzer analyzer;
+    private final HanLpAnalyzer analyzer;
 
     @Inject
-    public HanLpAnalyzerProvider(Index index, IndexSettingsService indexSettingsService, @Assisted String name, @Assisted Settings settings) {
+    public HanLpAnalyzerProvider(Index index, IndexSettingsService indexSettingsService,
+                                 HanLpAnalyzerReferences analyzerReferences, @Assisted String name,
+                                 @Assisted Settings settings) {
+        this(index, indexSettingsService, analyzerReferences, name, settings, SegmentConfig.DEFAULT);
+    }
+
+    protected HanLpAnalyzerProvider(Index index, IndexSettingsService indexSettingsService,
+                                    HanLpAnalyzerReferences analyzerReferences, String name, Settings settings,
+                                    SegmentConfig defaults) {
         super(index, indexSettingsService.getSettings(), name, settings);
 
-        boolean indexMode = settings.getAsBoolean(INDEX_MODE, false);
-        boolean nameRecognize = settings.getAsBoolean(NAME_RECOGNIZE, true);
-        boolean translatedNameRecognize = settings.getAsBoolean(TRANSLATED_NAME_RECOGNIZE, true);
-        boolean japaneseNameRecognize = settings.getAsBoolean(JAPANESE_NAME_RECOGNIZE, false);
-        boolean placeRecognize = settings.getAsBoolean(PLACE_RECOGNIZE, false);
-        boolean organizationRecognize = settings.getAsBoolean(ORGANIZATION_RECOGNIZE, false);
-        boolean useCustomDictionary = settings.getAsBoolean(USE_CUSTOM_DICTIONARY, true); // enableCustomDictionary
-        boolean speechTagging = settings.getAsBoolean(SPEECH_TAGGING, false); // PorterStemming
-        boolean offset = settings.getAsBoolean(OFFSET, false);
-        boolean numberQuantifierRecognize = settings.getAsBoolean(NUMBER_QUANTIFIER_RECOGNIZE, false);
-        int threads = settings.getAsInt(THREADS, 1); // if more than 1, it means use multi-threading
-
-        analyzer = new HanLPAnalyzer(indexMode, nameRecognize, translatedNameRecognize, japaneseNameRecognize,
-                                     placeRecognize, organizationRecognize, useCustomDictionary, speechTagging, offset,
-                                     numberQuantifierRecognize, threads, null);
+        SegmentConfig config = SegmentConfig.parse(settings, "", defaults);
+        config = analyzerReferences.customDictionary(config, settings);
+        analyzer = analyzerReferences.acquire(config, name);
     }
 
     @Override
-    public HanLPAnalyzer get() {
+    public HanLpAnalyzer get() {
         return this.analyzer;
     }
 
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.index.analysis;
+
+import org.apache.lucene.analysis.synonym.SynonymMap;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.indices.analysis.hanlp.HanLpAnalyzerRegistry;
+import org.elasticsearch.indices.analysis.hanlp.HanLpIndexDictionaries;
+import org.elasticsearch.indices.analysis.hanlp.HanLpIndexDictionary;
+import org.elasticsearch.indices.analysis.hanlp.HanLpSynonyms;
+import org.elasticsearch.indices.analysis.hanlp.SegmentConfig;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.elasticsearch.indices.analysis.hanlp.Settings.CUSTOM_DICTIONARY;
+
+/**
+ * Index level holder of the analyzers, custom dictionaries and synonym maps an index acquired from the node
+ * {@link HanLpAnalyzerRegistry}, {@link HanLpIndexDictionaries} and {@link HanLpSynonyms}. They are released when the
+ * index is closed.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpAnalyzerReferences implements Closeable {
+
+    private final HanLpAnalyzerRegistry registry;
+    private final HanLpIndexDictionaries indexDictionaries;
+    private final HanLpSynonyms hanLpSynonyms;
+
+    private final List<Tuple<String, HanLpAnalyzer>> analyzers = new ArrayList<>();
+    private final List<HanLpIndexDictionary> dictionaries = new ArrayList<>();
+    private final List<SynonymMap> synonyms = new ArrayList<>();
+
+    @Inject
+    public HanLpAnalyzerReferences(HanLpAnalyzerRegistry registry, HanLpIndexDictionaries indexDictionaries,
+                                   HanLpSynonyms hanLpSynonyms) {
+        this.registry = registry;
+        this.indexDictionaries = indexDictionaries;
+        this.hanLpSynonyms = hanLpSynonyms;
+    }
+
+    /**
+     * Returns {@code config} with the {@code custom_dictionary} of an analyzer or tokenizer of the index, if it has
+     * one.
+     */
+    public synchronized SegmentConfig customDictionary(SegmentConfig config, Settings settings) {
+        String[] specs = settings.getAsArray(CUSTOM_DICTIONARY);
+        if (specs.length == 0) {
+            return config;
+        }
+        HanLpIndexDictionary dictionary = indexDictionaries.acquire(specs);
+        dictionaries.add(dictionary);
+        return config.withCustomDictionary(dictionary);
+    }
+
+    public synchronized SynonymMap synonyms(boolean core, String path, boolean expand) {
+        SynonymMap map = hanLpSynonyms.acquire(core, path, expand);
+        synonyms.add(map);
+        return map;
+    }
+
+    public synchronized HanLpAnalyzer acquire(SegmentConfig config, String name) {
+        HanLpAnalyzer analyzer = registry.acquire(config, name);
+        analyzers.add(new Tuple<>(name, analyzer));
+        return analyzer;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (Tuple<String, HanLpAnalyzer> analyzer : analyzers) {
+            registry.release(analyzer.v2(), analyzer.v1());
+        }
+        analyzers.clear();
+        // after the analyzers, whose configs use them
+        for (HanLpIndexDictionary dictionary : dictionaries) {
+            indexDictionaries.release(dictionary);
+        }
+        dictionaries.clear();
+        for (SynonymMap map : synonyms) {
+            hanLpSynonyms.release(map);
+        }
+        synonyms.clear();
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.index.analysis;
+
+import org.apache.lucene.analysis.TokenFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.util.ArrayUtil;
+import org.elasticsearch.indices.analysis.hanlp.ConversionTrie;
+
+import java.io.IOException;
+
+/**
+ * Replaces the longest keys of a conversion dictionary found in every term by their values, traditional by simplified
+ * Chinese for instance. Terms without any key are left untouched.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public final class HanLpConversionFilter extends TokenFilter {
+
+    private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
+
+    private final ConversionTrie.Matcher<String> matcher;
+
+    private char[] buffer = new char[16];
+
+    public HanLpConversionFilter(TokenStream input, ConversionTrie<String> trie) {
+        super(input);
+        this.matcher = trie.matcher();
+    }
+
+    @Override
+    public boolean incrementToken() throws IOException {
+        if (input.incrementToken() == false) {
+            return false;
+        }
+        char[] term = termAtt.buffer();
+        int length = termAtt.length();
+        boolean converted = false;
+        int converting = 0;
+        for (int i = 0; i < length; ) {
+            if (matcher.find(term, i, length)) {
+                String value = matcher.value();
+                buffer = ArrayUtil.grow(buffer, converting + value.length());
+                value.getChars(0, value.length(), buffer, converting);
+                converting += value.length();
+                i += matcher.length();
+                converted = true;
+            } else {
+                buffer = ArrayUtil.grow(buffer, converting + 1);
+                buffer[converting++] = term[i++];
+            }
+        }
+        if (converted) {
+            termAtt.copyBuffer(buffer, 0, converting);
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.index.analysis;
+
+import org.apache.lucene.analysis.CharFilter;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Maps every char read through a {@link org.elasticsearch.indices.analysis.hanlp.NormalizationTable}, in place. The
+ * mapping is one char to one char, so offsets need no correction.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public final class HanLpNormalizeCharFilter extends CharFilter {
+
+    private final char[] table;
+
+    public HanLpNormalizeCharFilter(Reader input, char[] table) {
+        super(input);
+        this.table = table;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        int read = input.read(cbuf, off, len);
+        for (int i = off, end = off + read; i < end; i++) {
+            cbuf[i] = table[cbuf[i]];
+        }
+        return read;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int c = input.read();
+        return c == -1 ? c : table[c];
+    }
+
+    @Override
+    protected int correct(int currentOff) {
+        return currentOff;
+    }
+
+}
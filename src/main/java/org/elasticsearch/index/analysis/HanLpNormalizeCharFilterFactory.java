@@ -0,0 +1,58 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.index.analysis;
+
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.assistedinject.Assisted;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.settings.IndexSettingsService;
+import org.elasticsearch.indices.analysis.hanlp.NormalizationTable;
+
+import java.io.Reader;
+
+import static org.elasticsearch.indices.analysis.hanlp.Settings.CHAR_TABLE;
+import static org.elasticsearch.indices.analysis.hanlp.Settings.HALF_WIDTH;
+import static org.elasticsearch.indices.analysis.hanlp.Settings.LOWERCASE;
+import static org.elasticsearch.indices.analysis.hanlp.Settings.TRADITIONAL;
+
+/**
+ * {@code hanlp_normalize} char filter: full width to half width, lower case and traditional to simplified Chinese
+ * chars by default, see {@link NormalizationTable}.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpNormalizeCharFilterFactory extends AbstractCharFilterFactory {
+
+    private final char[] table;
+
+    @Inject
+    public HanLpNormalizeCharFilterFactory(Index index, IndexSettingsService indexSettingsService,
+                                           @Assisted String name, @Assisted Settings settings) {
+        super(index, indexSettingsService.getSettings(), name);
+
+        this.table = NormalizationTable.get(settings.getAsBoolean(HALF_WIDTH, true),
+                                            settings.getAsBoolean(LOWERCASE, true),
+                                            settings.getAsBoolean(TRADITIONAL, true),
+                                            settings.getAsBoolean(CHAR_TABLE, false));
+    }
+
+    @Override
+    public Reader create(Reader tokenStream) {
+        return new HanLpNormalizeCharFilter(tokenStream, table);
+    }
+
+}
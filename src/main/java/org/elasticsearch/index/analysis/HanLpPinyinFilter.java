@@ -0,0 +1,173 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.index.analysis;
+
+import com.hankcs.hanlp.dictionary.py.Pinyin;
+
+import org.apache.lucene.analysis.TokenFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+import org.apache.lucene.util.ArrayUtil;
+import org.elasticsearch.indices.analysis.hanlp.ConversionTrie;
+
+import java.io.IOException;
+
+/**
+ * Converts the Chinese chars of every term to pinyin without tones, the full syllables ({@code 中国} to
+ * {@code zhongguo}) and/or their first letters ({@code zg}). Chars without pinyin are kept as they are. When more than
+ * one form is emitted, the original term included, they are stacked at the same position. Terms without Chinese chars
+ * are left untouched.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public final class HanLpPinyinFilter extends TokenFilter {
+
+    private static final int FULL = 1;
+    private static final int FIRST_LETTER = 1 << 1;
+
+    private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
+    private final PositionIncrementAttribute positionAtt = addAttribute(PositionIncrementAttribute.class);
+    private final OffsetAttribute offsetAtt = addAttribute(OffsetAttribute.class);
+    private final TypeAttribute typeAtt = addAttribute(TypeAttribute.class);
+
+    private final ConversionTrie.Matcher<Pinyin[]> matcher;
+    private final boolean full;
+    private final boolean firstLetter;
+    private final boolean keepOriginal;
+
+    private char[] fullBuffer = new char[32];
+    private int fullLength;
+    private char[] firstLetterBuffer = new char[16];
+    private int firstLetterLength;
+
+    // the forms of the current term left to emit, and the attributes they share
+    private int pending;
+    private int startOffset;
+    private int endOffset;
+    private String type;
+
+    public HanLpPinyinFilter(TokenStream input, ConversionTrie<Pinyin[]> trie, boolean full, boolean firstLetter,
+                             boolean keepOriginal) {
+        super(input);
+        this.matcher = trie.matcher();
+        this.full = full;
+        this.firstLetter = firstLetter;
+        this.keepOriginal = keepOriginal;
+    }
+
+    @Override
+    public boolean incrementToken() throws IOException {
+        if (pending != 0) {
+            // stacked on the previous form, the other attributes may have been changed by the consumer since
+            clearAttributes();
+            offsetAtt.setOffset(startOffset, endOffset);
+            typeAtt.setType(type);
+            positionAtt.setPositionIncrement(0);
+            emitPending();
+            return true;
+        }
+        if (input.incrementToken() == false) {
+            return false;
+        }
+        if (convert() == false) {
+            return true;
+        }
+        pending = (full ? FULL : 0) | (firstLetter && (full == false || sameForms() == false) ? FIRST_LETTER : 0);
+        if (keepOriginal == false) {
+            emitPending();
+        }
+        if (pending != 0) {
+            startOffset = offsetAtt.startOffset();
+            endOffset = offsetAtt.endOffset();
+            type = typeAtt.type();
+        }
+        return true;
+    }
+
+    @Override
+    public void reset() throws IOException {
+        super.reset();
+        pending = 0;
+    }
+
+    private void emitPending() {
+        if ((pending & FULL) != 0) {
+            termAtt.copyBuffer(fullBuffer, 0, fullLength);
+            pending &= ~FULL;
+        } else {
+            termAtt.copyBuffer(firstLetterBuffer, 0, firstLetterLength);
+            pending &= ~FIRST_LETTER;
+        }
+    }
+
+    /**
+     * Converts the term into both forms, returns whether it had any char with pinyin.
+     */
+    private boolean convert() {
+        char[] term = termAtt.buffer();
+        int length = termAtt.length();
+        boolean converted = false;
+        fullLength = 0;
+        firstLetterLength = 0;
+        for (int i = 0; i < length; ) {
+            if (matcher.find(term, i, length)) {
+                // one syllable per char, single chars list all their readings but the first is the common one
+                Pinyin[] pinyins = matcher.value();
+                for (int j = 0; j < matcher.length(); j++) {
+                    Pinyin pinyin = pinyins[j];
+                    if (pinyin == Pinyin.none5) {
+                        append(term[i + j]);
+                    } else {
+                        String syllable = pinyin.getPinyinWithoutTone();
+                        fullBuffer = ArrayUtil.grow(fullBuffer, fullLength + syllable.length());
+                        syllable.getChars(0, syllable.length(), fullBuffer, fullLength);
+                        fullLength += syllable.length();
+                        firstLetterBuffer = ArrayUtil.grow(firstLetterBuffer, firstLetterLength + 1);
+                        firstLetterBuffer[firstLetterLength++] = pinyin.getFirstChar();
+                        converted = true;
+                    }
+                }
+                i += matcher.length();
+            } else {
+                append(term[i++]);
+            }
+        }
+        return converted;
+    }
+
+    private void append(char c) {
+        fullBuffer = ArrayUtil.grow(fullBuffer, fullLength + 1);
+        fullBuffer[fullLength++] = c;
+        firstLetterBuffer = ArrayUtil.grow(firstLetterBuffer, firstLetterLength + 1);
+        firstLetterBuffer[firstLetterLength++] = c;
+    }
+
+    private boolean sameForms() {
+        if (fullLength != firstLetterLength) {
+            return false;
+        }
+        for (int i = 0; i < fullLength; i++) {
+            if (fullBuffer[i] != firstLetterBuffer[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
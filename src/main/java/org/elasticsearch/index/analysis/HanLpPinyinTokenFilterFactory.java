@@ -0,0 +1,67 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.index.analysis;
+
+import com.hankcs.hanlp.dictionary.py.Pinyin;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.assistedinject.Assisted;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.settings.IndexSettingsService;
+import org.elasticsearch.indices.analysis.hanlp.ConversionTrie;
+import org.elasticsearch.indices.analysis.hanlp.HanLpConversions;
+
+import static org.elasticsearch.indices.analysis.hanlp.Settings.FIRST_LETTER;
+import static org.elasticsearch.indices.analysis.hanlp.Settings.FULL;
+import static org.elasticsearch.indices.analysis.hanlp.Settings.KEEP_ORIGINAL;
+
+/**
+ * {@code hanlp_pinyin} token filter: converts terms to their full pinyin ({@code full}, the default), the first
+ * letters of their pinyin ({@code firstLetter}) or both, optionally keeping the original term ({@code keepOriginal}).
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpPinyinTokenFilterFactory extends AbstractTokenFilterFactory {
+
+    private final ConversionTrie<Pinyin[]> trie;
+    private final boolean full;
+    private final boolean firstLetter;
+    private final boolean keepOriginal;
+
+    @Inject
+    public HanLpPinyinTokenFilterFactory(Index index, IndexSettingsService indexSettingsService,
+                                         HanLpConversions conversions,
+                                         @Assisted String name, @Assisted Settings settings) {
+        super(index, indexSettingsService.getSettings(), name, settings);
+
+        this.full = settings.getAsBoolean(FULL, true);
+        this.firstLetter = settings.getAsBoolean(FIRST_LETTER, false);
+        this.keepOriginal = settings.getAsBoolean(KEEP_ORIGINAL, false);
+        if (full == false && firstLetter == false) {
+            throw new IllegalArgumentException("[" + FULL + "] or [" + FIRST_LETTER + "] must be enabled on [" + name
+                                               + "]");
+        }
+        this.trie = conversions.pinyin();
+    }
+
+    @Override
+    public TokenStream create(TokenStream tokenStream) {
+        return new HanLpPinyinFilter(tokenStream, trie, full, firstLetter, keepOriginal);
+    }
+
+}
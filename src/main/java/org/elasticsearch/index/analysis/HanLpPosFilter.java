@@ -0,0 +1,51 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.index.analysis;
+
+import com.hankcs.hanlp.corpus.tag.Nature;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.util.FilteringTokenFilter;
+
+import java.util.BitSet;
+
+/**
+ * Filters tokens by their {@link NatureAttribute}, checked against a bitset of nature ordinals: keeps only the tokens
+ * whose nature is in the set, or, when {@code exclude}, removes them. Tokens without nature are treated as having a
+ * nature outside of the set.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public final class HanLpPosFilter extends FilteringTokenFilter {
+
+    private final NatureAttribute natureAtt = addAttribute(NatureAttribute.class);
+
+    private final BitSet natures;
+    private final boolean exclude;
+
+    public HanLpPosFilter(TokenStream in, BitSet natures, boolean exclude) {
+        super(in);
+        this.natures = natures;
+        this.exclude = exclude;
+    }
+
+    @Override
+    protected boolean accept() {
+        Nature nature = natureAtt.nature();
+        return (nature != null && natures.get(nature.ordinal())) != exclude;
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.index.analysis;
+
+import com.hankcs.hanlp.corpus.tag.Nature;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.assistedinject.Assisted;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.settings.IndexSettingsService;
+
+import java.util.BitSet;
+
+import static org.elasticsearch.indices.analysis.hanlp.Settings.EXCLUDE;
+import static org.elasticsearch.indices.analysis.hanlp.Settings.INCLUDE;
+
+/**
+ * {@code hanlp_pos_filter} token filter: keeps the tokens tagged with one of the {@code include} natures, then removes
+ * the ones tagged with an {@code exclude} nature. A nature ending with {@code *} stands for all natures starting with
+ * it, {@code u*} for all particles for instance. Without {@code include} nor {@code exclude}, removes particles,
+ * punctuation, modal particles and interjections.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpPosTokenFilterFactory extends AbstractTokenFilterFactory {
+
+    public static final String[] DEFAULT_EXCLUDE = new String[]{"u*", "w*", "y*", "e*"};
+
+    private final BitSet natures;
+    private final boolean exclude;
+
+    @Inject
+    public HanLpPosTokenFilterFactory(Index index, IndexSettingsService indexSettingsService,
+                                      @Assisted String name, @Assisted Settings settings) {
+        super(index, indexSettingsService.getSettings(), name, settings);
+
+        String[] include = settings.getAsArray(INCLUDE, null);
+        String[] exclude = settings.getAsArray(EXCLUDE, null);
+        if (include == null && exclude == null) {
+            exclude = DEFAULT_EXCLUDE;
+        }
+        if (include == null) {
+            this.natures = natures(EXCLUDE, exclude);
+            this.exclude = true;
+        } else {
+            this.natures = natures(INCLUDE, include);
+            if (exclude != null) {
+                this.natures.andNot(natures(EXCLUDE, exclude));
+            }
+            this.exclude = false;
+        }
+    }
+
+    @Override
+    public TokenStream create(TokenStream tokenStream) {
+        return new HanLpPosFilter(tokenStream, natures, exclude);
+    }
+
+    /**
+     * Returns the ordinals of the natures matching {@code patterns}, the value of {@code setting}. A nature has to
+     * exist already, built into HanLP or added by a dictionary loaded before: creating one would modify HanLP's
+     * {@link Nature} enum for the whole JVM while other threads segment.
+     */
+    public static BitSet natures(String setting, String[] patterns) {
+        BitSet natures = new BitSet();
+        for (String pattern : patterns) {
+            if (pattern.endsWith("*")) {
+                String prefix = pattern.substring(0, pattern.length() - 1);
+                for (Nature nature : Nature.values()) {
+                    if (nature.startsWith(prefix)) {
+                        natures.set(nature.ordinal());
+                    }
+                }
+            } else {
+                Nature nature;
+                try {
+                    nature = Nature.valueOf(pattern);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("unknown nature [" + pattern + "] in [" + setting + "]", e);
+                }
+                natures.set(nature.ordinal());
+            }
+        }
+        return natures;
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.index.analysis;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.assistedinject.Assisted;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.settings.IndexSettingsService;
+import org.elasticsearch.indices.analysis.hanlp.ConversionTrie;
+import org.elasticsearch.indices.analysis.hanlp.HanLpConversions;
+
+/**
+ * {@code hanlp_s2t} token filter: converts terms from simplified Chinese to traditional Chinese.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpSimplifiedToTraditionalTokenFilterFactory extends AbstractTokenFilterFactory {
+
+    private final ConversionTrie<String> trie;
+
+    @Inject
+    public HanLpSimplifiedToTraditionalTokenFilterFactory(Index index, IndexSettingsService indexSettingsService,
+                                                          HanLpConversions conversions,
+                                                          @Assisted String name, @Assisted Settings settings) {
+        super(index, indexSettingsService.getSettings(), name, settings);
+
+        this.trie = conversions.simplifiedToTraditional();
+    }
+
+    @Override
+    public TokenStream create(TokenStream tokenStream) {
+        return new HanLpConversionFilter(tokenStream, trie);
+    }
+
+}
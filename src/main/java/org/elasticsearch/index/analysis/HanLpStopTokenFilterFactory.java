@@ -0,0 +1,71 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.index.analysis;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.core.StopFilter;
+import org.apache.lucene.analysis.util.CharArraySet;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.assistedinject.Assisted;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.env.Environment;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.settings.IndexSettingsService;
+import org.elasticsearch.indices.analysis.hanlp.HanLpStopWords;
+
+import java.util.List;
+
+import static org.elasticsearch.indices.analysis.hanlp.Settings.IGNORE_CASE;
+import static org.elasticsearch.indices.analysis.hanlp.Settings.STOPWORDS;
+
+/**
+ * {@code hanlp_stop} token filter: removes the words of HanLP's core stop word dictionary, or the ones listed in
+ * {@code stopwords} or read from {@code stopwords_path}. {@code _hanlp_} in the list stands for the core dictionary,
+ * {@code _none_} for no stop words.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpStopTokenFilterFactory extends AbstractTokenFilterFactory {
+
+    private final CharArraySet stopWords;
+
+    @Inject
+    public HanLpStopTokenFilterFactory(Index index, IndexSettingsService indexSettingsService, Environment env,
+                                       HanLpStopWords hanLpStopWords,
+                                       @Assisted String name, @Assisted Settings settings) {
+        super(index, indexSettingsService.getSettings(), name, settings);
+
+        boolean ignoreCase = settings.getAsBoolean(IGNORE_CASE, false);
+        List<String> words = Analysis.getWordList(env, settings, STOPWORDS);
+        if (words == null) {
+            this.stopWords = hanLpStopWords.defaultStopWords(ignoreCase);
+        } else if (words.size() == 1 && HanLpStopWords.NONE.equals(words.get(0))) {
+            this.stopWords = CharArraySet.EMPTY_SET;
+        } else {
+            this.stopWords = hanLpStopWords.stopWords(words, ignoreCase);
+        }
+    }
+
+    @Override
+    public TokenStream create(TokenStream tokenStream) {
+        return new StopFilter(tokenStream, stopWords);
+    }
+
+    public CharArraySet stopWords() {
+        return stopWords;
+    }
+
+}
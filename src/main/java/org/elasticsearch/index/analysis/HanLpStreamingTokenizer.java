@@ -0,0 +1,206 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.index.analysis;
+
+import com.hankcs.hanlp.seg.Segment;
+
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+import org.elasticsearch.indices.analysis.hanlp.BudgetedSegment;
+import org.elasticsearch.indices.analysis.hanlp.HanLpAnalysisMetric;
+import org.elasticsearch.indices.analysis.hanlp.MeteredSegment;
+import org.elasticsearch.indices.analysis.hanlp.SegmentBudget;
+import org.elasticsearch.indices.analysis.hanlp.SegmentConfig;
+import org.elasticsearch.indices.analysis.hanlp.TextBoundaries;
+
+import java.io.IOException;
+
+/**
+ * Tokenizer reading its input in chunks of at most {@code maxChunkLength} chars and segmenting one chunk at a time,
+ * so its memory stays bounded however long the text is. {@link com.hankcs.lucene.HanLPTokenizer} segments a whole
+ * line at once instead, which for a text without line breaks means the whole text and a lattice as large.
+ * <p>
+ * A chunk ends after the last sentence delimiter in the buffer. Without one it ends at the last whitespace,
+ * punctuation or change between Han and other characters, and only a run of {@code maxChunkLength} Han characters is
+ * cut in the middle, where a word may be split. Each line of a chunk is segmented on its own and its terms become
+ * tokens through the same {@link HanLpTermEmitter} as the ones of {@link HanLpTokenizer}, so a text whose lines fit
+ * in a chunk is tokenized the same by both. Offsets are relative to the whole input.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public final class HanLpStreamingTokenizer extends Tokenizer {
+
+    public static final int DEFAULT_MAX_CHUNK_LENGTH = 4096;
+
+    private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
+    private final OffsetAttribute offsetAtt = addAttribute(OffsetAttribute.class);
+    private final PositionIncrementAttribute positionAtt = addAttribute(PositionIncrementAttribute.class);
+    private final TypeAttribute typeAtt = addAttribute(TypeAttribute.class);
+    private final NatureAttribute natureAtt = addAttribute(NatureAttribute.class);
+
+    private final MeteredSegment meteredSegment;
+    private final BudgetedSegment budgetedSegment;
+    private final HanLpTermEmitter emitter;
+
+    private final char[] buffer;
+    private int length;
+    private boolean exhausted;
+
+    private int chunkOffset;
+    private int chunkLength;
+    // where the next line of the chunk starts in the buffer
+    private int lineStart;
+
+    public HanLpStreamingTokenizer(Segment segment, SegmentConfig config, boolean porterStemming, int maxChunkLength) {
+        this(segment, config, porterStemming, maxChunkLength, null);
+    }
+
+    /**
+     * @param metric where to record the documents tokenized, {@code null} not to record them
+     */
+    public HanLpStreamingTokenizer(Segment segment, SegmentConfig config, boolean porterStemming, int maxChunkLength,
+                                   HanLpAnalysisMetric metric) {
+        this(segment, config, porterStemming, maxChunkLength, metric, SegmentBudget.UNLIMITED, null);
+    }
+
+    /**
+     * @param metric   where to record the documents tokenized and the fallbacks, {@code null} not to record them
+     * @param budget   how much of {@code segment} a document may use
+     * @param fallback segments the chunks exceeding {@code budget}, {@code null} if it is unlimited
+     */
+    public HanLpStreamingTokenizer(Segment segment, SegmentConfig config, boolean porterStemming, int maxChunkLength,
+                                   HanLpAnalysisMetric metric, SegmentBudget budget, Segment fallback) {
+        if (maxChunkLength < 2) {
+            throw new IllegalArgumentException("max chunk length must be at least 2, got [" + maxChunkLength + "]");
+        }
+        this.budgetedSegment = budget.limited() ? new BudgetedSegment(segment, fallback, config, budget, metric) : null;
+        Segment budgeted = budgetedSegment == null ? segment : budgetedSegment;
+        this.meteredSegment = metric == null ? null : new MeteredSegment(budgeted, metric);
+        this.emitter = new HanLpTermEmitter(meteredSegment == null ? budgeted : meteredSegment, config, porterStemming,
+                termAtt, positionAtt, typeAtt, natureAtt);
+        this.buffer = new char[maxChunkLength];
+    }
+
+    @Override
+    public boolean incrementToken() throws IOException {
+        clearAttributes();
+        while (emitter.next() == false) {
+            if (nextLine() == false) {
+                return false;
+            }
+        }
+        offsetAtt.setOffset(correctOffset(emitter.startOffset()), correctOffset(emitter.endOffset()));
+        return true;
+    }
+
+    /**
+     * Segments the next non empty line of the chunk, or of the next chunk once it is done, returns {@code false} at
+     * the end of the input.
+     */
+    private boolean nextLine() throws IOException {
+        while (true) {
+            while (lineStart == chunkLength) {
+                if (nextChunk() == false) {
+                    return false;
+                }
+            }
+            int start = lineStart;
+            int end = start;
+            while (end < chunkLength && buffer[end] != '\n') {
+                end++;
+            }
+            lineStart = end < chunkLength ? end + 1 : end;
+            if (end > start) {
+                emitter.segment(buffer, start, end, chunkOffset + start);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Reads the next chunk of the input, returns {@code false} at the end of the input.
+     */
+    private boolean nextChunk() throws IOException {
+        // drop the chunk segmented last, keep what was read past it
+        chunkOffset += chunkLength;
+        length -= chunkLength;
+        System.arraycopy(buffer, chunkLength, buffer, 0, length);
+
+        while (exhausted == false && length < buffer.length) {
+            int read = input.read(buffer, length, buffer.length - length);
+            if (read == -1) {
+                exhausted = true;
+            } else {
+                length += read;
+            }
+        }
+        if (length == 0) {
+            chunkLength = 0;
+            return false;
+        }
+        chunkLength = exhausted ? length : cut(buffer, length);
+        lineStart = 0;
+        return true;
+    }
+
+    /**
+     * Returns where to end the chunk of the full {@code buffer}.
+     */
+    static int cut(char[] buffer, int length) {
+        for (int i = length - 1; i > 0; i--) {
+            if (TextBoundaries.isSentenceDelimiter(buffer[i])) {
+                return i + 1;
+            }
+        }
+        for (int i = length - 1; i > 0; i--) {
+            if (TextBoundaries.isBoundary(buffer[i - 1], buffer[i])) {
+                return i;
+            }
+        }
+        return Character.isHighSurrogate(buffer[length - 1]) ? length - 1 : length;
+    }
+
+    @Override
+    public void end() throws IOException {
+        super.end();
+        int finalOffset = correctOffset(chunkOffset + chunkLength);
+        offsetAtt.setOffset(finalOffset, finalOffset);
+        if (meteredSegment != null) {
+            meteredSegment.finish();
+        }
+    }
+
+    @Override
+    public void reset() throws IOException {
+        super.reset();
+        if (meteredSegment != null) {
+            meteredSegment.clear();
+        }
+        if (budgetedSegment != null) {
+            budgetedSegment.reset();
+        }
+        length = 0;
+        exhausted = false;
+        chunkOffset = 0;
+        chunkLength = 0;
+        lineStart = 0;
+        emitter.reset();
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.index.analysis;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.synonym.SynonymFilter;
+import org.apache.lucene.analysis.synonym.SynonymMap;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.assistedinject.Assisted;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.settings.IndexSettingsService;
+import org.elasticsearch.indices.analysis.hanlp.HanLpSynonyms;
+
+import static org.elasticsearch.indices.analysis.hanlp.Settings.CORE;
+import static org.elasticsearch.indices.analysis.hanlp.Settings.EXPAND;
+import static org.elasticsearch.indices.analysis.hanlp.Settings.SYNONYMS_PATH;
+
+/**
+ * {@code hanlp_synonym} token filter: expands terms with their synonyms of HanLP's synonym dictionary ({@code core},
+ * {@code true} by default) and/or the ones of a Solr synonyms file ({@code synonyms_path}), see {@link HanLpSynonyms}.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpSynonymTokenFilterFactory extends AbstractTokenFilterFactory {
+
+    private final SynonymMap synonyms;
+
+    @Inject
+    public HanLpSynonymTokenFilterFactory(Index index, IndexSettingsService indexSettingsService,
+                                          HanLpAnalyzerReferences analyzerReferences,
+                                          @Assisted String name, @Assisted Settings settings) {
+        super(index, indexSettingsService.getSettings(), name, settings);
+
+        boolean core = settings.getAsBoolean(CORE, true);
+        String path = settings.get(SYNONYMS_PATH);
+        if (core == false && path == null) {
+            throw new IllegalArgumentException("[" + SYNONYMS_PATH + "] is required on [" + name + "] without ["
+                                               + CORE + "] synonyms");
+        }
+        this.synonyms = analyzerReferences.synonyms(core, path, settings.getAsBoolean(EXPAND, true));
+    }
+
+    @Override
+    public TokenStream create(TokenStream tokenStream) {
+        // an empty map has no fst
+        return synonyms.fst == null ? tokenStream : new SynonymFilter(tokenStream, synonyms, false);
+    }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.index.analysis;
+
+import com.hankcs.hanlp.corpus.tag.Nature;
+import com.hankcs.hanlp.seg.Segment;
+import com.hankcs.hanlp.seg.common.Term;
+
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+import org.elasticsearch.indices.analysis.hanlp.HanLpCustomDictionary;
+import org.elasticsearch.indices.analysis.hanlp.SegmentConfig;
+import org.tartarus.snowball.ext.PorterStemmer;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * Turns the terms a line is segmented into into tokens, for {@link HanLpTokenizer} and
+ * {@link HanLpStreamingTokenizer} alike. Blank terms are skipped, and every other term is copied straight from the
+ * segmented line, as the segment normalized it, into the term attribute and stemmed in place, without creating
+ * strings.
+ * <p>
+ * Offsets are the offset of the line plus the lengths of the terms before, or {@code Term.offset} when the terms of
+ * the config overlap, see {@link SegmentConfig#termOffsets()}. The tokenizer corrects them for its char filters.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+final class HanLpTermEmitter {
+
+    private final Segment segment;
+    private final boolean termOffsets;
+    private final PorterStemmer stemmer;
+
+    private final CharTermAttribute termAtt;
+    private final PositionIncrementAttribute positionAtt;
+    private final TypeAttribute typeAtt;
+    private final NatureAttribute natureAtt;
+
+    private char[] line;
+    private int lineOffset;
+    private Iterator<Term> terms = Collections.emptyIterator();
+    private int cursor;
+
+    private int startOffset;
+    private int endOffset;
+
+    HanLpTermEmitter(Segment segment, SegmentConfig config, boolean porterStemming, CharTermAttribute termAtt,
+                     PositionIncrementAttribute positionAtt, TypeAttribute typeAtt, NatureAttribute natureAtt) {
+        this.segment = segment;
+        this.termOffsets = config.termOffsets();
+        this.stemmer = porterStemming ? new PorterStemmer() : null;
+        this.termAtt = termAtt;
+        this.positionAtt = positionAtt;
+        this.typeAtt = typeAtt;
+        this.natureAtt = natureAtt;
+    }
+
+    /**
+     * Segments the chars of {@code text} from {@code start} to {@code end}, a line starting at {@code offset} of the
+     * input.
+     */
+    void segment(char[] text, int start, int end, int offset) {
+        // HanLP segments the whole array and may normalize it in place, so it gets its own copy
+        line = Arrays.copyOfRange(text, start, end);
+        lineOffset = offset;
+        terms = segment.seg(line).iterator();
+        cursor = 0;
+    }
+
+    /**
+     * Sets the term, position increment, type and nature of the next term of the line that isn't blank, returns
+     * {@code false} if there is none left.
+     */
+    boolean next() {
+        Term term;
+        int start;
+        int length;
+        do {
+            if (terms.hasNext() == false) {
+                return false;
+            }
+            term = terms.next();
+            length = term.length();
+            start = termOffsets ? term.offset : cursor;
+            cursor += length;
+        } while (isBlank(line, start, length));
+
+        termAtt.copyBuffer(line, start, length);
+        if (stemmer != null && term.nature == Nature.nx) {
+            // stems the term buffer in place, like SnowballFilter
+            char[] termBuffer = termAtt.buffer();
+            stemmer.setCurrent(termBuffer, length);
+            stemmer.stem();
+            char[] stemmed = stemmer.getCurrentBuffer();
+            if (stemmed == termBuffer) {
+                termAtt.setLength(stemmer.getCurrentBufferLength());
+            } else {
+                termAtt.copyBuffer(stemmed, 0, stemmer.getCurrentBufferLength());
+            }
+        }
+        positionAtt.setPositionIncrement(1);
+        typeAtt.setType(term.nature == null ? "null" : term.nature.toString());
+        natureAtt.setNature(term.nature);
+        startOffset = lineOffset + start;
+        endOffset = startOffset + length;
+        return true;
+    }
+
+    /**
+     * Offset in the input of the first char of the term {@link #next()} set, before char filters.
+     */
+    int startOffset() {
+        return startOffset;
+    }
+
+    /**
+     * Offset in the input after the last char of the term {@link #next()} set, before char filters.
+     */
+    int endOffset() {
+        return endOffset;
+    }
+
+    void reset() {
+        // a document starts, it segments with the last custom dictionary reloaded
+        HanLpCustomDictionary.sync();
+        line = null;
+        lineOffset = 0;
+        terms = Collections.emptyIterator();
+        cursor = 0;
+    }
+
+    private static boolean isBlank(char[] text, int start, int length) {
+        // what String.trim() removes
+        for (int i = start; i < start + length; i++) {
+            if (text[i] > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.index.analysis;
+
+import com.hankcs.hanlp.seg.Segment;
+
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+import org.apache.lucene.util.ArrayUtil;
+import org.elasticsearch.indices.analysis.hanlp.BudgetedSegment;
+import org.elasticsearch.indices.analysis.hanlp.HanLpAnalysisMetric;
+import org.elasticsearch.indices.analysis.hanlp.MeteredSegment;
+import org.elasticsearch.indices.analysis.hanlp.SegmentBudget;
+import org.elasticsearch.indices.analysis.hanlp.SegmentConfig;
+
+import java.io.IOException;
+
+/**
+ * Tokenizer behind {@code hanlp_tokenizer} and the {@code hanlp} analyzer, segmenting its input one line at a time
+ * like {@link com.hankcs.lucene.HanLPTokenizer} and emitting the same tokens, but with less garbage: the input is read
+ * into a reused buffer instead of a {@link java.util.Scanner} and a {@code String} per line, and every token is copied
+ * straight from the segmented line into the term attribute, stemmed in place and checked for blanks without creating
+ * strings, by a {@link HanLpTermEmitter} shared with {@link HanLpStreamingTokenizer}. The terms themselves are built
+ * by HanLP, which has no API to segment without them. Terms are copied from the line as the segment left it, which
+ * with {@code HanLP.Config.Normalization} is normalized in place, so the segments of the plugin (cached, memoized or
+ * parallel) all leave the array normalized like a plain segment does.
+ * <p>
+ * Offsets are relative to the whole input, line breaks included: where the line starts plus the lengths of the terms
+ * before it, which spell the line char for char even when HanLP normalizes it. They don't depend on HanLP filling in
+ * {@code Term.offset}, unlike the ones of {@link com.hankcs.lucene.HanLPTokenizer}, so its {@code offset} option is
+ * never enabled. Only the overlapping terms of the index mode read {@code Term.offset}, which it fills in anyway.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public final class HanLpTokenizer extends Tokenizer {
+
+    static final int INITIAL_BUFFER_SIZE = 1024;
+
+    private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
+    private final OffsetAttribute offsetAtt = addAttribute(OffsetAttribute.class);
+    private final PositionIncrementAttribute positionAtt = addAttribute(PositionIncrementAttribute.class);
+    private final TypeAttribute typeAtt = addAttribute(TypeAttribute.class);
+    private final NatureAttribute natureAtt = addAttribute(NatureAttribute.class);
+
+    private final MeteredSegment meteredSegment;
+    private final BudgetedSegment budgetedSegment;
+    private final HanLpTermEmitter emitter;
+
+    // chars read from the input, from bufferStart to bufferEnd not segmented yet
+    private char[] buffer = new char[INITIAL_BUFFER_SIZE];
+    private int bufferStart;
+    private int bufferEnd;
+    // offset in the input of buffer[0]
+    private int bufferOffset;
+    private boolean exhausted;
+
+    public HanLpTokenizer(Segment segment, SegmentConfig config, boolean porterStemming) {
+        this(segment, config, porterStemming, null);
+    }
+
+    /**
+     * @param metric where to record the documents tokenized, {@code null} not to record them
+     */
+    public HanLpTokenizer(Segment segment, SegmentConfig config, boolean porterStemming, HanLpAnalysisMetric metric) {
+        this(segment, config, porterStemming, metric, SegmentBudget.UNLIMITED, null);
+    }
+
+    /**
+     * @param metric   where to record the documents tokenized and the fallbacks, {@code null} not to record them
+     * @param budget   how much of {@code segment} a document may use
+     * @param fallback segments the lines exceeding {@code budget}, {@code null} if it is unlimited
+     */
+    public HanLpTokenizer(Segment segment, SegmentConfig config, boolean porterStemming, HanLpAnalysisMetric metric,
+                          SegmentBudget budget, Segment fallback) {
+        this.budgetedSegment = budget.limited() ? new BudgetedSegment(segment, fallback, config, budget, metric) : null;
+        Segment budgeted = budgetedSegment == null ? segment : budgetedSegment;
+        this.meteredSegment = metric == null ? null : new MeteredSegment(budgeted, metric);
+        this.emitter = new HanLpTermEmitter(meteredSegment == null ? budgeted : meteredSegment, config, porterStemming,
+                termAtt, positionAtt, typeAtt, natureAtt);
+    }
+
+    @Override
+    public boolean incrementToken() throws IOException {
+        clearAttributes();
+        while (emitter.next() == false) {
+            if (nextLine() == false) {
+                return false;
+            }
+        }
+        offsetAtt.setOffset(correctOffset(emitter.startOffset()), correctOffset(emitter.endOffset()));
+        return true;
+    }
+
+    /**
+     * Segments the next non empty line of the input, returns {@code false} at the end of the input.
+     */
+    private boolean nextLine() throws IOException {
+        while (true) {
+            int end = indexOfLineBreak(bufferStart);
+            while (end == -1 && exhausted == false) {
+                // relative to bufferStart, which fill() may move
+                int scanned = bufferEnd - bufferStart;
+                fill();
+                end = indexOfLineBreak(bufferStart + scanned);
+            }
+            if (end == -1) {
+                if (bufferStart == bufferEnd) {
+                    return false;
+                }
+                // last line, without line break
+                end = bufferEnd;
+            }
+            int start = bufferStart;
+            bufferStart = end < bufferEnd ? end + 1 : end;
+            if (end > start) {
+                emitter.segment(buffer, start, end, bufferOffset + start);
+                return true;
+            }
+        }
+    }
+
+    private int indexOfLineBreak(int from) {
+        for (int i = from; i < bufferEnd; i++) {
+            if (buffer[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads more of the input after what isn't segmented yet, moving it to the start of the buffer first.
+     */
+    private void fill() throws IOException {
+        if (bufferStart > 0) {
+            System.arraycopy(buffer, bufferStart, buffer, 0, bufferEnd - bufferStart);
+            bufferOffset += bufferStart;
+            bufferEnd -= bufferStart;
+            bufferStart = 0;
+        }
+        if (bufferEnd == buffer.length) {
+            buffer = ArrayUtil.grow(buffer, buffer.length + 1);
+        }
+        int read = input.read(buffer, bufferEnd, buffer.length - bufferEnd);
+        if (read == -1) {
+            exhausted = true;
+        } else {
+            bufferEnd += read;
+        }
+    }
+
+    @Override
+    public void end() throws IOException {
+        super.end();
+        int finalOffset = correctOffset(bufferOffset + bufferEnd);
+        offsetAtt.setOffset(finalOffset, finalOffset);
+        if (meteredSegment != null) {
+            meteredSegment.finish();
+        }
+    }
+
+    @Override
+    public void reset() throws IOException {
+        super.reset();
+        if (meteredSegment != null) {
+            meteredSegment.clear();
+        }
+        if (budgetedSegment != null) {
+            budgetedSegment.reset();
+        }
+        if (buffer.length > INITIAL_BUFFER_SIZE) {
+            // don't hold on to the buffer of an unusually long line
+            buffer = new char[INITIAL_BUFFER_SIZE];
+        }
+        bufferStart = 0;
+        bufferEnd = 0;
+        bufferOffset = 0;
+        exhausted = false;
+        emitter.reset();
+    }
+
+}
@@ -15,10 +15,7 @@
  */
 package org.elasticsearch.index.analysis;
 
-import static org.elasticsearch.indices.analysis.hanlp.Settings.*;
-
-import com.hankcs.hanlp.HanLP;
-import com.hankcs.lucene.HanLPTokenizer;
+import com.hankcs.hanlp.seg.Segment;
 
 import org.apache.lucene.analysis.Tokenizer;
 import org.elasticsearch.common.inject.Inject;
@@ -26,54 +23,59 @@ import org.elasticsearch.common.inject.assistedinject.Assisted;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.settings.IndexSettingsService;
+import org.elasticsearch.indices.analysis.hanlp.HanLpAnalysisMetric;
+import org.elasticsearch.indices.analysis.hanlp.HanLpAnalysisMetrics;
+import org.elasticsearch.indices.analysis.hanlp.HanLpSegmentPool;
+import org.elasticsearch.indices.analysis.hanlp.SegmentBudget;
+import org.elasticsearch.indices.analysis.hanlp.SegmentConfig;
+
+import static org.elasticsearch.indices.analysis.hanlp.Settings.MAX_CHUNK_LENGTH;
+import static org.elasticsearch.indices.analysis.hanlp.Settings.STREAMING;
 
 /**
  * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
  */
 public class HanLpTokenizerTokenizerFactory extends AbstractTokenizerFactory {
 
-    private boolean indexMode = false;
-    private boolean nameRecognize = true;
-    private boolean translatedNameRecognize = true;
-    private boolean japaneseNameRecognize = false;
-    private boolean placeRecognize = false;
-    private boolean organizationRecognize = false;
-    private boolean useCustomDictionary = true;
-    private boolean speechTagging = false;
-    private boolean offset = false;
-    private boolean numberQuantifierRecognize = false;
-    private int threads = 1;
+    private final HanLpSegmentPool segmentPool;
+    private final SegmentConfig config;
+    private final boolean streaming;
+    private final int maxChunkLength;
+    private final SegmentBudget budget;
+    private final HanLpAnalysisMetric metric;
 
     @Inject
-    public HanLpTokenizerTokenizerFactory(Index index, IndexSettingsService indexSettingsService, @Assisted String name, @Assisted Settings settings) {
+    public HanLpTokenizerTokenizerFactory(Index index, IndexSettingsService indexSettingsService,
+                                          HanLpSegmentPool segmentPool, HanLpAnalysisMetrics metrics,
+                                          HanLpAnalyzerReferences analyzerReferences,
+                                          @Assisted String name,
+                                          @Assisted Settings settings) {
+        this(index, indexSettingsService, segmentPool, metrics, analyzerReferences, name, settings,
+             SegmentConfig.DEFAULT);
+    }
+
+    protected HanLpTokenizerTokenizerFactory(Index index, IndexSettingsService indexSettingsService,
+                                             HanLpSegmentPool segmentPool, HanLpAnalysisMetrics metrics,
+                                             HanLpAnalyzerReferences analyzerReferences, String name,
+                                             Settings settings, SegmentConfig defaults) {
         super(index, indexSettingsService.getSettings(), name, settings);
 
-        indexMode = settings.getAsBoolean(INDEX_MODE, indexMode);
-        nameRecognize = settings.getAsBoolean(NAME_RECOGNIZE, nameRecognize);
-        translatedNameRecognize = settings.getAsBoolean(TRANSLATED_NAME_RECOGNIZE, translatedNameRecognize);
-        japaneseNameRecognize = settings.getAsBoolean(JAPANESE_NAME_RECOGNIZE, japaneseNameRecognize);
-        placeRecognize = settings.getAsBoolean(PLACE_RECOGNIZE, placeRecognize);
-        organizationRecognize = settings.getAsBoolean(ORGANIZATION_RECOGNIZE, organizationRecognize);
-        useCustomDictionary = settings.getAsBoolean(USE_CUSTOM_DICTIONARY, useCustomDictionary); // enableCustomDictionary
-        speechTagging = settings.getAsBoolean(SPEECH_TAGGING, speechTagging); // PorterStemming
-        offset = settings.getAsBoolean(OFFSET, offset);
-        numberQuantifierRecognize = settings.getAsBoolean(NUMBER_QUANTIFIER_RECOGNIZE, numberQuantifierRecognize);
-        threads = settings.getAsInt(THREADS, threads); // if more than 1, it means use multi-threading
+        this.segmentPool = segmentPool;
+        this.config = analyzerReferences.customDictionary(SegmentConfig.parse(settings, "", defaults), settings);
+        this.streaming = settings.getAsBoolean(STREAMING, false);
+        this.maxChunkLength = settings.getAsInt(MAX_CHUNK_LENGTH, HanLpStreamingTokenizer.DEFAULT_MAX_CHUNK_LENGTH);
+        this.budget = SegmentBudget.parse(settings, "");
+        this.metric = metrics.tokenizer(name);
     }
 
     @Override
     public Tokenizer create() {
-        return new HanLPTokenizer(HanLP.newSegment()
-                                       .enableIndexMode(indexMode)
-                                       .enableNameRecognize(nameRecognize)
-                                       .enableTranslatedNameRecognize(translatedNameRecognize)
-                                       .enableJapaneseNameRecognize(japaneseNameRecognize)
-                                       .enablePlaceRecognize(placeRecognize)
-                                       .enableOrganizationRecognize(organizationRecognize)
-                                       .enableCustomDictionary(useCustomDictionary)
-                                       .enablePartOfSpeechTagging(speechTagging)
-                                       .enableOffset(offset)
-                                       .enableNumberQuantifierRecognize(numberQuantifierRecognize)
-                                       .enableMultithreading(threads), null, speechTagging);
+        Segment fallback = budget.limited() ? segmentPool.acquire(config.fallback()) : null;
+        if (streaming) {
+            return new HanLpStreamingTokenizer(segmentPool.acquire(config), config, config.speechTagging(),
+                                               maxChunkLength, metric, budget, fallback);
+        }
+        return new HanLpTokenizer(segmentPool.acquire(config), config, config.speechTagging(), metric, budget,
+                                  fallback);
     }
 }
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.index.analysis;
+
+import com.hankcs.hanlp.corpus.tag.Nature;
+
+import org.apache.lucene.util.Attribute;
+
+/**
+ * The part of speech HanLP tagged the token with, the same as its type but usable without parsing it back. {@code null}
+ * if the token wasn't produced by a HanLP tokenizer.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public interface NatureAttribute extends Attribute {
+
+    Nature nature();
+
+    void setNature(Nature nature);
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.index.analysis;
+
+import com.hankcs.hanlp.corpus.tag.Nature;
+
+import org.apache.lucene.util.AttributeImpl;
+import org.apache.lucene.util.AttributeReflector;
+
+/**
+ * Default implementation of {@link NatureAttribute}.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class NatureAttributeImpl extends AttributeImpl implements NatureAttribute, Cloneable {
+
+    private Nature nature;
+
+    @Override
+    public Nature nature() {
+        return nature;
+    }
+
+    @Override
+    public void setNature(Nature nature) {
+        this.nature = nature;
+    }
+
+    @Override
+    public void clear() {
+        nature = null;
+    }
+
+    @Override
+    public void copyTo(AttributeImpl target) {
+        ((NatureAttribute) target).setNature(nature);
+    }
+
+    @Override
+    public void reflectWith(AttributeReflector reflector) {
+        reflector.reflect(NatureAttribute.class, "nature", nature);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        return other instanceof NatureAttributeImpl && ((NatureAttributeImpl) other).nature == nature;
+    }
+
+    @Override
+    public int hashCode() {
+        return nature == null ? 0 : nature.hashCode();
+    }
+
+}
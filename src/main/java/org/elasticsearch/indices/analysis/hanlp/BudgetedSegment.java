@@ -0,0 +1,103 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.seg.Segment;
+import com.hankcs.hanlp.seg.common.Term;
+
+import java.util.List;
+
+/**
+ * Segment falling back to a cheap one, usually longest dictionary match (see {@link SegmentConfig#fallback()}), for
+ * the lines exceeding a {@link SegmentBudget}: lines that are too long, and every line of a document once its time
+ * budget is spent. A line that is being segmented can't be interrupted, so a document takes at most its time budget
+ * plus the time of one line of at most the max length.
+ * <p>
+ * Meant for a single tokenizer, so a single thread, which calls {@link #reset()} at the start of every document.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public final class BudgetedSegment extends Segment {
+
+    private final Segment segment;
+    private final Segment fallback;
+    private final SegmentBudget budget;
+    private final boolean termOffsets;
+    private final HanLpAnalysisMetric metric;
+
+    private long spent;
+
+    /**
+     * @param config the config of {@code segment}
+     * @param metric where to count the fallbacks, {@code null} not to count them
+     */
+    public BudgetedSegment(Segment segment, Segment fallback, SegmentConfig config, SegmentBudget budget,
+                           HanLpAnalysisMetric metric) {
+        this.segment = segment;
+        this.fallback = fallback;
+        this.budget = budget;
+        this.termOffsets = config.termOffsets();
+        this.metric = metric;
+    }
+
+    @Override
+    public List<Term> seg(String text) {
+        return seg(text.toCharArray());
+    }
+
+    @Override
+    public List<Term> seg(char[] text) {
+        if (budget.exceeded(text.length, spent)) {
+            if (metric != null) {
+                metric.fallback();
+            }
+            List<Term> terms = fallback.seg(text);
+            if (termOffsets) {
+                // the tokenizer reads the offsets HanLP fills in for segment, the fallback leaves them out
+                int offset = 0;
+                for (Term term : terms) {
+                    term.offset = offset;
+                    offset += term.length();
+                }
+            }
+            return terms;
+        }
+        long start = System.nanoTime();
+        try {
+            return segment.seg(text);
+        } finally {
+            spent += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public List<List<Term>> seg2sentence(String text) {
+        return segment.seg2sentence(text);
+    }
+
+    @Override
+    protected List<Term> segSentence(char[] sentence) {
+        return segment.seg(sentence);
+    }
+
+    /**
+     * Starts over with the whole time budget, for the next document.
+     */
+    public void reset() {
+        spent = 0;
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.seg.Segment;
+import com.hankcs.hanlp.seg.common.Term;
+
+import java.util.List;
+
+/**
+ * Segment looking texts up in the {@link HanLpSegmentCache} before segmenting them with the wrapped segment.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+class CachingSegment extends Segment {
+
+    private final HanLpSegmentCache cache;
+    private final SegmentConfig config;
+    private final Segment segment;
+
+    CachingSegment(HanLpSegmentCache cache, SegmentConfig config, Segment segment) {
+        this.cache = cache;
+        this.config = config;
+        this.segment = segment;
+    }
+
+    @Override
+    public List<Term> seg(String text) {
+        if (text.length() > cache.maxTextLength()) {
+            return segment.seg(text);
+        }
+        List<Term> terms = cache.get(config, text, null);
+        if (terms == null) {
+            terms = segment.seg(text);
+            cache.put(config, text, null, terms);
+        }
+        return terms;
+    }
+
+    @Override
+    public List<Term> seg(char[] text) {
+        if (text.length > cache.maxTextLength()) {
+            return segment.seg(text);
+        }
+        // the key is taken before the segment may normalize the text in place, which a hit does too
+        String key = new String(text);
+        List<Term> terms = cache.get(config, key, text);
+        if (terms == null) {
+            terms = segment.seg(text);
+            cache.put(config, key, text, terms);
+        }
+        return terms;
+    }
+
+    @Override
+    public List<List<Term>> seg2sentence(String text) {
+        return segment.seg2sentence(text);
+    }
+
+    @Override
+    protected List<Term> segSentence(char[] sentence) {
+        return segment.seg(sentence);
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.collection.AhoCorasick.AhoCorasickDoubleArrayTrie;
+import com.hankcs.hanlp.corpus.io.ByteArray;
+import com.hankcs.hanlp.dictionary.py.Pinyin;
+
+/**
+ * A conversion dictionary compiled by HanLP into a double array trie, loaded from the same {@code .bin} file as HanLP
+ * does, but matched straight against a {@code char[]} with a {@link Matcher}: no {@code String} nor hit list is created
+ * to find the longest key at some offset.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public final class ConversionTrie<V> extends AhoCorasickDoubleArrayTrie<V> {
+
+    private ConversionTrie() {
+    }
+
+    /**
+     * Loads a dictionary of strings compiled by {@link com.hankcs.hanlp.dictionary.ts.BaseChineseDictionary}, returns
+     * {@code null} if {@code path} doesn't exist.
+     */
+    public static ConversionTrie<String> loadStrings(String path) {
+        ByteArray bytes = ByteArray.createByteArray(path);
+        if (bytes == null) {
+            return null;
+        }
+        String[] values = new String[bytes.nextInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = bytes.nextString();
+        }
+        ConversionTrie<String> trie = new ConversionTrie<>();
+        return trie.load(bytes, values) ? trie : null;
+    }
+
+    /**
+     * Loads a dictionary of pinyin compiled by {@code PinyinDictionary}, returns {@code null} if {@code path}
+     * doesn't exist. The pinyin are looked up by ordinal in {@link Pinyin#values()}, like {@code PinyinDictionary}
+     * does, without loading {@code PinyinDictionary}, whose trie would be held next to this one.
+     */
+    public static ConversionTrie<Pinyin[]> loadPinyin(String path) {
+        ByteArray bytes = ByteArray.createByteArray(path);
+        if (bytes == null) {
+            return null;
+        }
+        Pinyin[] all = Pinyin.values();
+        Pinyin[][] values = new Pinyin[bytes.nextInt()][];
+        for (int i = 0; i < values.length; i++) {
+            Pinyin[] pinyins = new Pinyin[bytes.nextInt()];
+            for (int j = 0; j < pinyins.length; j++) {
+                pinyins[j] = all[bytes.nextInt()];
+            }
+            values[i] = pinyins;
+        }
+        ConversionTrie<Pinyin[]> trie = new ConversionTrie<>();
+        return trie.load(bytes, values) ? trie : null;
+    }
+
+    /**
+     * Returns a matcher of this trie, to be used by one thread at a time.
+     */
+    public Matcher<V> matcher() {
+        return new Matcher<>(this);
+    }
+
+    /**
+     * Finds the longest key of a trie at some offset of a text, walking the double array.
+     */
+    public static final class Matcher<V> {
+
+        private final ConversionTrie<V> trie;
+
+        private int length;
+        private int value;
+
+        private Matcher(ConversionTrie<V> trie) {
+            this.trie = trie;
+        }
+
+        /**
+         * Finds the longest key of the trie starting at {@code offset} and ending before {@code limit}, returns whether
+         * there is one.
+         */
+        public boolean find(char[] text, int offset, int limit) {
+            int[] base = trie.base;
+            int[] check = trie.check;
+            length = 0;
+            int state = base[0];
+            for (int i = offset; i < limit; i++) {
+                int next = state + text[i] + 1;
+                if (next >= check.length || check[next] != state) {
+                    break;
+                }
+                state = base[next];
+                // a key ends here if the state has a leaf child
+                if (state < check.length && check[state] == state && base[state] < 0) {
+                    length = i - offset + 1;
+                    value = -base[state] - 1;
+                }
+            }
+            return length > 0;
+        }
+
+        /**
+         * Returns the length of the key found by the last {@link #find}.
+         */
+        public int length() {
+            return length;
+        }
+
+        /**
+         * Returns the value of the key found by the last {@link #find}.
+         */
+        public V value() {
+            return trie.v[value];
+        }
+
+    }
+
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.common.cli.Terminal;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.env.Environment;
+import org.elasticsearch.node.internal.InternalSettingsPreparer;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.elasticsearch.indices.analysis.hanlp.Settings.*;
+
+/**
+ * Precompiles the HanLP dictionaries configured in the node settings. HanLP writes a binary cache next to each text
+ * dictionary the first time it loads it, which it can't do when the dictionaries live in a read-only directory, so
+ * such nodes would build every dictionary from text at every start instead.
+ * <p>
+ * The compiler copies each configured dictionary into the output directory and has HanLP load it from there, so the
+ * caches end up next to the copies. It then writes a {@link DictionaryManifest} with the checksums of the sources and
+ * of everything it produced. Pointing {@code analysis.hanlp.manifest} at it makes the node load the copies, and so
+ * the caches, and refuse to start if a dictionary changed since it was compiled. Dictionaries only bundled with
+ * HanLP already ship with their caches and are left alone.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class DictionaryCacheCompiler {
+
+    /**
+     * The dictionary and model settings, with the HanLP classes loading them when they are initialized.
+     */
+    static final Map<String, String[]> DICTIONARIES;
+
+    static {
+        Map<String, String[]> dictionaries = new LinkedHashMap<>();
+        dictionaries.put(CORE_DICTIONARY_PATH, new String[]{HanLpDictionary.CORE.className()});
+        dictionaries.put(CORE_DICTIONARY_TRANSFORM_MATRIX_DICTIONARY_PATH,
+                         new String[]{HanLpDictionary.TRANSFORM_MATRIX.className()});
+        dictionaries.put(BI_GRAM_DICTIONARY_PATH, new String[]{HanLpDictionary.BIGRAM.className()});
+        dictionaries.put(CORE_STOP_WORD_DICTIONARY_PATH,
+                         new String[]{"com.hankcs.hanlp.dictionary.stopword.CoreStopWordDictionary"});
+        dictionaries.put(CORE_SYNONYM_DICTIONARY_DICTIONARY_PATH,
+                         new String[]{"com.hankcs.hanlp.dictionary.CoreSynonymDictionary"});
+        dictionaries.put(PERSON_DICTIONARY_PATH, new String[]{HanLpDictionary.PERSON.className()});
+        dictionaries.put(PERSON_DICTIONARY_TR_PATH, new String[]{HanLpDictionary.PERSON.className()});
+        dictionaries.put(CUSTOM_DICTIONARY_PATH, new String[]{HanLpDictionary.CUSTOM.className()});
+        dictionaries.put(TRADITIONAL_CHINESE_DICTIONARY_PATH,
+                         new String[]{"com.hankcs.hanlp.dictionary.ts.TraditionalChineseDictionary",
+                                      "com.hankcs.hanlp.dictionary.ts.SimplifiedChineseDictionary"});
+        dictionaries.put(SYT_DICTIONARY_PATH, new String[0]);
+        dictionaries.put(PINYIN_DICTIONARY_PATH, new String[]{"com.hankcs.hanlp.dictionary.py.PinyinDictionary"});
+        dictionaries.put(TRANSLATED_PERSON_DICTIONARY_PATH,
+                         new String[]{HanLpDictionary.TRANSLATED_PERSON.className()});
+        dictionaries.put(JAPANESE_PERSON_DICTIONARY_PATH, new String[]{HanLpDictionary.JAPANESE_PERSON.className()});
+        dictionaries.put(PLACE_DICTIONARY_PATH, new String[]{HanLpDictionary.PLACE.className()});
+        dictionaries.put(PLACE_DICTIONARY_TR_PATH, new String[]{HanLpDictionary.PLACE.className()});
+        dictionaries.put(ORGANIZATION_DICTIONARY_PATH, new String[]{HanLpDictionary.ORGANIZATION.className()});
+        dictionaries.put(ORGANIZATION_DICTIONARY_TR_PATH, new String[]{HanLpDictionary.ORGANIZATION.className()});
+        dictionaries.put(CHAR_TYPE_PATH, new String[]{HanLpDictionary.CHAR_TYPE.className()});
+        dictionaries.put(CHAR_TABLE_PATH, new String[]{HanLpDictionary.CHAR_TABLE.className()});
+        dictionaries.put(WORD_NATURE_MODEL_PATH,
+                         new String[]{"com.hankcs.hanlp.model.bigram.WordNatureDependencyModel"});
+        // the dependency parsers and the HMM segment load their models when used, they are only copied
+        dictionaries.put(MAX_ENT_MODEL_PATH, new String[0]);
+        dictionaries.put(CRF_SEGMENT_MODEL_PATH, new String[]{"com.hankcs.hanlp.model.CRFSegmentModel"});
+        dictionaries.put(CRF_DEPENDENCY_MODEL_PATH, new String[0]);
+        dictionaries.put(HMM_SEGMENT_MODEL_PATH, new String[0]);
+        DICTIONARIES = Collections.unmodifiableMap(dictionaries);
+    }
+
+    private final Settings settings;
+    private final Path output;
+
+    /**
+     * @param settings the node settings configuring the dictionaries
+     * @param output   the directory to compile them into
+     */
+    public DictionaryCacheCompiler(Settings settings, Path output) {
+        this.settings = settings;
+        this.output = output.toAbsolutePath();
+    }
+
+    /**
+     * Compiles every dictionary configured as a file and writes the manifest.
+     *
+     * @param load whether to have HanLP load the copies and write its caches, HanLP can only load each dictionary
+     *             once per JVM
+     */
+    public DictionaryManifest compile(boolean load) throws IOException {
+        Files.createDirectories(output);
+
+        Map<String, List<String>> sources = new LinkedHashMap<>();
+        Map<String, List<String>> compiled = new LinkedHashMap<>();
+        Settings.Builder copies = Settings.settingsBuilder().put(settings);
+        for (String key : DICTIONARIES.keySet()) {
+            List<String> specs = Arrays.asList(settings.getAsArray(key));
+            if (specs.isEmpty() || onFileSystem(specs) == false) {
+                continue;
+            }
+            String name = key.substring(CONFIG_PREFIX.length());
+            Path directory = output.resolve(name);
+            if (Files.exists(directory)) {
+                IOUtils.rm(directory);
+            }
+            Files.createDirectories(directory);
+
+            List<String> copied = new ArrayList<>();
+            String[] paths = new String[specs.size()];
+            for (int i = 0; i < specs.size(); i++) {
+                String spec = specs.get(i);
+                Path source = path(spec);
+                Path target = directory.resolve(source.getFileName().toString());
+                if (Files.exists(target)) {
+                    // two custom dictionaries with the same file name
+                    target = directory.resolve(i + "_" + source.getFileName());
+                }
+                Files.copy(source, target);
+                String suffix = spec.substring(spec.indexOf(' ') > 0 ? spec.indexOf(' ') : spec.length());
+                copied.add(name + "/" + target.getFileName() + suffix);
+                paths[i] = target + suffix;
+            }
+            if (CUSTOM_DICTIONARY_PATH.equals(key)) {
+                copies.putArray(key, paths);
+            } else {
+                copies.put(key, paths[0]);
+            }
+            sources.put(key, specs);
+            compiled.put(key, copied);
+        }
+
+        if (load) {
+            HanLpIndicesAnalysis.initSettings(copies.build());
+            ClassLoader loader = DictionaryCacheCompiler.class.getClassLoader();
+            for (String key : compiled.keySet()) {
+                for (String className : DICTIONARIES.get(key)) {
+                    try {
+                        Class.forName(className, true, loader);
+                    } catch (ClassNotFoundException e) {
+                        throw new IllegalStateException("failed to load [" + className + "] for [" + key + "]", e);
+                    }
+                }
+            }
+        }
+
+        Map<String, DictionaryManifest.Entry> entries = new TreeMap<>();
+        for (Map.Entry<String, List<String>> entry : sources.entrySet()) {
+            String key = entry.getKey();
+            Map<String, String> checksums = new TreeMap<>();
+            for (String spec : entry.getValue()) {
+                Path source = path(spec).toAbsolutePath();
+                checksums.put(source.toString(), DictionaryManifest.checksum(source));
+            }
+            String name = key.substring(CONFIG_PREFIX.length());
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(output.resolve(name))) {
+                for (Path file : files) {
+                    if (Files.isRegularFile(file)) {
+                        checksums.put(name + "/" + file.getFileName(), DictionaryManifest.checksum(file));
+                    }
+                }
+            }
+            entries.put(key, new DictionaryManifest.Entry(key, entry.getValue(), compiled.get(key), checksums));
+        }
+
+        DictionaryManifest manifest = new DictionaryManifest(output, entries);
+        manifest.write();
+        return manifest;
+    }
+
+    /**
+     * Whether every dictionary of the setting values {@code specs} is a file, rather than only bundled with HanLP.
+     * Relative paths are resolved against the working directory, as HanLP does.
+     */
+    static boolean onFileSystem(List<String> specs) {
+        for (String spec : specs) {
+            if (Files.isRegularFile(path(spec)) == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Path path(String spec) {
+        // custom dictionaries may be followed by their default nature
+        int cut = spec.indexOf(' ');
+        return Paths.get(cut > 0 ? spec.substring(0, cut) : spec);
+    }
+
+    /**
+     * Compiles the dictionaries configured in {@code elasticsearch.yml} into the directory given as the only
+     * argument, {@code hanlp-compiled} in the config directory by default.
+     */
+    public static void main(String[] args) throws Exception {
+        Terminal terminal = Terminal.DEFAULT;
+        Environment environment = InternalSettingsPreparer.prepareEnvironment(Settings.EMPTY, terminal);
+        Path output = args.length > 0 ? Paths.get(args[0]) : environment.configFile().resolve("hanlp-compiled");
+
+        DictionaryManifest manifest = new DictionaryCacheCompiler(environment.settings(), output).compile(true);
+        for (DictionaryManifest.Entry entry : manifest.entries().values()) {
+            terminal.println("compiled [%s] from %s", entry.key(), entry.sources());
+        }
+        if (manifest.entries().isEmpty()) {
+            terminal.println("no dictionary is configured as a file, the dictionaries bundled with HanLP come with "
+                             + "their caches");
+        }
+        terminal.println("wrote [%s], set [%s] to it to load the compiled dictionaries",
+                         manifest.directory().resolve(DictionaryManifest.FILE_NAME), MANIFEST);
+    }
+
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.hash.MessageDigests;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentHelper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.indices.analysis.hanlp.Settings.CUSTOM_DICTIONARY_PATH;
+
+/**
+ * The manifest {@link DictionaryCacheCompiler} writes next to the dictionaries it compiled. For every dictionary
+ * setting it records the configured sources, the copies HanLP loads instead and the SHA-256 of each source and of
+ * each file in the compiled directory:
+ * <pre>
+ * {
+ *   "version" : 1,
+ *   "dictionaries" : {
+ *     "analysis.hanlp.CoreDictionaryPath" : {
+ *       "sources" : [ "/data/hanlp/CoreNatureDictionary.txt" ],
+ *       "compiled" : [ "CoreDictionaryPath/CoreNatureDictionary.txt" ],
+ *       "checksums" : {
+ *         "/data/hanlp/CoreNatureDictionary.txt" : "...",
+ *         "CoreDictionaryPath/CoreNatureDictionary.txt" : "...",
+ *         "CoreDictionaryPath/CoreNatureDictionary.txt.bin" : "..."
+ *       }
+ *     }
+ *   }
+ * }
+ * </pre>
+ * Compiled paths are relative to the directory of the manifest.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public final class DictionaryManifest {
+
+    public static final String FILE_NAME = "manifest.json";
+
+    public static final int VERSION = 1;
+
+    private final Path directory;
+
+    private final Map<String, Entry> entries;
+
+    public DictionaryManifest(Path directory, Map<String, Entry> entries) {
+        this.directory = directory;
+        this.entries = Collections.unmodifiableMap(new TreeMap<>(entries));
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    public Map<String, Entry> entries() {
+        return entries;
+    }
+
+    /**
+     * Checks every compiled dictionary is still up to date with the dictionaries configured in {@code settings} and
+     * returns the settings pointing HanLP at the compiled copies.
+     *
+     * @throws ElasticsearchException if a dictionary is stale
+     */
+    public Settings verify(Settings settings) {
+        Settings.Builder compiled = Settings.settingsBuilder();
+        for (String key : DictionaryCacheCompiler.DICTIONARIES.keySet()) {
+            List<String> configured = Arrays.asList(settings.getAsArray(key));
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                if (configured.isEmpty() == false && DictionaryCacheCompiler.onFileSystem(configured)) {
+                    throw stale(key, "it is configured but wasn't compiled");
+                }
+                continue;
+            }
+            if (configured.equals(entry.sources) == false) {
+                throw stale(key, "it is configured as " + configured + " but was compiled from " + entry.sources);
+            }
+            for (Map.Entry<String, String> checksum : entry.checksums.entrySet()) {
+                Path file = directory.resolve(checksum.getKey());
+                if (Files.isRegularFile(file) == false) {
+                    throw stale(key, "[" + file + "] is missing");
+                }
+                String actual;
+                try {
+                    actual = checksum(file);
+                } catch (IOException e) {
+                    throw new ElasticsearchException("failed to verify compiled dictionary [{}]", e, key);
+                }
+                if (actual.equals(checksum.getValue()) == false) {
+                    throw stale(key, "[" + file + "] changed");
+                }
+            }
+            String[] paths = new String[entry.compiled.size()];
+            for (int i = 0; i < paths.length; i++) {
+                // custom dictionaries may be followed by their default nature
+                String spec = entry.compiled.get(i);
+                int cut = spec.indexOf(' ');
+                paths[i] = cut > 0 ? directory.resolve(spec.substring(0, cut)) + spec.substring(cut)
+                                   : directory.resolve(spec).toString();
+            }
+            if (CUSTOM_DICTIONARY_PATH.equals(key)) {
+                compiled.putArray(key, paths);
+            } else {
+                compiled.put(key, paths[0]);
+            }
+        }
+        return compiled.build();
+    }
+
+    private ElasticsearchException stale(String key, String reason) {
+        return new ElasticsearchException("compiled dictionary [{}] in [{}] is stale, {}; run the compile-dictionaries "
+                                          + "tool of the plugin again", key, directory, reason);
+    }
+
+    public void write() throws IOException {
+        XContentBuilder builder = jsonBuilder().prettyPrint();
+        builder.startObject();
+        builder.field("version", VERSION);
+        builder.startObject("dictionaries");
+        for (Entry entry : entries.values()) {
+            builder.startObject(entry.key);
+            builder.field("sources", entry.sources);
+            builder.field("compiled", entry.compiled);
+            builder.field("checksums", entry.checksums);
+            builder.endObject();
+        }
+        builder.endObject();
+        builder.endObject();
+        Files.write(directory.resolve(FILE_NAME), builder.bytes().toBytes());
+    }
+
+    /**
+     * Reads the manifest at {@code file}.
+     */
+    @SuppressWarnings("unchecked")
+    public static DictionaryManifest read(Path file) throws IOException {
+        Map<String, Object> map = XContentHelper.convertToMap(new BytesArray(Files.readAllBytes(file)), false).v2();
+        Object version = map.get("version");
+        if (version instanceof Number == false || ((Number) version).intValue() != VERSION) {
+            throw new IllegalArgumentException("unsupported dictionary manifest version [" + version + "] in [" + file
+                                               + "]");
+        }
+        Map<String, Entry> entries = new TreeMap<>();
+        Map<String, Object> dictionaries = (Map<String, Object>) map.get("dictionaries");
+        if (dictionaries != null) {
+            for (Map.Entry<String, Object> dictionary : dictionaries.entrySet()) {
+                Map<String, Object> fields = (Map<String, Object>) dictionary.getValue();
+                Map<String, String> checksums = new TreeMap<>();
+                for (Map.Entry<String, Object> checksum : ((Map<String, Object>) fields.get("checksums")).entrySet()) {
+                    checksums.put(checksum.getKey(), checksum.getValue().toString());
+                }
+                entries.put(dictionary.getKey(), new Entry(dictionary.getKey(), strings(fields.get("sources")),
+                                                           strings(fields.get("compiled")), checksums));
+            }
+        }
+        Path directory = file.toAbsolutePath().getParent();
+        return new DictionaryManifest(directory, entries);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> strings(Object value) {
+        List<String> strings = new ArrayList<>();
+        for (Object item : (List<Object>) value) {
+            strings.add(item.toString());
+        }
+        return strings;
+    }
+
+    /**
+     * Returns the hex encoded SHA-256 of the contents of {@code file}.
+     */
+    public static String checksum(Path file) throws IOException {
+        MessageDigest digest = MessageDigests.sha256();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return MessageDigests.toHexString(digest.digest());
+    }
+
+    /**
+     * The compiled form of a single dictionary setting.
+     */
+    public static final class Entry {
+
+        private final String key;
+        private final List<String> sources;
+        private final List<String> compiled;
+        private final Map<String, String> checksums;
+
+        /**
+         * @param key       the dictionary setting
+         * @param sources   the configured values of the setting
+         * @param compiled  the values pointing at the copies, relative to the manifest
+         * @param checksums the SHA-256 of every file, sources by their configured path and compiled files relative
+         *                  to the manifest
+         */
+        public Entry(String key, List<String> sources, List<String> compiled, Map<String, String> checksums) {
+            this.key = key;
+            this.sources = Collections.unmodifiableList(new ArrayList<>(sources));
+            this.compiled = Collections.unmodifiableList(new ArrayList<>(compiled));
+            this.checksums = Collections.unmodifiableMap(new TreeMap<>(checksums));
+        }
+
+        public String key() {
+            return key;
+        }
+
+        public List<String> sources() {
+            return sources;
+        }
+
+        public List<String> compiled() {
+            return compiled;
+        }
+
+        public Map<String, String> checksums() {
+            return checksums;
+        }
+
+    }
+
+}
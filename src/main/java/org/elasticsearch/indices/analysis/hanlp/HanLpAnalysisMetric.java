@@ -0,0 +1,61 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import org.elasticsearch.common.metrics.CounterMetric;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Documents, chars and tokens an analyzer or tokenizer went through and how long segmenting them took. Updated by
+ * every thread analyzing with it, through striped counters.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpAnalysisMetric {
+
+    private final CounterMetric documents = new CounterMetric();
+    private final CounterMetric chars = new CounterMetric();
+    private final CounterMetric tokens = new CounterMetric();
+    private final CounterMetric nanos = new CounterMetric();
+    private final CounterMetric fallbacks = new CounterMetric();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    /**
+     * Records a document of {@code chars} chars, segmented into {@code tokens} tokens in {@code nanos} nanoseconds.
+     */
+    public void record(long chars, long tokens, long nanos) {
+        this.documents.inc();
+        this.chars.inc(chars);
+        this.tokens.inc(tokens);
+        this.nanos.inc(nanos);
+        this.latency.record(nanos);
+    }
+
+    /**
+     * Records a line segmented by the fallback segment, as it exceeded the budget of its {@link BudgetedSegment}.
+     */
+    public void fallback() {
+        fallbacks.inc();
+    }
+
+    public HanLpAnalysisStats stats() {
+        return new HanLpAnalysisStats(documents.count(), chars.count(), tokens.count(),
+                                      TimeUnit.NANOSECONDS.toMillis(nanos.count()), latency.percentile(50),
+                                      latency.percentile(99), latency.max(), fallbacks.count());
+    }
+
+}
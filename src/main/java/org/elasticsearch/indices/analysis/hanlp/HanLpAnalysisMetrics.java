@@ -0,0 +1,66 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Node level metrics of the HanLP tokenizers, by tokenizer name. Tokenizers with the same name in different indices
+ * share their metric. Analyzers are shared by configuration instead and their metrics are kept by the
+ * {@link HanLpAnalyzerRegistry}.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpAnalysisMetrics extends AbstractComponent {
+
+    private final ConcurrentMap<String, HanLpAnalysisMetric> tokenizers = ConcurrentCollections.newConcurrentMap();
+
+    @Inject
+    public HanLpAnalysisMetrics(Settings settings) {
+        super(settings);
+    }
+
+    /**
+     * Returns the metric of the tokenizer named {@code name}, creating it on first use.
+     */
+    public HanLpAnalysisMetric tokenizer(String name) {
+        HanLpAnalysisMetric metric = tokenizers.get(name);
+        if (metric == null) {
+            HanLpAnalysisMetric newMetric = new HanLpAnalysisMetric();
+            metric = tokenizers.putIfAbsent(name, newMetric);
+            if (metric == null) {
+                metric = newMetric;
+            }
+        }
+        return metric;
+    }
+
+    public Map<String, HanLpAnalysisStats> tokenizerStats() {
+        Map<String, HanLpAnalysisStats> stats = new TreeMap<>();
+        for (Map.Entry<String, HanLpAnalysisMetric> entry : tokenizers.entrySet()) {
+            stats.put(entry.getKey(), entry.getValue().stats());
+        }
+        return stats;
+    }
+
+}
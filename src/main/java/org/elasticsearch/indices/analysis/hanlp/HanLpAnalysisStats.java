@@ -0,0 +1,160 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+
+import java.io.IOException;
+
+/**
+ * Snapshot of a {@link HanLpAnalysisMetric}.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpAnalysisStats implements Streamable, ToXContent {
+
+    private long documents;
+    private long chars;
+    private long tokens;
+    private long timeInMillis;
+    private long p50InMicros;
+    private long p99InMicros;
+    private long maxInMicros;
+    private long fallbacks;
+
+    HanLpAnalysisStats() {
+    }
+
+    public HanLpAnalysisStats(long documents, long chars, long tokens, long timeInMillis, long p50InMicros,
+                              long p99InMicros, long maxInMicros, long fallbacks) {
+        this.documents = documents;
+        this.chars = chars;
+        this.tokens = tokens;
+        this.timeInMillis = timeInMillis;
+        this.p50InMicros = p50InMicros;
+        this.p99InMicros = p99InMicros;
+        this.maxInMicros = maxInMicros;
+        this.fallbacks = fallbacks;
+    }
+
+    /**
+     * Number of texts analyzed.
+     */
+    public long getDocuments() {
+        return documents;
+    }
+
+    public long getChars() {
+        return chars;
+    }
+
+    public long getTokens() {
+        return tokens;
+    }
+
+    /**
+     * Total time spent segmenting.
+     */
+    public long getTimeInMillis() {
+        return timeInMillis;
+    }
+
+    /**
+     * Median time spent segmenting a text.
+     */
+    public long getP50InMicros() {
+        return p50InMicros;
+    }
+
+    public long getP99InMicros() {
+        return p99InMicros;
+    }
+
+    public long getMaxInMicros() {
+        return maxInMicros;
+    }
+
+    /**
+     * Number of lines segmented by the fallback segment, as they exceeded the time or length budget.
+     */
+    public long getFallbacks() {
+        return fallbacks;
+    }
+
+    public static HanLpAnalysisStats readAnalysisStats(StreamInput in) throws IOException {
+        HanLpAnalysisStats stats = new HanLpAnalysisStats();
+        stats.readFrom(in);
+        return stats;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        documents = in.readVLong();
+        chars = in.readVLong();
+        tokens = in.readVLong();
+        timeInMillis = in.readVLong();
+        p50InMicros = in.readVLong();
+        p99InMicros = in.readVLong();
+        maxInMicros = in.readVLong();
+        fallbacks = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(documents);
+        out.writeVLong(chars);
+        out.writeVLong(tokens);
+        out.writeVLong(timeInMillis);
+        out.writeVLong(p50InMicros);
+        out.writeVLong(p99InMicros);
+        out.writeVLong(maxInMicros);
+        out.writeVLong(fallbacks);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.field(Fields.DOCUMENTS, documents);
+        builder.field(Fields.CHARS, chars);
+        builder.field(Fields.TOKENS, tokens);
+        builder.timeValueField(Fields.TIME_IN_MILLIS, Fields.TIME, timeInMillis);
+        builder.startObject(Fields.LATENCY);
+        builder.field(Fields.P50_IN_MICROS, p50InMicros);
+        builder.field(Fields.P99_IN_MICROS, p99InMicros);
+        builder.field(Fields.MAX_IN_MICROS, maxInMicros);
+        builder.endObject();
+        builder.field(Fields.FALLBACKS, fallbacks);
+        return builder;
+    }
+
+    static final class Fields {
+        static final XContentBuilderString DOCUMENTS = new XContentBuilderString("documents");
+        static final XContentBuilderString CHARS = new XContentBuilderString("chars");
+        static final XContentBuilderString TOKENS = new XContentBuilderString("tokens");
+        static final XContentBuilderString TIME = new XContentBuilderString("time");
+        static final XContentBuilderString TIME_IN_MILLIS = new XContentBuilderString("time_in_millis");
+        static final XContentBuilderString LATENCY = new XContentBuilderString("latency");
+        static final XContentBuilderString P50_IN_MICROS = new XContentBuilderString("p50_in_micros");
+        static final XContentBuilderString P99_IN_MICROS = new XContentBuilderString("p99_in_micros");
+        static final XContentBuilderString MAX_IN_MICROS = new XContentBuilderString("max_in_micros");
+        static final XContentBuilderString FALLBACKS = new XContentBuilderString("fallbacks");
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.analysis.HanLpAnalyzer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Node level registry of HanLP analyzers. Indices configuring the same {@link SegmentConfig} share a single
+ * analyzer, which is reference counted and closed once the last index using it released it.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpAnalyzerRegistry extends AbstractComponent {
+
+    private final HanLpSegmentPool segmentPool;
+
+    private final Map<SegmentConfig, Entry> analyzers = new HashMap<>();
+
+    @Inject
+    public HanLpAnalyzerRegistry(Settings settings, HanLpSegmentPool segmentPool) {
+        super(settings);
+
+        this.segmentPool = segmentPool;
+    }
+
+    /**
+     * Returns the analyzer shared by every user of {@code config}, building it on first use. {@code name} is the name
+     * it is registered under by the caller. Every call must be paired with a {@link #release(HanLpAnalyzer, String)}
+     * call.
+     */
+    public synchronized HanLpAnalyzer acquire(SegmentConfig config, String name) {
+        Entry entry = analyzers.get(config);
+        if (entry == null) {
+            entry = new Entry(new HanLpAnalyzer(segmentPool, config));
+            analyzers.put(config, entry);
+            logger.debug("registered analyzer [{}]", config);
+        }
+        entry.names.add(name);
+        return entry.analyzer;
+    }
+
+    /**
+     * Releases an analyzer obtained from {@link #acquire(SegmentConfig, String)}, closing it when it isn't used
+     * anymore.
+     */
+    public synchronized void release(HanLpAnalyzer analyzer, String name) {
+        Entry entry = analyzers.get(analyzer.config());
+        if (entry == null || entry.analyzer != analyzer) {
+            throw new IllegalStateException("analyzer [" + analyzer.config() + "] is not registered");
+        }
+        entry.names.remove(name);
+        if (entry.names.isEmpty()) {
+            analyzers.remove(analyzer.config());
+            analyzer.close();
+            logger.debug("closed analyzer [{}]", analyzer.config());
+        }
+    }
+
+    /**
+     * Number of distinct analyzers currently registered.
+     */
+    public synchronized int size() {
+        return analyzers.size();
+    }
+
+    /**
+     * Number of references held on the analyzer configured with {@code config}.
+     */
+    public synchronized int refCount(SegmentConfig config) {
+        Entry entry = analyzers.get(config);
+        return entry == null ? 0 : entry.names.size();
+    }
+
+    /**
+     * Returns the metrics of the registered analyzers, keyed by the comma separated names each is registered under.
+     */
+    public synchronized Map<String, HanLpAnalysisStats> stats() {
+        Map<String, HanLpAnalysisStats> stats = new TreeMap<>();
+        for (Entry entry : analyzers.values()) {
+            StringBuilder names = new StringBuilder();
+            for (String name : new TreeSet<>(entry.names)) {
+                if (names.length() > 0) {
+                    names.append(',');
+                }
+                names.append(name);
+            }
+            stats.put(names.toString(), entry.analyzer.metric().stats());
+        }
+        return stats;
+    }
+
+    private static class Entry {
+
+        private final HanLpAnalyzer analyzer;
+        // one per reference, so a name is repeated when several indices use it
+        private final List<String> names = new ArrayList<>();
+
+        Entry(HanLpAnalyzer analyzer) {
+            this.analyzer = analyzer;
+        }
+
+    }
+
+}
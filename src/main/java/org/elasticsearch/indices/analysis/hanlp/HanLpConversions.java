@@ -0,0 +1,126 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.HanLP;
+import com.hankcs.hanlp.dictionary.py.Pinyin;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+
+/**
+ * Node level holder of the conversion dictionaries used by the {@code hanlp_t2s}, {@code hanlp_s2t} and
+ * {@code hanlp_pinyin} token filters, shared by all indices. Each is loaded the first time a filter needs it, from the
+ * {@code .bin} HanLP compiles next to {@code analysis.hanlp.TraditionalChineseDictionaryPath} and
+ * {@code analysis.hanlp.PinyinDictionaryPath}. If there is none yet, HanLP compiles it from the text dictionary first.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpConversions extends AbstractComponent {
+
+    private volatile ConversionTrie<String> traditionalToSimplified;
+    private volatile ConversionTrie<String> simplifiedToTraditional;
+    private volatile ConversionTrie<Pinyin[]> pinyin;
+
+    @Inject
+    public HanLpConversions(Settings settings) {
+        super(settings);
+    }
+
+    public ConversionTrie<String> traditionalToSimplified() {
+        ConversionTrie<String> trie = traditionalToSimplified;
+        if (trie == null) {
+            synchronized (this) {
+                trie = traditionalToSimplified;
+                if (trie == null) {
+                    String path = HanLP.Config.TraditionalChineseDictionaryPath + ".bin";
+                    long start = System.nanoTime();
+                    trie = ConversionTrie.loadStrings(path);
+                    if (trie == null) {
+                        compile("com.hankcs.hanlp.dictionary.ts.TraditionalChineseDictionary");
+                        trie = ConversionTrie.loadStrings(path);
+                    }
+                    traditionalToSimplified = loaded(trie, path, start);
+                }
+            }
+        }
+        return trie;
+    }
+
+    public ConversionTrie<String> simplifiedToTraditional() {
+        ConversionTrie<String> trie = simplifiedToTraditional;
+        if (trie == null) {
+            synchronized (this) {
+                trie = simplifiedToTraditional;
+                if (trie == null) {
+                    String path = HanLP.Config.TraditionalChineseDictionaryPath + ".reverse.bin";
+                    long start = System.nanoTime();
+                    trie = ConversionTrie.loadStrings(path);
+                    if (trie == null) {
+                        compile("com.hankcs.hanlp.dictionary.ts.SimplifiedChineseDictionary");
+                        trie = ConversionTrie.loadStrings(path);
+                    }
+                    simplifiedToTraditional = loaded(trie, path, start);
+                }
+            }
+        }
+        return trie;
+    }
+
+    public ConversionTrie<Pinyin[]> pinyin() {
+        ConversionTrie<Pinyin[]> trie = pinyin;
+        if (trie == null) {
+            synchronized (this) {
+                trie = pinyin;
+                if (trie == null) {
+                    String path = HanLP.Config.PinyinDictionaryPath + ".bin";
+                    long start = System.nanoTime();
+                    trie = ConversionTrie.loadPinyin(path);
+                    if (trie == null) {
+                        compile("com.hankcs.hanlp.dictionary.py.PinyinDictionary");
+                        trie = ConversionTrie.loadPinyin(path);
+                    }
+                    pinyin = loaded(trie, path, start);
+                }
+            }
+        }
+        return trie;
+    }
+
+    private <V> ConversionTrie<V> loaded(ConversionTrie<V> trie, String path, long start) {
+        if (trie == null) {
+            throw new ElasticsearchException("failed to load conversion dictionary [{}]", path);
+        }
+        logger.debug("loaded [{}] conversions of [{}] in [{}]", trie.size(), path,
+                     TimeValue.timeValueNanos(System.nanoTime() - start));
+        return trie;
+    }
+
+    /**
+     * Has HanLP load the text dictionary of {@code className}, which compiles it into its {@code .bin}.
+     */
+    private void compile(String className) {
+        try {
+            Class.forName(className, true, HanLpConversions.class.getClassLoader());
+        } catch (ClassNotFoundException | ExceptionInInitializerError e) {
+            throw new ElasticsearchException("failed to compile conversion dictionary of [{}]", e, className);
+        }
+    }
+
+}
@@ -0,0 +1,493 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.HanLP;
+import com.hankcs.hanlp.collection.trie.DoubleArrayTrie;
+import com.hankcs.hanlp.collection.trie.bintrie.BinTrie;
+import com.hankcs.hanlp.corpus.tag.Nature;
+import com.hankcs.hanlp.dictionary.CoreDictionary;
+import com.hankcs.hanlp.dictionary.CustomDictionary;
+import com.hankcs.hanlp.dictionary.other.CharTable;
+import com.hankcs.hanlp.utility.LexiconUtility;
+import com.hankcs.hanlp.utility.Predefine;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.watcher.FileChangesListener;
+import org.elasticsearch.watcher.FileWatcher;
+import org.elasticsearch.watcher.ResourceWatcherService;
+import org.elasticsearch.watcher.WatcherHandle;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+import static org.elasticsearch.indices.analysis.hanlp.Settings.CUSTOM_DICTIONARY_WATCH;
+import static org.elasticsearch.indices.analysis.hanlp.Settings.MANIFEST;
+
+/**
+ * Reloads the HanLP custom dictionary from the files configured in {@code analysis.hanlp.CustomDictionaryPath}
+ * without restarting the node, either when a file changes (unless {@code analysis.hanlp.customDictionary.watch} is
+ * {@code false}) or on request.
+ * <p>
+ * HanLP keeps the custom dictionary in two static fields, {@link CustomDictionary#dat} built from the files and the
+ * {@link CustomDictionary#trie} overlay for words added afterwards. Neither is ever modified in place: a reload
+ * builds a new structure off to the side and swaps the field, so tokenization in flight keeps using the version it
+ * started with and is never blocked. When lines were only appended to the files, just the appended words are added to
+ * a copy of the small overlay; any other change, or an overlay grown past {@value #MAX_APPENDED_WORDS} words,
+ * rebuilds the double array trie from all files.
+ * <p>
+ * HanLP's fields aren't volatile, so every swap is followed by a write to a volatile generation that the tokenizers
+ * read before each document through {@link #sync()}: a document started after a reload sees the new version. The two
+ * fields are swapped one after the other though, so a document segmented during a full reload may still see the new
+ * trie with the previous overlay. Either way, HanLP's cache of the main custom dictionary is deleted, it would
+ * otherwise be loaded stale on the next start.
+ * <p>
+ * With {@code analysis.hanlp.manifest} set, the configured paths are the copies compiled by
+ * {@link DictionaryCacheCompiler}, which must stay as the manifest describes them: they are neither watched nor
+ * reloaded, changes go through compiling them again and restarting the node.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpCustomDictionary extends AbstractLifecycleComponent<HanLpCustomDictionary> {
+
+    static final int MAX_APPENDED_WORDS = 10000;
+
+    private static volatile long generation;
+
+    public enum ReloadType {
+        NONE, INCREMENTAL, FULL;
+
+        public String getName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final ThreadPool threadPool;
+    private final ResourceWatcherService resourceWatcherService;
+    private final HanLpSegmentCache segmentCache;
+    private final HanLpSegmentMemo segmentMemo;
+
+    private final boolean watch;
+    private final String manifest;
+    private final List<Source> sources;
+
+    private final List<WatcherHandle<FileWatcher>> watchers = new ArrayList<>();
+    private final AtomicBoolean reloadScheduled = new AtomicBoolean();
+
+    private final CounterMetric fullReloads = new CounterMetric();
+    private final CounterMetric incrementalReloads = new CounterMetric();
+    private int appendedWords;
+
+    @Inject
+    public HanLpCustomDictionary(Settings settings, ThreadPool threadPool, ResourceWatcherService resourceWatcherService,
+                                 HanLpIndicesAnalysis indicesAnalysis, HanLpSegmentCache segmentCache,
+                                 HanLpSegmentMemo segmentMemo) {
+        super(settings);
+
+        this.threadPool = threadPool;
+        this.resourceWatcherService = resourceWatcherService;
+        this.segmentCache = segmentCache;
+        this.segmentMemo = segmentMemo;
+        this.watch = settings.getAsBoolean(CUSTOM_DICTIONARY_WATCH, true);
+        this.manifest = settings.get(MANIFEST);
+
+        // HanLP.Config holds the configured paths once HanLpIndicesAnalysis is built
+        List<Source> sources = new ArrayList<>();
+        for (String spec : HanLP.Config.CustomDictionaryPath) {
+            sources.add(new Source(spec));
+        }
+        this.sources = Collections.unmodifiableList(sources);
+    }
+
+    /**
+     * Whether every custom dictionary is a file that can be reloaded, {@code false} when some are only bundled with
+     * HanLP.
+     */
+    public boolean reloadable() {
+        for (Source source : sources) {
+            if (Files.isRegularFile(source.path) == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Brings the custom dictionary up to date with the files, rebuilding it from scratch if {@code full} is
+     * {@code true}.
+     */
+    public synchronized ReloadResult reload(boolean full) {
+        if (manifest != null) {
+            // reloading would rewrite the caches the manifest checksums, and the node would refuse to start
+            throw new IllegalStateException("custom dictionaries are compiled with the manifest [" + manifest
+                                            + "] of [" + MANIFEST + "], they can't be reloaded: compile them again "
+                                            + "and restart the node instead");
+        }
+        if (reloadable() == false) {
+            throw new IllegalStateException("custom dictionaries " + sources + " are not all on the file system, "
+                                             + "they can't be reloaded");
+        }
+        long start = System.nanoTime();
+        byte[][] contents = new byte[sources.size()][];
+        boolean changed = false;
+        boolean appendOnly = true;
+        for (int i = 0; i < sources.size(); i++) {
+            Source source = sources.get(i);
+            try {
+                contents[i] = Files.readAllBytes(source.path);
+            } catch (IOException e) {
+                throw new ElasticsearchException("failed to read custom dictionary [{}]", e, source.path);
+            }
+            if (source.unchanged(contents[i]) == false) {
+                changed = true;
+                appendOnly &= source.appended(contents[i]);
+            }
+        }
+
+        ReloadType type;
+        int words;
+        if (full || (changed && (appendOnly == false || appendedWords >= MAX_APPENDED_WORDS))) {
+            words = rebuild(contents);
+            type = ReloadType.FULL;
+            fullReloads.inc();
+        } else if (changed) {
+            words = append(contents);
+            type = ReloadType.INCREMENTAL;
+            incrementalReloads.inc();
+        } else {
+            return new ReloadResult(ReloadType.NONE, 0, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        // reload is synchronized, the increment doesn't race
+        generation++;
+        deleteCache();
+        for (int i = 0; i < sources.size(); i++) {
+            sources.get(i).loaded(contents[i]);
+        }
+        segmentCache.clear();
+        segmentMemo.clear();
+
+        long took = System.nanoTime() - start;
+        logger.info("reloaded custom dictionary, [{}] [{}] words in [{}]", type.getName(), words,
+                    TimeValue.timeValueNanos(took));
+        return new ReloadResult(type, words, TimeUnit.NANOSECONDS.toMillis(took));
+    }
+
+    private int rebuild(byte[][] contents) {
+        TreeMap<String, CoreDictionary.Attribute> words = new TreeMap<>();
+        LinkedHashSet<Nature> natures = new LinkedHashSet<>();
+        for (int i = 0; i < sources.size(); i++) {
+            parse(contents[i], 0, sources.get(i).defaultNature(natures), words, natures);
+        }
+        int size = words.size();
+        if (words.isEmpty()) {
+            // same placeholder HanLP uses, a double array trie can't be empty
+            words.put(Predefine.TAG_OTHER, null);
+        }
+        DoubleArrayTrie<CoreDictionary.Attribute> dat = new DoubleArrayTrie<>();
+        dat.build(words);
+
+        // the overlay is replaced rather than cleared as segments read it twice
+        CustomDictionary.dat = dat;
+        CustomDictionary.trie = new BinTrie<>();
+        appendedWords = 0;
+        return size;
+    }
+
+    private int append(byte[][] contents) {
+        TreeMap<String, CoreDictionary.Attribute> words = new TreeMap<>();
+        LinkedHashSet<Nature> natures = new LinkedHashSet<>();
+        for (int i = 0; i < sources.size(); i++) {
+            Source source = sources.get(i);
+            if (source.unchanged(contents[i]) == false) {
+                parse(contents[i], source.length, source.defaultNature(natures), words, natures);
+            }
+        }
+
+        BinTrie<CoreDictionary.Attribute> trie = new BinTrie<>();
+        BinTrie<CoreDictionary.Attribute> current = CustomDictionary.trie;
+        if (current != null) {
+            for (Map.Entry<String, CoreDictionary.Attribute> entry : current.entrySet()) {
+                trie.put(entry.getKey(), entry.getValue());
+            }
+        }
+        for (Map.Entry<String, CoreDictionary.Attribute> entry : words.entrySet()) {
+            trie.put(entry.getKey(), entry.getValue());
+        }
+        CustomDictionary.trie = trie;
+        appendedWords += words.size();
+        return words.size();
+    }
+
+    /**
+     * Makes the custom dictionary swapped in by the last reload visible to the calling thread, which then segments
+     * with it or a later one.
+     */
+    public static void sync() {
+        // the volatile read orders the reads of HanLP's fields after the write of the swap
+        long current = generation;
+        assert current >= 0;
+    }
+
+    /**
+     * HanLP caches the main custom dictionary next to it and loads the cache on start without checking whether it is
+     * stale, so it has to go once the dictionary changed, whether rebuilt or appended to.
+     */
+    private void deleteCache() {
+        Path cache = Paths.get(sources.get(0).path + Predefine.BIN_EXT);
+        try {
+            if (Files.deleteIfExists(cache)) {
+                logger.debug("deleted stale custom dictionary cache [{}]", cache);
+            }
+        } catch (IOException e) {
+            logger.warn("failed to delete stale custom dictionary cache [{}]", e, cache);
+        }
+    }
+
+    /**
+     * Parses the lines of {@code content} starting at {@code offset} the way {@link CustomDictionary} does.
+     */
+    static void parse(byte[] content, int offset, Nature defaultNature, TreeMap<String, CoreDictionary.Attribute> words,
+                      LinkedHashSet<Nature> natures) {
+        String text = new String(content, offset, content.length - offset, StandardCharsets.UTF_8);
+        for (String line : text.split("\r?\n")) {
+            if (line.length() > 0 && line.charAt(0) == '\uFEFF') {
+                line = line.substring(1);
+            }
+            String[] tokens = line.split("\\s");
+            if (tokens.length == 0 || tokens[0].isEmpty()) {
+                continue;
+            }
+            String word = HanLP.Config.Normalization ? CharTable.convert(tokens[0]) : tokens[0];
+            int natureCount = (tokens.length - 1) / 2;
+            CoreDictionary.Attribute attribute;
+            if (natureCount == 0) {
+                attribute = new CoreDictionary.Attribute(defaultNature);
+            } else {
+                attribute = new CoreDictionary.Attribute(natureCount);
+                for (int i = 0; i < natureCount; i++) {
+                    attribute.nature[i] = LexiconUtility.convertStringToNature(tokens[1 + 2 * i], natures);
+                    attribute.frequency[i] = Integer.parseInt(tokens[2 + 2 * i]);
+                    attribute.totalFrequency += attribute.frequency[i];
+                }
+            }
+            words.put(word, attribute);
+        }
+    }
+
+    public List<Path> paths() {
+        List<Path> paths = new ArrayList<>(sources.size());
+        for (Source source : sources) {
+            paths.add(source.path);
+        }
+        return paths;
+    }
+
+    public long fullReloadCount() {
+        return fullReloads.count();
+    }
+
+    public long incrementalReloadCount() {
+        return incrementalReloads.count();
+    }
+
+    @Override
+    protected void doStart() {
+        if (manifest != null) {
+            logger.debug("custom dictionaries {} are compiled with the manifest [{}], not watching them", sources,
+                         manifest);
+            return;
+        }
+        if (reloadable() == false) {
+            logger.debug("custom dictionaries {} are not all on the file system, not watching them", sources);
+            return;
+        }
+        synchronized (this) {
+            for (Source source : sources) {
+                try {
+                    source.loaded(Files.readAllBytes(source.path));
+                } catch (IOException e) {
+                    throw new ElasticsearchException("failed to read custom dictionary [{}]", e, source.path);
+                }
+            }
+        }
+        if (watch == false) {
+            return;
+        }
+        FileChangesListener listener = new FileChangesListener() {
+            @Override
+            public void onFileCreated(Path file) {
+                scheduleReload();
+            }
+
+            @Override
+            public void onFileDeleted(Path file) {
+                scheduleReload();
+            }
+
+            @Override
+            public void onFileChanged(Path file) {
+                scheduleReload();
+            }
+        };
+        for (Source source : sources) {
+            FileWatcher watcher = new FileWatcher(source.path);
+            watcher.addListener(listener);
+            try {
+                watchers.add(resourceWatcherService.add(watcher, ResourceWatcherService.Frequency.MEDIUM));
+            } catch (IOException e) {
+                throw new ElasticsearchException("failed to watch custom dictionary [{}]", e, source.path);
+            }
+        }
+    }
+
+    private void scheduleReload() {
+        if (reloadScheduled.compareAndSet(false, true) == false) {
+            return;
+        }
+        threadPool.generic().execute(new AbstractRunnable() {
+            @Override
+            protected void doRun() throws Exception {
+                reloadScheduled.set(false);
+                reload(false);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                logger.warn("failed to reload custom dictionary, keeping the current one", t);
+            }
+        });
+    }
+
+    @Override
+    protected void doStop() {
+        for (WatcherHandle<FileWatcher> watcher : watchers) {
+            watcher.stop();
+        }
+        watchers.clear();
+    }
+
+    @Override
+    protected void doClose() {
+    }
+
+    public static class ReloadResult {
+
+        private final ReloadType type;
+        private final int words;
+        private final long tookInMillis;
+
+        ReloadResult(ReloadType type, int words, long tookInMillis) {
+            this.type = type;
+            this.words = words;
+            this.tookInMillis = tookInMillis;
+        }
+
+        public ReloadType type() {
+            return type;
+        }
+
+        /**
+         * Number of words loaded, all of them for a full reload, the appended ones for an incremental one.
+         */
+        public int words() {
+            return words;
+        }
+
+        public long tookInMillis() {
+            return tookInMillis;
+        }
+
+    }
+
+    /**
+     * A configured custom dictionary, {@code path [default nature]}, and what of it was loaded.
+     */
+    private static class Source {
+
+        private final Path path;
+        private final String nature;
+
+        private int length = -1;
+        private long checksum;
+        private boolean endsWithNewline = true;
+
+        Source(String spec) {
+            int cut = spec.indexOf(' ');
+            if (cut > 0) {
+                this.path = Paths.get(spec.substring(0, cut));
+                this.nature = spec.substring(cut + 1).trim();
+            } else {
+                this.path = Paths.get(spec);
+                this.nature = null;
+            }
+        }
+
+        Nature defaultNature(LinkedHashSet<Nature> natures) {
+            return nature == null ? Nature.n : LexiconUtility.convertStringToNature(nature, natures);
+        }
+
+        void loaded(byte[] content) {
+            length = content.length;
+            checksum = checksum(content, content.length);
+            endsWithNewline = content.length == 0 || content[content.length - 1] == '\n';
+        }
+
+        boolean unchanged(byte[] content) {
+            return content.length == length && checksum(content, length) == checksum;
+        }
+
+        /**
+         * Whether {@code content} is what was loaded followed by new lines.
+         */
+        boolean appended(byte[] content) {
+            return length >= 0 && content.length > length && endsWithNewline
+                   && checksum(content, length) == checksum;
+        }
+
+        private static long checksum(byte[] content, int length) {
+            CRC32 crc = new CRC32();
+            crc.update(content, 0, length);
+            return crc.getValue();
+        }
+
+        @Override
+        public String toString() {
+            return path.toString();
+        }
+
+    }
+
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.HanLP;
+import com.hankcs.hanlp.dictionary.CoreDictionary;
+import com.hankcs.hanlp.dictionary.CustomDictionary;
+import com.hankcs.hanlp.dictionary.nr.PersonDictionary;
+import com.hankcs.hanlp.dictionary.ns.PlaceDictionary;
+import com.hankcs.hanlp.dictionary.nt.OrganizationDictionary;
+import com.hankcs.hanlp.dictionary.other.CharTable;
+import com.hankcs.hanlp.dictionary.other.CharType;
+
+import java.util.EnumSet;
+import java.util.Locale;
+
+/**
+ * The HanLP dictionaries and models used by the segments this plugin builds. HanLP loads each of them in the static
+ * initializer of its holder class, the first time a segment needs it.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public enum HanLpDictionary {
+
+    CORE("com.hankcs.hanlp.dictionary.CoreDictionary"),
+    BIGRAM("com.hankcs.hanlp.dictionary.CoreBiGramTableDictionary"),
+    TRANSFORM_MATRIX("com.hankcs.hanlp.dictionary.CoreDictionaryTransformMatrixDictionary"),
+    CHAR_TYPE("com.hankcs.hanlp.dictionary.other.CharType"),
+    CHAR_TABLE("com.hankcs.hanlp.dictionary.other.CharTable"),
+    CUSTOM("com.hankcs.hanlp.dictionary.CustomDictionary"),
+    PERSON("com.hankcs.hanlp.dictionary.nr.PersonDictionary"),
+    TRANSLATED_PERSON("com.hankcs.hanlp.dictionary.nr.TranslatedPersonDictionary"),
+    JAPANESE_PERSON("com.hankcs.hanlp.dictionary.nr.JapanesePersonDictionary"),
+    PLACE("com.hankcs.hanlp.dictionary.ns.PlaceDictionary"),
+    ORGANIZATION("com.hankcs.hanlp.dictionary.nt.OrganizationDictionary");
+
+    private final String className;
+
+    HanLpDictionary(String className) {
+        this.className = className;
+    }
+
+    public String className() {
+        return className;
+    }
+
+    /**
+     * Loads the dictionary, a noop if it is already loaded. If another thread is loading it, waits for it to finish.
+     */
+    public void load() throws ClassNotFoundException {
+        Class.forName(className, true, HanLpDictionary.class.getClassLoader());
+        if (this == ORGANIZATION) {
+            // the trie of the organization patterns builds its failure states on the first match without any
+            // synchronization, segments matching concurrently would see them half built
+            synchronized (OrganizationDictionary.trie) {
+                OrganizationDictionary.trie.parseText("");
+            }
+        }
+    }
+
+    /**
+     * Returns the number of entries of the dictionary, {@code -1} if HanLP doesn't expose it. Loads the dictionary if
+     * it isn't loaded yet.
+     */
+    public long size() {
+        switch (this) {
+            case CORE:
+                return CoreDictionary.trie.size();
+            case CHAR_TYPE:
+                return CharType.type.length;
+            case CHAR_TABLE:
+                return CharTable.CONVERT.length;
+            case CUSTOM:
+                // the trie only exists once a word was added at runtime
+                return CustomDictionary.dat.size() + (CustomDictionary.trie == null ? 0 : CustomDictionary.trie.size());
+            case PERSON:
+                return PersonDictionary.dictionary.size();
+            case PLACE:
+                return PlaceDictionary.dictionary.size();
+            case ORGANIZATION:
+                return OrganizationDictionary.dictionary.size();
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Returns the paths HanLP loads the dictionary from, as configured in {@link HanLP.Config}. HanLP reads a binary
+     * cache next to each of them instead if there is one.
+     */
+    public String[] paths() {
+        switch (this) {
+            case CORE:
+                return new String[]{HanLP.Config.CoreDictionaryPath};
+            case BIGRAM:
+                return new String[]{HanLP.Config.BiGramDictionaryPath};
+            case TRANSFORM_MATRIX:
+                return new String[]{HanLP.Config.CoreDictionaryTransformMatrixDictionaryPath};
+            case CHAR_TYPE:
+                return new String[]{HanLP.Config.CharTypePath};
+            case CHAR_TABLE:
+                return new String[]{HanLP.Config.CharTablePath};
+            case CUSTOM:
+                String[] paths = new String[HanLP.Config.CustomDictionaryPath.length];
+                for (int i = 0; i < paths.length; i++) {
+                    // custom dictionaries may be followed by their default nature
+                    String spec = HanLP.Config.CustomDictionaryPath[i];
+                    int cut = spec.indexOf(' ');
+                    paths[i] = cut > 0 ? spec.substring(0, cut) : spec;
+                }
+                return paths;
+            case PERSON:
+                return new String[]{HanLP.Config.PersonDictionaryPath, HanLP.Config.PersonDictionaryTrPath};
+            case TRANSLATED_PERSON:
+                return new String[]{HanLP.Config.TranslatedPersonDictionaryPath};
+            case JAPANESE_PERSON:
+                return new String[]{HanLP.Config.JapanesePersonDictionaryPath};
+            case PLACE:
+                return new String[]{HanLP.Config.PlaceDictionaryPath, HanLP.Config.PlaceDictionaryTrPath};
+            case ORGANIZATION:
+                return new String[]{HanLP.Config.OrganizationDictionaryPath,
+                                    HanLP.Config.OrganizationDictionaryTrPath};
+            default:
+                throw new IllegalStateException("unknown hanlp dictionary [" + this + "]");
+        }
+    }
+
+    public String getName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static HanLpDictionary fromString(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown hanlp dictionary [" + name + "]");
+        }
+    }
+
+    /**
+     * Returns the dictionaries a segment configured with {@code config} loads.
+     */
+    public static EnumSet<HanLpDictionary> required(SegmentConfig config) {
+        if (config.segmenter().wordBased() == false) {
+            // no lattice, so no bigrams and no named entity recognition
+            EnumSet<HanLpDictionary> dictionaries = EnumSet.of(CHAR_TYPE);
+            if (config.segmenter() == Segmenter.SPEED || config.speechTagging()) {
+                dictionaries.add(CORE);
+            }
+            if (config.speechTagging() && config.segmenter() != Segmenter.SPEED) {
+                dictionaries.add(TRANSFORM_MATRIX);
+            }
+            if (config.useCustomDictionary()) {
+                dictionaries.add(CUSTOM);
+            }
+            return dictionaries;
+        }
+        EnumSet<HanLpDictionary> dictionaries = EnumSet.of(CORE, BIGRAM, CHAR_TYPE);
+        if (config.speechTagging() || config.nameRecognize() || config.translatedNameRecognize()
+            || config.japaneseNameRecognize() || config.placeRecognize() || config.organizationRecognize()) {
+            dictionaries.add(TRANSFORM_MATRIX);
+        }
+        if (config.useCustomDictionary()) {
+            dictionaries.add(CUSTOM);
+        }
+        if (config.nameRecognize()) {
+            dictionaries.add(PERSON);
+        }
+        if (config.translatedNameRecognize()) {
+            dictionaries.add(TRANSLATED_PERSON);
+        }
+        if (config.japaneseNameRecognize()) {
+            dictionaries.add(JAPANESE_PERSON);
+        }
+        if (config.placeRecognize()) {
+            dictionaries.add(PLACE);
+        }
+        if (config.organizationRecognize()) {
+            dictionaries.add(ORGANIZATION);
+        }
+        return dictionaries;
+    }
+
+}
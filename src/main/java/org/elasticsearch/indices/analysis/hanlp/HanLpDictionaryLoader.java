@@ -0,0 +1,256 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.HanLP;
+
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.io.PathUtils;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.indices.breaker.BreakerSettings;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.elasticsearch.indices.analysis.hanlp.Settings.BREAKER_LIMIT;
+import static org.elasticsearch.indices.analysis.hanlp.Settings.BREAKER_OVERHEAD;
+
+/**
+ * Loads the HanLP dictionaries, each one once, when the first segment needing it is built, so a node only holds the
+ * dictionaries the flags of its analyzers and tokenizers reach (see {@link HanLpDictionary#required(SegmentConfig)}),
+ * and accounts for them in the {@code hanlp} circuit breaker.
+ * <p>
+ * Before a dictionary is loaded its footprint is estimated from the size of the files HanLP reads it from, its binary
+ * caches if there are any, and added to the breaker, which fails building the segment, and so the analysis, rather
+ * than let the dictionary push the node over {@code analysis.hanlp.breaker.limit}. HanLP can't unload dictionaries, so
+ * the estimate stays in the breaker once the dictionary is loaded. The heap the load took is measured as well, which
+ * is only accurate when nothing else allocates in the meantime.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpDictionaryLoader extends AbstractComponent {
+
+    public static final String BREAKER = "hanlp";
+
+    /**
+     * Suffixes of the binary caches HanLP writes next to a text dictionary, and reads instead of it.
+     */
+    private static final String[] CACHE_SUFFIXES = {".bin", ".table.bin", ".trie.dat", ".value.dat"};
+
+    private final CircuitBreaker breaker;
+
+    // read without locking to skip the dictionaries already loaded, written under the lock of the loader
+    private volatile Map<HanLpDictionary, Entry> loaded = new EnumMap<>(HanLpDictionary.class);
+
+    @Inject
+    public HanLpDictionaryLoader(Settings settings, CircuitBreakerService breakerService) {
+        super(settings);
+
+        ByteSizeValue limit = settings.getAsMemory(BREAKER_LIMIT, "30%");
+        double overhead = settings.getAsDouble(BREAKER_OVERHEAD, 3.0);
+        breakerService.registerBreaker(new BreakerSettings(BREAKER, limit.bytes(), overhead,
+                                                           CircuitBreaker.Type.MEMORY));
+        this.breaker = breakerService.getBreaker(BREAKER);
+
+        logger.debug("using breaker [{}] with limit [{}] and overhead [{}]", BREAKER, limit, overhead);
+    }
+
+    /**
+     * Loads the dictionaries a segment configured with {@code config} needs.
+     *
+     * @throws org.elasticsearch.common.breaker.CircuitBreakingException if one of them would go over the limit
+     */
+    public void load(SegmentConfig config) {
+        EnumSet<HanLpDictionary> dictionaries = HanLpDictionary.required(config);
+        if (HanLP.Config.Normalization) {
+            dictionaries.add(HanLpDictionary.CHAR_TABLE);
+        }
+        for (HanLpDictionary dictionary : dictionaries) {
+            load(dictionary);
+        }
+    }
+
+    /**
+     * Loads {@code dictionary} if it isn't yet and returns how it went.
+     *
+     * @throws org.elasticsearch.common.breaker.CircuitBreakingException if it would go over the limit
+     */
+    public Entry load(HanLpDictionary dictionary) {
+        Entry entry = loaded.get(dictionary);
+        if (entry != null) {
+            return entry;
+        }
+        synchronized (this) {
+            entry = loaded.get(dictionary);
+            if (entry != null) {
+                return entry;
+            }
+            long estimate = estimate(dictionary);
+            breaker.addEstimateBytesAndMaybeBreak(estimate, "hanlp dictionary [" + dictionary.getName() + "]");
+
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            long heapBefore = memory.getHeapMemoryUsage().getUsed();
+            long start = System.nanoTime();
+            String failure = null;
+            try {
+                dictionary.load();
+            } catch (ClassNotFoundException | LinkageError e) {
+                logger.warn("failed to load hanlp dictionary [{}]", e, dictionary.getName());
+                failure = ExceptionsHelper.detailedMessage(e);
+            }
+            long took = System.nanoTime() - start;
+            long heapSize = Math.max(0, memory.getHeapMemoryUsage().getUsed() - heapBefore);
+            if (failure != null) {
+                // nothing stays loaded, and HanLP won't try again
+                breaker.addWithoutBreaking(-estimate);
+                estimate = 0;
+            }
+            logger.debug("loaded hanlp dictionary [{}] in [{}], estimated [{}], measured [{}]", dictionary.getName(),
+                         TimeValue.timeValueNanos(took), new ByteSizeValue(estimate), new ByteSizeValue(heapSize));
+
+            entry = new Entry(dictionary, TimeUnit.NANOSECONDS.toMillis(took), estimate, heapSize, failure);
+            Map<HanLpDictionary, Entry> newLoaded = new EnumMap<>(loaded);
+            newLoaded.put(dictionary, entry);
+            loaded = newLoaded;
+            return entry;
+        }
+    }
+
+    /**
+     * Returns the dictionaries loaded so far.
+     */
+    public List<Entry> loaded() {
+        return new ArrayList<>(loaded.values());
+    }
+
+    /**
+     * Bytes charged to the breaker by the dictionaries loaded so far, before the overhead is applied.
+     */
+    public long estimatedSizeInBytes() {
+        long size = 0;
+        for (Entry entry : loaded.values()) {
+            size += entry.estimatedSizeInBytes;
+        }
+        return size;
+    }
+
+    /**
+     * Estimates the heap {@code dictionary} takes from the size of its binary caches, or of its text files when there
+     * are no caches.
+     */
+    static long estimate(HanLpDictionary dictionary) {
+        long size = 0;
+        for (String path : dictionary.paths()) {
+            long caches = 0;
+            for (String suffix : CACHE_SUFFIXES) {
+                caches += Math.max(0, size(path + suffix));
+            }
+            size += caches > 0 ? caches : Math.max(0, size(path));
+        }
+        return size;
+    }
+
+    /**
+     * Returns the size of the file at {@code path}, or of the resource HanLP portable would read instead, {@code -1} if
+     * there is none.
+     */
+    private static long size(String path) {
+        try {
+            Path file = PathUtils.get(path);
+            if (Files.isRegularFile(file)) {
+                return Files.size(file);
+            }
+            URL resource = HanLP.class.getResource("/" + path);
+            if (resource != null) {
+                URLConnection connection = resource.openConnection();
+                connection.setUseCaches(false);
+                return connection.getContentLengthLong();
+            }
+        } catch (IOException | RuntimeException e) {
+            // an invalid path, HanLP will fail loading it
+        }
+        return -1;
+    }
+
+    /**
+     * How loading a dictionary went.
+     */
+    public static class Entry {
+
+        private final HanLpDictionary dictionary;
+        private final long loadTimeInMillis;
+        private final long estimatedSizeInBytes;
+        private final long heapSizeInBytes;
+        private final String failure;
+
+        Entry(HanLpDictionary dictionary, long loadTimeInMillis, long estimatedSizeInBytes, long heapSizeInBytes,
+              String failure) {
+            this.dictionary = dictionary;
+            this.loadTimeInMillis = loadTimeInMillis;
+            this.estimatedSizeInBytes = estimatedSizeInBytes;
+            this.heapSizeInBytes = heapSizeInBytes;
+            this.failure = failure;
+        }
+
+        public HanLpDictionary getDictionary() {
+            return dictionary;
+        }
+
+        public long getLoadTimeInMillis() {
+            return loadTimeInMillis;
+        }
+
+        /**
+         * Bytes charged to the breaker, before the overhead is applied.
+         */
+        public long getEstimatedSizeInBytes() {
+            return estimatedSizeInBytes;
+        }
+
+        /**
+         * Heap measured to grow while loading.
+         */
+        public long getHeapSizeInBytes() {
+            return heapSizeInBytes;
+        }
+
+        /**
+         * Why the dictionary failed to load, {@code null} if it didn't.
+         */
+        public String getFailure() {
+            return failure;
+        }
+
+    }
+
+}
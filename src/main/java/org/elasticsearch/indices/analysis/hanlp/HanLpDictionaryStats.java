@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+
+import java.io.IOException;
+
+/**
+ * Size of a loaded dictionary. The heap size is the one measured by the {@link HanLpDictionaryLoader} when it loaded
+ * the dictionary, and the estimated size the one it charged to the {@code hanlp} circuit breaker.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpDictionaryStats implements Streamable, ToXContent {
+
+    private String name;
+    private long entries;
+    private long heapSizeInBytes;
+    private long estimatedSizeInBytes;
+
+    HanLpDictionaryStats() {
+    }
+
+    public HanLpDictionaryStats(String name, long entries, long heapSizeInBytes, long estimatedSizeInBytes) {
+        this.name = name;
+        this.entries = entries;
+        this.heapSizeInBytes = heapSizeInBytes;
+        this.estimatedSizeInBytes = estimatedSizeInBytes;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Number of words in the dictionary, {@code -1} if HanLP doesn't expose it.
+     */
+    public long getEntries() {
+        return entries;
+    }
+
+    public long getHeapSizeInBytes() {
+        return heapSizeInBytes;
+    }
+
+    /**
+     * Bytes charged to the {@code hanlp} circuit breaker, before its overhead is applied.
+     */
+    public long getEstimatedSizeInBytes() {
+        return estimatedSizeInBytes;
+    }
+
+    public static HanLpDictionaryStats readDictionaryStats(StreamInput in) throws IOException {
+        HanLpDictionaryStats stats = new HanLpDictionaryStats();
+        stats.readFrom(in);
+        return stats;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        name = in.readString();
+        entries = in.readLong();
+        heapSizeInBytes = in.readVLong();
+        estimatedSizeInBytes = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeString(name);
+        out.writeLong(entries);
+        out.writeVLong(heapSizeInBytes);
+        out.writeVLong(estimatedSizeInBytes);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(name);
+        if (entries >= 0) {
+            builder.field(Fields.ENTRIES, entries);
+        }
+        builder.byteSizeField(Fields.HEAP_SIZE_IN_BYTES, Fields.HEAP_SIZE, heapSizeInBytes);
+        builder.byteSizeField(Fields.ESTIMATED_SIZE_IN_BYTES, Fields.ESTIMATED_SIZE, estimatedSizeInBytes);
+        builder.endObject();
+        return builder;
+    }
+
+    static final class Fields {
+        static final XContentBuilderString ENTRIES = new XContentBuilderString("entries");
+        static final XContentBuilderString HEAP_SIZE = new XContentBuilderString("heap_size");
+        static final XContentBuilderString HEAP_SIZE_IN_BYTES = new XContentBuilderString("heap_size_in_bytes");
+        static final XContentBuilderString ESTIMATED_SIZE = new XContentBuilderString("estimated_size");
+        static final XContentBuilderString ESTIMATED_SIZE_IN_BYTES =
+            new XContentBuilderString("estimated_size_in_bytes");
+    }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.corpus.tag.Nature;
+import com.hankcs.hanlp.dictionary.CoreDictionary;
+import com.hankcs.hanlp.utility.LexiconUtility;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.hash.MessageDigests;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.env.Environment;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Node level registry of the {@link HanLpIndexDictionary custom dictionaries of indices}. Dictionaries are keyed by
+ * the hash of the content of their files rather than by path, so indices configuring identical files share one
+ * dictionary, and one set of pooled segments and analyzers, wherever the files are. They are reference counted and
+ * dropped, with the segments built for them, once the last index using them released them.
+ * <p>
+ * A dictionary is configured as a list of {@code path [default nature]}, like
+ * {@code analysis.hanlp.CustomDictionaryPath}. Relative paths are resolved against the config directory.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpIndexDictionaries extends AbstractComponent {
+
+    private final Environment environment;
+    private final HanLpSegmentPool segmentPool;
+
+    private final Map<String, Entry> dictionaries = new HashMap<>();
+
+    @Inject
+    public HanLpIndexDictionaries(Settings settings, Environment environment, HanLpSegmentPool segmentPool) {
+        super(settings);
+
+        this.environment = environment;
+        this.segmentPool = segmentPool;
+    }
+
+    /**
+     * Returns the dictionary of the files of {@code specs}, building it unless an identical one is already loaded.
+     * Every call must be paired with a {@link #release(HanLpIndexDictionary)} call.
+     */
+    public HanLpIndexDictionary acquire(String... specs) {
+        if (specs.length == 0) {
+            throw new IllegalArgumentException("a custom dictionary needs at least one file");
+        }
+        List<Path> paths = new ArrayList<>(specs.length);
+        List<String> natures = new ArrayList<>(specs.length);
+        byte[][] contents = new byte[specs.length][];
+        MessageDigest digest = MessageDigests.sha256();
+        for (int i = 0; i < specs.length; i++) {
+            String spec = specs[i].trim();
+            int cut = spec.indexOf(' ');
+            Path path = environment.configFile().resolve(cut > 0 ? spec.substring(0, cut) : spec);
+            String nature = cut > 0 ? spec.substring(cut + 1).trim() : null;
+            try {
+                contents[i] = Files.readAllBytes(path);
+            } catch (IOException e) {
+                throw new ElasticsearchException("failed to read custom dictionary [{}]", e, path);
+            }
+            paths.add(path);
+            natures.add(nature);
+            digest.update((nature == null ? "" : nature).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(contents[i]);
+            digest.update((byte) 0);
+        }
+        String hash = MessageDigests.toHexString(digest.digest());
+
+        synchronized (this) {
+            Entry entry = dictionaries.get(hash);
+            if (entry == null) {
+                entry = new Entry(build(hash, paths, natures, contents));
+                dictionaries.put(hash, entry);
+            }
+            entry.references++;
+            return entry.dictionary;
+        }
+    }
+
+    private HanLpIndexDictionary build(String hash, List<Path> paths, List<String> natures, byte[][] contents) {
+        long start = System.nanoTime();
+        TreeMap<String, CoreDictionary.Attribute> words = new TreeMap<>();
+        LinkedHashSet<Nature> customNatures = new LinkedHashSet<>();
+        List<String> sources = new ArrayList<>(paths.size());
+        for (int i = 0; i < paths.size(); i++) {
+            String nature = natures.get(i);
+            Nature defaultNature = nature == null ? Nature.n
+                                                  : LexiconUtility.convertStringToNature(nature, customNatures);
+            HanLpCustomDictionary.parse(contents[i], 0, defaultNature, words, customNatures);
+            sources.add(paths.get(i).toString());
+        }
+        HanLpIndexDictionary dictionary = new HanLpIndexDictionary(hash, Collections.unmodifiableList(sources), words);
+        logger.debug("loaded custom dictionary {}, [{}] words in [{}]", sources, dictionary.size(),
+                     TimeValue.timeValueNanos(System.nanoTime() - start));
+        return dictionary;
+    }
+
+    /**
+     * Releases a dictionary obtained from {@link #acquire(String...)}, dropping it and the segments built for it when
+     * it isn't used anymore.
+     */
+    public synchronized void release(HanLpIndexDictionary dictionary) {
+        Entry entry = dictionaries.get(dictionary.hash());
+        if (entry == null || entry.dictionary != dictionary) {
+            throw new IllegalStateException("custom dictionary " + dictionary + " is not registered");
+        }
+        if (--entry.references == 0) {
+            dictionaries.remove(dictionary.hash());
+            segmentPool.remove(dictionary);
+            logger.debug("dropped custom dictionary {}", dictionary);
+        }
+    }
+
+    /**
+     * Number of distinct dictionaries currently loaded.
+     */
+    public synchronized int size() {
+        return dictionaries.size();
+    }
+
+    /**
+     * Number of references held on {@code dictionary}.
+     */
+    public synchronized int refCount(HanLpIndexDictionary dictionary) {
+        Entry entry = dictionaries.get(dictionary.hash());
+        return entry == null || entry.dictionary != dictionary ? 0 : entry.references;
+    }
+
+    private static class Entry {
+
+        private final HanLpIndexDictionary dictionary;
+        private int references;
+
+        Entry(HanLpIndexDictionary dictionary) {
+            this.dictionary = dictionary;
+        }
+
+    }
+
+}
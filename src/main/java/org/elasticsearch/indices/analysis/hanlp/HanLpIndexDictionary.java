@@ -0,0 +1,143 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.collection.trie.DoubleArrayTrie;
+import com.hankcs.hanlp.dictionary.CoreDictionary;
+import com.hankcs.hanlp.seg.common.Term;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Custom dictionary configured by indices with {@code custom_dictionary}, layered over the core and custom
+ * dictionaries of the node. Once a segment is done, consecutive terms spelling a word of this dictionary are merged
+ * into a single term with the nature of the word, the longest word first, like HanLP merges the words of its own
+ * custom dictionary.
+ * <p>
+ * Instances are immutable and shared by every index configuring the same files, see {@link HanLpIndexDictionaries}.
+ * They are compared by identity, which makes them part of the {@link SegmentConfig} of those indices.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public final class HanLpIndexDictionary {
+
+    private final String hash;
+    private final List<String> sources;
+    private final int size;
+    private final DoubleArrayTrie<CoreDictionary.Attribute> dat;
+
+    HanLpIndexDictionary(String hash, List<String> sources, TreeMap<String, CoreDictionary.Attribute> words) {
+        this.hash = hash;
+        this.sources = sources;
+        this.size = words.size();
+        this.dat = new DoubleArrayTrie<>();
+        if (words.isEmpty() == false) {
+            dat.build(words);
+        }
+    }
+
+    /**
+     * Hash of the content of the files the dictionary was built from.
+     */
+    public String hash() {
+        return hash;
+    }
+
+    public List<String> sources() {
+        return sources;
+    }
+
+    /**
+     * Number of words in the dictionary.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Merges the consecutive {@code terms} that spell a word of the dictionary. Returns {@code terms} itself when
+     * nothing is merged. With {@code termOffsets}, only terms whose offsets are contiguous are merged, the sub-words
+     * of the index mode are left alone.
+     */
+    public List<Term> combine(List<Term> terms, boolean termOffsets) {
+        if (size == 0) {
+            return terms;
+        }
+        List<Term> combined = null;
+        int count = terms.size();
+        for (int i = 0; i < count; ) {
+            Term first = terms.get(i);
+            CoreDictionary.Attribute value = null;
+            int end = i + 1;
+            int state = dat.transition(first.word, 1);
+            if (state > 0) {
+                value = dat.output(state);
+                int next = first.offset + first.length();
+                for (int j = i + 1; j < count; j++) {
+                    Term term = terms.get(j);
+                    if (termOffsets && term.offset != next) {
+                        break;
+                    }
+                    state = dat.transition(term.word, state);
+                    if (state < 0) {
+                        break;
+                    }
+                    next += term.length();
+                    CoreDictionary.Attribute output = dat.output(state);
+                    if (output != null) {
+                        value = output;
+                        end = j + 1;
+                    }
+                }
+            }
+            if (value == null) {
+                if (combined != null) {
+                    combined.add(first);
+                }
+            } else {
+                if (combined == null) {
+                    combined = new ArrayList<>(terms.subList(0, i));
+                }
+                combined.add(merge(terms, i, end, value));
+            }
+            i = end;
+        }
+        return combined == null ? terms : combined;
+    }
+
+    private static Term merge(List<Term> terms, int start, int end, CoreDictionary.Attribute value) {
+        Term first = terms.get(start);
+        String word = first.word;
+        if (end - start > 1) {
+            StringBuilder builder = new StringBuilder();
+            for (int i = start; i < end; i++) {
+                builder.append(terms.get(i).word);
+            }
+            word = builder.toString();
+        }
+        Term term = new Term(word, value.nature[0]);
+        term.offset = first.offset;
+        return term;
+    }
+
+    @Override
+    public String toString() {
+        return sources + "@" + hash;
+    }
+
+}
@@ -16,18 +16,25 @@
 package org.elasticsearch.indices.analysis.hanlp;
 
 import com.hankcs.hanlp.HanLP;
-import com.hankcs.lucene.HanLPAnalyzer;
-import com.hankcs.lucene.HanLPTokenizer;
+import com.hankcs.hanlp.seg.Segment;
 
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.StopFilter;
+import org.apache.lucene.analysis.synonym.SynonymFilter;
+import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.env.Environment;
 import org.elasticsearch.index.analysis.*;
 import org.elasticsearch.indices.analysis.IndicesAnalysisService;
 
+import java.io.IOException;
 import java.io.Reader;
+import java.nio.file.Path;
+import java.util.BitSet;
 
 import static org.elasticsearch.indices.analysis.hanlp.Settings.*;
 
@@ -39,45 +46,43 @@ import static org.elasticsearch.indices.analysis.hanlp.Settings.*;
  */
 public class HanLpIndicesAnalysis extends AbstractComponent {
 
-    private boolean analyzerIndexMode = false;
-    private boolean analyzerNameRecognize = true;
-    private boolean analyzerTranslatedNameRecognize = true;
-    private boolean analyzerJapaneseNameRecognize = false;
-    private boolean analyzerPlaceRecognize = false;
-    private boolean analyzerOrganizationRecognize = false;
-    private boolean analyzerUseCustomDictionary = true; // enableCustomDictionary
-    private boolean analyzerSpeechTagging = false; // PorterStemming
-    private boolean analyzerOffset = false;
-    private boolean analyzerNumberQuantifierRecognize = false;
-    private int analyzerThreads = 1; // if more than 1, it means use multi-threading
-
-    private boolean tokenizerIndexMode = false;
-    private boolean tokenizerNameRecognize = true;
-    private boolean tokenizerTranslatedNameRecognize = true;
-    private boolean tokenizerJapaneseNameRecognize = false;
-    private boolean tokenizerPlaceRecognize = false;
-    private boolean tokenizerOrganizationRecognize = false;
-    private boolean tokenizerUseCustomDictionary = true; // enableCustomDictionary
-    private boolean tokenizerSpeechTagging = false; // PorterStemming
-    private boolean tokenizerOffset = false;
-    private boolean tokenizerNumberQuantifierRecognize = false;
-    private int tokenizerThreads = 1; // if more than 1, it means use multi-threading
+    private final SegmentConfig analyzerConfig;
+    private final SegmentConfig tokenizerConfig;
+    private final boolean tokenizerStreaming;
+    private final int tokenizerMaxChunkLength;
+    private final SegmentBudget tokenizerBudget;
 
     @Inject
-    public HanLpIndicesAnalysis(Settings settings, IndicesAnalysisService indicesAnalysisService) {
+    public HanLpIndicesAnalysis(Settings settings, Environment environment,
+                                IndicesAnalysisService indicesAnalysisService, final HanLpSegmentPool segmentPool,
+                                HanLpAnalyzerRegistry analyzerRegistry, HanLpAnalysisMetrics metrics,
+                                final HanLpStopWords stopWords, final HanLpConversions conversions,
+                                final HanLpSynonyms synonyms) {
         super(settings);
 
-        initSettings(settings);
+        // model paths must be set before the configs are parsed, parsing checks the models exist
+        String manifest = settings.get(MANIFEST);
+        if (manifest == null) {
+            initSettings(settings);
+        } else {
+            Settings compiled = compiled(environment.configFile().resolve(manifest), settings);
+            initSettings(Settings.settingsBuilder().put(settings).put(compiled).build());
+        }
+
+        analyzerConfig = SegmentConfig.parse(settings, ANALYZER_CONFIG_PREFIX, SegmentConfig.DEFAULT);
+        tokenizerConfig = SegmentConfig.parse(settings, TOKENIZER_CONFIG_PREFIX, SegmentConfig.DEFAULT);
+        tokenizerStreaming = settings.getAsBoolean(TOKENIZER_CONFIG_PREFIX + STREAMING, false);
+        tokenizerMaxChunkLength = settings.getAsInt(TOKENIZER_CONFIG_PREFIX + MAX_CHUNK_LENGTH,
+                                                    HanLpStreamingTokenizer.DEFAULT_MAX_CHUNK_LENGTH);
+        tokenizerBudget = SegmentBudget.parse(settings, TOKENIZER_CONFIG_PREFIX);
 
-        // Register hanlp analyzer
+        // Register hanlp analyzer, shared with indices configuring the same flags for the lifetime of the node
         indicesAnalysisService.analyzerProviderFactories().put("hanlp",
                                                                new PreBuiltAnalyzerProviderFactory("hanlp", AnalyzerScope.INDICES,
-                                                                                                   new HanLPAnalyzer(analyzerIndexMode, analyzerNameRecognize, analyzerTranslatedNameRecognize,
-                                                                                                                     analyzerJapaneseNameRecognize, analyzerPlaceRecognize, analyzerOrganizationRecognize,
-                                                                                                                     analyzerUseCustomDictionary, analyzerSpeechTagging, analyzerOffset,
-                                                                                                                     analyzerNumberQuantifierRecognize, analyzerThreads, null)));
+                                                                                                   analyzerRegistry.acquire(analyzerConfig, "hanlp")));
 
         // Register hanlp_tokenizer tokenizer
+        final HanLpAnalysisMetric tokenizerMetric = metrics.tokenizer("hanlp_tokenizer");
         indicesAnalysisService.tokenizerFactories().put("hanlp_tokenizer", new PreBuiltTokenizerFactoryFactory(new TokenizerFactory() {
             @Override
             public String name() {
@@ -86,18 +91,34 @@ public class HanLpIndicesAnalysis extends AbstractComponent {
 
             @Override
             public Tokenizer create() {
-                return new HanLPTokenizer(HanLP.newSegment()
-                                               .enableIndexMode(tokenizerIndexMode)
-                                               .enableNameRecognize(tokenizerNameRecognize)
-                                               .enableTranslatedNameRecognize(tokenizerTranslatedNameRecognize)
-                                               .enableJapaneseNameRecognize(tokenizerJapaneseNameRecognize)
-                                               .enablePlaceRecognize(tokenizerPlaceRecognize)
-                                               .enableOrganizationRecognize(tokenizerOrganizationRecognize)
-                                               .enableCustomDictionary(tokenizerUseCustomDictionary)
-                                               .enablePartOfSpeechTagging(tokenizerSpeechTagging)
-                                               .enableOffset(tokenizerOffset)
-                                               .enableNumberQuantifierRecognize(tokenizerNumberQuantifierRecognize)
-                                               .enableMultithreading(tokenizerThreads), null, tokenizerSpeechTagging);
+                Segment fallback = tokenizerBudget.limited() ? segmentPool.acquire(tokenizerConfig.fallback()) : null;
+                if (tokenizerStreaming) {
+                    return new HanLpStreamingTokenizer(segmentPool.acquire(tokenizerConfig), tokenizerConfig,
+                                                       tokenizerConfig.speechTagging(), tokenizerMaxChunkLength,
+                                                       tokenizerMetric, tokenizerBudget, fallback);
+                }
+                return new HanLpTokenizer(segmentPool.acquire(tokenizerConfig), tokenizerConfig,
+                                          tokenizerConfig.speechTagging(), tokenizerMetric, tokenizerBudget, fallback);
+            }
+
+        }));
+
+        // Register hanlp_speed analyzer and tokenizer, dictionary longest match with the default flags
+        indicesAnalysisService.analyzerProviderFactories().put("hanlp_speed",
+                                                               new PreBuiltAnalyzerProviderFactory("hanlp_speed", AnalyzerScope.INDICES,
+                                                                                                   analyzerRegistry.acquire(SegmentConfig.SPEED, "hanlp_speed")));
+
+        final HanLpAnalysisMetric speedTokenizerMetric = metrics.tokenizer("hanlp_speed");
+        indicesAnalysisService.tokenizerFactories().put("hanlp_speed", new PreBuiltTokenizerFactoryFactory(new TokenizerFactory() {
+            @Override
+            public String name() {
+                return "hanlp_speed";
+            }
+
+            @Override
+            public Tokenizer create() {
+                return new HanLpTokenizer(segmentPool.acquire(SegmentConfig.SPEED), SegmentConfig.SPEED,
+                                          SegmentConfig.SPEED.speechTagging(), speedTokenizerMetric);
             }
 
         }));
@@ -114,43 +135,152 @@ public class HanLpIndicesAnalysis extends AbstractComponent {
                 return tokenStream;
             }
         }));
+
+        // Register hanlp_stop token filter, the core stop word dictionary is loaded by the first filter created
+        indicesAnalysisService.tokenFilterFactories().put("hanlp_stop", new PreBuiltTokenFilterFactoryFactory(new TokenFilterFactory() {
+            @Override
+            public String name() {
+                return "hanlp_stop";
+            }
+
+            @Override
+            public TokenStream create(TokenStream tokenStream) {
+                return new StopFilter(tokenStream, stopWords.defaultStopWords(false));
+            }
+        }));
+
+        // Register hanlp_pos_filter token filter, removing the natures excluded by default
+        final BitSet defaultExcludedNatures =
+            HanLpPosTokenFilterFactory.natures(EXCLUDE, HanLpPosTokenFilterFactory.DEFAULT_EXCLUDE);
+        indicesAnalysisService.tokenFilterFactories().put("hanlp_pos_filter", new PreBuiltTokenFilterFactoryFactory(new TokenFilterFactory() {
+            @Override
+            public String name() {
+                return "hanlp_pos_filter";
+            }
+
+            @Override
+            public TokenStream create(TokenStream tokenStream) {
+                return new HanLpPosFilter(tokenStream, defaultExcludedNatures, true);
+            }
+        }));
+
+        // Register hanlp_t2s, hanlp_s2t, hanlp_pinyin and hanlp_pinyin_first_letter token filters, their dictionaries
+        // are loaded by the first filter created
+        indicesAnalysisService.tokenFilterFactories().put("hanlp_t2s", new PreBuiltTokenFilterFactoryFactory(new TokenFilterFactory() {
+            @Override
+            public String name() {
+                return "hanlp_t2s";
+            }
+
+            @Override
+            public TokenStream create(TokenStream tokenStream) {
+                return new HanLpConversionFilter(tokenStream, conversions.traditionalToSimplified());
+            }
+        }));
+        indicesAnalysisService.tokenFilterFactories().put("hanlp_s2t", new PreBuiltTokenFilterFactoryFactory(new TokenFilterFactory() {
+            @Override
+            public String name() {
+                return "hanlp_s2t";
+            }
+
+            @Override
+            public TokenStream create(TokenStream tokenStream) {
+                return new HanLpConversionFilter(tokenStream, conversions.simplifiedToTraditional());
+            }
+        }));
+        indicesAnalysisService.tokenFilterFactories().put("hanlp_pinyin", new PreBuiltTokenFilterFactoryFactory(new TokenFilterFactory() {
+            @Override
+            public String name() {
+                return "hanlp_pinyin";
+            }
+
+            @Override
+            public TokenStream create(TokenStream tokenStream) {
+                return new HanLpPinyinFilter(tokenStream, conversions.pinyin(), true, false, false);
+            }
+        }));
+        indicesAnalysisService.tokenFilterFactories().put("hanlp_pinyin_first_letter", new PreBuiltTokenFilterFactoryFactory(new TokenFilterFactory() {
+            @Override
+            public String name() {
+                return "hanlp_pinyin_first_letter";
+            }
+
+            @Override
+            public TokenStream create(TokenStream tokenStream) {
+                return new HanLpPinyinFilter(tokenStream, conversions.pinyin(), false, true, false);
+            }
+        }));
+
+        // Register hanlp_synonym token filter, the core synonyms are compiled by the first filter created
+        indicesAnalysisService.tokenFilterFactories().put("hanlp_synonym", new PreBuiltTokenFilterFactoryFactory(new TokenFilterFactory() {
+            @Override
+            public String name() {
+                return "hanlp_synonym";
+            }
+
+            @Override
+            public TokenStream create(TokenStream tokenStream) {
+                return new SynonymFilter(tokenStream, synonyms.core(), false);
+            }
+        }));
+
+        // Register hanlp_normalize char filter, the table is built by the first filter created
+        indicesAnalysisService.charFilterFactories().put("hanlp_normalize", new PreBuiltCharFilterFactoryFactory(new CharFilterFactory() {
+            @Override
+            public String name() {
+                return "hanlp_normalize";
+            }
+
+            @Override
+            public Reader create(Reader tokenStream) {
+                return new HanLpNormalizeCharFilter(tokenStream, NormalizationTable.get(true, true, true, false));
+            }
+        }));
+    }
+
+    public SegmentConfig analyzerConfig() {
+        return analyzerConfig;
     }
 
-    private void initSettings(Settings settings) {
-        // get tokenizer settings
-        analyzerIndexMode = settings.getAsBoolean(ANALYZER_CONFIG_PREFIX + INDEX_MODE, analyzerIndexMode);
-        analyzerNameRecognize = settings.getAsBoolean(ANALYZER_CONFIG_PREFIX + NAME_RECOGNIZE, analyzerNameRecognize);
-        analyzerTranslatedNameRecognize = settings.getAsBoolean(ANALYZER_CONFIG_PREFIX + TRANSLATED_NAME_RECOGNIZE, analyzerTranslatedNameRecognize);
-        analyzerJapaneseNameRecognize = settings.getAsBoolean(ANALYZER_CONFIG_PREFIX + JAPANESE_NAME_RECOGNIZE, analyzerJapaneseNameRecognize);
-        analyzerPlaceRecognize = settings.getAsBoolean(ANALYZER_CONFIG_PREFIX + PLACE_RECOGNIZE, analyzerPlaceRecognize);
-        analyzerOrganizationRecognize = settings.getAsBoolean(ANALYZER_CONFIG_PREFIX + ORGANIZATION_RECOGNIZE, analyzerOrganizationRecognize);
-        analyzerUseCustomDictionary = settings.getAsBoolean(ANALYZER_CONFIG_PREFIX + USE_CUSTOM_DICTIONARY, analyzerUseCustomDictionary);
-        analyzerSpeechTagging = settings.getAsBoolean(ANALYZER_CONFIG_PREFIX + SPEECH_TAGGING, analyzerSpeechTagging);
-        analyzerOffset = settings.getAsBoolean(ANALYZER_CONFIG_PREFIX + OFFSET, analyzerOffset);
-        analyzerNumberQuantifierRecognize = settings.getAsBoolean(ANALYZER_CONFIG_PREFIX + NUMBER_QUANTIFIER_RECOGNIZE, analyzerNumberQuantifierRecognize);
-        analyzerThreads = settings.getAsInt(ANALYZER_CONFIG_PREFIX + THREADS, analyzerThreads);
-
-        // get tokenizer settings
-        tokenizerIndexMode = settings.getAsBoolean(TOKENIZER_CONFIG_PREFIX + INDEX_MODE, tokenizerIndexMode);
-        tokenizerNameRecognize = settings.getAsBoolean(TOKENIZER_CONFIG_PREFIX + NAME_RECOGNIZE, tokenizerNameRecognize);
-        tokenizerTranslatedNameRecognize = settings.getAsBoolean(TOKENIZER_CONFIG_PREFIX + TRANSLATED_NAME_RECOGNIZE, tokenizerTranslatedNameRecognize);
-        tokenizerJapaneseNameRecognize = settings.getAsBoolean(TOKENIZER_CONFIG_PREFIX + JAPANESE_NAME_RECOGNIZE, tokenizerJapaneseNameRecognize);
-        tokenizerPlaceRecognize = settings.getAsBoolean(TOKENIZER_CONFIG_PREFIX + PLACE_RECOGNIZE, tokenizerPlaceRecognize);
-        tokenizerOrganizationRecognize = settings.getAsBoolean(TOKENIZER_CONFIG_PREFIX + ORGANIZATION_RECOGNIZE, tokenizerOrganizationRecognize);
-        tokenizerUseCustomDictionary = settings.getAsBoolean(TOKENIZER_CONFIG_PREFIX + USE_CUSTOM_DICTIONARY, tokenizerUseCustomDictionary);
-        tokenizerSpeechTagging = settings.getAsBoolean(TOKENIZER_CONFIG_PREFIX + SPEECH_TAGGING, tokenizerSpeechTagging);
-        tokenizerOffset = settings.getAsBoolean(TOKENIZER_CONFIG_PREFIX + OFFSET, tokenizerOffset);
-        tokenizerNumberQuantifierRecognize = settings.getAsBoolean(TOKENIZER_CONFIG_PREFIX + NUMBER_QUANTIFIER_RECOGNIZE, tokenizerNumberQuantifierRecognize);
-        tokenizerThreads = settings.getAsInt(TOKENIZER_CONFIG_PREFIX + THREADS, tokenizerThreads);
-
-        // fix threads
-        if (analyzerThreads < 1) {
-            analyzerThreads = 1;
+    public SegmentConfig tokenizerConfig() {
+        return tokenizerConfig;
+    }
+
+    /**
+     * Returns the flags of the built-in analyzer or tokenizer called {@code name}, {@code null} if there is none.
+     */
+    public SegmentConfig config(String name) {
+        switch (name) {
+            case "hanlp":
+                return analyzerConfig;
+            case "hanlp_tokenizer":
+                return tokenizerConfig;
+            case "hanlp_speed":
+                return SegmentConfig.SPEED;
+            default:
+                return null;
         }
-        if (tokenizerThreads < 1) {
-            tokenizerThreads = 1;
+    }
+
+    /**
+     * Verifies the dictionaries compiled by {@link DictionaryCacheCompiler} with the manifest at {@code file} and
+     * returns the settings pointing HanLP at them.
+     */
+    private Settings compiled(Path file, Settings settings) {
+        long start = System.nanoTime();
+        DictionaryManifest manifest;
+        try {
+            manifest = DictionaryManifest.read(file);
+        } catch (IOException e) {
+            throw new ElasticsearchException("failed to read dictionary manifest [{}]", e, file);
         }
+        Settings compiled = manifest.verify(settings);
+        logger.debug("verified [{}] compiled dictionaries of [{}] in [{}]", manifest.entries().size(), file,
+                     TimeValue.timeValueNanos(System.nanoTime() - start));
+        return compiled;
+    }
 
+    static void initSettings(Settings settings) {
         // get global HanLP settings
         HanLP.Config.CoreDictionaryPath =
             settings.get(CORE_DICTIONARY_PATH, HanLP.Config.CoreDictionaryPath);
@@ -24,7 +24,20 @@ public class HanLpIndicesAnalysisModule extends AbstractModule {
 
     @Override
     protected void configure() {
+        bind(HanLpDictionaryLoader.class).asEagerSingleton();
+        bind(HanLpSegmentCache.class).asEagerSingleton();
+        bind(HanLpSegmentMemo.class).asEagerSingleton();
+        bind(HanLpSegmentExecutor.class).asEagerSingleton();
+        bind(HanLpSegmentPool.class).asEagerSingleton();
+        bind(HanLpAnalysisMetrics.class).asEagerSingleton();
+        bind(HanLpStopWords.class).asEagerSingleton();
+        bind(HanLpConversions.class).asEagerSingleton();
+        bind(HanLpSynonyms.class).asEagerSingleton();
+        bind(HanLpIndexDictionaries.class).asEagerSingleton();
+        bind(HanLpAnalyzerRegistry.class).asEagerSingleton();
         bind(HanLpIndicesAnalysis.class).asEagerSingleton();
+        bind(HanLpWarmer.class).asEagerSingleton();
+        bind(HanLpCustomDictionary.class).asEagerSingleton();
     }
 
 }
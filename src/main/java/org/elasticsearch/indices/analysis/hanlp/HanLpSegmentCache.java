@@ -0,0 +1,269 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.hankcs.hanlp.seg.common.Term;
+
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.elasticsearch.indices.analysis.hanlp.Settings.SEGMENT_CACHE_EXPIRE;
+import static org.elasticsearch.indices.analysis.hanlp.Settings.SEGMENT_CACHE_MAX_TEXT_LENGTH;
+import static org.elasticsearch.indices.analysis.hanlp.Settings.SEGMENT_CACHE_SIZE;
+
+/**
+ * Node level LRU cache of segmentation results, keyed by the segmented text and the {@link SegmentConfig} of the
+ * segment that produced them. Meant for short, heavily repeated texts such as search queries; texts longer than
+ * {@code analysis.hanlp.segmentCache.maxTextLength} are never cached.
+ * <p>
+ * The cache is disabled unless {@code analysis.hanlp.segmentCache.size} is set. It must be {@link #clear() cleared}
+ * whenever dictionaries change.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpSegmentCache extends AbstractComponent implements RemovalListener<HanLpSegmentCache.Key, HanLpSegmentCache.Entry> {
+
+    private static final long KEY_SHALLOW_SIZE = RamUsageEstimator.shallowSizeOfInstance(Key.class)
+                                                 + RamUsageEstimator.shallowSizeOfInstance(String.class);
+    private static final long ENTRY_SHALLOW_SIZE = RamUsageEstimator.shallowSizeOfInstance(Entry.class);
+    private static final long TERM_SHALLOW_SIZE = RamUsageEstimator.shallowSizeOfInstance(Term.class)
+                                                  + RamUsageEstimator.shallowSizeOfInstance(String.class);
+
+    private final long maxSizeInBytes;
+    private final int maxTextLength;
+    private final TimeValue expire;
+
+    private final Cache<Key, Entry> cache;
+
+    private final CounterMetric hits = new CounterMetric();
+    private final CounterMetric misses = new CounterMetric();
+    private final CounterMetric evictions = new CounterMetric();
+    private final CounterMetric memorySizeInBytes = new CounterMetric();
+
+    @Inject
+    public HanLpSegmentCache(Settings settings) {
+        super(settings);
+
+        this.maxSizeInBytes = settings.getAsBytesSize(SEGMENT_CACHE_SIZE, new ByteSizeValue(0)).bytes();
+        this.maxTextLength = settings.getAsInt(SEGMENT_CACHE_MAX_TEXT_LENGTH, 64);
+        this.expire = settings.getAsTime(SEGMENT_CACHE_EXPIRE, null);
+
+        if (maxSizeInBytes > 0) {
+            CacheBuilder<Key, Entry> cacheBuilder = CacheBuilder.newBuilder()
+                                                                 .maximumWeight(maxSizeInBytes)
+                                                                 .weigher(new SegmentationWeigher())
+                                                                 .removalListener(this);
+            if (expire != null) {
+                cacheBuilder.expireAfterAccess(expire.millis(), TimeUnit.MILLISECONDS);
+            }
+            cache = cacheBuilder.build();
+
+            logger.debug("using segment cache with size [{}], max text length [{}], expire [{}]",
+                         new ByteSizeValue(maxSizeInBytes), maxTextLength, expire);
+        } else {
+            cache = null;
+        }
+    }
+
+    public boolean enabled() {
+        return cache != null;
+    }
+
+    public int maxTextLength() {
+        return maxTextLength;
+    }
+
+    /**
+     * Returns a copy of the cached segmentation of {@code text}, or {@code null} if it isn't cached. When the segment
+     * normalized {@code chars}, the chars of {@code text}, in place, they are normalized the same way.
+     *
+     * @param chars the array being segmented, {@code null} if a string is
+     */
+    List<Term> get(SegmentConfig config, String text, char[] chars) {
+        Entry entry = cache.getIfPresent(new Key(config, text));
+        if (entry == null) {
+            misses.inc();
+            return null;
+        }
+        hits.inc();
+        if (chars != null && entry.normalized != null) {
+            System.arraycopy(entry.normalized, 0, chars, 0, chars.length);
+        }
+        List<Term> copy = new ArrayList<>(entry.terms.length);
+        for (Term term : entry.terms) {
+            copy.add(copy(term));
+        }
+        return copy;
+    }
+
+    /**
+     * Caches the segmentation of {@code text}.
+     *
+     * @param chars the array that was segmented, as the segment left it, {@code null} if a string was
+     */
+    void put(SegmentConfig config, String text, char[] chars, List<Term> termList) {
+        Term[] terms = new Term[termList.size()];
+        for (int i = 0; i < terms.length; i++) {
+            terms[i] = copy(termList.get(i));
+        }
+        Key key = new Key(config, text);
+        Entry entry = new Entry(terms, normalized(text, chars));
+        memorySizeInBytes.inc(weigh(key, entry));
+        cache.put(key, entry);
+    }
+
+    /**
+     * Returns a copy of {@code chars} if the segment normalized them, so they differ from {@code text}, {@code null}
+     * otherwise.
+     */
+    static char[] normalized(String text, char[] chars) {
+        if (chars != null) {
+            for (int i = 0; i < chars.length; i++) {
+                if (chars[i] != text.charAt(i)) {
+                    return Arrays.copyOf(chars, chars.length);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Drops every cached segmentation, must be called when a dictionary changed.
+     */
+    public void clear() {
+        if (cache != null) {
+            cache.invalidateAll();
+            cache.cleanUp();
+        }
+    }
+
+    @Override
+    public void onRemoval(RemovalNotification<Key, Entry> notification) {
+        if (notification.wasEvicted()) {
+            evictions.inc();
+        }
+        memorySizeInBytes.dec(weigh(notification.getKey(), notification.getValue()));
+    }
+
+    public long hitCount() {
+        return hits.count();
+    }
+
+    public long missCount() {
+        return misses.count();
+    }
+
+    public long evictionCount() {
+        return evictions.count();
+    }
+
+    public long memorySizeInBytes() {
+        return memorySizeInBytes.count();
+    }
+
+    public long entryCount() {
+        return cache == null ? 0 : cache.size();
+    }
+
+    private static Term copy(Term term) {
+        Term copy = new Term(term.word, term.nature);
+        copy.offset = term.offset;
+        return copy;
+    }
+
+    private static int weigh(Key key, Entry entry) {
+        long size = KEY_SHALLOW_SIZE + ENTRY_SHALLOW_SIZE + sizeOfChars(key.text.length())
+                    + RamUsageEstimator.shallowSizeOf(entry.terms);
+        if (entry.normalized != null) {
+            size += sizeOfChars(entry.normalized.length);
+        }
+        for (Term term : entry.terms) {
+            size += TERM_SHALLOW_SIZE + sizeOfChars(term.word.length());
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    private static long sizeOfChars(int length) {
+        return RamUsageEstimator.alignObjectSize(RamUsageEstimator.NUM_BYTES_ARRAY_HEADER
+                                                 + (long) RamUsageEstimator.NUM_BYTES_CHAR * length);
+    }
+
+    private static class SegmentationWeigher implements Weigher<Key, Entry> {
+
+        @Override
+        public int weigh(Key key, Entry entry) {
+            return HanLpSegmentCache.weigh(key, entry);
+        }
+
+    }
+
+    static class Entry {
+
+        private final Term[] terms;
+        private final char[] normalized; // the text as the segment normalized it, null if it didn't
+
+        Entry(Term[] terms, char[] normalized) {
+            this.terms = terms;
+            this.normalized = normalized;
+        }
+
+    }
+
+    static class Key {
+
+        private final SegmentConfig config;
+        private final String text;
+
+        Key(SegmentConfig config, String text) {
+            this.config = config;
+            this.text = text;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return text.equals(key.text) && config.equals(key.config);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * config.hashCode() + text.hashCode();
+        }
+
+    }
+
+}
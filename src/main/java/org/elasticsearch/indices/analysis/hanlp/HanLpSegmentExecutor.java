@@ -0,0 +1,331 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.seg.Segment;
+import com.hankcs.hanlp.seg.common.Term;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.common.util.concurrent.EsThreadPoolExecutor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.elasticsearch.indices.analysis.hanlp.Settings.SEGMENT_EXECUTOR_MIN_TEXT_LENGTH;
+import static org.elasticsearch.indices.analysis.hanlp.Settings.SEGMENT_EXECUTOR_QUEUE_SIZE;
+import static org.elasticsearch.indices.analysis.hanlp.Settings.SEGMENT_EXECUTOR_SIZE;
+
+/**
+ * Node level executor segmenting the sentences of long texts in parallel, shared by every segment configured with
+ * more than one {@code threads}. HanLP's own multithreading starts new threads for every text instead, which with
+ * many concurrent indexing threads oversubscribes the cores.
+ * <p>
+ * A text shorter than {@code analysis.hanlp.segmentExecutor.minTextLength} is segmented on the calling thread. A
+ * longer one is cut after sentence delimiters into up to {@code threads} batches: the calling thread segments the
+ * first one and the executor the others, with the calling thread taking back the batches the executor has not
+ * started yet, or could not queue, once it is done with its own. Terms are returned in text order with their offsets
+ * relative to the whole text, and the text is left normalized in place like a single segment would leave it.
+ * <p>
+ * The executor also runs the items of bulk requests, see {@link #forEach(int, IndexConsumer)}.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpSegmentExecutor extends AbstractLifecycleComponent<HanLpSegmentExecutor> {
+
+    public static final int DEFAULT_QUEUE_SIZE = 1000;
+    public static final int DEFAULT_MIN_TEXT_LENGTH = 10000;
+
+    private final int size;
+    private final int queueSize;
+    private final int minTextLength;
+    private final EsThreadPoolExecutor executor;
+
+    private final CounterMetric documents = new CounterMetric();
+    private final CounterMetric batches = new CounterMetric();
+    private final CounterMetric forked = new CounterMetric();
+    private final CounterMetric rejected = new CounterMetric();
+
+    @Inject
+    public HanLpSegmentExecutor(Settings settings) {
+        super(settings);
+
+        this.size = settings.getAsInt(SEGMENT_EXECUTOR_SIZE, EsExecutors.boundedNumberOfProcessors(settings));
+        if (size < 1) {
+            throw new IllegalArgumentException("[" + SEGMENT_EXECUTOR_SIZE + "] must be at least 1, got [" + size + "]");
+        }
+        this.queueSize = settings.getAsInt(SEGMENT_EXECUTOR_QUEUE_SIZE, DEFAULT_QUEUE_SIZE);
+        this.minTextLength = settings.getAsInt(SEGMENT_EXECUTOR_MIN_TEXT_LENGTH, DEFAULT_MIN_TEXT_LENGTH);
+        this.executor = EsExecutors.newFixed("hanlp_segment", size, queueSize,
+                                             EsExecutors.daemonThreadFactory(settings, "hanlp_segment"));
+
+        logger.debug("using segment executor with size [{}], queue size [{}], min text length [{}]", size, queueSize,
+                     minTextLength);
+    }
+
+    /**
+     * Segments {@code text} with {@code segment}, in parallel if it is long enough and {@code config} allows more than
+     * one thread.
+     */
+    public List<Term> seg(Segment segment, SegmentConfig config, char[] text) {
+        if (config.threads() < 2 || text.length < minTextLength) {
+            return segment.seg(text);
+        }
+        int[] ends = split(text, config.threads());
+        if (ends.length == 1) {
+            return segment.seg(text);
+        }
+        documents.inc();
+        batches.inc(ends.length);
+
+        Thread caller = Thread.currentThread();
+        List<FutureTask<List<Term>>> tasks = new ArrayList<>(ends.length - 1);
+        for (int i = 1; i < ends.length; i++) {
+            FutureTask<List<Term>> task = new FutureTask<>(new Batch(segment, text, ends[i - 1], ends[i], caller));
+            tasks.add(task);
+            try {
+                executor.execute(task);
+            } catch (EsRejectedExecutionException e) {
+                // left for the calling thread
+                rejected.inc();
+            }
+        }
+
+        boolean termOffsets = config.termOffsets();
+        List<Term> terms = new ArrayList<>(seg(segment, text, 0, ends[0]));
+        for (int i = 0; i < tasks.size(); i++) {
+            FutureTask<List<Term>> task = tasks.get(i);
+            // a no-op unless no thread of the executor started the task yet
+            task.run();
+            List<Term> batch = get(task);
+            if (termOffsets) {
+                for (Term term : batch) {
+                    term.offset += ends[i];
+                }
+            }
+            terms.addAll(batch);
+        }
+        return terms;
+    }
+
+    /**
+     * Calls {@code consumer} with every index from {@code 0} to {@code count - 1}. The calling thread and up to
+     * {@link #size()} threads of the executor each take the next index left until there is none, so no more than
+     * {@link #size()} tasks are queued whatever {@code count}. Returns once every index is done, throwing the first failure, after
+     * which no more indices are taken.
+     */
+    public void forEach(int count, IndexConsumer consumer) {
+        AtomicInteger next = new AtomicInteger();
+        Thread caller = Thread.currentThread();
+        int workers = Math.min(size + 1, count);
+        List<FutureTask<Void>> tasks = new ArrayList<>(workers);
+        tasks.add(new FutureTask<>(new Worker(consumer, count, next, caller)));
+        for (int i = 1; i < workers; i++) {
+            FutureTask<Void> task = new FutureTask<>(new Worker(consumer, count, next, caller));
+            tasks.add(task);
+            try {
+                executor.execute(task);
+            } catch (EsRejectedExecutionException e) {
+                // the other workers take its share
+                rejected.inc();
+            }
+        }
+
+        RuntimeException failure = null;
+        for (FutureTask<Void> task : tasks) {
+            // a no-op unless no thread of the executor started the task yet
+            task.run();
+            try {
+                get(task);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Segments the chars of {@code text} from {@code start} to {@code end}, which HanLP may normalize, and writes them
+     * back into {@code text} as the segment left them, so the caller sees the text normalized as if it had been
+     * segmented whole. The batches of a text are disjoint, so they can write back from any thread.
+     */
+    private static List<Term> seg(Segment segment, char[] text, int start, int end) {
+        char[] batch = Arrays.copyOfRange(text, start, end);
+        List<Term> terms = segment.seg(batch);
+        System.arraycopy(batch, 0, text, start, batch.length);
+        return terms;
+    }
+
+    private static <T> T get(FutureTask<T> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ElasticsearchException("interrupted while segmenting", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw ExceptionsHelper.convertToRuntime(cause);
+        }
+    }
+
+    /**
+     * Returns where each batch of {@code text} ends: after the first sentence delimiter past an even share of the text,
+     * so that no batch starts in the middle of a sentence. There are fewer than {@code count} batches if sentences are
+     * long.
+     */
+    static int[] split(char[] text, int count) {
+        int target = (text.length + count - 1) / count;
+        int[] ends = new int[count];
+        int batch = 0;
+        int end = 0;
+        while (end < text.length) {
+            end = Math.min(text.length, end + target);
+            while (end < text.length && TextBoundaries.isSentenceDelimiter(text[end - 1]) == false) {
+                end++;
+            }
+            // keep runs of delimiters, such as "\r\n" or "！？", together
+            while (end < text.length && TextBoundaries.isSentenceDelimiter(text[end])) {
+                end++;
+            }
+            if (batch == count - 1) {
+                end = text.length;
+            }
+            ends[batch++] = end;
+        }
+        return Arrays.copyOf(ends, batch);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int minTextLength() {
+        return minTextLength;
+    }
+
+    public HanLpSegmentExecutorStats stats() {
+        return new HanLpSegmentExecutorStats(size, queueSize, executor.getActiveCount(), executor.getQueue().size(),
+                                             executor.getLargestPoolSize(), documents.count(), batches.count(),
+                                             forked.count(), rejected.count());
+    }
+
+    @Override
+    protected void doStart() {
+    }
+
+    @Override
+    protected void doStop() {
+    }
+
+    @Override
+    protected void doClose() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Callback of {@link #forEach(int, IndexConsumer)}.
+     */
+    public interface IndexConsumer {
+
+        void accept(int index) throws Exception;
+
+    }
+
+    private class Worker implements Callable<Void> {
+
+        private final IndexConsumer consumer;
+        private final int count;
+        private final AtomicInteger next;
+        private final Thread caller;
+
+        Worker(IndexConsumer consumer, int count, AtomicInteger next, Thread caller) {
+            this.consumer = consumer;
+            this.count = count;
+            this.next = next;
+            this.caller = caller;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            boolean forked = Thread.currentThread() != caller;
+            for (int index = next.getAndIncrement(); index < count; index = next.getAndIncrement()) {
+                if (forked) {
+                    HanLpSegmentExecutor.this.forked.inc();
+                }
+                try {
+                    consumer.accept(index);
+                } catch (Exception e) {
+                    // stops the other workers
+                    next.set(count);
+                    throw e;
+                }
+            }
+            return null;
+        }
+
+    }
+
+    private class Batch implements Callable<List<Term>> {
+
+        private final Segment segment;
+        private final char[] text;
+        private final int start;
+        private final int end;
+        private final Thread caller;
+
+        Batch(Segment segment, char[] text, int start, int end, Thread caller) {
+            this.segment = segment;
+            this.text = text;
+            this.start = start;
+            this.end = end;
+            this.caller = caller;
+        }
+
+        @Override
+        public List<Term> call() {
+            if (Thread.currentThread() != caller) {
+                forked.inc();
+            }
+            return seg(segment, text, start, end);
+        }
+
+    }
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+
+import java.io.IOException;
+
+/**
+ * Snapshot of the load of the {@link HanLpSegmentExecutor}.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpSegmentExecutorStats implements Streamable, ToXContent {
+
+    private int threads;
+    private int queueSize;
+    private int active;
+    private int queue;
+    private int largest;
+    private long documents;
+    private long batches;
+    private long forked;
+    private long rejected;
+
+    HanLpSegmentExecutorStats() {
+    }
+
+    public HanLpSegmentExecutorStats(int threads, int queueSize, int active, int queue, int largest, long documents,
+                                     long batches, long forked, long rejected) {
+        this.threads = threads;
+        this.queueSize = queueSize;
+        this.active = active;
+        this.queue = queue;
+        this.largest = largest;
+        this.documents = documents;
+        this.batches = batches;
+        this.forked = forked;
+        this.rejected = rejected;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    /**
+     * Number of batches waiting for a thread.
+     */
+    public int getQueue() {
+        return queue;
+    }
+
+    public int getLargest() {
+        return largest;
+    }
+
+    /**
+     * Number of texts that were segmented in parallel.
+     */
+    public long getDocuments() {
+        return documents;
+    }
+
+    /**
+     * Number of batches these texts were cut into.
+     */
+    public long getBatches() {
+        return batches;
+    }
+
+    /**
+     * Number of batches, and items of bulk requests, segmented by the executor rather than by the calling thread.
+     */
+    public long getForked() {
+        return forked;
+    }
+
+    /**
+     * Number of batches, or bulk workers, the executor could not queue, left to the calling thread.
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    public static HanLpSegmentExecutorStats readSegmentExecutorStats(StreamInput in) throws IOException {
+        HanLpSegmentExecutorStats stats = new HanLpSegmentExecutorStats();
+        stats.readFrom(in);
+        return stats;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        threads = in.readVInt();
+        queueSize = in.readInt();
+        active = in.readVInt();
+        queue = in.readVInt();
+        largest = in.readVInt();
+        documents = in.readVLong();
+        batches = in.readVLong();
+        forked = in.readVLong();
+        rejected = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVInt(threads);
+        out.writeInt(queueSize);
+        out.writeVInt(active);
+        out.writeVInt(queue);
+        out.writeVInt(largest);
+        out.writeVLong(documents);
+        out.writeVLong(batches);
+        out.writeVLong(forked);
+        out.writeVLong(rejected);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.field(Fields.THREADS, threads);
+        builder.field(Fields.QUEUE_SIZE, queueSize);
+        builder.field(Fields.ACTIVE, active);
+        builder.field(Fields.QUEUE, queue);
+        builder.field(Fields.LARGEST, largest);
+        builder.field(Fields.DOCUMENTS, documents);
+        builder.field(Fields.BATCHES, batches);
+        builder.field(Fields.FORKED, forked);
+        builder.field(Fields.REJECTED, rejected);
+        return builder;
+    }
+
+    static final class Fields {
+        static final XContentBuilderString THREADS = new XContentBuilderString("threads");
+        static final XContentBuilderString QUEUE_SIZE = new XContentBuilderString("queue_size");
+        static final XContentBuilderString ACTIVE = new XContentBuilderString("active");
+        static final XContentBuilderString QUEUE = new XContentBuilderString("queue");
+        static final XContentBuilderString LARGEST = new XContentBuilderString("largest");
+        static final XContentBuilderString DOCUMENTS = new XContentBuilderString("documents");
+        static final XContentBuilderString BATCHES = new XContentBuilderString("batches");
+        static final XContentBuilderString FORKED = new XContentBuilderString("forked");
+        static final XContentBuilderString REJECTED = new XContentBuilderString("rejected");
+    }
+
+}
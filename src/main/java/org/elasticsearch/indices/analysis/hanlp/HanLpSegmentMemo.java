@@ -0,0 +1,174 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.seg.common.Term;
+
+import org.apache.lucene.util.CloseableThreadLocal;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.settings.Settings;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.elasticsearch.indices.analysis.hanlp.Settings.SEGMENT_MEMO_MAX_CHARS;
+
+/**
+ * Per thread memo of the texts segmented last, keyed by the text and the {@link SegmentConfig} of the segment that
+ * produced them. Multi-fields and {@code copy_to} have the same text analyzed by several analyzers one after the
+ * other on the indexing thread, those sharing a config replay the terms of the first one instead of segmenting again.
+ * <p>
+ * Each thread remembers texts of up to {@code analysis.hanlp.segmentMemo.maxChars} chars in total, dropping the least
+ * recently used first, and never a longer text. The memo is disabled by default ({@code 0}): every lookup costs a key
+ * and a map access, only worth it when mappings do analyze the same text several times. Unlike the
+ * {@link HanLpSegmentCache} it isn't shared between threads, so it needs no locking, and only holds on to the document
+ * being indexed and a few before it. It must be {@link #clear() cleared} whenever dictionaries change.
+ * <p>
+ * The terms are remembered and replayed as the segment returned them, not copied: callers must not modify them. The
+ * tokenizers only read them, {@link BudgetedSegment} only fills in the offsets of fallback terms, the same every time.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpSegmentMemo extends AbstractComponent {
+
+    private final int maxChars;
+
+    private final CloseableThreadLocal<Lines> lines = new CloseableThreadLocal<>();
+    // bumped by clear(), each thread drops what it remembers when it sees a new generation
+    private final AtomicLong generation = new AtomicLong();
+
+    private final CounterMetric hits = new CounterMetric();
+    private final CounterMetric misses = new CounterMetric();
+
+    @Inject
+    public HanLpSegmentMemo(Settings settings) {
+        super(settings);
+
+        this.maxChars = settings.getAsInt(SEGMENT_MEMO_MAX_CHARS, 0);
+
+        logger.debug("using segment memo with max chars [{}]", maxChars);
+    }
+
+    public boolean enabled() {
+        return maxChars > 0;
+    }
+
+    public int maxChars() {
+        return maxChars;
+    }
+
+    /**
+     * Returns the terms this thread remembers for {@code text}, or {@code null} if it doesn't. When the segment
+     * normalized {@code chars}, the chars of {@code text}, in place, they are normalized the same way.
+     *
+     * @param chars the array being segmented, {@code null} if a string is
+     */
+    List<Term> get(SegmentConfig config, String text, char[] chars) {
+        Entry entry = lines().entries.get(new HanLpSegmentCache.Key(config, text));
+        if (entry == null) {
+            misses.inc();
+            return null;
+        }
+        hits.inc();
+        if (chars != null && entry.normalized != null) {
+            System.arraycopy(entry.normalized, 0, chars, 0, chars.length);
+        }
+        return entry.terms;
+    }
+
+    /**
+     * Remembers the terms of {@code text} for this thread.
+     *
+     * @param chars the array that was segmented, as the segment left it, {@code null} if a string was
+     */
+    void put(SegmentConfig config, String text, char[] chars, List<Term> terms) {
+        Lines lines = lines();
+        Entry previous = lines.entries.put(new HanLpSegmentCache.Key(config, text),
+                                           new Entry(text.length(), terms,
+                                                     HanLpSegmentCache.normalized(text, chars)));
+        lines.chars += text.length() - (previous == null ? 0 : previous.length);
+        for (Iterator<Entry> it = lines.entries.values().iterator(); lines.chars > maxChars && it.hasNext(); ) {
+            lines.chars -= it.next().length;
+            it.remove();
+        }
+    }
+
+    /**
+     * Makes every thread forget what it remembers, must be called when a dictionary changed.
+     */
+    public void clear() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Releases what the threads remember.
+     */
+    public void close() {
+        lines.close();
+    }
+
+    public long hitCount() {
+        return hits.count();
+    }
+
+    public long missCount() {
+        return misses.count();
+    }
+
+    private Lines lines() {
+        Lines lines = this.lines.get();
+        long generation = this.generation.get();
+        if (lines == null) {
+            lines = new Lines();
+            this.lines.set(lines);
+        } else if (lines.generation != generation) {
+            lines.entries.clear();
+            lines.chars = 0;
+        }
+        lines.generation = generation;
+        return lines;
+    }
+
+    /**
+     * What a thread remembers, least recently used first.
+     */
+    private static class Lines {
+
+        private final LinkedHashMap<HanLpSegmentCache.Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long chars;
+        private long generation;
+
+    }
+
+    private static class Entry {
+
+        private final int length;
+        private final List<Term> terms;
+        private final char[] normalized; // the text as the segment normalized it, null if it didn't
+
+        Entry(int length, List<Term> terms, char[] normalized) {
+            this.length = length;
+            this.terms = terms;
+            this.normalized = normalized;
+        }
+
+    }
+
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.seg.Segment;
+
+import org.apache.lucene.util.CloseableThreadLocal;
+import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.elasticsearch.indices.analysis.hanlp.Settings.SEGMENT_POOL_SIZE;
+import static org.elasticsearch.indices.analysis.hanlp.Settings.SEGMENT_POOL_TYPE;
+
+/**
+ * Node level pool of configured HanLP segments, keyed by {@link SegmentConfig}. Building a segment and applying its
+ * flags is done once per pooled instance instead of every time Lucene asks for a new tokenizer.
+ * <p>
+ * Segments are stateless once configured, the pool only decides how many instances are built:
+ * <ul>
+ * <li>{@code thread} (default) - one instance per thread and configuration</li>
+ * <li>{@code shared} - at most {@code analysis.hanlp.segmentPool.size} instances per configuration, checked out in
+ * round-robin order</li>
+ * <li>{@code none} - no pooling, a new instance for every checkout</li>
+ * </ul>
+ * Building a segment loads the dictionaries its configuration needs through the {@link HanLpDictionaryLoader}, so a
+ * configuration whose dictionaries would go over the {@code hanlp} circuit breaker can't be checked out. Segments
+ * look texts up in the {@link HanLpSegmentCache}, then replay what the {@link HanLpSegmentMemo} remembers.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpSegmentPool extends AbstractLifecycleComponent<HanLpSegmentPool> {
+
+    public enum Type {
+        THREAD, SHARED, NONE;
+
+        public static Type fromString(String type) {
+            try {
+                return valueOf(type.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("unknown segment pool type [" + type + "]");
+            }
+        }
+    }
+
+    private final HanLpDictionaryLoader dictionaryLoader;
+    private final HanLpSegmentCache segmentCache;
+    private final HanLpSegmentMemo segmentMemo;
+    private final HanLpSegmentExecutor segmentExecutor;
+
+    private final Type type;
+    private final int size;
+
+    private final ConcurrentMap<SegmentConfig, Pool> pools = ConcurrentCollections.newConcurrentMap();
+
+    private final CounterMetric hits = new CounterMetric();
+    private final CounterMetric misses = new CounterMetric();
+
+    /**
+     * Builds a pool loading the dictionaries without accounting for them in a circuit breaker.
+     */
+    public HanLpSegmentPool(Settings settings, HanLpSegmentCache segmentCache, HanLpSegmentExecutor segmentExecutor) {
+        this(settings, new HanLpDictionaryLoader(settings, new NoneCircuitBreakerService()), segmentCache,
+             segmentExecutor);
+    }
+
+    public HanLpSegmentPool(Settings settings, HanLpDictionaryLoader dictionaryLoader, HanLpSegmentCache segmentCache,
+                            HanLpSegmentExecutor segmentExecutor) {
+        this(settings, dictionaryLoader, segmentCache, new HanLpSegmentMemo(settings), segmentExecutor);
+    }
+
+    @Inject
+    public HanLpSegmentPool(Settings settings, HanLpDictionaryLoader dictionaryLoader, HanLpSegmentCache segmentCache,
+                            HanLpSegmentMemo segmentMemo, HanLpSegmentExecutor segmentExecutor) {
+        super(settings);
+
+        this.dictionaryLoader = dictionaryLoader;
+        this.segmentCache = segmentCache;
+        this.segmentMemo = segmentMemo;
+        this.segmentExecutor = segmentExecutor;
+        this.type = Type.fromString(settings.get(SEGMENT_POOL_TYPE, Type.THREAD.name()));
+        this.size = settings.getAsInt(SEGMENT_POOL_SIZE, EsExecutors.boundedNumberOfProcessors(settings));
+        if (size < 1) {
+            throw new IllegalArgumentException("[" + SEGMENT_POOL_SIZE + "] must be at least 1, got [" + size + "]");
+        }
+
+        logger.debug("using segment pool [{}] with size [{}]", type.name().toLowerCase(Locale.ROOT), size);
+    }
+
+    /**
+     * Checks out a segment configured with {@code config}, building one only if the pool has none to hand out.
+     */
+    public Segment acquire(SegmentConfig config) {
+        if (type == Type.NONE) {
+            misses.inc();
+            return newSegment(config);
+        }
+        Pool pool = pools.get(config);
+        if (pool == null) {
+            Pool newPool = type == Type.THREAD ? new PerThreadPool(config) : new SharedPool(config, size);
+            pool = pools.putIfAbsent(config, newPool);
+            if (pool == null) {
+                pool = newPool;
+            }
+        }
+        return pool.acquire();
+    }
+
+    /**
+     * Checks out a segment configured with {@code config} like {@link #acquire(SegmentConfig)} if the pool already
+     * holds segments for it, else builds one that isn't pooled, so a configuration no analyzer or tokenizer uses
+     * doesn't add to the pool for good.
+     */
+    public Segment acquireIfPooled(SegmentConfig config) {
+        Pool pool = pools.get(config);
+        if (pool == null) {
+            misses.inc();
+            return newSegment(config);
+        }
+        return pool.acquire();
+    }
+
+    private Segment newSegment(SegmentConfig config) {
+        dictionaryLoader.load(config);
+        Segment segment = config.newSegment();
+        if (config.threads() > 1) {
+            segment = new ParallelSegment(segmentExecutor, config, segment);
+        }
+        if (config.customDictionary() != null) {
+            segment = new IndexDictionarySegment(config.customDictionary(), config, segment);
+        }
+        if (segmentMemo.enabled()) {
+            segment = new MemoizingSegment(segmentMemo, config, segment);
+        }
+        if (segmentCache.enabled()) {
+            segment = new CachingSegment(segmentCache, config, segment);
+        }
+        return segment;
+    }
+
+    /**
+     * Drops the segments of the configurations using {@code customDictionary}, which no index uses anymore.
+     */
+    void remove(HanLpIndexDictionary customDictionary) {
+        for (Iterator<Map.Entry<SegmentConfig, Pool>> it = pools.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<SegmentConfig, Pool> entry = it.next();
+            if (entry.getKey().customDictionary() == customDictionary) {
+                it.remove();
+                entry.getValue().close();
+            }
+        }
+    }
+
+    public Type type() {
+        return type;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Number of checkouts served by an already built segment.
+     */
+    public long hitCount() {
+        return hits.count();
+    }
+
+    /**
+     * Number of checkouts that had to build a new segment.
+     */
+    public long missCount() {
+        return misses.count();
+    }
+
+    /**
+     * Number of distinct configurations the pool holds segments for.
+     */
+    public int configurationCount() {
+        return pools.size();
+    }
+
+    @Override
+    protected void doStart() {
+    }
+
+    @Override
+    protected void doStop() {
+    }
+
+    @Override
+    protected void doClose() {
+        logger.debug("closing segment pool, [{}] configurations, [{}] hits, [{}] misses", pools.size(), hits.count(),
+                     misses.count());
+        for (Pool pool : pools.values()) {
+            pool.close();
+        }
+        pools.clear();
+        segmentMemo.close();
+    }
+
+    private interface Pool {
+
+        Segment acquire();
+
+        void close();
+
+    }
+
+    private class PerThreadPool implements Pool {
+
+        private final SegmentConfig config;
+        private final CloseableThreadLocal<Segment> segments = new CloseableThreadLocal<>();
+
+        PerThreadPool(SegmentConfig config) {
+            this.config = config;
+        }
+
+        @Override
+        public Segment acquire() {
+            Segment segment = segments.get();
+            if (segment == null) {
+                misses.inc();
+                segment = newSegment(config);
+                segments.set(segment);
+            } else {
+                hits.inc();
+            }
+            return segment;
+        }
+
+        @Override
+        public void close() {
+            segments.close();
+        }
+
+    }
+
+    private class SharedPool implements Pool {
+
+        private final SegmentConfig config;
+        private final AtomicReferenceArray<Segment> segments;
+        private final AtomicInteger next = new AtomicInteger();
+
+        SharedPool(SegmentConfig config, int size) {
+            this.config = config;
+            this.segments = new AtomicReferenceArray<>(size);
+        }
+
+        @Override
+        public Segment acquire() {
+            int slot = (next.getAndIncrement() & Integer.MAX_VALUE) % segments.length();
+            Segment segment = segments.get(slot);
+            if (segment != null) {
+                hits.inc();
+                return segment;
+            }
+            segment = newSegment(config);
+            if (segments.compareAndSet(slot, null, segment)) {
+                misses.inc();
+                return segment;
+            }
+            // another thread built one for the slot first, which is what the checkout is served by
+            hits.inc();
+            return segments.get(slot);
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.HanLP;
+import com.hankcs.hanlp.corpus.io.ByteArray;
+import com.hankcs.hanlp.dictionary.stopword.StopWordDictionary;
+
+import org.apache.lucene.analysis.util.CharArraySet;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Node level registry of the stop word sets used by the {@code hanlp_stop} token filters. Sets are looked up straight
+ * against the term buffer, without creating a {@code String} per token, and filters configuring the same words share
+ * one set, whatever index they belong to.
+ * <p>
+ * The default set is HanLP's core stop word dictionary ({@code analysis.hanlp.CoreStopWordDictionaryPath}), loaded the
+ * first time a filter needs it.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpStopWords extends AbstractComponent {
+
+    /**
+     * Name standing for the core stop word dictionary in a {@code stopwords} setting.
+     */
+    public static final String DEFAULT = "_hanlp_";
+
+    /**
+     * Name standing for no stop words at all in a {@code stopwords} setting.
+     */
+    public static final String NONE = "_none_";
+
+    private final ConcurrentMap<Tuple<Set<String>, Boolean>, CharArraySet> sets = new ConcurrentHashMap<>();
+
+    private volatile Set<String> defaultWords;
+
+    @Inject
+    public HanLpStopWords(Settings settings) {
+        super(settings);
+    }
+
+    /**
+     * Returns the words of the core stop word dictionary, loading it if needed.
+     */
+    public Set<String> defaultWords() {
+        Set<String> words = defaultWords;
+        if (words == null) {
+            synchronized (this) {
+                words = defaultWords;
+                if (words == null) {
+                    defaultWords = words = load(HanLP.Config.CoreStopWordDictionaryPath);
+                }
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Returns the shared set of the core stop word dictionary.
+     */
+    public CharArraySet defaultStopWords(boolean ignoreCase) {
+        return stopWords(defaultWords(), ignoreCase);
+    }
+
+    /**
+     * Returns the shared set of {@code words}, {@link #DEFAULT} standing for the words of the core stop word dictionary.
+     */
+    public CharArraySet stopWords(Collection<String> words, boolean ignoreCase) {
+        Set<String> key = new HashSet<>(words);
+        if (key.remove(DEFAULT)) {
+            key.addAll(defaultWords());
+        }
+        Tuple<Set<String>, Boolean> cacheKey = new Tuple<>(key, ignoreCase);
+        CharArraySet set = sets.get(cacheKey);
+        if (set == null) {
+            CharArraySet created = CharArraySet.unmodifiableSet(new CharArraySet(key, ignoreCase));
+            set = sets.putIfAbsent(cacheKey, created);
+            if (set == null) {
+                set = created;
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Returns the number of distinct sets in use on this node.
+     */
+    public int size() {
+        return sets.size();
+    }
+
+    private Set<String> load(String path) {
+        long start = System.nanoTime();
+        StopWordDictionary dictionary;
+        // same lookup as HanLP's CoreStopWordDictionary, without writing the cache file next to the dictionary
+        ByteArray bytes = ByteArray.createByteArray(path + ".bin");
+        if (bytes != null) {
+            dictionary = new StopWordDictionary();
+            if (dictionary.load(bytes) == false) {
+                throw new ElasticsearchException("failed to load stop words [{}.bin]", path);
+            }
+        } else {
+            try {
+                dictionary = new StopWordDictionary(new File(path));
+            } catch (IOException e) {
+                throw new ElasticsearchException("failed to load stop words [{}]", e, path);
+            }
+        }
+        Set<String> words = new HashSet<>(dictionary.size());
+        for (String word : dictionary) {
+            words.add(word);
+        }
+        logger.debug("loaded [{}] stop words of [{}] in [{}]", words.size(), path,
+                     TimeValue.timeValueNanos(System.nanoTime() - start));
+        return Collections.unmodifiableSet(words);
+    }
+
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.HanLP;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.analysis.synonym.SolrSynonymParser;
+import org.apache.lucene.analysis.synonym.SynonymMap;
+import org.apache.lucene.util.CharsRef;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.hash.MessageDigests;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.io.PathUtils;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.env.Environment;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Node level registry of the synonym maps used by the {@code hanlp_synonym} token filters. A map is compiled into an
+ * FST once per combination of sources, the first time a filter needs it, and shared by all indices. Custom synonyms
+ * are keyed by the hash of the content of their file rather than by path, like the
+ * {@link HanLpIndexDictionaries custom dictionaries of indices}, so an edited file is compiled again by the next index
+ * opened instead of being served from a stale map. Maps are reference counted and dropped once the last index using
+ * them released them.
+ * <p>
+ * The core synonyms are the groups of equivalent words ({@code =}) of HanLP's synonym dictionary
+ * ({@code analysis.hanlp.CoreSynonymDictionaryDictionaryPath}), related ({@code #}) and lone ({@code @}) words are
+ * left out. Custom synonyms are read from a file in the Solr format, relative paths are resolved against the config
+ * directory. Without {@code expand}, the words of a group are replaced by its first one, for the core groups like for
+ * the equivalent synonyms of the file.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpSynonyms extends AbstractComponent {
+
+    private final Environment environment;
+
+    private final Map<String, Entry> maps = new HashMap<>();
+
+    // held for the node level hanlp_synonym filter, never released
+    private volatile SynonymMap core;
+
+    @Inject
+    public HanLpSynonyms(Settings settings, Environment environment) {
+        super(settings);
+
+        this.environment = environment;
+    }
+
+    /**
+     * Returns the shared map of the core synonyms if {@code core} and of the ones of the file at {@code path}, if not
+     * {@code null}, equivalent synonyms being expanded if {@code expand}. The map is compiled unless an identical one
+     * is already loaded. Every call must be paired with a {@link #release(SynonymMap)} call.
+     */
+    public SynonymMap acquire(boolean core, String path, boolean expand) {
+        Path file = null;
+        byte[] content = null;
+        StringBuilder key = new StringBuilder().append(core).append('/').append(expand);
+        if (path != null) {
+            file = environment.configFile().resolve(path);
+            try {
+                content = Files.readAllBytes(file);
+            } catch (IOException e) {
+                throw new ElasticsearchException("failed to read synonyms [{}]", e, file);
+            }
+            key.append('/').append(MessageDigests.toHexString(MessageDigests.sha256().digest(content)));
+        }
+
+        // compiling the core synonyms takes seconds, don't have concurrent filters do it twice
+        synchronized (this) {
+            Entry entry = maps.get(key.toString());
+            if (entry == null) {
+                entry = new Entry(build(core, file, content, expand));
+                maps.put(key.toString(), entry);
+            }
+            entry.references++;
+            return entry.map;
+        }
+    }
+
+    /**
+     * Releases a map obtained from {@link #acquire(boolean, String, boolean)}, dropping it when it isn't used anymore.
+     */
+    public synchronized void release(SynonymMap map) {
+        for (Iterator<Entry> it = maps.values().iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            if (entry.map == map) {
+                if (--entry.references == 0) {
+                    it.remove();
+                }
+                return;
+            }
+        }
+        throw new IllegalStateException("synonym map is not registered");
+    }
+
+    /**
+     * Returns the map of the expanded core synonyms held by the node, for the {@code hanlp_synonym} filter of every
+     * index.
+     */
+    public SynonymMap core() {
+        SynonymMap map = core;
+        if (map == null) {
+            synchronized (this) {
+                map = core;
+                if (map == null) {
+                    map = core = acquire(true, null, true);
+                }
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Returns the number of distinct maps in use on this node.
+     */
+    public synchronized int size() {
+        return maps.size();
+    }
+
+    private SynonymMap build(boolean core, Path file, byte[] content, boolean expand) {
+        long start = System.nanoTime();
+        try (Analyzer analyzer = new WhitespaceAnalyzer()) {
+            SolrSynonymParser parser = new SolrSynonymParser(true, expand, analyzer);
+            if (core) {
+                addCoreSynonyms(parser, expand);
+            }
+            if (file != null) {
+                parser.parse(new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8));
+            }
+            SynonymMap map = parser.build();
+            logger.debug("compiled [{}] synonym words of [{}] in [{}]", map.words.size(),
+                         core ? (file == null ? "core" : "core, " + file) : file,
+                         TimeValue.timeValueNanos(System.nanoTime() - start));
+            return map;
+        } catch (IOException | ParseException e) {
+            throw new ElasticsearchException("failed to compile synonyms [{}]", e, file == null ? "core" : file);
+        }
+    }
+
+    private void addCoreSynonyms(SynonymMap.Builder builder, boolean expand) throws IOException {
+        String path = HanLP.Config.CoreSynonymDictionaryDictionaryPath;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(open(path), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // Aa01A01= 人 士 人物 人士 人氏 人选
+                String[] columns = line.trim().split("\\s+");
+                if (columns.length < 3 || columns[0].endsWith("=") == false) {
+                    continue;
+                }
+                CharsRef[] words = new CharsRef[columns.length - 1];
+                for (int i = 0; i < words.length; i++) {
+                    words[i] = new CharsRef(columns[i + 1]);
+                }
+                for (CharsRef word : words) {
+                    if (expand == false) {
+                        // like SolrSynonymParser does for "a, b, c"
+                        builder.add(word, words[0], false);
+                        continue;
+                    }
+                    for (CharsRef synonym : words) {
+                        if (word != synonym) {
+                            builder.add(word, synonym, true);
+                        }
+                    }
+                }
+            }
+        }
+    }
+    /**
+     * Opens the file at {@code path}, or the resource of the HanLP jar if there is none, where HanLP ships the
+     * synonym dictionary.
+     */
+    private static InputStream open(String path) throws IOException {
+        Path file = PathUtils.get(path);
+        if (Files.exists(file)) {
+            return Files.newInputStream(file);
+        }
+        InputStream resource = HanLP.class.getResourceAsStream("/" + path);
+        if (resource == null) {
+            throw new FileNotFoundException(path);
+        }
+        return resource;
+    }
+
+    private static class Entry {
+
+        private final SynonymMap map;
+        private int references;
+
+        Entry(SynonymMap map) {
+            this.map = map;
+        }
+
+    }
+
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.HanLP;
+
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.elasticsearch.indices.analysis.hanlp.Settings.WARMUP_DICTIONARIES;
+import static org.elasticsearch.indices.analysis.hanlp.Settings.WARMUP_ENABLED;
+import static org.elasticsearch.indices.analysis.hanlp.Settings.WARMUP_TIMEOUT;
+import static org.elasticsearch.indices.analysis.hanlp.Settings.WARMUP_WAIT;
+
+/**
+ * Loads the HanLP dictionaries when the node starts rather than on the first analysis request. Runs on its own
+ * thread, loading every dictionary needed by the node level analyzer and tokenizer configurations plus the ones
+ * listed in {@code analysis.hanlp.warmup.dictionaries} (for the features only some indices enable), then segments a
+ * sentence with every configuration.
+ * <p>
+ * Dictionaries are loaded through the {@link HanLpDictionaryLoader}, so they are charged to the {@code hanlp} circuit
+ * breaker, and analysis requests arriving while a dictionary is still loading wait for it instead of loading it a
+ * second time.
+ * Progress is reported by {@link #stats()}. With {@code analysis.hanlp.warmup.wait} the node doesn't finish starting,
+ * and so doesn't join the cluster and get shards allocated, until the warm-up is done or
+ * {@code analysis.hanlp.warmup.timeout} elapsed.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpWarmer extends AbstractLifecycleComponent<HanLpWarmer> {
+
+    static final String WARMUP_TEXT = "商品和服务。王小明在北京大学附近的中国银行工作，每月工资3000元。";
+
+    private final HanLpDictionaryLoader dictionaryLoader;
+
+    private final boolean enabled;
+    private final boolean wait;
+    private final TimeValue timeout;
+
+    private final Set<SegmentConfig> configs = new LinkedHashSet<>();
+    private final EnumSet<HanLpDictionary> dictionaries;
+
+    private final List<HanLpWarmupStats.Entry> entries = new CopyOnWriteArrayList<>();
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile long startTime;
+    private volatile long endTime;
+
+    @Inject
+    public HanLpWarmer(Settings settings, HanLpIndicesAnalysis indicesAnalysis, HanLpDictionaryLoader dictionaryLoader) {
+        super(settings);
+
+        this.dictionaryLoader = dictionaryLoader;
+        this.enabled = settings.getAsBoolean(WARMUP_ENABLED, true);
+        this.wait = settings.getAsBoolean(WARMUP_WAIT, false);
+        this.timeout = settings.getAsTime(WARMUP_TIMEOUT, TimeValue.timeValueMinutes(5));
+
+        configs.add(indicesAnalysis.analyzerConfig());
+        configs.add(indicesAnalysis.tokenizerConfig());
+
+        dictionaries = EnumSet.noneOf(HanLpDictionary.class);
+        for (SegmentConfig config : configs) {
+            dictionaries.addAll(HanLpDictionary.required(config));
+        }
+        if (HanLP.Config.Normalization) {
+            dictionaries.add(HanLpDictionary.CHAR_TABLE);
+        }
+        for (String name : settings.getAsArray(WARMUP_DICTIONARIES)) {
+            dictionaries.add(HanLpDictionary.fromString(name));
+        }
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * The dictionaries the warm-up loads.
+     */
+    public Set<HanLpDictionary> dictionaries() {
+        return dictionaries;
+    }
+
+    /**
+     * Whether the warm-up is done, always {@code true} if it is disabled.
+     */
+    public boolean ready() {
+        return done.getCount() == 0;
+    }
+
+    /**
+     * Waits up to {@code timeout} for the warm-up to be done, returns whether it is.
+     */
+    public boolean awaitReady(TimeValue timeout) throws InterruptedException {
+        return done.await(timeout.millis(), TimeUnit.MILLISECONDS);
+    }
+
+    public HanLpWarmupStats stats() {
+        long took = 0;
+        if (startTime > 0) {
+            took = (ready() ? endTime : System.nanoTime()) - startTime;
+        }
+        return new HanLpWarmupStats(enabled, ready(), TimeUnit.NANOSECONDS.toMillis(took),
+                                    new ArrayList<>(entries));
+    }
+
+    /**
+     * Returns the number of entries and the size of every dictionary loaded so far, by the warm-up or by the first
+     * segment needing it.
+     */
+    public List<HanLpDictionaryStats> dictionaryStats() {
+        List<HanLpDictionaryStats> stats = new ArrayList<>();
+        for (HanLpDictionaryLoader.Entry entry : dictionaryLoader.loaded()) {
+            if (entry.getFailure() != null) {
+                continue;
+            }
+            stats.add(new HanLpDictionaryStats(entry.getDictionary().getName(), entry.getDictionary().size(),
+                                               entry.getHeapSizeInBytes(), entry.getEstimatedSizeInBytes()));
+        }
+        return stats;
+    }
+
+    @Override
+    protected void doStart() {
+        if (enabled == false) {
+            done.countDown();
+            return;
+        }
+        startTime = System.nanoTime();
+        Thread thread = EsExecutors.daemonThreadFactory(settings, "hanlp_warmer").newThread(new Runnable() {
+            @Override
+            public void run() {
+                warmUp();
+            }
+        });
+        thread.start();
+
+        if (wait) {
+            try {
+                if (awaitReady(timeout) == false) {
+                    logger.warn("hanlp warm-up not done after [{}], starting anyway", timeout);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    protected void doStop() {
+    }
+
+    @Override
+    protected void doClose() {
+    }
+
+    void warmUp() {
+        try {
+            for (HanLpDictionary dictionary : dictionaries) {
+                if (lifecycle.stoppedOrClosed()) {
+                    return;
+                }
+                load(dictionary);
+            }
+            // whatever the table of dictionaries misses gets loaded here
+            for (SegmentConfig config : configs) {
+                try {
+                    dictionaryLoader.load(config);
+                } catch (CircuitBreakingException e) {
+                    // already reported with the dictionary, not loaded behind the back of the breaker
+                    continue;
+                }
+                config.newSegment().seg(WARMUP_TEXT);
+            }
+        } catch (Exception e) {
+            logger.warn("hanlp warm-up failed", e);
+        } finally {
+            endTime = System.nanoTime();
+            done.countDown();
+            logger.info("hanlp warm-up loaded [{}] dictionaries in [{}]", entries.size(),
+                        TimeValue.timeValueNanos(endTime - startTime));
+        }
+    }
+
+    private void load(HanLpDictionary dictionary) {
+        HanLpDictionaryLoader.Entry entry;
+        try {
+            entry = dictionaryLoader.load(dictionary);
+        } catch (CircuitBreakingException e) {
+            logger.warn("not loading hanlp dictionary [{}]", e, dictionary.getName());
+            entries.add(new HanLpWarmupStats.Entry(dictionary.getName(), 0, 0, ExceptionsHelper.detailedMessage(e)));
+            return;
+        }
+        entries.add(new HanLpWarmupStats.Entry(dictionary.getName(), entry.getLoadTimeInMillis(),
+                                               entry.getHeapSizeInBytes(), entry.getFailure()));
+    }
+
+}
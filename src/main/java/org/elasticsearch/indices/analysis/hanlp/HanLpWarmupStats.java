@@ -0,0 +1,146 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Snapshot of the progress of the {@link HanLpWarmer}.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpWarmupStats implements ToXContent {
+
+    private final boolean enabled;
+    private final boolean ready;
+    private final long tookInMillis;
+    private final List<Entry> entries;
+
+    public HanLpWarmupStats(boolean enabled, boolean ready, long tookInMillis, List<Entry> entries) {
+        this.enabled = enabled;
+        this.ready = ready;
+        this.tookInMillis = tookInMillis;
+        this.entries = entries;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether the warm-up is done, always {@code true} if it is disabled.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Time the warm-up took so far.
+     */
+    public long getTookInMillis() {
+        return tookInMillis;
+    }
+
+    /**
+     * The dictionaries loaded so far, in load order.
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.field(Fields.ENABLED, enabled);
+        builder.field(Fields.READY, ready);
+        builder.timeValueField(Fields.TOOK_IN_MILLIS, Fields.TOOK, tookInMillis);
+        builder.startObject(Fields.DICTIONARIES);
+        for (Entry entry : entries) {
+            entry.toXContent(builder, params);
+        }
+        builder.endObject();
+        return builder;
+    }
+
+    /**
+     * Load time and footprint of a single dictionary. The heap size is the growth of the used heap while the
+     * dictionary was loading, an approximation that is {@code 0} if it was already loaded.
+     */
+    public static class Entry implements ToXContent {
+
+        private final String name;
+        private final long loadTimeInMillis;
+        private final long heapSizeInBytes;
+        private final String failure;
+
+        public Entry(String name, long loadTimeInMillis, long heapSizeInBytes, String failure) {
+            this.name = name;
+            this.loadTimeInMillis = loadTimeInMillis;
+            this.heapSizeInBytes = heapSizeInBytes;
+            this.failure = failure;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getLoadTimeInMillis() {
+            return loadTimeInMillis;
+        }
+
+        public long getHeapSizeInBytes() {
+            return heapSizeInBytes;
+        }
+
+        /**
+         * Why the dictionary failed to load, {@code null} if it loaded.
+         */
+        public String getFailure() {
+            return failure;
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject(name);
+            builder.timeValueField(Fields.LOAD_TIME_IN_MILLIS, Fields.LOAD_TIME, loadTimeInMillis);
+            builder.byteSizeField(Fields.HEAP_SIZE_IN_BYTES, Fields.HEAP_SIZE, heapSizeInBytes);
+            if (failure != null) {
+                builder.field(Fields.FAILURE, failure);
+            }
+            builder.endObject();
+            return builder;
+        }
+
+    }
+
+    static final class Fields {
+        static final XContentBuilderString ENABLED = new XContentBuilderString("enabled");
+        static final XContentBuilderString READY = new XContentBuilderString("ready");
+        static final XContentBuilderString TOOK = new XContentBuilderString("took");
+        static final XContentBuilderString TOOK_IN_MILLIS = new XContentBuilderString("took_in_millis");
+        static final XContentBuilderString DICTIONARIES = new XContentBuilderString("dictionaries");
+        static final XContentBuilderString LOAD_TIME = new XContentBuilderString("load_time");
+        static final XContentBuilderString LOAD_TIME_IN_MILLIS = new XContentBuilderString("load_time_in_millis");
+        static final XContentBuilderString HEAP_SIZE = new XContentBuilderString("heap_size");
+        static final XContentBuilderString HEAP_SIZE_IN_BYTES = new XContentBuilderString("heap_size_in_bytes");
+        static final XContentBuilderString FAILURE = new XContentBuilderString("failure");
+    }
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.seg.Segment;
+import com.hankcs.hanlp.seg.common.Term;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Segment merging the terms of the wrapped segment that spell a word of an {@link HanLpIndexDictionary}.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+class IndexDictionarySegment extends Segment {
+
+    private final HanLpIndexDictionary dictionary;
+    private final boolean termOffsets;
+    private final Segment segment;
+
+    IndexDictionarySegment(HanLpIndexDictionary dictionary, SegmentConfig config, Segment segment) {
+        this.dictionary = dictionary;
+        this.termOffsets = config.termOffsets();
+        this.segment = segment;
+    }
+
+    @Override
+    public List<Term> seg(String text) {
+        return dictionary.combine(segment.seg(text), termOffsets);
+    }
+
+    @Override
+    public List<Term> seg(char[] text) {
+        return dictionary.combine(segment.seg(text), termOffsets);
+    }
+
+    @Override
+    public List<List<Term>> seg2sentence(String text) {
+        List<List<Term>> sentences = segment.seg2sentence(text);
+        List<List<Term>> combined = new ArrayList<>(sentences.size());
+        for (List<Term> sentence : sentences) {
+            combined.add(dictionary.combine(sentence, termOffsets));
+        }
+        return combined;
+    }
+
+    @Override
+    protected List<Term> segSentence(char[] sentence) {
+        return dictionary.combine(segment.seg(sentence), termOffsets);
+    }
+
+}
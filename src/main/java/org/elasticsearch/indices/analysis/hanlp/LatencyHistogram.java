@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import org.elasticsearch.common.metrics.CounterMetric;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Histogram of latencies in microseconds, counted in power of two buckets. Recording only increments a striped
+ * counter, so it is cheap enough to do for every document from every indexing thread; percentiles are the upper
+ * bound of the bucket they fall in, so within a factor of two.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class LatencyHistogram {
+
+    // bucket b counts the latencies from 2^(b - 1) to 2^b - 1 micros, the last one everything from about 35 minutes up
+    static final int BUCKETS = 33;
+
+    private final CounterMetric[] buckets = new CounterMetric[BUCKETS];
+    private final AtomicLong max = new AtomicLong();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new CounterMetric();
+        }
+    }
+
+    public void record(long nanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        buckets[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros))].inc();
+        long current = max.get();
+        while (micros > current && max.compareAndSet(current, micros) == false) {
+            current = max.get();
+        }
+    }
+
+    public long count() {
+        long count = 0;
+        for (CounterMetric bucket : buckets) {
+            count += bucket.count();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the latency, in microseconds, {@code percentile} percent of the recorded latencies are at most.
+     */
+    public long percentile(double percentile) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].count();
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min((1L << i) - 1, max());
+            }
+        }
+        return max();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.seg.Segment;
+import com.hankcs.hanlp.seg.common.Term;
+
+import java.util.List;
+
+/**
+ * Segment replaying the terms the {@link HanLpSegmentMemo} remembers for a text before segmenting it with the wrapped
+ * segment.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+class MemoizingSegment extends Segment {
+
+    private final HanLpSegmentMemo memo;
+    private final SegmentConfig config;
+    private final Segment segment;
+
+    MemoizingSegment(HanLpSegmentMemo memo, SegmentConfig config, Segment segment) {
+        this.memo = memo;
+        this.config = config;
+        this.segment = segment;
+    }
+
+    @Override
+    public List<Term> seg(String text) {
+        if (text.length() > memo.maxChars()) {
+            return segment.seg(text);
+        }
+        List<Term> terms = memo.get(config, text, null);
+        if (terms == null) {
+            terms = segment.seg(text);
+            memo.put(config, text, null, terms);
+        }
+        return terms;
+    }
+
+    @Override
+    public List<Term> seg(char[] text) {
+        if (text.length > memo.maxChars()) {
+            return segment.seg(text);
+        }
+        // the key is taken before the segment may normalize the text in place
+        String key = new String(text);
+        List<Term> terms = memo.get(config, key, text);
+        if (terms == null) {
+            terms = segment.seg(text);
+            memo.put(config, key, text, terms);
+        }
+        return terms;
+    }
+
+    @Override
+    public List<List<Term>> seg2sentence(String text) {
+        return segment.seg2sentence(text);
+    }
+
+    @Override
+    protected List<Term> segSentence(char[] sentence) {
+        return segment.seg(sentence);
+    }
+
+}
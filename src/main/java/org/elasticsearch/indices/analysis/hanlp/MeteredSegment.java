@@ -0,0 +1,111 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.seg.Segment;
+import com.hankcs.hanlp.seg.common.Term;
+
+import java.util.List;
+
+/**
+ * Segment adding up the chars, tokens and time the wrapped segment segments, until the tokenizer using it reaches
+ * the end of a document and calls {@link #finish()} to record them into a {@link HanLpAnalysisMetric}.
+ * <p>
+ * Meant for a single tokenizer, so a single thread: the sums are plain fields.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public final class MeteredSegment extends Segment {
+
+    private final Segment segment;
+    private final HanLpAnalysisMetric metric;
+
+    private long chars;
+    private long tokens;
+    private long nanos;
+
+    public MeteredSegment(Segment segment, HanLpAnalysisMetric metric) {
+        this.segment = segment;
+        this.metric = metric;
+    }
+
+    @Override
+    public List<Term> seg(String text) {
+        long start = System.nanoTime();
+        List<Term> terms = segment.seg(text);
+        count(text.length(), terms, start);
+        return terms;
+    }
+
+    @Override
+    public List<Term> seg(char[] text) {
+        long start = System.nanoTime();
+        int length = text.length;
+        List<Term> terms = segment.seg(text);
+        count(length, terms, start);
+        return terms;
+    }
+
+    private void count(int length, List<Term> terms, long start) {
+        nanos += System.nanoTime() - start;
+        chars += length;
+        for (Term term : terms) {
+            // tokenizers skip whitespace terms
+            if (isBlank(term.word) == false) {
+                tokens++;
+            }
+        }
+    }
+
+    private static boolean isBlank(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (word.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public List<List<Term>> seg2sentence(String text) {
+        return segment.seg2sentence(text);
+    }
+
+    @Override
+    protected List<Term> segSentence(char[] sentence) {
+        return segment.seg(sentence);
+    }
+
+    /**
+     * Records the document segmented since the last call, if any.
+     */
+    public void finish() {
+        if (chars > 0) {
+            metric.record(chars, tokens, nanos);
+        }
+        clear();
+    }
+
+    /**
+     * Forgets what was segmented since the last {@link #finish()}, for a document that is not analyzed to its end.
+     */
+    public void clear() {
+        chars = 0;
+        tokens = 0;
+        nanos = 0;
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.dictionary.other.CharTable;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Flat {@code char[65536]} tables mapping every char of the basic multilingual plane to its normalized form, so a text
+ * is normalized in a single pass without lookups nor allocations. Normalizations only map chars to chars, they never
+ * change the length of a text, which keeps offsets intact.
+ * <p>
+ * Tables are built once per combination of flags and shared by the whole node.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public final class NormalizationTable {
+
+    private static final int HALF_WIDTH = 1;
+    private static final int TRADITIONAL = 1 << 1;
+    private static final int LOWERCASE = 1 << 2;
+    private static final int CHAR_TABLE = 1 << 3;
+
+    private static final AtomicReferenceArray<char[]> TABLES = new AtomicReferenceArray<>(16);
+
+    private NormalizationTable() {
+    }
+
+    /**
+     * Returns the table applying, in this order:
+     *
+     * @param halfWidth   full width ASCII variants and the ideographic space to ASCII
+     * @param lowercase   upper case to lower case
+     * @param traditional the traditional and variant Han chars of HanLP's char table to simplified chars
+     * @param charTable   all of HanLP's char table ({@code analysis.hanlp.CharTablePath}), which also folds
+     *                    punctuation, what {@code analysis.hanlp.Normalization} does inside the segmenters
+     */
+    public static char[] get(boolean halfWidth, boolean lowercase, boolean traditional, boolean charTable) {
+        int flags = (halfWidth ? HALF_WIDTH : 0) | (lowercase ? LOWERCASE : 0) | (traditional ? TRADITIONAL : 0)
+                    | (charTable ? CHAR_TABLE : 0);
+        char[] table = TABLES.get(flags);
+        if (table == null) {
+            table = build(flags);
+            if (TABLES.compareAndSet(flags, null, table) == false) {
+                table = TABLES.get(flags);
+            }
+        }
+        return table;
+    }
+
+    private static char[] build(int flags) {
+        char[] table = new char[Character.MAX_VALUE + 1];
+        for (int c = 0; c < table.length; c++) {
+            char n = (char) c;
+            if ((flags & HALF_WIDTH) != 0) {
+                if (n >= '\uFF01' && n <= '\uFF5E') {
+                    n = (char) (n - 0xFEE0);
+                } else if (n == '\u3000') {
+                    n = ' ';
+                }
+            }
+            if ((flags & LOWERCASE) != 0) {
+                n = Character.toLowerCase(n);
+            }
+            if ((flags & TRADITIONAL) != 0) {
+                char converted = CharTable.CONVERT[n];
+                if (isHan(n) && isHan(converted)) {
+                    n = converted;
+                }
+            }
+            if ((flags & CHAR_TABLE) != 0) {
+                n = CharTable.CONVERT[n];
+            }
+            table[c] = n;
+        }
+        return table;
+    }
+
+    private static boolean isHan(char c) {
+        return Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN;
+    }
+
+}
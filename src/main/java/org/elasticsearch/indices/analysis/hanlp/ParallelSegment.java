@@ -0,0 +1,60 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.seg.Segment;
+import com.hankcs.hanlp.seg.common.Term;
+
+import java.util.List;
+
+/**
+ * Segment handing long texts to the {@link HanLpSegmentExecutor} to be segmented in parallel by the wrapped segment.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+class ParallelSegment extends Segment {
+
+    private final HanLpSegmentExecutor executor;
+    private final SegmentConfig config;
+    private final Segment segment;
+
+    ParallelSegment(HanLpSegmentExecutor executor, SegmentConfig config, Segment segment) {
+        this.executor = executor;
+        this.config = config;
+        this.segment = segment;
+    }
+
+    @Override
+    public List<Term> seg(String text) {
+        return executor.seg(segment, config, text.toCharArray());
+    }
+
+    @Override
+    public List<Term> seg(char[] text) {
+        return executor.seg(segment, config, text);
+    }
+
+    @Override
+    public List<List<Term>> seg2sentence(String text) {
+        return segment.seg2sentence(text);
+    }
+
+    @Override
+    protected List<Term> segSentence(char[] sentence) {
+        return segment.seg(sentence);
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import org.elasticsearch.common.unit.TimeValue;
+
+import static org.elasticsearch.indices.analysis.hanlp.Settings.MAX_SEGMENT_LENGTH;
+import static org.elasticsearch.indices.analysis.hanlp.Settings.TIME_BUDGET;
+
+/**
+ * How much a tokenizer may spend on its configured segment before it falls back to longest dictionary match, see
+ * {@link BudgetedSegment}:
+ * <ul>
+ * <li>{@code timeBudget} - time segmenting a single document, lines left once it is spent fall back</li>
+ * <li>{@code maxSegmentLength} - chars of a single line (or chunk), longer ones fall back, as the word lattice grows
+ * with them</li>
+ * </ul>
+ * Neither is limited by default. The time budget is only checked between lines though, so it doesn't bound a single
+ * huge line: with a {@code timeBudget}, {@code maxSegmentLength} defaults to {@value #DEFAULT_MAX_SEGMENT_LENGTH} and
+ * can't be unlimited.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public final class SegmentBudget {
+
+    public static final SegmentBudget UNLIMITED = new SegmentBudget(-1, -1);
+
+    /**
+     * Max chars of a line with a time budget and no {@code maxSegmentLength}, the default chunk length of the
+     * streaming tokenizer.
+     */
+    public static final int DEFAULT_MAX_SEGMENT_LENGTH = 4096;
+
+    private final long timeInNanos;
+    private final int maxLength;
+
+    /**
+     * @param timeInNanos time budget of a document, {@code -1} for none
+     * @param maxLength   max chars of a line, {@code -1} for none
+     */
+    public SegmentBudget(long timeInNanos, int maxLength) {
+        this.timeInNanos = timeInNanos;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Reads the budget from {@code settings}, every key prefixed with {@code prefix}.
+     */
+    public static SegmentBudget parse(org.elasticsearch.common.settings.Settings settings, String prefix) {
+        TimeValue time = settings.getAsTime(prefix + TIME_BUDGET, null);
+        int maxLength = settings.getAsInt(prefix + MAX_SEGMENT_LENGTH, time == null ? -1 : DEFAULT_MAX_SEGMENT_LENGTH);
+        if (time == null && maxLength == -1) {
+            return UNLIMITED;
+        }
+        if (time != null && maxLength == -1) {
+            throw new IllegalArgumentException("[" + prefix + MAX_SEGMENT_LENGTH + "] can't be unlimited with ["
+                                               + prefix + TIME_BUDGET + "], which is only checked between lines and "
+                                               + "wouldn't bound a single long line");
+        }
+        if (maxLength == 0 || maxLength < -1) {
+            throw new IllegalArgumentException("[" + prefix + MAX_SEGMENT_LENGTH + "] must be positive, got ["
+                                               + maxLength + "]");
+        }
+        return new SegmentBudget(time == null ? -1 : time.nanos(), maxLength);
+    }
+
+    public boolean limited() {
+        return timeInNanos >= 0 || maxLength >= 0;
+    }
+
+    /**
+     * Whether a line of {@code length} chars exceeds the budget, once {@code spentNanos} were spent on the document.
+     */
+    public boolean exceeded(int length, long spentNanos) {
+        return (maxLength >= 0 && length > maxLength) || (timeInNanos >= 0 && spentNanos >= timeInNanos);
+    }
+
+    public long timeInNanos() {
+        return timeInNanos;
+    }
+
+    public int maxLength() {
+        return maxLength;
+    }
+
+    @Override
+    public String toString() {
+        return TIME_BUDGET + "=" + (timeInNanos < 0 ? "-1" : TimeValue.timeValueNanos(timeInNanos).toString())
+               + "," + MAX_SEGMENT_LENGTH + "=" + maxLength;
+    }
+
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.seg.Segment;
+
+import org.elasticsearch.common.logging.DeprecationLogger;
+import org.elasticsearch.common.logging.Loggers;
+
+import static org.elasticsearch.indices.analysis.hanlp.Settings.*;
+
+/**
+ * Immutable set of flags a HanLP {@link Segment} is configured with. Two configs are equal when every flag is
+ * equal, so a config can be used as a key to share segments between analyzers, tokenizers and indices.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public final class SegmentConfig {
+
+    public static final SegmentConfig DEFAULT = new SegmentConfig(Segmenter.VITERBI, false, true, true, false, false,
+                                                                  false, true, false, false, 1);
+
+    /**
+     * Default flags of the {@code hanlp_speed} analyzer and tokenizer.
+     */
+    public static final SegmentConfig SPEED = new SegmentConfig(Segmenter.SPEED, false, false, false, false, false,
+                                                                false, true, false, false, 1);
+
+    private static final DeprecationLogger DEPRECATION_LOGGER =
+        new DeprecationLogger(Loggers.getLogger(SegmentConfig.class));
+
+    private final Segmenter segmenter;
+    private final boolean indexMode;
+    private final boolean nameRecognize;
+    private final boolean translatedNameRecognize;
+    private final boolean japaneseNameRecognize;
+    private final boolean placeRecognize;
+    private final boolean organizationRecognize;
+    private final boolean useCustomDictionary; // enableCustomDictionary
+    private final boolean speechTagging; // PorterStemming
+    private final boolean numberQuantifierRecognize;
+    private final int threads; // if more than 1, long texts are segmented in parallel by the HanLpSegmentExecutor
+    private final HanLpIndexDictionary customDictionary; // custom_dictionary of the index, null if none
+
+    public SegmentConfig(boolean indexMode, boolean nameRecognize, boolean translatedNameRecognize,
+                         boolean japaneseNameRecognize, boolean placeRecognize, boolean organizationRecognize,
+                         boolean useCustomDictionary, boolean speechTagging, boolean numberQuantifierRecognize,
+                         int threads) {
+        this(Segmenter.VITERBI, indexMode, nameRecognize, translatedNameRecognize, japaneseNameRecognize,
+             placeRecognize, organizationRecognize, useCustomDictionary, speechTagging, numberQuantifierRecognize,
+             threads);
+    }
+
+    public SegmentConfig(Segmenter segmenter, boolean indexMode, boolean nameRecognize,
+                         boolean translatedNameRecognize, boolean japaneseNameRecognize, boolean placeRecognize,
+                         boolean organizationRecognize, boolean useCustomDictionary, boolean speechTagging,
+                         boolean numberQuantifierRecognize, int threads) {
+        this(segmenter, indexMode, nameRecognize, translatedNameRecognize, japaneseNameRecognize, placeRecognize,
+             organizationRecognize, useCustomDictionary, speechTagging, numberQuantifierRecognize, threads, null);
+    }
+
+    private SegmentConfig(Segmenter segmenter, boolean indexMode, boolean nameRecognize,
+                          boolean translatedNameRecognize, boolean japaneseNameRecognize, boolean placeRecognize,
+                          boolean organizationRecognize, boolean useCustomDictionary, boolean speechTagging,
+                          boolean numberQuantifierRecognize, int threads, HanLpIndexDictionary customDictionary) {
+        this.segmenter = segmenter;
+        this.indexMode = indexMode;
+        this.nameRecognize = nameRecognize;
+        this.translatedNameRecognize = translatedNameRecognize;
+        this.japaneseNameRecognize = japaneseNameRecognize;
+        this.placeRecognize = placeRecognize;
+        this.organizationRecognize = organizationRecognize;
+        this.useCustomDictionary = useCustomDictionary;
+        this.speechTagging = speechTagging;
+        this.numberQuantifierRecognize = numberQuantifierRecognize;
+        this.threads = threads < 1 ? 1 : threads;
+        this.customDictionary = customDictionary;
+    }
+
+    /**
+     * Reads the segment flags from {@code settings}, every key prefixed with {@code prefix}. Flags that are not set
+     * fall back to the ones of {@code defaults}. Fails if the segmenter needs a model that doesn't exist, HanLP would
+     * exit the JVM when first building a segment otherwise. {@code offset} is still accepted but ignored, the tokenizers
+     * work the offsets out themselves.
+     */
+    public static SegmentConfig parse(org.elasticsearch.common.settings.Settings settings, String prefix,
+                                      SegmentConfig defaults) {
+        String name = settings.get(prefix + SEGMENTER);
+        Segmenter segmenter = name == null ? defaults.segmenter : Segmenter.fromString(name);
+        segmenter.checkModel();
+        if (settings.get(prefix + OFFSET) != null) {
+            DEPRECATION_LOGGER.deprecated("[{}] has no effect anymore, offsets are always set", prefix + OFFSET);
+        }
+        return new SegmentConfig(
+            segmenter,
+            settings.getAsBoolean(prefix + INDEX_MODE, defaults.indexMode),
+            settings.getAsBoolean(prefix + NAME_RECOGNIZE, defaults.nameRecognize),
+            settings.getAsBoolean(prefix + TRANSLATED_NAME_RECOGNIZE, defaults.translatedNameRecognize),
+            settings.getAsBoolean(prefix + JAPANESE_NAME_RECOGNIZE, defaults.japaneseNameRecognize),
+            settings.getAsBoolean(prefix + PLACE_RECOGNIZE, defaults.placeRecognize),
+            settings.getAsBoolean(prefix + ORGANIZATION_RECOGNIZE, defaults.organizationRecognize),
+            settings.getAsBoolean(prefix + USE_CUSTOM_DICTIONARY, defaults.useCustomDictionary),
+            settings.getAsBoolean(prefix + SPEECH_TAGGING, defaults.speechTagging),
+            settings.getAsBoolean(prefix + NUMBER_QUANTIFIER_RECOGNIZE, defaults.numberQuantifierRecognize),
+            settings.getAsInt(prefix + THREADS, defaults.threads));
+    }
+
+    public static SegmentConfig parse(org.elasticsearch.common.settings.Settings settings) {
+        return parse(settings, "", DEFAULT);
+    }
+
+    /**
+     * Builds a new segment configured with these flags. The segment is single threaded whatever {@link #threads()}
+     * and ignores {@link #customDictionary()}, {@link HanLpSegmentPool} wraps it to segment in parallel and to merge
+     * the words of the custom dictionary.
+     */
+    public Segment newSegment() {
+        return segmenter.newSegment()
+                    .enableIndexMode(indexMode)
+                    .enableNameRecognize(nameRecognize)
+                    .enableTranslatedNameRecognize(translatedNameRecognize)
+                    .enableJapaneseNameRecognize(japaneseNameRecognize)
+                    .enablePlaceRecognize(placeRecognize)
+                    .enableOrganizationRecognize(organizationRecognize)
+                    .enableCustomDictionary(useCustomDictionary)
+                    .enablePartOfSpeechTagging(speechTagging)
+                    .enableNumberQuantifierRecognize(numberQuantifierRecognize);
+    }
+
+    /**
+     * Returns a copy of this config whose segments also merge the words of {@code customDictionary}.
+     */
+    public SegmentConfig withCustomDictionary(HanLpIndexDictionary customDictionary) {
+        return new SegmentConfig(segmenter, indexMode, nameRecognize, translatedNameRecognize, japaneseNameRecognize,
+                                 placeRecognize, organizationRecognize, useCustomDictionary, speechTagging,
+                                 numberQuantifierRecognize, threads, customDictionary);
+    }
+
+    /**
+     * Returns the config of the segments a {@link BudgetedSegment} falls back to: longest match against the same
+     * dictionaries, tagged the same way, without a lattice to build.
+     */
+    public SegmentConfig fallback() {
+        return new SegmentConfig(Segmenter.SPEED, false, false, false, false, false, false, useCustomDictionary,
+                                 speechTagging, false, 1, customDictionary);
+    }
+
+    public Segmenter segmenter() {
+        return segmenter;
+    }
+
+    public boolean indexMode() {
+        return indexMode;
+    }
+
+    public boolean nameRecognize() {
+        return nameRecognize;
+    }
+
+    public boolean translatedNameRecognize() {
+        return translatedNameRecognize;
+    }
+
+    public boolean japaneseNameRecognize() {
+        return japaneseNameRecognize;
+    }
+
+    public boolean placeRecognize() {
+        return placeRecognize;
+    }
+
+    public boolean organizationRecognize() {
+        return organizationRecognize;
+    }
+
+    public boolean useCustomDictionary() {
+        return useCustomDictionary;
+    }
+
+    public boolean speechTagging() {
+        return speechTagging;
+    }
+
+    public boolean numberQuantifierRecognize() {
+        return numberQuantifierRecognize;
+    }
+
+    public int threads() {
+        return threads;
+    }
+
+    /**
+     * Custom dictionary of the index layered over the ones of the node, {@code null} if none.
+     */
+    public HanLpIndexDictionary customDictionary() {
+        return customDictionary;
+    }
+
+    /**
+     * Whether terms may overlap or skip chars, so their offsets have to be read from {@code Term.offset} rather than
+     * added up. Only index mode of the word based segmenters does that, and fills the offsets in as it goes. Otherwise
+     * the terms of a line spell it char for char, normalized or not, so adding their lengths up is enough and HanLP's
+     * own {@code offset} pass over the terms is never enabled.
+     */
+    public boolean termOffsets() {
+        return segmenter.wordBased() && indexMode;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SegmentConfig that = (SegmentConfig) o;
+        return segmenter == that.segmenter
+               && indexMode == that.indexMode
+               && nameRecognize == that.nameRecognize
+               && translatedNameRecognize == that.translatedNameRecognize
+               && japaneseNameRecognize == that.japaneseNameRecognize
+               && placeRecognize == that.placeRecognize
+               && organizationRecognize == that.organizationRecognize
+               && useCustomDictionary == that.useCustomDictionary
+               && speechTagging == that.speechTagging
+               && numberQuantifierRecognize == that.numberQuantifierRecognize
+               && threads == that.threads
+               && customDictionary == that.customDictionary;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = segmenter.ordinal();
+        result = 31 * result + (indexMode ? 1 : 0);
+        result = 31 * result + (nameRecognize ? 1 : 0);
+        result = 31 * result + (translatedNameRecognize ? 1 : 0);
+        result = 31 * result + (japaneseNameRecognize ? 1 : 0);
+        result = 31 * result + (placeRecognize ? 1 : 0);
+        result = 31 * result + (organizationRecognize ? 1 : 0);
+        result = 31 * result + (useCustomDictionary ? 1 : 0);
+        result = 31 * result + (speechTagging ? 1 : 0);
+        result = 31 * result + (numberQuantifierRecognize ? 1 : 0);
+        result = 31 * result + threads;
+        result = 31 * result + (customDictionary == null ? 0 : customDictionary.hashCode());
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return SEGMENTER + "=" + segmenter.getName()
+               + "," + INDEX_MODE + "=" + indexMode
+               + "," + NAME_RECOGNIZE + "=" + nameRecognize
+               + "," + TRANSLATED_NAME_RECOGNIZE + "=" + translatedNameRecognize
+               + "," + JAPANESE_NAME_RECOGNIZE + "=" + japaneseNameRecognize
+               + "," + PLACE_RECOGNIZE + "=" + placeRecognize
+               + "," + ORGANIZATION_RECOGNIZE + "=" + organizationRecognize
+               + "," + USE_CUSTOM_DICTIONARY + "=" + useCustomDictionary
+               + "," + SPEECH_TAGGING + "=" + speechTagging
+               + "," + NUMBER_QUANTIFIER_RECOGNIZE + "=" + numberQuantifierRecognize
+               + "," + THREADS + "=" + threads
+               + (customDictionary == null ? "" : "," + CUSTOM_DICTIONARY + "=" + customDictionary);
+    }
+
+}
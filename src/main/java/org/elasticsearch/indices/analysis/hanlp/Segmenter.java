@@ -0,0 +1,135 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.HanLP;
+import com.hankcs.hanlp.seg.CRF.CRFSegment;
+import com.hankcs.hanlp.seg.Dijkstra.DijkstraSegment;
+import com.hankcs.hanlp.seg.HMM.HMMSegment;
+import com.hankcs.hanlp.seg.NShort.NShortSegment;
+import com.hankcs.hanlp.seg.Other.DoubleArrayTrieSegment;
+import com.hankcs.hanlp.seg.Segment;
+import com.hankcs.hanlp.seg.Viterbi.ViterbiSegment;
+
+import org.elasticsearch.common.io.PathUtils;
+
+import java.nio.file.Files;
+import java.util.Locale;
+
+/**
+ * Algorithm a HanLP {@link Segment} splits text with:
+ * <ul>
+ * <li>{@code viterbi} (default) - most likely path through the word lattice, with the bigram model</li>
+ * <li>{@code dijkstra} - shortest path through the word lattice, with the bigram model</li>
+ * <li>{@code nshort} - best of the n shortest paths, slower but better at named entities</li>
+ * <li>{@code crf} - character based CRF model, better at words missing from the dictionaries</li>
+ * <li>{@code hmm} - character based second order HMM</li>
+ * <li>{@code speed} - longest match against the core (and custom) dictionary double array trie, no lattice and no
+ * model, several times faster than {@code viterbi} but blind to ambiguities</li>
+ * </ul>
+ * Only the word based ones ({@code viterbi}, {@code dijkstra} and {@code nshort}) recognize named entities and
+ * support index mode, the others ignore these flags.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public enum Segmenter {
+
+    VITERBI(true),
+    DIJKSTRA(true),
+    NSHORT(true),
+    CRF(false),
+    HMM(false),
+    SPEED(false);
+
+    private final boolean wordBased;
+
+    Segmenter(boolean wordBased) {
+        this.wordBased = wordBased;
+    }
+
+    /**
+     * Whether the segmenter walks a word lattice, so honors the named entity recognition flags and index mode.
+     */
+    public boolean wordBased() {
+        return wordBased;
+    }
+
+    /**
+     * Builds a new, unconfigured, segment. The model of {@code crf} and {@code hmm} must exist, HanLP exits the JVM
+     * when it fails to load one, so check {@link #checkModel()} first.
+     */
+    public Segment newSegment() {
+        switch (this) {
+            case VITERBI:
+                return new ViterbiSegment();
+            case DIJKSTRA:
+                return new DijkstraSegment();
+            case NSHORT:
+                return new NShortSegment();
+            case CRF:
+                return new CRFSegment();
+            case HMM:
+                return new HMMSegment();
+            case SPEED:
+                return new DoubleArrayTrieSegment();
+            default:
+                throw new IllegalStateException("unknown segmenter [" + this + "]");
+        }
+    }
+
+    /**
+     * Returns the path of the model the segmenter loads, {@code null} if it only needs dictionaries.
+     */
+    public String modelPath() {
+        switch (this) {
+            case CRF:
+                return HanLP.Config.CRFSegmentModelPath;
+            case HMM:
+                return HanLP.Config.HMMSegmentModelPath;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Fails if the segmenter needs a model that can't be found. The portable HanLP distribution ships none.
+     */
+    public void checkModel() {
+        String path = modelPath();
+        if (path != null && exists(path) == false && exists(path + ".bin") == false) {
+            throw new IllegalArgumentException("segmenter [" + getName() + "] needs its model, [" + path
+                                               + "] doesn't exist");
+        }
+    }
+
+    private static boolean exists(String path) {
+        // HanLP reads models from the file system, the portable distribution also from the classpath
+        return Files.exists(PathUtils.get(path)) || HanLP.class.getResource("/" + path) != null;
+    }
+
+    public String getName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static Segmenter fromString(String segmenter) {
+        try {
+            return valueOf(segmenter.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown segmenter [" + segmenter + "]");
+        }
+    }
+
+}
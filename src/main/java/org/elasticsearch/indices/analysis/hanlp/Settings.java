@@ -36,6 +36,32 @@ public final class Settings {
     public static final String SHOW_TERM_NATURE = CONFIG_PREFIX + "ShowTermNature";
     public static final String NORMALIZATION = CONFIG_PREFIX + "Normalization";
 
+    public static final String SEGMENT_POOL_TYPE = CONFIG_PREFIX + "segmentPool.type";
+    public static final String SEGMENT_POOL_SIZE = CONFIG_PREFIX + "segmentPool.size";
+
+    public static final String SEGMENT_EXECUTOR_SIZE = CONFIG_PREFIX + "segmentExecutor.size";
+    public static final String SEGMENT_EXECUTOR_QUEUE_SIZE = CONFIG_PREFIX + "segmentExecutor.queueSize";
+    public static final String SEGMENT_EXECUTOR_MIN_TEXT_LENGTH = CONFIG_PREFIX + "segmentExecutor.minTextLength";
+
+    public static final String SEGMENT_CACHE_SIZE = CONFIG_PREFIX + "segmentCache.size";
+    public static final String SEGMENT_CACHE_MAX_TEXT_LENGTH = CONFIG_PREFIX + "segmentCache.maxTextLength";
+    public static final String SEGMENT_CACHE_EXPIRE = CONFIG_PREFIX + "segmentCache.expire";
+
+    public static final String SEGMENT_MEMO_MAX_CHARS = CONFIG_PREFIX + "segmentMemo.maxChars";
+
+    public static final String WARMUP_ENABLED = CONFIG_PREFIX + "warmup.enabled";
+    public static final String WARMUP_WAIT = CONFIG_PREFIX + "warmup.wait";
+    public static final String WARMUP_TIMEOUT = CONFIG_PREFIX + "warmup.timeout";
+    public static final String WARMUP_DICTIONARIES = CONFIG_PREFIX + "warmup.dictionaries";
+
+    public static final String CUSTOM_DICTIONARY_WATCH = CONFIG_PREFIX + "customDictionary.watch";
+
+    public static final String MANIFEST = CONFIG_PREFIX + "manifest";
+
+    public static final String BREAKER_LIMIT = CONFIG_PREFIX + "breaker.limit";
+    public static final String BREAKER_OVERHEAD = CONFIG_PREFIX + "breaker.overhead";
+
+    public static final String SEGMENTER = "segmenter";
     public static final String INDEX_MODE = "indexMode";
     public static final String NAME_RECOGNIZE = "nameRecognize";
     public static final String TRANSLATED_NAME_RECOGNIZE = "translatedNameRecognize";
@@ -47,5 +73,30 @@ public final class Settings {
     public static final String OFFSET = "offset";
     public static final String NUMBER_QUANTIFIER_RECOGNIZE = "numberQuantifierRecognize";
     public static final String THREADS = "threads";
+    public static final String CUSTOM_DICTIONARY = "custom_dictionary";
+
+    public static final String STREAMING = "streaming";
+    public static final String MAX_CHUNK_LENGTH = "maxChunkLength";
+    public static final String TIME_BUDGET = "timeBudget";
+    public static final String MAX_SEGMENT_LENGTH = "maxSegmentLength";
+
+    public static final String STOPWORDS = "stopwords";
+    public static final String IGNORE_CASE = "ignore_case";
+
+    public static final String INCLUDE = "include";
+    public static final String EXCLUDE = "exclude";
+
+    public static final String HALF_WIDTH = "halfWidth";
+    public static final String LOWERCASE = "lowercase";
+    public static final String TRADITIONAL = "traditional";
+    public static final String CHAR_TABLE = "charTable";
+
+    public static final String FULL = "full";
+    public static final String FIRST_LETTER = "firstLetter";
+    public static final String KEEP_ORIGINAL = "keepOriginal";
+
+    public static final String CORE = "core";
+    public static final String SYNONYMS_PATH = "synonyms_path";
+    public static final String EXPAND = "expand";
 
 }
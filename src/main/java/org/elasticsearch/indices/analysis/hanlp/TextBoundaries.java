@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.indices.analysis.hanlp;
+
+/**
+ * Where a text can be cut into pieces that are segmented independently of each other.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public final class TextBoundaries {
+
+    private TextBoundaries() {
+    }
+
+    /**
+     * Whether a sentence ends with {@code c}, no word spans it.
+     */
+    public static boolean isSentenceDelimiter(char c) {
+        switch (c) {
+            case '\n':
+            case '\r':
+            case '。':
+            case '！':
+            case '？':
+            case '；':
+            case '!':
+            case '?':
+            case ';':
+            case '…':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Whether a word is unlikely to span {@code previous} and {@code c}: one of them is whitespace or punctuation, or
+     * one is a Han character and the other is not. Never true between the two halves of a surrogate pair.
+     */
+    public static boolean isBoundary(char previous, char c) {
+        if (Character.isWhitespace(c) || isPunctuation(c) || Character.isWhitespace(previous)
+            || isPunctuation(previous)) {
+            return true;
+        }
+        return isHan(previous) != isHan(c) && Character.isLowSurrogate(c) == false;
+    }
+
+    public static boolean isPunctuation(char c) {
+        switch (Character.getType(c)) {
+            case Character.CONNECTOR_PUNCTUATION:
+            case Character.DASH_PUNCTUATION:
+            case Character.START_PUNCTUATION:
+            case Character.END_PUNCTUATION:
+            case Character.INITIAL_QUOTE_PUNCTUATION:
+            case Character.FINAL_QUOTE_PUNCTUATION:
+            case Character.OTHER_PUNCTUATION:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public static boolean isHan(char c) {
+        return Character.UnicodeBlock.of(c) == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS;
+    }
+
+}
@@ -15,12 +15,36 @@
  */
 package org.elasticsearch.plugin.analysis.hanlp;
 
+import org.elasticsearch.action.ActionModule;
+import org.elasticsearch.action.hanlp.reload.ReloadCustomDictionaryAction;
+import org.elasticsearch.action.hanlp.reload.TransportReloadCustomDictionaryAction;
+import org.elasticsearch.action.hanlp.segment.HanLpSegmentAction;
+import org.elasticsearch.action.hanlp.segment.TransportHanLpSegmentAction;
+import org.elasticsearch.action.hanlp.stats.HanLpStatsAction;
+import org.elasticsearch.action.hanlp.stats.TransportHanLpStatsAction;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.client.transport.TransportClient;
+import org.elasticsearch.common.component.LifecycleComponent;
 import org.elasticsearch.common.inject.Module;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.analysis.AnalysisModule;
 import org.elasticsearch.index.analysis.HanLpAnalysisBinderProcessor;
+import org.elasticsearch.index.analysis.HanLpAnalyzerReferences;
+import org.elasticsearch.index.analysis.HanLpIndexAnalysisModule;
+import org.elasticsearch.indices.analysis.hanlp.HanLpCustomDictionary;
 import org.elasticsearch.indices.analysis.hanlp.HanLpIndicesAnalysisModule;
+import org.elasticsearch.indices.analysis.hanlp.HanLpSegmentExecutor;
+import org.elasticsearch.indices.analysis.hanlp.HanLpSegmentPool;
+import org.elasticsearch.indices.analysis.hanlp.HanLpWarmer;
 import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.rest.RestModule;
+import org.elasticsearch.rest.action.hanlp.RestHanLpSegmentAction;
+import org.elasticsearch.rest.action.hanlp.RestHanLpStatsAction;
+import org.elasticsearch.rest.action.hanlp.RestHanLpWarmupAction;
+import org.elasticsearch.rest.action.hanlp.RestReloadCustomDictionaryAction;
 
+import java.io.Closeable;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 
@@ -29,6 +53,12 @@ import java.util.Collections;
  */
 public class AnalysisHanLpPlugin extends Plugin {
 
+    private final boolean transportClient;
+
+    public AnalysisHanLpPlugin(Settings settings) {
+        this.transportClient = TransportClient.CLIENT_TYPE.equals(settings.get(Client.CLIENT_TYPE_SETTING));
+    }
+
     @Override
     public String name() {
         return "analysis-hanlp";
@@ -41,9 +71,33 @@ public class AnalysisHanLpPlugin extends Plugin {
 
     @Override
     public Collection<Module> nodeModules() {
+        if (transportClient) {
+            // a transport client only needs the actions
+            return Collections.emptyList();
+        }
         return Collections.<Module>singletonList(new HanLpIndicesAnalysisModule());
     }
 
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Collection<Class<? extends LifecycleComponent>> nodeServices() {
+        if (transportClient) {
+            return Collections.emptyList();
+        }
+        return Arrays.<Class<? extends LifecycleComponent>>asList(HanLpSegmentExecutor.class, HanLpSegmentPool.class,
+                                                                  HanLpWarmer.class, HanLpCustomDictionary.class);
+    }
+
+    @Override
+    public Collection<Module> indexModules(Settings indexSettings) {
+        return Collections.<Module>singletonList(new HanLpIndexAnalysisModule());
+    }
+
+    @Override
+    public Collection<Class<? extends Closeable>> indexServices() {
+        return Collections.<Class<? extends Closeable>>singletonList(HanLpAnalyzerReferences.class);
+    }
+
     /**
      * Automatically called with the analysis module.
      */
@@ -51,4 +105,17 @@ public class AnalysisHanLpPlugin extends Plugin {
         module.addProcessor(new HanLpAnalysisBinderProcessor());
     }
 
+    public void onModule(RestModule module) {
+        module.addRestAction(RestHanLpWarmupAction.class);
+        module.addRestAction(RestReloadCustomDictionaryAction.class);
+        module.addRestAction(RestHanLpStatsAction.class);
+        module.addRestAction(RestHanLpSegmentAction.class);
+    }
+
+    public void onModule(ActionModule module) {
+        module.registerAction(ReloadCustomDictionaryAction.INSTANCE, TransportReloadCustomDictionaryAction.class);
+        module.registerAction(HanLpStatsAction.INSTANCE, TransportHanLpStatsAction.class);
+        module.registerAction(HanLpSegmentAction.INSTANCE, TransportHanLpSegmentAction.class);
+    }
+
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.rest.action.hanlp;
+
+import org.elasticsearch.action.hanlp.segment.HanLpSegmentAction;
+import org.elasticsearch.action.hanlp.segment.HanLpSegmentRequest;
+import org.elasticsearch.action.hanlp.segment.HanLpSegmentResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.rest.BaseRestHandler;
+import org.elasticsearch.rest.BytesRestResponse;
+import org.elasticsearch.rest.RestChannel;
+import org.elasticsearch.rest.RestController;
+import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.RestResponse;
+import org.elasticsearch.rest.action.support.RestActions;
+import org.elasticsearch.rest.action.support.RestBuilderListener;
+
+import static org.elasticsearch.rest.RestRequest.Method.GET;
+import static org.elasticsearch.rest.RestRequest.Method.POST;
+import static org.elasticsearch.rest.RestStatus.OK;
+
+/**
+ * Segments many texts at once on the node receiving the request, with the flags of a built-in hanlp analyzer or
+ * tokenizer optionally overridden by segment settings:
+ * <pre>
+ * POST /_hanlp/_segment
+ * {
+ *   "tokenizer": "hanlp_speed",
+ *   "config": { "indexMode": true },
+ *   "texts": [ "商品和服务", "王小明在北京大学工作" ]
+ * }
+ * </pre>
+ * The tokens of each text are reported like by the analyze API, in the order of the texts.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class RestHanLpSegmentAction extends BaseRestHandler {
+
+    @Inject
+    public RestHanLpSegmentAction(Settings settings, RestController controller, Client client) {
+        super(settings, controller, client);
+        controller.registerHandler(GET, "/_hanlp/_segment", this);
+        controller.registerHandler(POST, "/_hanlp/_segment", this);
+    }
+
+    @Override
+    protected void handleRequest(RestRequest request, final RestChannel channel, Client client) throws Exception {
+        HanLpSegmentRequest segmentRequest = new HanLpSegmentRequest();
+        segmentRequest.tokenizer(request.param("tokenizer", HanLpSegmentRequest.DEFAULT_TOKENIZER));
+        String[] texts = request.paramAsStringArray("text", null);
+        if (texts != null) {
+            segmentRequest.addTexts(texts);
+        }
+        if (RestActions.hasBodyContent(request)) {
+            parse(RestActions.getRestContent(request), segmentRequest);
+        }
+        client.execute(HanLpSegmentAction.INSTANCE, segmentRequest,
+                       new RestBuilderListener<HanLpSegmentResponse>(channel) {
+                           @Override
+                           public RestResponse buildResponse(HanLpSegmentResponse response, XContentBuilder builder)
+                               throws Exception {
+                               builder.startObject();
+                               response.toXContent(builder, channel.request());
+                               builder.endObject();
+                               return new BytesRestResponse(OK, builder);
+                           }
+                       });
+    }
+
+    static void parse(BytesReference content, HanLpSegmentRequest request) throws Exception {
+        try (XContentParser parser = XContentHelper.createParser(content)) {
+            if (parser.nextToken() != XContentParser.Token.START_OBJECT) {
+                throw new IllegalArgumentException("request body must be an object");
+            }
+            String currentFieldName = null;
+            XContentParser.Token token;
+            while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+                if (token == XContentParser.Token.FIELD_NAME) {
+                    currentFieldName = parser.currentName();
+                } else if ("tokenizer".equals(currentFieldName) && token == XContentParser.Token.VALUE_STRING) {
+                    request.tokenizer(parser.text());
+                } else if ("texts".equals(currentFieldName) && token == XContentParser.Token.START_ARRAY) {
+                    while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
+                        if (token != XContentParser.Token.VALUE_STRING) {
+                            throw new IllegalArgumentException("[texts] must be an array of strings");
+                        }
+                        request.addTexts(parser.text());
+                    }
+                } else if ("text".equals(currentFieldName) && token == XContentParser.Token.VALUE_STRING) {
+                    request.addTexts(parser.text());
+                } else if ("config".equals(currentFieldName) && token == XContentParser.Token.START_OBJECT) {
+                    Settings.Builder config = Settings.settingsBuilder();
+                    while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+                        if (token == XContentParser.Token.FIELD_NAME) {
+                            currentFieldName = parser.currentName();
+                        } else if (token.isValue()) {
+                            config.put(currentFieldName, parser.text());
+                        } else {
+                            throw new IllegalArgumentException("[config] values must be strings, numbers or booleans");
+                        }
+                    }
+                    request.config(config.build());
+                } else {
+                    throw new IllegalArgumentException("unknown parameter [" + currentFieldName + "] in request body");
+                }
+            }
+        }
+    }
+
+}
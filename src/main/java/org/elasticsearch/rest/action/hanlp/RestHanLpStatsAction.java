@@ -0,0 +1,71 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.rest.action.hanlp;
+
+import org.elasticsearch.action.hanlp.stats.HanLpStatsAction;
+import org.elasticsearch.action.hanlp.stats.HanLpStatsRequest;
+import org.elasticsearch.action.hanlp.stats.HanLpStatsResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.rest.BaseRestHandler;
+import org.elasticsearch.rest.BytesRestResponse;
+import org.elasticsearch.rest.RestChannel;
+import org.elasticsearch.rest.RestController;
+import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.RestResponse;
+import org.elasticsearch.rest.action.support.RestBuilderListener;
+
+import static org.elasticsearch.rest.RestRequest.Method.GET;
+import static org.elasticsearch.rest.RestStatus.OK;
+
+/**
+ * Reports the hanlp analysis stats of all nodes, or the given ones:
+ * <pre>
+ * GET /_hanlp/stats
+ * GET /_hanlp/{nodeId}/stats
+ * </pre>
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class RestHanLpStatsAction extends BaseRestHandler {
+
+    @Inject
+    public RestHanLpStatsAction(Settings settings, RestController controller, Client client) {
+        super(settings, controller, client);
+        controller.registerHandler(GET, "/_hanlp/stats", this);
+        controller.registerHandler(GET, "/_hanlp/{nodeId}/stats", this);
+    }
+
+    @Override
+    protected void handleRequest(RestRequest request, final RestChannel channel, Client client) {
+        String[] nodesIds = Strings.splitStringByCommaToArray(request.param("nodeId"));
+        HanLpStatsRequest statsRequest = new HanLpStatsRequest(nodesIds);
+        statsRequest.timeout(request.param("timeout"));
+        client.execute(HanLpStatsAction.INSTANCE, statsRequest, new RestBuilderListener<HanLpStatsResponse>(channel) {
+            @Override
+            public RestResponse buildResponse(HanLpStatsResponse response, XContentBuilder builder) throws Exception {
+                builder.startObject();
+                response.toXContent(builder, channel.request());
+                builder.endObject();
+                return new BytesRestResponse(OK, builder);
+            }
+        });
+    }
+
+}
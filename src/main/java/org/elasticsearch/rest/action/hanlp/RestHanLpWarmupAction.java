@@ -0,0 +1,64 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.rest.action.hanlp;
+
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.indices.analysis.hanlp.HanLpWarmer;
+import org.elasticsearch.indices.analysis.hanlp.HanLpWarmupStats;
+import org.elasticsearch.rest.BaseRestHandler;
+import org.elasticsearch.rest.BytesRestResponse;
+import org.elasticsearch.rest.RestChannel;
+import org.elasticsearch.rest.RestController;
+import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.RestStatus;
+
+import static org.elasticsearch.rest.RestRequest.Method.GET;
+
+/**
+ * Reports the hanlp warm-up of the node receiving the request. Answers {@code 503} until it is done, so it can be
+ * used as a readiness check:
+ * <pre>
+ * GET /_hanlp/warmup
+ * </pre>
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class RestHanLpWarmupAction extends BaseRestHandler {
+
+    private final HanLpWarmer warmer;
+
+    @Inject
+    public RestHanLpWarmupAction(Settings settings, RestController controller, Client client, HanLpWarmer warmer) {
+        super(settings, controller, client);
+        this.warmer = warmer;
+        controller.registerHandler(GET, "/_hanlp/warmup", this);
+    }
+
+    @Override
+    protected void handleRequest(RestRequest request, RestChannel channel, Client client) throws Exception {
+        HanLpWarmupStats stats = warmer.stats();
+        XContentBuilder builder = channel.newBuilder();
+        builder.startObject();
+        stats.toXContent(builder, request);
+        builder.endObject();
+        channel.sendResponse(new BytesRestResponse(stats.isReady() ? RestStatus.OK : RestStatus.SERVICE_UNAVAILABLE,
+                                                   builder));
+    }
+
+}
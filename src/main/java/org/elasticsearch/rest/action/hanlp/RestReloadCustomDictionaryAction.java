@@ -0,0 +1,74 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.rest.action.hanlp;
+
+import org.elasticsearch.action.hanlp.reload.ReloadCustomDictionaryAction;
+import org.elasticsearch.action.hanlp.reload.ReloadCustomDictionaryRequest;
+import org.elasticsearch.action.hanlp.reload.ReloadCustomDictionaryResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.rest.BaseRestHandler;
+import org.elasticsearch.rest.BytesRestResponse;
+import org.elasticsearch.rest.RestChannel;
+import org.elasticsearch.rest.RestController;
+import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.RestResponse;
+import org.elasticsearch.rest.action.support.RestBuilderListener;
+
+import static org.elasticsearch.rest.RestRequest.Method.POST;
+import static org.elasticsearch.rest.RestStatus.OK;
+
+/**
+ * Reloads the custom dictionary on all nodes, or the given ones:
+ * <pre>
+ * POST /_hanlp/custom_dictionary/_reload
+ * POST /_hanlp/{nodeId}/custom_dictionary/_reload?full=true
+ * </pre>
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class RestReloadCustomDictionaryAction extends BaseRestHandler {
+
+    @Inject
+    public RestReloadCustomDictionaryAction(Settings settings, RestController controller, Client client) {
+        super(settings, controller, client);
+        controller.registerHandler(POST, "/_hanlp/custom_dictionary/_reload", this);
+        controller.registerHandler(POST, "/_hanlp/{nodeId}/custom_dictionary/_reload", this);
+    }
+
+    @Override
+    protected void handleRequest(RestRequest request, final RestChannel channel, Client client) {
+        String[] nodesIds = Strings.splitStringByCommaToArray(request.param("nodeId"));
+        ReloadCustomDictionaryRequest reloadRequest = new ReloadCustomDictionaryRequest(nodesIds);
+        reloadRequest.full(request.paramAsBoolean("full", reloadRequest.full()));
+        reloadRequest.timeout(request.param("timeout"));
+        client.execute(ReloadCustomDictionaryAction.INSTANCE, reloadRequest,
+                       new RestBuilderListener<ReloadCustomDictionaryResponse>(channel) {
+                           @Override
+                           public RestResponse buildResponse(ReloadCustomDictionaryResponse response,
+                                                             XContentBuilder builder) throws Exception {
+                               builder.startObject();
+                               response.toXContent(builder, channel.request());
+                               builder.endObject();
+                               return new BytesRestResponse(OK, builder);
+                           }
+                       });
+    }
+
+}
@@ -0,0 +1,141 @@
+package org.elasticsearch.action.hanlp.segment;
+
+import org.elasticsearch.action.admin.indices.analyze.AnalyzeResponse.AnalyzeToken;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.indices.analysis.hanlp.HanLpSegmentCache;
+import org.elasticsearch.indices.analysis.hanlp.HanLpSegmentExecutor;
+import org.elasticsearch.indices.analysis.hanlp.HanLpSegmentPool;
+import org.elasticsearch.indices.analysis.hanlp.SegmentConfig;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.elasticsearch.common.settings.Settings.Builder.EMPTY_SETTINGS;
+import static org.elasticsearch.common.settings.Settings.settingsBuilder;
+import static org.elasticsearch.indices.analysis.hanlp.Settings.INDEX_MODE;
+import static org.elasticsearch.indices.analysis.hanlp.Settings.SEGMENT_EXECUTOR_SIZE;
+import static org.elasticsearch.indices.analysis.hanlp.Settings.THREADS;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class TransportHanLpSegmentActionTests extends ESTestCase {
+
+    private static final String[] TEXTS = {"商品和服务", "王小明在北京大学工作\r\n我购买了道具和服装", "", "running dogs"};
+
+    private HanLpSegmentExecutor executor;
+    private HanLpSegmentPool pool;
+
+    @Before
+    public void createPool() {
+        executor = new HanLpSegmentExecutor(settingsBuilder().put(SEGMENT_EXECUTOR_SIZE, 3).build());
+        pool = new HanLpSegmentPool(EMPTY_SETTINGS, new HanLpSegmentCache(EMPTY_SETTINGS), executor);
+    }
+
+    @After
+    public void closePool() {
+        pool.close();
+        executor.close();
+    }
+
+    @Test
+    public void testTokensOfEveryText() {
+        List<List<AnalyzeToken>> tokens = TransportHanLpSegmentAction.segment(executor, pool, SegmentConfig.DEFAULT,
+                                                                              true, Arrays.asList(TEXTS));
+        assertThat(tokens.size(), equalTo(TEXTS.length));
+        assertThat(strings(tokens.get(0)), equalTo(Arrays.asList("商品/n/0/0-2", "和/c/1/2-3", "服务/vn/2/3-5")));
+        for (AnalyzeToken token : tokens.get(1)) {
+            assertThat(TEXTS[1].substring(token.getStartOffset(), token.getEndOffset()), equalTo(token.getTerm()));
+        }
+        assertThat(tokens.get(2).isEmpty(), equalTo(true));
+        assertThat(strings(tokens.get(3)), equalTo(Arrays.asList("running/nx/0/0-7", "dogs/nx/1/8-12")));
+    }
+
+    @Test
+    public void testTextsKeepTheirOrder() {
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            texts.add(TEXTS[i % TEXTS.length] + i);
+        }
+        SegmentConfig config = SegmentConfig.parse(settingsBuilder().put(INDEX_MODE, true).build());
+        List<List<AnalyzeToken>> parallel = TransportHanLpSegmentAction.segment(executor, pool, config, true, texts);
+        for (int i = 0; i < texts.size(); i++) {
+            List<List<AnalyzeToken>> single = TransportHanLpSegmentAction.segment(executor, pool, config, true,
+                                                                                  Collections.singletonList(texts.get(i)));
+            assertThat(strings(parallel.get(i)), equalTo(strings(single.get(0))));
+        }
+    }
+
+    @Test
+    public void testRequestConfigsAreNotPooled() {
+        SegmentConfig indexMode = SegmentConfig.parse(settingsBuilder().put(INDEX_MODE, true).build());
+        List<List<AnalyzeToken>> pooled = TransportHanLpSegmentAction.segment(executor, pool, indexMode, true,
+                                                                              Arrays.asList(TEXTS));
+        assertThat(pool.configurationCount(), equalTo(1));
+        for (int threads = 1; threads <= 10; threads++) {
+            SegmentConfig config = TransportHanLpSegmentAction.config(settingsBuilder().put(THREADS, threads).build(),
+                                                                      SegmentConfig.DEFAULT, executor.size());
+            assertThat(config.threads(), equalTo(Math.min(threads, executor.size())));
+            TransportHanLpSegmentAction.segment(executor, pool, config, false, Arrays.asList(TEXTS));
+        }
+        // a request config some analyzer uses is served by its segments
+        long misses = pool.missCount();
+        List<List<AnalyzeToken>> unpooled = TransportHanLpSegmentAction.segment(executor, pool, indexMode, false,
+                                                                                Arrays.asList(TEXTS));
+        assertThat(pool.configurationCount(), equalTo(1));
+        assertThat(pool.missCount(), equalTo(misses));
+        for (int i = 0; i < TEXTS.length; i++) {
+            assertThat(strings(unpooled.get(i)), equalTo(strings(pooled.get(i))));
+        }
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        HanLpSegmentRequest request = new HanLpSegmentRequest(TEXTS).tokenizer("hanlp_speed")
+                                                                    .config(settingsBuilder().put(INDEX_MODE, true)
+                                                                                             .build());
+        BytesStreamOutput out = new BytesStreamOutput();
+        request.writeTo(out);
+        HanLpSegmentRequest readRequest = new HanLpSegmentRequest();
+        readRequest.readFrom(StreamInput.wrap(out.bytes()));
+        assertThat(readRequest.tokenizer(), equalTo("hanlp_speed"));
+        assertThat(readRequest.config(), equalTo(request.config()));
+        assertThat(readRequest.texts(), equalTo(Arrays.asList(TEXTS)));
+
+        HanLpSegmentResponse response = new HanLpSegmentResponse(
+            TransportHanLpSegmentAction.segment(executor, pool, SegmentConfig.DEFAULT, true, Arrays.asList(TEXTS)));
+        out = new BytesStreamOutput();
+        response.writeTo(out);
+        HanLpSegmentResponse readResponse = new HanLpSegmentResponse();
+        readResponse.readFrom(StreamInput.wrap(out.bytes()));
+        assertThat(readResponse.getTextCount(), equalTo(TEXTS.length));
+        for (int i = 0; i < TEXTS.length; i++) {
+            assertThat(strings(readResponse.getTokens(i)), equalTo(strings(response.getTokens(i))));
+        }
+    }
+
+    @Test
+    public void testValidation() {
+        assertNotNull(new HanLpSegmentRequest().validate());
+        assertNotNull(new HanLpSegmentRequest("text").tokenizer(null).validate());
+        assertNull(new HanLpSegmentRequest("text").validate());
+    }
+
+    private static List<String> strings(List<AnalyzeToken> tokens) {
+        List<String> strings = new ArrayList<>(tokens.size());
+        for (AnalyzeToken token : tokens) {
+            strings.add(token.getTerm() + "/" + token.getType() + "/" + token.getPosition() + "/"
+                        + token.getStartOffset() + "-" + token.getEndOffset());
+        }
+        return strings;
+    }
+
+}
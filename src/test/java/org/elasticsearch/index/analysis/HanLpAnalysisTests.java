@@ -2,6 +2,7 @@ package org.elasticsearch.index.analysis;
 
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.inject.AbstractModule;
 import org.elasticsearch.common.inject.Injector;
 import org.elasticsearch.common.inject.ModulesBuilder;
 import org.elasticsearch.common.settings.Settings;
@@ -12,6 +13,8 @@ import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexNameModule;
 import org.elasticsearch.index.settings.IndexSettingsModule;
 import org.elasticsearch.indices.analysis.IndicesAnalysisService;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.test.ESTestCase;
 import org.hamcrest.MatcherAssert;
 import org.junit.Test;
@@ -26,13 +29,18 @@ import static org.hamcrest.Matchers.instanceOf;
 public class HanLpAnalysisTests extends ESTestCase {
 
     @Test
-    public void testDefaultsIcuAnalysis() {
+    public void testDefaultsHanLpAnalysis() {
         Index index = new Index("test");
         Settings settings = settingsBuilder()
             .put("path.home", createTempDir())
             .put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT)
             .build();
-        Injector parentInjector = new ModulesBuilder().add(new SettingsModule(EMPTY_SETTINGS), new EnvironmentModule(new Environment(settings))).createInjector();
+        Injector parentInjector = new ModulesBuilder().add(new SettingsModule(EMPTY_SETTINGS), new EnvironmentModule(new Environment(settings)), new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(CircuitBreakerService.class).to(NoneCircuitBreakerService.class).asEagerSingleton();
+            }
+        }).createInjector();
         Injector injector = new ModulesBuilder().add(
             new IndexSettingsModule(index, settings),
             new IndexNameModule(index),
@@ -41,7 +49,7 @@ public class HanLpAnalysisTests extends ESTestCase {
 
         AnalysisService analysisService = injector.getInstance(AnalysisService.class);
 
-        TokenizerFactory tokenizerFactory = analysisService.tokenizer("smartcn_tokenizer");
+        TokenizerFactory tokenizerFactory = analysisService.tokenizer("hanlp_tokenizer");
         MatcherAssert.assertThat(tokenizerFactory, instanceOf(HanLpTokenizerTokenizerFactory.class));
     }
 }
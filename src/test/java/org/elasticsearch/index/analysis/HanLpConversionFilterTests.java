@@ -0,0 +1,125 @@
+package org.elasticsearch.index.analysis;
+
+import com.hankcs.hanlp.HanLP;
+import com.hankcs.hanlp.dictionary.py.Pinyin;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.KeywordTokenizer;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.elasticsearch.indices.analysis.hanlp.HanLpConversions;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.elasticsearch.common.settings.Settings.settingsBuilder;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpConversionFilterTests extends ESTestCase {
+
+    private static final String SIMPLIFIED = "用笔记本电脑写程序，头发理了吗？";
+    private static final String TRADITIONAL = "用筆記本電腦寫程序，頭髮理了嗎？";
+
+    private final HanLpConversions conversions = new HanLpConversions(settingsBuilder().build());
+
+    @Test
+    public void testSameAsHanLp() throws Exception {
+        assertThat(keyword(new HanLpConversionFilter(tokenizer(TRADITIONAL), conversions.traditionalToSimplified())),
+                   equalTo(HanLP.convertToSimplifiedChinese(TRADITIONAL)));
+        assertThat(keyword(new HanLpConversionFilter(tokenizer(SIMPLIFIED), conversions.simplifiedToTraditional())),
+                   equalTo(HanLP.convertToTraditionalChinese(SIMPLIFIED)));
+
+        // chars without pinyin are kept
+        StringBuilder pinyin = new StringBuilder();
+        List<Pinyin> syllables = HanLP.convertToPinyinList(SIMPLIFIED);
+        for (int i = 0; i < syllables.size(); i++) {
+            Pinyin syllable = syllables.get(i);
+            if (syllable == Pinyin.none5) {
+                pinyin.append(SIMPLIFIED.charAt(i));
+            } else {
+                pinyin.append(syllable.getPinyinWithoutTone());
+            }
+        }
+        assertThat(keyword(new HanLpPinyinFilter(tokenizer(SIMPLIFIED), conversions.pinyin(), true, false, false)),
+                   equalTo(pinyin.toString()));
+    }
+
+    @Test
+    public void testDictionariesAreShared() {
+        assertThat(conversions.traditionalToSimplified(), sameInstance(conversions.traditionalToSimplified()));
+        assertThat(conversions.pinyin(), sameInstance(conversions.pinyin()));
+    }
+
+    @Test
+    public void testUnconvertedTermsAreUntouched() throws Exception {
+        Tokenizer tokenizer = new WhitespaceTokenizer();
+        tokenizer.setReader(new StringReader("hello 電腦 world"));
+        assertThat(tokens(new HanLpConversionFilter(tokenizer, conversions.traditionalToSimplified())),
+                   contains("hello/1/0-5", "电脑/1/6-8", "world/1/9-14"));
+    }
+
+    @Test
+    public void testPinyinForms() throws Exception {
+        assertThat(tokens(new HanLpPinyinFilter(whitespace(), conversions.pinyin(), true, false, false)),
+                   contains("zhongguo/1/0-2", "a/1/3-4", "Agu/1/5-7"));
+        assertThat(tokens(new HanLpPinyinFilter(whitespace(), conversions.pinyin(), false, true, false)),
+                   contains("zg/1/0-2", "a/1/3-4", "Ag/1/5-7"));
+        assertThat(tokens(new HanLpPinyinFilter(whitespace(), conversions.pinyin(), true, true, true)),
+                   contains("中国/1/0-2", "zhongguo/0/0-2", "zg/0/0-2", "a/1/3-4", "A股/1/5-7", "Agu/0/5-7", "Ag/0/5-7"));
+        // the forms of 饿 are the same
+        Tokenizer tokenizer = new KeywordTokenizer();
+        tokenizer.setReader(new StringReader("饿"));
+        assertThat(tokens(new HanLpPinyinFilter(tokenizer, conversions.pinyin(), true, true, false)),
+                   contains("e/1/0-1"));
+    }
+
+    private static Tokenizer tokenizer(String text) {
+        Tokenizer tokenizer = new KeywordTokenizer();
+        tokenizer.setReader(new StringReader(text));
+        return tokenizer;
+    }
+
+    private static Tokenizer whitespace() {
+        Tokenizer tokenizer = new WhitespaceTokenizer();
+        tokenizer.setReader(new StringReader("中国 a A股"));
+        return tokenizer;
+    }
+
+    private static String keyword(TokenStream stream) throws Exception {
+        CharTermAttribute termAtt = stream.addAttribute(CharTermAttribute.class);
+        stream.reset();
+        assertTrue(stream.incrementToken());
+        String term = termAtt.toString();
+        assertFalse(stream.incrementToken());
+        stream.end();
+        stream.close();
+        return term;
+    }
+
+    private static List<String> tokens(TokenStream stream) throws Exception {
+        CharTermAttribute termAtt = stream.addAttribute(CharTermAttribute.class);
+        PositionIncrementAttribute positionAtt = stream.addAttribute(PositionIncrementAttribute.class);
+        OffsetAttribute offsetAtt = stream.addAttribute(OffsetAttribute.class);
+        List<String> tokens = new ArrayList<>();
+        stream.reset();
+        while (stream.incrementToken()) {
+            tokens.add(termAtt + "/" + positionAtt.getPositionIncrement() + "/" + offsetAtt.startOffset() + "-"
+                       + offsetAtt.endOffset());
+        }
+        stream.end();
+        stream.close();
+        return tokens;
+    }
+
+}
@@ -0,0 +1,340 @@
+package org.elasticsearch.index.analysis;
+
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.indices.analysis.hanlp.HanLpWarmer;
+import org.elasticsearch.plugin.analysis.hanlp.AnalysisHanLpPlugin;
+import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.test.ESIntegTestCase;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+/**
+ * Bulk indexes a generated Chinese corpus with concurrent clients through the HanLP analyzers and tokenizers, and
+ * through the {@code standard} and {@code cjk} analyzers as a baseline. Throughput and p99 bulk latency are checked
+ * relative to the {@code standard} analyzer, so the thresholds in {@code performance/thresholds.properties} hold on
+ * any machine, and the soak test fails if the heap after GC keeps growing while indices come and go.
+ * <p>
+ * Sized by {@code tests.hanlp.performance.clients}, {@code tests.hanlp.performance.docs},
+ * {@code tests.hanlp.performance.bulk_size} and {@code tests.hanlp.soak.duration}, see the {@code performance} profile.
+ *
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+@ESIntegTestCase.ClusterScope(scope = ESIntegTestCase.Scope.SUITE, numDataNodes = 1, numClientNodes = 0,
+                              transportClientRatio = 0)
+public class HanLpIndexingPerformanceIT extends ESIntegTestCase {
+
+    private static final String BASELINE = "standard";
+
+    private static final String[] PEOPLE = {"王小明", "李华", "张伟", "刘洋", "陈静", "杨帆", "赵丽", "黄磊"};
+    private static final String[] PLACES = {"北京", "上海", "广州", "深圳", "杭州", "成都", "武汉", "南京"};
+    private static final String[] ORGANIZATIONS = {"中国银行", "清华大学", "北京大学", "阿里巴巴集团", "新华社",
+                                                   "国务院", "人民日报社", "中国科学院"};
+    private static final String[] TOPICS = {"经贸合作", "气候变化", "搜索引擎", "推荐系统", "人工智能", "新能源汽车"};
+    private static final String[] ITEMS = {"道具", "服装", "手机", "电脑", "图书", "茶叶", "自行车", "家具"};
+    private static final String[] SEASONS = {"春天", "夏天", "秋天", "冬天"};
+
+    private final int clients = Integer.getInteger("tests.hanlp.performance.clients", 4);
+    private final int docs = Integer.getInteger("tests.hanlp.performance.docs", 10000);
+    private final int bulkSize = Integer.getInteger("tests.hanlp.performance.bulk_size", 100);
+    private final TimeValue soakDuration = TimeValue.parseTimeValue(
+        System.getProperty("tests.hanlp.soak.duration", "10s"), null, "tests.hanlp.soak.duration");
+
+    private String[] corpus;
+
+    @Override
+    protected Collection<Class<? extends Plugin>> nodePlugins() {
+        return pluginList(AnalysisHanLpPlugin.class);
+    }
+
+    @Before
+    public void setUpCorpus() throws Exception {
+        // the dictionaries are loaded once, not by the first configuration measured
+        internalCluster().getInstance(HanLpWarmer.class).awaitReady(TimeValue.timeValueMinutes(5));
+        corpus = generateCorpus(new Random(random().nextLong()), docs);
+    }
+
+    @Test
+    public void testThroughput() throws Exception {
+        Map<String, XContentBuilder> configurations = new LinkedHashMap<>();
+        configurations.put("standard", analyzer("standard"));
+        configurations.put("cjk", analyzer("cjk"));
+        configurations.put("hanlp", analyzer("hanlp"));
+        configurations.put("hanlp_index", custom(jsonBuilder().startObject()
+                                                     .field("type", "hanlp")
+                                                     .field("indexMode", true)
+                                                     .endObject()));
+        configurations.put("hanlp_ner", custom(jsonBuilder().startObject()
+                                                   .field("type", "hanlp")
+                                                   .field("placeRecognize", true)
+                                                   .field("organizationRecognize", true)
+                                                   .endObject()));
+        configurations.put("hanlp_tokenizer", custom(jsonBuilder().startObject()
+                                                         .field("tokenizer", "hanlp_tokenizer")
+                                                         .field("filter", "lowercase")
+                                                         .endObject()));
+        configurations.put("hanlp_speed", analyzer("hanlp_speed"));
+
+        // warms up the node and the JIT before the baseline is measured
+        createIndex("perf_warmup", analyzer(BASELINE));
+        index("perf_warmup", corpus);
+        cluster().wipeIndices("perf_warmup");
+
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (Map.Entry<String, XContentBuilder> configuration : configurations.entrySet()) {
+            String index = "perf_" + configuration.getKey();
+            createIndex(index, configuration.getValue());
+            // the first pass lets the JIT and the segment pools settle
+            index(index, Arrays.copyOf(corpus, Math.min(corpus.length, clients * bulkSize * 4)));
+            Result result = index(index, corpus);
+            results.put(configuration.getKey(), result);
+            cluster().wipeIndices(index);
+        }
+        logger.info("indexed [{}] docs with [{}] clients in bulks of [{}]\n{}", docs, clients, bulkSize,
+                    report(results));
+
+        Properties thresholds = thresholds();
+        Result baseline = results.get(BASELINE);
+        for (Map.Entry<String, Result> entry : results.entrySet()) {
+            String name = entry.getKey();
+            Result result = entry.getValue();
+            String throughput = thresholds.getProperty("throughput." + name);
+            if (throughput != null) {
+                assertThat("throughput of [" + name + "] relative to [" + BASELINE + "]",
+                           result.docsPerSecond / baseline.docsPerSecond,
+                           greaterThanOrEqualTo(Double.parseDouble(throughput)));
+            }
+            String p99 = thresholds.getProperty("p99." + name);
+            if (p99 != null) {
+                assertThat("p99 bulk latency of [" + name + "] relative to [" + BASELINE + "]",
+                           (double) result.p99Nanos / baseline.p99Nanos,
+                           lessThanOrEqualTo(Double.parseDouble(p99)));
+            }
+        }
+    }
+
+    @Test
+    public void testSoak() throws Exception {
+        long maxGrowth = ByteSizeValue.parseBytesSizeValue(thresholds().getProperty("soak.heap_growth"),
+                                                           "soak.heap_growth").bytes();
+        long end = System.nanoTime() + soakDuration.nanos();
+        long firstHeap = -1;
+        int round = 0;
+        do {
+            // a new index every round, so per index analyzers, dictionaries and segments are built and dropped
+            String index = "soak_" + round;
+            createIndex(index, custom(jsonBuilder().startObject()
+                                          .field("type", "hanlp")
+                                          .field("indexMode", true)
+                                          .endObject()));
+            Result result = index(index, corpus);
+            cluster().wipeIndices(index);
+            long heap = heapAfterGc();
+            logger.info("soak round [{}]: [{}] docs/s, p99 [{}], heap after gc [{}]", round,
+                        (long) result.docsPerSecond, TimeValue.timeValueNanos(result.p99Nanos),
+                        new ByteSizeValue(heap));
+            if (firstHeap < 0) {
+                // the first round pays for what is loaded once
+                firstHeap = heap;
+            } else {
+                assertThat("heap after gc grew in round [" + round + "]", heap - firstHeap,
+                           lessThanOrEqualTo(maxGrowth));
+            }
+            round++;
+        } while (System.nanoTime() < end || round < 2);
+    }
+
+    private void createIndex(String index, XContentBuilder analysis) throws Exception {
+        assertAcked(prepareCreate(index)
+                        .setSettings(jsonBuilder().startObject()
+                                         .field("number_of_shards", 1)
+                                         .field("number_of_replicas", 0)
+                                         .field("refresh_interval", -1)
+                                         .rawField("analysis", analysis.bytes())
+                                         .endObject().string())
+                        .addMapping("doc", jsonBuilder().startObject().startObject("doc").startObject("properties")
+                            .startObject("text")
+                            .field("type", "string")
+                            .field("analyzer", "perf")
+                            .endObject()
+                            .endObject().endObject().endObject()));
+        ensureGreen(index);
+    }
+
+    /**
+     * Indexes {@code texts} with {@link #clients} concurrent clients, each sending every {@code clients}th bulk.
+     */
+    private Result index(final String index, final String[] texts) throws Exception {
+        final int bulks = (texts.length + bulkSize - 1) / bulkSize;
+        final long[] latencies = new long[bulks];
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(clients);
+        for (int i = 0; i < clients; i++) {
+            final Client client = client();
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int bulk = next.getAndIncrement(); bulk < bulks; bulk = next.getAndIncrement()) {
+                            BulkRequestBuilder request = client.prepareBulk();
+                            int end = Math.min(texts.length, (bulk + 1) * bulkSize);
+                            for (int doc = bulk * bulkSize; doc < end; doc++) {
+                                request.add(client.prepareIndex(index, "doc")
+                                                .setSource(jsonBuilder().startObject()
+                                                               .field("text", texts[doc])
+                                                               .endObject()));
+                            }
+                            long begin = System.nanoTime();
+                            BulkResponse response = request.get();
+                            latencies[bulk] = System.nanoTime() - begin;
+                            if (response.hasFailures()) {
+                                throw new AssertionError(response.buildFailureMessage());
+                            }
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }, "perf_client_" + i);
+            thread.start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long took = System.nanoTime() - begin;
+        if (failure.get() != null) {
+            throw new AssertionError("indexing into [" + index + "] failed", failure.get());
+        }
+
+        Arrays.sort(latencies);
+        Result result = new Result();
+        result.docsPerSecond = texts.length / (took / 1e9);
+        result.p99Nanos = latencies[Math.min(latencies.length - 1, (int) Math.ceil(latencies.length * 0.99) - 1)];
+        result.heapAfterGc = heapAfterGc();
+        return result;
+    }
+
+    private static long heapAfterGc() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static XContentBuilder analyzer(String type) throws Exception {
+        return custom(jsonBuilder().startObject().field("type", type).endObject());
+    }
+
+    private static XContentBuilder custom(XContentBuilder analyzer) throws Exception {
+        return jsonBuilder().startObject()
+            .startObject("analyzer").rawField("perf", analyzer.bytes()).endObject()
+            .endObject();
+    }
+
+    private static Properties thresholds() throws Exception {
+        Properties thresholds = new Properties();
+        try (InputStream stream = HanLpIndexingPerformanceIT.class.getResourceAsStream(
+            "/performance/thresholds.properties")) {
+            thresholds.load(stream);
+        }
+        return thresholds;
+    }
+
+    private static String report(Map<String, Result> results) {
+        Result baseline = results.get(BASELINE);
+        StringBuilder report = new StringBuilder(String.format(Locale.ROOT, "%-16s %10s %8s %10s %8s %14s%n",
+                                                               "configuration", "docs/s", "ratio", "p99 bulk",
+                                                               "ratio", "heap after gc"));
+        for (Map.Entry<String, Result> entry : results.entrySet()) {
+            Result result = entry.getValue();
+            report.append(String.format(Locale.ROOT, "%-16s %10d %8.2f %10s %8.2f %14s%n", entry.getKey(),
+                                        (long) result.docsPerSecond, result.docsPerSecond / baseline.docsPerSecond,
+                                        TimeValue.timeValueNanos(result.p99Nanos),
+                                        (double) result.p99Nanos / baseline.p99Nanos,
+                                        new ByteSizeValue(result.heapAfterGc)));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Documents of one to six sentences, built from templates so that the texts vary and exercise the named entity
+     * recognizers.
+     */
+    static String[] generateCorpus(Random random, int count) {
+        List<String> documents = new ArrayList<>(count);
+        StringBuilder document = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            document.setLength(0);
+            int sentences = 1 + random.nextInt(6);
+            for (int j = 0; j < sentences; j++) {
+                document.append(sentence(random));
+            }
+            documents.add(document.toString());
+        }
+        return documents.toArray(new String[documents.size()]);
+    }
+
+    private static String sentence(Random random) {
+        switch (random.nextInt(6)) {
+            case 0:
+                return pick(random, PEOPLE) + "在" + pick(random, PLACES) + "的" + pick(random, ORGANIZATIONS)
+                       + "工作，每月工资" + (1000 + random.nextInt(20000)) + "元。";
+            case 1:
+                return "据" + pick(random, ORGANIZATIONS) + "报道，" + pick(random, PEOPLE) + "今天在"
+                       + pick(random, PLACES) + "会见了来访的代表团，双方就" + pick(random, TOPICS) + "等问题交换了意见。";
+            case 2:
+                return pick(random, ORGANIZATIONS) + "今天公布了第" + (1 + random.nextInt(4))
+                       + "季度财报，营业收入同比增长百分之" + random.nextInt(100) + "，超出市场预期。";
+            case 3:
+                return "我在" + pick(random, PLACES) + "购买了" + pick(random, ITEMS) + "和" + pick(random, ITEMS)
+                       + "，商品和服务都让人满意。";
+            case 4:
+                return pick(random, PEOPLE) + "毕业于" + pick(random, ORGANIZATIONS) + "，目前在" + pick(random, PLACES)
+                       + "一家公司负责" + pick(random, TOPICS) + "的研发工作。";
+            default:
+                return "今年" + pick(random, SEASONS) + "，" + pick(random, PLACES) + "的" + pick(random, ITEMS)
+                       + "价格上涨了百分之" + random.nextInt(50) + "。";
+        }
+    }
+
+    private static String pick(Random random, String[] words) {
+        return words[random.nextInt(words.length)];
+    }
+
+    private static final class Result {
+        double docsPerSecond;
+        long p99Nanos;
+        long heapAfterGc;
+    }
+
+}
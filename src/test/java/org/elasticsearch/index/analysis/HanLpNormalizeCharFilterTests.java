@@ -0,0 +1,73 @@
+package org.elasticsearch.index.analysis;
+
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.elasticsearch.indices.analysis.hanlp.NormalizationTable;
+import org.elasticsearch.indices.analysis.hanlp.SegmentConfig;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpNormalizeCharFilterTests extends ESTestCase {
+
+    private static final String TEXT = "ＨＡＮＬＰ分詞　Hello，國語！";
+
+    @Test
+    public void testDefaults() throws Exception {
+        char[] table = NormalizationTable.get(true, true, true, false);
+        assertThat(normalize(TEXT, table), equalTo("hanlp分词 hello,国语!"));
+        assertThat(NormalizationTable.get(true, true, true, false), sameInstance(table));
+    }
+
+    @Test
+    public void testFlags() throws Exception {
+        assertThat(normalize(TEXT, NormalizationTable.get(false, false, false, false)), equalTo(TEXT));
+        assertThat(normalize(TEXT, NormalizationTable.get(true, false, false, false)), equalTo("HANLP分詞 Hello,國語!"));
+        assertThat(normalize(TEXT, NormalizationTable.get(false, true, false, false)), equalTo("ｈａｎｌｐ分詞　hello，國語！"));
+        assertThat(normalize(TEXT, NormalizationTable.get(false, false, true, false)), equalTo("ＨＡＮＬＰ分词　Hello，国语！"));
+        // HanLP's char table also folds punctuation
+        assertThat(normalize(TEXT, NormalizationTable.get(false, false, false, true)), equalTo("hanlp分词　hello。国语。"));
+        assertThat(normalize("《你好?》", NormalizationTable.get(false, false, false, true)), equalTo("《你好。》"));
+    }
+
+    @Test
+    public void testOffsets() throws Exception {
+        Tokenizer tokenizer = new HanLpTokenizer(SegmentConfig.DEFAULT.newSegment(), SegmentConfig.DEFAULT, false);
+        CharTermAttribute termAtt = tokenizer.addAttribute(CharTermAttribute.class);
+        OffsetAttribute offsetAtt = tokenizer.addAttribute(OffsetAttribute.class);
+        tokenizer.setReader(new HanLpNormalizeCharFilter(new StringReader("我購買了道具和服裝"),
+                                                         NormalizationTable.get(true, true, true, false)));
+        List<String> tokens = new ArrayList<>();
+        tokenizer.reset();
+        while (tokenizer.incrementToken()) {
+            tokens.add(termAtt + "/" + offsetAtt.startOffset() + "-" + offsetAtt.endOffset());
+        }
+        tokenizer.end();
+        tokenizer.close();
+        assertThat(tokens, contains("我/0-1", "购买/1-3", "了/3-4", "道具/4-6", "和/6-7", "服装/7-9"));
+    }
+
+    private static String normalize(String text, char[] table) throws Exception {
+        Reader reader = new HanLpNormalizeCharFilter(new StringReader(text), table);
+        StringBuilder normalized = new StringBuilder();
+        char[] buffer = new char[3];
+        int read;
+        while ((read = reader.read(buffer, 0, buffer.length)) != -1) {
+            normalized.append(buffer, 0, read);
+        }
+        return normalized.toString();
+    }
+
+}
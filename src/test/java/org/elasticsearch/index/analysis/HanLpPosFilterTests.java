@@ -0,0 +1,102 @@
+package org.elasticsearch.index.analysis;
+
+import com.hankcs.hanlp.corpus.tag.Nature;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+import org.elasticsearch.indices.analysis.hanlp.SegmentConfig;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.elasticsearch.indices.analysis.hanlp.Settings.EXCLUDE;
+import static org.elasticsearch.indices.analysis.hanlp.Settings.INCLUDE;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpPosFilterTests extends ESTestCase {
+
+    private static final String TEXT = "我购买了道具和服装。";
+
+    @Test
+    public void testNatureFollowsType() throws Exception {
+        Tokenizer tokenizer = new HanLpTokenizer(SegmentConfig.DEFAULT.newSegment(), SegmentConfig.DEFAULT, false);
+        TypeAttribute typeAtt = tokenizer.addAttribute(TypeAttribute.class);
+        NatureAttribute natureAtt = tokenizer.addAttribute(NatureAttribute.class);
+        tokenizer.setReader(new StringReader(TEXT));
+        tokenizer.reset();
+        while (tokenizer.incrementToken()) {
+            assertThat(natureAtt.nature().toString(), equalTo(typeAtt.type()));
+        }
+        tokenizer.end();
+        tokenizer.close();
+    }
+
+    @Test
+    public void testDefaultExclude() throws Exception {
+        BitSet natures = HanLpPosTokenFilterFactory.natures(EXCLUDE, HanLpPosTokenFilterFactory.DEFAULT_EXCLUDE);
+        assertThat(filter(TEXT, natures, true), contains("我/1", "购买/1", "道具/2", "和/1", "服装/1"));
+    }
+
+    @Test
+    public void testInclude() throws Exception {
+        BitSet natures = HanLpPosTokenFilterFactory.natures(INCLUDE, new String[]{"n*", "v"});
+        assertThat(filter(TEXT, natures, false), contains("购买/2", "道具/2", "服装/2"));
+    }
+
+    @Test
+    public void testUnknownNature() {
+        int natures = Nature.values().length;
+        try {
+            HanLpPosTokenFilterFactory.natures(INCLUDE, new String[]{"n*", "nnotanature"});
+            fail("unknown nature accepted");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), equalTo("unknown nature [nnotanature] in [include]"));
+        }
+        assertThat(Nature.values().length, equalTo(natures));
+    }
+
+    @Test
+    public void testTokensWithoutNature() throws Exception {
+        BitSet natures = HanLpPosTokenFilterFactory.natures(EXCLUDE, new String[]{"w"});
+        Tokenizer tokenizer = new WhitespaceTokenizer();
+        tokenizer.setReader(new StringReader("a b"));
+        assertThat(tokens(new HanLpPosFilter(tokenizer, natures, true)), contains("a/1", "b/1"));
+
+        tokenizer = new WhitespaceTokenizer();
+        tokenizer.setReader(new StringReader("a b"));
+        assertThat(tokens(new HanLpPosFilter(tokenizer, natures, false)), empty());
+    }
+
+    private static List<String> filter(String text, BitSet natures, boolean exclude) throws Exception {
+        Tokenizer tokenizer = new HanLpTokenizer(SegmentConfig.DEFAULT.newSegment(), SegmentConfig.DEFAULT, false);
+        tokenizer.setReader(new StringReader(text));
+        return tokens(new HanLpPosFilter(tokenizer, natures, exclude));
+    }
+
+    private static List<String> tokens(TokenStream stream) throws Exception {
+        CharTermAttribute termAtt = stream.addAttribute(CharTermAttribute.class);
+        PositionIncrementAttribute positionAtt = stream.addAttribute(PositionIncrementAttribute.class);
+        List<String> tokens = new ArrayList<>();
+        stream.reset();
+        while (stream.incrementToken()) {
+            tokens.add(termAtt + "/" + positionAtt.getPositionIncrement());
+        }
+        stream.end();
+        stream.close();
+        return tokens;
+    }
+
+}
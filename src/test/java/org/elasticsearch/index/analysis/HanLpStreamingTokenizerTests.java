@@ -0,0 +1,140 @@
+package org.elasticsearch.index.analysis;
+
+import com.hankcs.hanlp.seg.common.Term;
+
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+import org.elasticsearch.indices.analysis.hanlp.SegmentConfig;
+import org.elasticsearch.indices.analysis.hanlp.Settings;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.elasticsearch.common.settings.Settings.settingsBuilder;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpStreamingTokenizerTests extends ESTestCase {
+
+    private static final String SENTENCES = "商品和服务，我购买了道具和服装。王小明在北京大学工作！";
+
+    @Test
+    public void testOffsetsAcrossChunks() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            text.append(SENTENCES);
+        }
+        for (int i = 0; i < 200; i++) {
+            text.append("商品和服务");
+        }
+        text.append(" hello world 2016");
+
+        for (SegmentConfig config : new SegmentConfig[]{
+            SegmentConfig.DEFAULT, SegmentConfig.parse(settingsBuilder().put(Settings.INDEX_MODE, true).build())}) {
+            List<String> tokens = tokenize(config, 64, text.toString(), true);
+            if (config.indexMode() == false) {
+                StringBuilder joined = new StringBuilder();
+                for (String token : tokens) {
+                    joined.append(token);
+                }
+                assertThat(joined.toString(), equalTo(text.toString().replace(" ", "")));
+            }
+        }
+    }
+
+    @Test
+    public void testSameTokensAsWholeText() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            text.append(SENTENCES).append('\n');
+        }
+        List<String> expected = new ArrayList<>();
+        for (Term term : SegmentConfig.DEFAULT.newSegment().seg(text.toString())) {
+            if (term.word.trim().isEmpty() == false) {
+                expected.add(term.word);
+            }
+        }
+        assertThat(tokenize(SegmentConfig.DEFAULT, 128, text.toString(), true), equalTo(expected));
+    }
+
+    @Test
+    public void testSameTokensAsHanLpTokenizer() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            text.append(SENTENCES).append(" Running tests, jumping 2016\r\n\n  ").append("商品和服务\nhello world\n");
+        }
+        for (SegmentConfig config : new SegmentConfig[]{
+            SegmentConfig.DEFAULT, SegmentConfig.parse(settingsBuilder().put(Settings.INDEX_MODE, true).build())}) {
+            List<String> expected = tokens(new HanLpTokenizer(config.newSegment(), config, true), text.toString());
+            for (int maxChunkLength : new int[]{64, HanLpStreamingTokenizer.DEFAULT_MAX_CHUNK_LENGTH}) {
+                Tokenizer tokenizer = new HanLpStreamingTokenizer(config.newSegment(), config, true, maxChunkLength);
+                assertThat(tokens(tokenizer, text.toString()), equalTo(expected));
+            }
+        }
+    }
+
+    @Test
+    public void testCut() {
+        assertThat(HanLpStreamingTokenizer.cut("商品。和服务".toCharArray(), 6), equalTo(3));
+        assertThat(HanLpStreamingTokenizer.cut("商品和服务 abc".toCharArray(), 9), equalTo(6));
+        assertThat(HanLpStreamingTokenizer.cut("商品和服务abc".toCharArray(), 8), equalTo(5));
+        assertThat(HanLpStreamingTokenizer.cut("商品和服务".toCharArray(), 5), equalTo(5));
+        assertThat(HanLpStreamingTokenizer.cut("商品和\uD840".toCharArray(), 4), equalTo(3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxChunkLength() {
+        new HanLpStreamingTokenizer(SegmentConfig.DEFAULT.newSegment(), SegmentConfig.DEFAULT, false, 1);
+    }
+
+    /**
+     * Returns the terms of {@code text} with their offsets and types.
+     */
+    private static List<String> tokens(Tokenizer tokenizer, String text) throws Exception {
+        CharTermAttribute termAtt = tokenizer.addAttribute(CharTermAttribute.class);
+        OffsetAttribute offsetAtt = tokenizer.addAttribute(OffsetAttribute.class);
+        TypeAttribute typeAtt = tokenizer.addAttribute(TypeAttribute.class);
+        List<String> tokens = new ArrayList<>();
+        tokenizer.setReader(new StringReader(text));
+        tokenizer.reset();
+        while (tokenizer.incrementToken()) {
+            tokens.add(termAtt + "/" + typeAtt.type() + "/" + offsetAtt.startOffset() + "-" + offsetAtt.endOffset());
+        }
+        tokenizer.end();
+        tokens.add("end/" + offsetAtt.endOffset());
+        tokenizer.close();
+        return tokens;
+    }
+
+    /**
+     * Returns the terms of {@code text}, checking they are what their offsets point to.
+     */
+    private static List<String> tokenize(SegmentConfig config, int maxChunkLength, String text, boolean twice)
+        throws Exception {
+        Tokenizer tokenizer = new HanLpStreamingTokenizer(config.newSegment(), config, false, maxChunkLength);
+        CharTermAttribute termAtt = tokenizer.addAttribute(CharTermAttribute.class);
+        OffsetAttribute offsetAtt = tokenizer.addAttribute(OffsetAttribute.class);
+        List<String> tokens = new ArrayList<>();
+        for (int run = 0; run < (twice ? 2 : 1); run++) {
+            tokens.clear();
+            tokenizer.setReader(new StringReader(text));
+            tokenizer.reset();
+            while (tokenizer.incrementToken()) {
+                assertThat(text.substring(offsetAtt.startOffset(), offsetAtt.endOffset()), equalTo(termAtt.toString()));
+                tokens.add(termAtt.toString());
+            }
+            tokenizer.end();
+            assertThat(offsetAtt.endOffset(), equalTo(text.length()));
+            tokenizer.close();
+        }
+        return tokens;
+    }
+
+}
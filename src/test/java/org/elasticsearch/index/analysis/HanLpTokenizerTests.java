@@ -0,0 +1,317 @@
+package org.elasticsearch.index.analysis;
+
+import com.hankcs.hanlp.HanLP;
+import com.hankcs.hanlp.seg.common.Term;
+import com.hankcs.lucene.HanLPTokenizer;
+
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+import org.elasticsearch.indices.analysis.hanlp.HanLpAnalysisMetric;
+import org.elasticsearch.indices.analysis.hanlp.HanLpSegmentCache;
+import org.elasticsearch.indices.analysis.hanlp.HanLpSegmentExecutor;
+import org.elasticsearch.indices.analysis.hanlp.HanLpSegmentPool;
+import org.elasticsearch.indices.analysis.hanlp.SegmentBudget;
+import org.elasticsearch.indices.analysis.hanlp.SegmentConfig;
+import org.elasticsearch.indices.analysis.hanlp.Settings;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.elasticsearch.common.settings.Settings.settingsBuilder;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpTokenizerTests extends ESTestCase {
+
+    private static final String SENTENCES = "商品和服务，我购买了道具和服装。王小明在北京大学工作！ 攻城狮 hello world 3000元";
+
+    @Test
+    public void testSameTokensAsLuceneTokenizer() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            text.append(SENTENCES);
+        }
+        for (SegmentConfig config : new SegmentConfig[]{
+            SegmentConfig.DEFAULT,
+            SegmentConfig.parse(settingsBuilder().put(Settings.INDEX_MODE, true).build()),
+            SegmentConfig.parse(settingsBuilder().put(Settings.OFFSET, true).put(Settings.PLACE_RECOGNIZE, true)
+                                                 .build()),
+            SegmentConfig.SPEED}) {
+            Tokenizer expected = new HanLPTokenizer(config.newSegment(), null, false);
+            Tokenizer actual = new HanLpTokenizer(config.newSegment(), config, false);
+            assertThat(config.toString(), tokens(actual, text.toString()), equalTo(tokens(expected, text.toString())));
+        }
+    }
+
+    @Test
+    public void testOffsetsAcrossLines() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            text.append(SENTENCES).append(i % 3 == 0 ? "\r\n" : "\n");
+            if (i % 5 == 0) {
+                // empty lines don't end the text
+                text.append("\n\n");
+            }
+        }
+        // longer than the initial buffer
+        for (int i = 0; i < 500; i++) {
+            text.append("商品和服务");
+        }
+
+        for (SegmentConfig config : new SegmentConfig[]{
+            SegmentConfig.DEFAULT, SegmentConfig.parse(settingsBuilder().put(Settings.INDEX_MODE, true).build())}) {
+            Tokenizer tokenizer = new HanLpTokenizer(config.newSegment(), config, false);
+            List<String> tokens = new ArrayList<>();
+            for (int run = 0; run < 2; run++) {
+                tokens = tokenize(tokenizer, text.toString());
+            }
+            if (config.indexMode() == false) {
+                StringBuilder joined = new StringBuilder();
+                for (String token : tokens) {
+                    joined.append(token);
+                }
+                assertThat(joined.toString(), equalTo(text.toString().replaceAll("\\s", "")));
+            }
+        }
+    }
+
+    @Test
+    public void testSameOffsetsAsOffsetMode() throws Exception {
+        String[] lines = {SENTENCES, "", "ＨａｎＬＰ分詞很好用，國語！\r", "  攻城獅  在  北京大學  ", SENTENCES + "3000元"};
+        StringBuilder text = new StringBuilder();
+        for (String line : lines) {
+            text.append(line).append('\n');
+        }
+
+        boolean normalization = HanLP.Config.Normalization;
+        try {
+            for (boolean normalize : new boolean[]{false, true}) {
+                HanLP.Config.Normalization = normalize;
+                for (SegmentConfig config : new SegmentConfig[]{
+                    SegmentConfig.DEFAULT,
+                    SegmentConfig.parse(settingsBuilder().put(Settings.INDEX_MODE, true).build()),
+                    SegmentConfig.parse(settingsBuilder().put(Settings.PLACE_RECOGNIZE, true)
+                                                         .put(Settings.ORGANIZATION_RECOGNIZE, true)
+                                                         .put(Settings.NUMBER_QUANTIFIER_RECOGNIZE, true).build()),
+                    SegmentConfig.SPEED}) {
+                    List<String> expected = new ArrayList<>();
+                    int lineOffset = 0;
+                    for (String line : lines) {
+                        for (Term term : config.newSegment().enableOffset(true).seg(line)) {
+                            if (term.word.trim().isEmpty() == false) {
+                                int start = lineOffset + term.offset;
+                                expected.add(start + "-" + (start + term.length()));
+                            }
+                        }
+                        lineOffset += line.length() + 1;
+                    }
+                    Tokenizer tokenizer = new HanLpTokenizer(config.newSegment(), config, false);
+                    assertThat(normalize + " " + config, offsets(tokenizer, text.toString()), equalTo(expected));
+                }
+            }
+        } finally {
+            HanLP.Config.Normalization = normalization;
+        }
+    }
+
+    @Test
+    public void testNormalizationWhateverTheSegmentPath() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 20; j++) {
+                text.append("ＨＥＬＬＯ，這個測試。我購買了道具和服裝！");
+            }
+            text.append('\n');
+        }
+        text.append("ＨＥＬＬＯ，這個測試");
+        SegmentConfig config = SegmentConfig.DEFAULT;
+        SegmentConfig threads = SegmentConfig.parse(settingsBuilder().put(Settings.THREADS, 4).build());
+
+        boolean normalization = HanLP.Config.Normalization;
+        HanLP.Config.Normalization = true;
+        try {
+            List<String> expected = termsAndOffsets(new HanLpTokenizer(config.newSegment(), config, false),
+                                                    text.toString());
+            assertThat(expected.get(0), equalTo("hello/0-5"));
+
+            org.elasticsearch.common.settings.Settings cache = settingsBuilder()
+                .put(Settings.SEGMENT_CACHE_SIZE, "1mb")
+                .put(Settings.SEGMENT_CACHE_MAX_TEXT_LENGTH, 1000)
+                .put(Settings.SEGMENT_MEMO_MAX_CHARS, 0)
+                .build();
+            org.elasticsearch.common.settings.Settings parallel = settingsBuilder()
+                .put(Settings.SEGMENT_EXECUTOR_MIN_TEXT_LENGTH, 100)
+                .put(Settings.SEGMENT_MEMO_MAX_CHARS, 0)
+                .build();
+            org.elasticsearch.common.settings.Settings memo = settingsBuilder().build();
+            for (org.elasticsearch.common.settings.Settings settings : Arrays.asList(cache, parallel, memo)) {
+                HanLpSegmentExecutor executor = new HanLpSegmentExecutor(settings);
+                HanLpSegmentPool pool = new HanLpSegmentPool(settings, new HanLpSegmentCache(settings), executor);
+                SegmentConfig poolConfig = settings == parallel ? threads : config;
+                // the second run replays the cache and the memo
+                for (int run = 0; run < 2; run++) {
+                    Tokenizer tokenizer = new HanLpTokenizer(pool.acquire(poolConfig), poolConfig, false);
+                    assertThat(settings.getAsMap().toString(), termsAndOffsets(tokenizer, text.toString()),
+                               equalTo(expected));
+                }
+                pool.close();
+                executor.close();
+            }
+        } finally {
+            HanLP.Config.Normalization = normalization;
+        }
+    }
+
+    @Test
+    public void testPorterStemming() throws Exception {
+        Tokenizer tokenizer = new HanLpTokenizer(SegmentConfig.DEFAULT.newSegment(), SegmentConfig.DEFAULT, true);
+        assertThat(tokens(tokenizer, "running dogs"), contains("run/nx/1", "dog/nx/1"));
+    }
+
+    @Test
+    public void testLongLinesFallBack() throws Exception {
+        SegmentConfig config = SegmentConfig.parse(settingsBuilder().put(Settings.INDEX_MODE, true).build());
+        SegmentBudget budget = SegmentBudget.parse(settingsBuilder().put(Settings.MAX_SEGMENT_LENGTH, 12).build(), "");
+        HanLpAnalysisMetric metric = new HanLpAnalysisMetric();
+        Tokenizer tokenizer = new HanLpTokenizer(config.newSegment(), config, false, metric, budget,
+                                                 config.fallback().newSegment());
+
+        String line = "王小明在北京大学工作";
+        List<String> tokens = tokenize(tokenizer, line + "\n" + line + "。" + line);
+        // the second line is too long, so it is only matched against the dictionary
+        assertThat(tokens.subList(0, 4), contains("王小明", "在", "北京大学", "北京"));
+        assertThat(tokens.subList(tokens.indexOf("工作") + 1, tokens.size()),
+                   equalTo(tokenize(new HanLpTokenizer(config.fallback().newSegment(), config.fallback(), false),
+                                    line + "。" + line)));
+        assertThat(metric.stats().getFallbacks(), equalTo(1L));
+    }
+
+    @Test
+    public void testSpentTimeBudgetFallsBack() throws Exception {
+        SegmentConfig config = SegmentConfig.DEFAULT;
+        SegmentBudget budget = SegmentBudget.parse(settingsBuilder().put(Settings.TIME_BUDGET, "0ms").build(), "");
+        HanLpAnalysisMetric metric = new HanLpAnalysisMetric();
+        Tokenizer tokenizer = new HanLpTokenizer(config.newSegment(), config, false, metric, budget,
+                                                 config.fallback().newSegment());
+        Tokenizer fallback = new HanLpTokenizer(config.fallback().newSegment(), config.fallback(), false);
+
+        for (int run = 0; run < 2; run++) {
+            assertThat(tokens(tokenizer, SENTENCES + "\n" + SENTENCES),
+                       equalTo(tokens(fallback, SENTENCES + "\n" + SENTENCES)));
+        }
+        assertThat(metric.stats().getDocuments(), equalTo(2L));
+        assertThat(metric.stats().getFallbacks(), equalTo(4L));
+    }
+
+    @Test
+    public void testTimeBudgetBoundsLongLines() throws Exception {
+        SegmentConfig config = SegmentConfig.DEFAULT;
+        SegmentBudget budget = SegmentBudget.parse(settingsBuilder().put(Settings.TIME_BUDGET, "1h").build(), "");
+        assertThat(budget.maxLength(), equalTo(SegmentBudget.DEFAULT_MAX_SEGMENT_LENGTH));
+        HanLpAnalysisMetric metric = new HanLpAnalysisMetric();
+        Tokenizer tokenizer = new HanLpTokenizer(config.newSegment(), config, false, metric, budget,
+                                                 config.fallback().newSegment());
+        Tokenizer fallback = new HanLpTokenizer(config.fallback().newSegment(), config.fallback(), false);
+
+        StringBuilder line = new StringBuilder();
+        while (line.length() <= SegmentBudget.DEFAULT_MAX_SEGMENT_LENGTH) {
+            line.append(SENTENCES);
+        }
+        // the time budget isn't spent, but the single line is too long to be segmented in one go
+        assertThat(tokens(tokenizer, line.toString()), equalTo(tokens(fallback, line.toString())));
+        assertThat(metric.stats().getFallbacks(), equalTo(1L));
+    }
+
+    @Test
+    public void testTimeBudgetNeedsMaxSegmentLength() {
+        try {
+            SegmentBudget.parse(settingsBuilder().put(Settings.TIME_BUDGET, "1h")
+                                                 .put(Settings.MAX_SEGMENT_LENGTH, -1).build(), "");
+            fail("parsed a time budget with unlimited lines");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("[" + Settings.MAX_SEGMENT_LENGTH + "] can't be unlimited"));
+        }
+    }
+
+    /**
+     * Returns the terms of {@code text}, checking they are what their offsets point to.
+     */
+    private static List<String> tokenize(Tokenizer tokenizer, String text) throws Exception {
+        CharTermAttribute termAtt = tokenizer.addAttribute(CharTermAttribute.class);
+        OffsetAttribute offsetAtt = tokenizer.addAttribute(OffsetAttribute.class);
+        List<String> tokens = new ArrayList<>();
+        tokenizer.setReader(new StringReader(text));
+        tokenizer.reset();
+        while (tokenizer.incrementToken()) {
+            assertThat(text.substring(offsetAtt.startOffset(), offsetAtt.endOffset()), equalTo(termAtt.toString()));
+            tokens.add(termAtt.toString());
+        }
+        tokenizer.end();
+        assertThat(offsetAtt.endOffset(), equalTo(text.length()));
+        tokenizer.close();
+        return tokens;
+    }
+
+    /**
+     * Returns the term and the start and end offsets of every token of {@code text}.
+     */
+    private static List<String> termsAndOffsets(Tokenizer tokenizer, String text) throws Exception {
+        CharTermAttribute termAtt = tokenizer.addAttribute(CharTermAttribute.class);
+        OffsetAttribute offsetAtt = tokenizer.addAttribute(OffsetAttribute.class);
+        List<String> tokens = new ArrayList<>();
+        tokenizer.setReader(new StringReader(text));
+        tokenizer.reset();
+        while (tokenizer.incrementToken()) {
+            tokens.add(termAtt + "/" + offsetAtt.startOffset() + "-" + offsetAtt.endOffset());
+        }
+        tokenizer.end();
+        tokenizer.close();
+        return tokens;
+    }
+
+    /**
+     * Returns the start and end offsets of every token of {@code text}.
+     */
+    private static List<String> offsets(Tokenizer tokenizer, String text) throws Exception {
+        OffsetAttribute offsetAtt = tokenizer.addAttribute(OffsetAttribute.class);
+        List<String> offsets = new ArrayList<>();
+        tokenizer.setReader(new StringReader(text));
+        tokenizer.reset();
+        while (tokenizer.incrementToken()) {
+            offsets.add(offsetAtt.startOffset() + "-" + offsetAtt.endOffset());
+        }
+        tokenizer.end();
+        tokenizer.close();
+        return offsets;
+    }
+
+    /**
+     * Returns the term, type and position increment of every token of {@code text}.
+     */
+    private static List<String> tokens(Tokenizer tokenizer, String text) throws Exception {
+        CharTermAttribute termAtt = tokenizer.addAttribute(CharTermAttribute.class);
+        TypeAttribute typeAtt = tokenizer.addAttribute(TypeAttribute.class);
+        PositionIncrementAttribute positionAtt = tokenizer.addAttribute(PositionIncrementAttribute.class);
+        List<String> tokens = new ArrayList<>();
+        tokenizer.setReader(new StringReader(text));
+        tokenizer.reset();
+        while (tokenizer.incrementToken()) {
+            tokens.add(termAtt + "/" + typeAtt.type() + "/" + positionAtt.getPositionIncrement());
+        }
+        tokenizer.end();
+        tokenizer.close();
+        return tokens;
+    }
+
+}
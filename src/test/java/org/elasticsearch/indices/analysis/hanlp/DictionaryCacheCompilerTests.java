@@ -0,0 +1,121 @@
+package org.elasticsearch.indices.analysis.hanlp;
+
+import org.apache.lucene.util.LuceneTestCase;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.elasticsearch.common.settings.Settings.settingsBuilder;
+import static org.elasticsearch.indices.analysis.hanlp.Settings.CORE_DICTIONARY_PATH;
+import static org.elasticsearch.indices.analysis.hanlp.Settings.CUSTOM_DICTIONARY_PATH;
+import static org.elasticsearch.indices.analysis.hanlp.Settings.PINYIN_DICTIONARY_PATH;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+// the compiler checksums every file of its output directories, extra files would end up in the manifest
+@LuceneTestCase.SuppressFileSystems("ExtrasFS")
+public class DictionaryCacheCompilerTests extends ESTestCase {
+
+    private Path sources;
+    private Path output;
+    private org.elasticsearch.common.settings.Settings settings;
+
+    @Before
+    public void setUpDictionaries() throws Exception {
+        sources = createTempDir();
+        output = createTempDir().resolve("compiled");
+        write(sources.resolve("core.txt"), "商品 n 2209\n");
+        write(Files.createDirectories(sources.resolve("a")).resolve("custom.txt"), "商品和服务 nz 1\n");
+        write(Files.createDirectories(sources.resolve("b")).resolve("custom.txt"), "北京大学工作\n");
+        settings = settingsBuilder()
+            .put(CORE_DICTIONARY_PATH, sources.resolve("core.txt"))
+            .putArray(CUSTOM_DICTIONARY_PATH, sources.resolve("a/custom.txt").toString(),
+                      sources.resolve("b/custom.txt") + " ns")
+            // only bundled with HanLP, left alone
+            .put(PINYIN_DICTIONARY_PATH, "data/dictionary/pinyin/pinyin.txt")
+            .build();
+    }
+
+    @Test
+    public void testCompile() throws Exception {
+        DictionaryManifest manifest = new DictionaryCacheCompiler(settings, output).compile(false);
+
+        assertThat(manifest.entries().size(), equalTo(2));
+        assertThat(manifest.entries(), hasKey(CORE_DICTIONARY_PATH));
+        DictionaryManifest.Entry custom = manifest.entries().get(CUSTOM_DICTIONARY_PATH);
+        assertThat(custom.compiled().get(0), equalTo("CustomDictionaryPath/custom.txt"));
+        assertThat(custom.compiled().get(1), equalTo("CustomDictionaryPath/1_custom.txt ns"));
+        assertThat(custom.checksums().size(), equalTo(4));
+
+        // the node loads the copies
+        DictionaryManifest read = DictionaryManifest.read(output.resolve(DictionaryManifest.FILE_NAME));
+        org.elasticsearch.common.settings.Settings compiled = read.verify(settings);
+        assertThat(compiled.get(CORE_DICTIONARY_PATH),
+                   equalTo(output.resolve("CoreDictionaryPath/core.txt").toString()));
+        assertThat(compiled.getAsArray(CUSTOM_DICTIONARY_PATH),
+                   arrayContaining(output.resolve("CustomDictionaryPath/custom.txt").toString(),
+                                   output.resolve("CustomDictionaryPath/1_custom.txt") + " ns"));
+        assertThat(compiled.get(PINYIN_DICTIONARY_PATH), nullValue());
+    }
+
+    @Test
+    public void testChangedSourceIsStale() throws Exception {
+        new DictionaryCacheCompiler(settings, output).compile(false);
+        write(sources.resolve("b/custom.txt"), "北京大学工作\n服务\n");
+
+        assertStale(settings, "[" + sources.resolve("b/custom.txt") + "] changed");
+    }
+
+    @Test
+    public void testChangedCacheIsStale() throws Exception {
+        new DictionaryCacheCompiler(settings, output).compile(false);
+        // as if HanLP had written a cache that got truncated
+        write(output.resolve("CoreDictionaryPath/core.txt.bin"), "");
+        DictionaryManifest manifest = new DictionaryCacheCompiler(settings, output).compile(false);
+        assertThat(manifest.entries().get(CORE_DICTIONARY_PATH).checksums().size(), equalTo(2));
+
+        Files.delete(output.resolve("CoreDictionaryPath/core.txt"));
+        assertStale(settings, "core.txt] is missing");
+    }
+
+    @Test
+    public void testChangedSettingsAreStale() throws Exception {
+        new DictionaryCacheCompiler(settings, output).compile(false);
+        write(sources.resolve("core2.txt"), "商品 n 1\n");
+
+        assertStale(settingsBuilder().put(settings).put(CORE_DICTIONARY_PATH, sources.resolve("core2.txt")).build(),
+                    "but was compiled from");
+
+        write(sources.resolve("synonyms.txt"), "Aa01A01= 人 士\n");
+        assertStale(settingsBuilder().put(settings)
+                        .put(Settings.CORE_SYNONYM_DICTIONARY_DICTIONARY_PATH, sources.resolve("synonyms.txt")).build(),
+                    "it is configured but wasn't compiled");
+    }
+
+    private void assertStale(org.elasticsearch.common.settings.Settings settings, String reason) throws Exception {
+        DictionaryManifest manifest = DictionaryManifest.read(output.resolve(DictionaryManifest.FILE_NAME));
+        try {
+            manifest.verify(settings);
+            fail("expected the compiled dictionaries to be stale");
+        } catch (ElasticsearchException e) {
+            assertThat(e.getMessage(), containsString("is stale"));
+            assertThat(e.getMessage(), containsString(reason));
+        }
+    }
+
+    private static void write(Path file, String content) throws Exception {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,122 @@
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.seg.Segment;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.action.hanlp.stats.NodeHanLpStats;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.transport.DummyTransportAddress;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+/**
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpAnalysisStatsTests extends ESTestCase {
+
+    @Test
+    public void testPercentilesAreBucketUpperBounds() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.percentile(50), equalTo(0L));
+
+        for (int i = 0; i < 98; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(5000));
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(9000));
+
+        assertThat(histogram.count(), equalTo(100L));
+        // 100 micros fall in the 64 - 127 bucket
+        assertThat(histogram.percentile(50), equalTo(127L));
+        assertThat(histogram.percentile(99), equalTo(8191L));
+        // the last bucket is capped by the largest latency seen
+        assertThat(histogram.percentile(100), equalTo(9000L));
+        assertThat(histogram.max(), equalTo(9000L));
+    }
+
+    @Test
+    public void testMeteredSegmentRecordsDocuments() {
+        HanLpAnalysisMetric metric = new HanLpAnalysisMetric();
+        MeteredSegment segment = new MeteredSegment(SegmentConfig.DEFAULT.newSegment(), metric);
+
+        segment.seg("商品和服务");
+        segment.seg("商品 和服务".toCharArray());
+        segment.finish();
+        // nothing segmented since, nothing recorded
+        segment.finish();
+        segment.seg("商品和服务");
+        segment.clear();
+        segment.finish();
+
+        HanLpAnalysisStats stats = metric.stats();
+        assertThat(stats.getDocuments(), equalTo(1L));
+        assertThat(stats.getChars(), equalTo(11L));
+        assertThat(stats.getTokens(), equalTo(6L));
+        assertThat(stats.getMaxInMicros(), greaterThan(0L));
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        HanLpAnalysisStats stats = new HanLpAnalysisStats(3, 300, 120, 15, 2047, 8191, 9000, 2);
+        BytesStreamOutput out = new BytesStreamOutput();
+        stats.writeTo(out);
+        StreamInput in = StreamInput.wrap(out.bytes());
+        HanLpAnalysisStats read = HanLpAnalysisStats.readAnalysisStats(in);
+
+        assertThat(read.getDocuments(), equalTo(3L));
+        assertThat(read.getChars(), equalTo(300L));
+        assertThat(read.getTokens(), equalTo(120L));
+        assertThat(read.getTimeInMillis(), equalTo(15L));
+        assertThat(read.getP50InMicros(), equalTo(2047L));
+        assertThat(read.getP99InMicros(), equalTo(8191L));
+        assertThat(read.getMaxInMicros(), equalTo(9000L));
+        assertThat(read.getFallbacks(), equalTo(2L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCacheHitRatio() throws Exception {
+        assertThat(nodeStats(0, 0).getCacheHitRatio(), equalTo(0d));
+        NodeHanLpStats stats = nodeStats(3, 1);
+        assertThat(stats.getCacheHitRatio(), equalTo(0.75));
+
+        XContentBuilder builder = JsonXContent.contentBuilder().startObject();
+        stats.toXContent(builder, ToXContent.EMPTY_PARAMS);
+        builder.endObject();
+        Map<String, Object> map = XContentHelper.convertToMap(builder.bytes(), false).v2();
+        Map<String, Object> cache = (Map<String, Object>) map.get("segment_cache");
+        assertThat(cache.get("hits"), equalTo((Object) 3));
+        assertThat(cache.get("misses"), equalTo((Object) 1));
+        assertThat(cache.get("hit_ratio"), equalTo((Object) 0.75));
+    }
+
+    @Test
+    public void testDictionarySize() {
+        Segment segment = SegmentConfig.DEFAULT.newSegment();
+        segment.seg("商品和服务");
+        assertThat(HanLpDictionary.CORE.size(), greaterThan(0L));
+        assertThat(HanLpDictionary.BIGRAM.size(), equalTo(-1L));
+    }
+
+    private static NodeHanLpStats nodeStats(long cacheHits, long cacheMisses) {
+        return new NodeHanLpStats(new DiscoveryNode("node", DummyTransportAddress.INSTANCE, Version.CURRENT),
+                                  Collections.<String, HanLpAnalysisStats>emptyMap(),
+                                  Collections.<String, HanLpAnalysisStats>emptyMap(),
+                                  Collections.<HanLpDictionaryStats>emptyList(), 0, 0, 0, 0, 0, cacheHits,
+                                  cacheMisses, 0, 0, 0, new HanLpSegmentExecutorStats(1, 1, 0, 0, 0, 0, 0, 0, 0));
+    }
+
+}
@@ -0,0 +1,84 @@
+package org.elasticsearch.indices.analysis.hanlp;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.elasticsearch.index.analysis.HanLpAnalyzer;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.elasticsearch.common.settings.Settings.Builder.EMPTY_SETTINGS;
+import static org.elasticsearch.common.settings.Settings.settingsBuilder;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpAnalyzerRegistryTests extends ESTestCase {
+
+    @Test
+    public void testIdenticalConfigsShareAnalyzer() {
+        HanLpAnalyzerRegistry registry = newRegistry();
+
+        // explicitly setting a default value must not lead to a different analyzer
+        HanLpAnalyzer first = registry.acquire(SegmentConfig.parse(EMPTY_SETTINGS), "first");
+        HanLpAnalyzer second = registry.acquire(SegmentConfig.parse(settingsBuilder().put(Settings.NAME_RECOGNIZE, true).build()), "second");
+        HanLpAnalyzer indexMode = registry.acquire(SegmentConfig.parse(settingsBuilder().put(Settings.INDEX_MODE, true).build()), "index_mode");
+
+        assertThat(second, sameInstance(first));
+        assertThat(indexMode, not(sameInstance(first)));
+        assertThat(registry.size(), equalTo(2));
+        assertThat(registry.refCount(SegmentConfig.DEFAULT), equalTo(2));
+    }
+
+    @Test
+    public void testReleaseRemovesUnusedAnalyzer() {
+        HanLpAnalyzerRegistry registry = newRegistry();
+
+        HanLpAnalyzer first = registry.acquire(SegmentConfig.DEFAULT, "hanlp");
+        HanLpAnalyzer second = registry.acquire(SegmentConfig.DEFAULT, "hanlp");
+
+        registry.release(first, "hanlp");
+        assertThat(registry.size(), equalTo(1));
+        registry.release(second, "hanlp");
+        assertThat(registry.size(), equalTo(0));
+        assertThat(registry.acquire(SegmentConfig.DEFAULT, "hanlp"), not(sameInstance(first)));
+    }
+
+    @Test
+    public void testStatsKeyedBySharingNames() throws Exception {
+        HanLpAnalyzerRegistry registry = newRegistry();
+
+        HanLpAnalyzer analyzer = registry.acquire(SegmentConfig.DEFAULT, "second");
+        registry.acquire(SegmentConfig.DEFAULT, "first");
+        registry.acquire(SegmentConfig.DEFAULT, "first");
+        registry.acquire(SegmentConfig.parse(settingsBuilder().put(Settings.INDEX_MODE, true).build()), "index_mode");
+
+        try (TokenStream stream = analyzer.tokenStream("field", "商品和服务")) {
+            stream.reset();
+            while (stream.incrementToken()) {
+            }
+            stream.end();
+        }
+
+        Map<String, HanLpAnalysisStats> stats = registry.stats();
+        assertThat(stats.keySet(), contains("first,second", "index_mode"));
+        assertThat(stats.get("first,second").getDocuments(), equalTo(1L));
+        assertThat(stats.get("first,second").getChars(), equalTo(5L));
+        assertThat(stats.get("first,second").getTokens(), equalTo(3L));
+        assertThat(stats.get("index_mode").getDocuments(), equalTo(0L));
+
+        registry.release(analyzer, "second");
+        assertThat(registry.stats().keySet(), contains("first", "index_mode"));
+    }
+
+    private static HanLpAnalyzerRegistry newRegistry() {
+        return new HanLpAnalyzerRegistry(EMPTY_SETTINGS,
+                                         new HanLpSegmentPool(EMPTY_SETTINGS, new HanLpSegmentCache(EMPTY_SETTINGS),
+                                                              new HanLpSegmentExecutor(EMPTY_SETTINGS)));
+    }
+
+}
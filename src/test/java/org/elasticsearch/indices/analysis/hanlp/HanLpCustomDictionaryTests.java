@@ -0,0 +1,200 @@
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.HanLP;
+import com.hankcs.hanlp.collection.trie.DoubleArrayTrie;
+import com.hankcs.hanlp.collection.trie.bintrie.BinTrie;
+import com.hankcs.hanlp.corpus.tag.Nature;
+import com.hankcs.hanlp.dictionary.CoreDictionary;
+import com.hankcs.hanlp.dictionary.CustomDictionary;
+import com.hankcs.hanlp.seg.common.Term;
+
+import org.elasticsearch.env.Environment;
+import org.elasticsearch.indices.analysis.IndicesAnalysisService;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.watcher.ResourceWatcherService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.elasticsearch.common.settings.Settings.settingsBuilder;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpCustomDictionaryTests extends ESTestCase {
+
+    private static final String WORD = "咕噜咕噜鸟";
+    private static final String TEXT = "我看见了" + WORD;
+
+    private String[] path;
+    private DoubleArrayTrie<CoreDictionary.Attribute> dat;
+    private BinTrie<CoreDictionary.Attribute> trie;
+    private ThreadPool threadPool;
+
+    @Before
+    public void saveCustomDictionary() {
+        path = HanLP.Config.CustomDictionaryPath;
+        dat = CustomDictionary.dat;
+        trie = CustomDictionary.trie;
+        threadPool = new ThreadPool("test");
+    }
+
+    @After
+    public void restoreCustomDictionary() {
+        HanLP.Config.CustomDictionaryPath = path;
+        CustomDictionary.dat = dat;
+        CustomDictionary.trie = trie;
+        ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testReload() throws Exception {
+        Path file = createTempDir().resolve("custom.txt");
+        write(file, "王者荣耀 nz 100\n");
+        HanLpCustomDictionary customDictionary = newCustomDictionary(file);
+        customDictionary.start();
+
+        assertThat(customDictionary.reload(false).type(), equalTo(HanLpCustomDictionary.ReloadType.NONE));
+        assertThat(words(TEXT), not(hasItem(WORD)));
+
+        Files.write(file, (WORD + " nz 10\n").getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        HanLpCustomDictionary.ReloadResult result = customDictionary.reload(false);
+        assertThat(result.type(), equalTo(HanLpCustomDictionary.ReloadType.INCREMENTAL));
+        assertThat(result.words(), equalTo(1));
+        assertThat(words(TEXT), hasItem(WORD));
+        assertThat(customDictionary.incrementalReloadCount(), equalTo(1L));
+
+        write(file, "王者荣耀 nz 100\n");
+        result = customDictionary.reload(false);
+        assertThat(result.type(), equalTo(HanLpCustomDictionary.ReloadType.FULL));
+        assertThat(result.words(), equalTo(1));
+        assertThat(CustomDictionary.dat.exactMatchSearch(WORD), lessThan(0));
+        assertThat(CustomDictionary.trie.get(WORD), nullValue());
+        assertThat(words(TEXT), not(hasItem(WORD)));
+
+        assertThat(customDictionary.reload(true).type(), equalTo(HanLpCustomDictionary.ReloadType.FULL));
+        assertThat(customDictionary.fullReloadCount(), equalTo(2L));
+        customDictionary.close();
+    }
+
+    @Test
+    public void testReloadDeletesStaleCache() throws Exception {
+        Path file = createTempDir().resolve("custom.txt");
+        write(file, "王者荣耀 nz 100\n");
+        Path cache = file.resolveSibling("custom.txt.bin");
+        HanLpCustomDictionary customDictionary = newCustomDictionary(file);
+        customDictionary.start();
+
+        // HanLP would load the cache as it is on the next start, without the appended words
+        Files.write(cache, new byte[]{1, 2, 3});
+        Files.write(file, (WORD + " nz 10\n").getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        assertThat(customDictionary.reload(false).type(), equalTo(HanLpCustomDictionary.ReloadType.INCREMENTAL));
+        assertFalse(Files.exists(cache));
+
+        Files.write(cache, new byte[]{1, 2, 3});
+        write(file, "王者荣耀 nz 100\n");
+        assertThat(customDictionary.reload(false).type(), equalTo(HanLpCustomDictionary.ReloadType.FULL));
+        assertFalse(Files.exists(cache));
+        customDictionary.close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMissingFileIsNotReloadable() throws Exception {
+        HanLpCustomDictionary customDictionary = newCustomDictionary(createTempDir().resolve("missing.txt"));
+        assertFalse(customDictionary.reloadable());
+        customDictionary.reload(true);
+    }
+
+    @Test
+    public void testCompiledIsNotReloaded() throws Exception {
+        Path file = createTempDir().resolve("custom.txt");
+        write(file, "王者荣耀 nz 100\n");
+        HanLpCustomDictionary customDictionary = newCustomDictionary(file, "hanlp-compiled/manifest.json");
+        customDictionary.start();
+        try {
+            customDictionary.reload(false);
+            fail("reloaded compiled custom dictionaries");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), containsString("[hanlp-compiled/manifest.json]"));
+        }
+        customDictionary.close();
+    }
+
+    @Test
+    public void testParse() {
+        TreeMap<String, CoreDictionary.Attribute> words = new TreeMap<>();
+        byte[] content = "\uFEFF道具\n服装 n 1 vn 2\r\n\n".getBytes(StandardCharsets.UTF_8);
+        HanLpCustomDictionary.parse(content, 0, Nature.nz, words, new LinkedHashSet<Nature>());
+
+        assertThat(words.size(), equalTo(2));
+        assertThat(words.get("道具").nature[0], equalTo(Nature.nz));
+        assertThat(words.get("服装").nature.length, equalTo(2));
+        assertThat(words.get("服装").totalFrequency, equalTo(3));
+    }
+
+    private HanLpCustomDictionary newCustomDictionary(Path file) {
+        return newCustomDictionary(file, null);
+    }
+
+    /**
+     * @param manifest the manifest the dictionary is said to be compiled with, not verified
+     */
+    private HanLpCustomDictionary newCustomDictionary(Path file, String manifest) {
+        org.elasticsearch.common.settings.Settings settings = settingsBuilder()
+            .put("path.home", createTempDir())
+            .putArray(Settings.CUSTOM_DICTIONARY_PATH, file.toString())
+            .put(Settings.CUSTOM_DICTIONARY_WATCH, false)
+            .build();
+        HanLpSegmentCache segmentCache = new HanLpSegmentCache(settings);
+        HanLpSegmentMemo segmentMemo = new HanLpSegmentMemo(settings);
+        HanLpSegmentPool segmentPool = new HanLpSegmentPool(settings,
+                                                            new HanLpDictionaryLoader(settings,
+                                                                                      new NoneCircuitBreakerService()),
+                                                            segmentCache, segmentMemo,
+                                                            new HanLpSegmentExecutor(settings));
+        HanLpIndicesAnalysis indicesAnalysis = new HanLpIndicesAnalysis(settings, new Environment(settings),
+                                                                        new IndicesAnalysisService(settings),
+                                                                        segmentPool,
+                                                                        new HanLpAnalyzerRegistry(settings, segmentPool),
+                                                                        new HanLpAnalysisMetrics(settings),
+                                                                        new HanLpStopWords(settings),
+                                                                        new HanLpConversions(settings),
+                                                                        new HanLpSynonyms(settings, new Environment(settings)));
+        if (manifest != null) {
+            settings = settingsBuilder().put(settings).put(Settings.MANIFEST, manifest).build();
+        }
+        return new HanLpCustomDictionary(settings, threadPool, new ResourceWatcherService(settings, threadPool),
+                                         indicesAnalysis, segmentCache, segmentMemo);
+    }
+
+    private static void write(Path file, String content) throws Exception {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        for (Term term : HanLP.newSegment().seg(text)) {
+            words.add(term.word);
+        }
+        return words;
+    }
+
+}
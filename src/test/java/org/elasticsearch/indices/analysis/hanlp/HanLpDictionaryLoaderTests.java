@@ -0,0 +1,107 @@
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.HanLP;
+
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.node.settings.NodeSettingsService;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import java.util.EnumSet;
+
+import static org.elasticsearch.common.settings.Settings.EMPTY;
+import static org.elasticsearch.common.settings.Settings.settingsBuilder;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpDictionaryLoaderTests extends ESTestCase {
+
+    @Test
+    public void testLoadsOnlyRequiredDictionaries() {
+        HanLpDictionaryLoader loader = new HanLpDictionaryLoader(EMPTY, new NoneCircuitBreakerService());
+        SegmentConfig config = SegmentConfig.parse(settingsBuilder()
+                                                       .put(Settings.NAME_RECOGNIZE, false)
+                                                       .put(Settings.TRANSLATED_NAME_RECOGNIZE, false)
+                                                       .put(Settings.USE_CUSTOM_DICTIONARY, false)
+                                                       .build());
+        loader.load(config);
+
+        EnumSet<HanLpDictionary> loaded = EnumSet.noneOf(HanLpDictionary.class);
+        for (HanLpDictionaryLoader.Entry entry : loader.loaded()) {
+            assertThat(entry.getFailure(), nullValue());
+            assertThat(entry.getEstimatedSizeInBytes(), greaterThan(0L));
+            loaded.add(entry.getDictionary());
+        }
+        EnumSet<HanLpDictionary> expected = EnumSet.of(HanLpDictionary.CORE, HanLpDictionary.BIGRAM,
+                                                       HanLpDictionary.CHAR_TYPE);
+        if (HanLP.Config.Normalization) {
+            expected.add(HanLpDictionary.CHAR_TABLE);
+        }
+        assertThat(loaded, equalTo(expected));
+
+        // each one once
+        HanLpDictionaryLoader.Entry core = loader.load(HanLpDictionary.CORE);
+        loader.load(SegmentConfig.DEFAULT);
+        assertThat(loader.load(HanLpDictionary.CORE), sameInstance(core));
+    }
+
+    @Test
+    public void testEstimate() {
+        for (HanLpDictionary dictionary : HanLpDictionary.values()) {
+            assertThat(dictionary.getName(), HanLpDictionaryLoader.estimate(dictionary), greaterThan(0L));
+        }
+        // the binary caches rather than the text
+        assertThat(HanLpDictionaryLoader.estimate(HanLpDictionary.CORE), greaterThan(1024L * 1024));
+    }
+
+    @Test
+    public void testBreaker() {
+        CircuitBreakerService breakerService = new HierarchyCircuitBreakerService(EMPTY, new NodeSettingsService(EMPTY));
+        HanLpDictionaryLoader loader = new HanLpDictionaryLoader(settingsBuilder()
+                                                                     .put(Settings.BREAKER_LIMIT, "64kb")
+                                                                     .put(Settings.BREAKER_OVERHEAD, 1.0)
+                                                                     .build(), breakerService);
+        CircuitBreaker breaker = breakerService.getBreaker(HanLpDictionaryLoader.BREAKER);
+
+        HanLpDictionaryLoader.Entry charType = loader.load(HanLpDictionary.CHAR_TYPE);
+        assertThat(breaker.getUsed(), equalTo(charType.getEstimatedSizeInBytes()));
+        try {
+            loader.load(SegmentConfig.DEFAULT);
+            fail("expected the core dictionary to break");
+        } catch (CircuitBreakingException e) {
+            assertThat(e.getMessage(), containsString("hanlp dictionary [core]"));
+        }
+        assertThat(breaker.getUsed(), equalTo(charType.getEstimatedSizeInBytes()));
+        assertThat(loader.estimatedSizeInBytes(), equalTo(charType.getEstimatedSizeInBytes()));
+        assertThat(loader.loaded().size(), equalTo(1));
+    }
+
+    @Test
+    public void testPoolFailsOverLimit() {
+        CircuitBreakerService breakerService = new HierarchyCircuitBreakerService(EMPTY, new NodeSettingsService(EMPTY));
+        org.elasticsearch.common.settings.Settings settings = settingsBuilder()
+            .put(Settings.BREAKER_LIMIT, "1kb")
+            .build();
+        HanLpSegmentPool pool = new HanLpSegmentPool(settings, new HanLpDictionaryLoader(settings, breakerService),
+                                                     new HanLpSegmentCache(settings), new HanLpSegmentExecutor(settings));
+        try {
+            pool.acquire(SegmentConfig.DEFAULT);
+            fail("expected the dictionaries to break");
+        } catch (CircuitBreakingException e) {
+            assertThat(pool.missCount(), equalTo(1L));
+        }
+        pool.close();
+        assertThat(breakerService.getBreaker(HanLpDictionaryLoader.BREAKER).getUsed(), equalTo(0L));
+    }
+
+}
@@ -0,0 +1,130 @@
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.seg.common.Term;
+
+import org.elasticsearch.env.Environment;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.elasticsearch.common.settings.Settings.Builder.EMPTY_SETTINGS;
+import static org.elasticsearch.common.settings.Settings.settingsBuilder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpIndexDictionariesTests extends ESTestCase {
+
+    private HanLpSegmentExecutor executor;
+    private HanLpSegmentPool pool;
+    private HanLpIndexDictionaries dictionaries;
+
+    @Before
+    public void setUpDictionaries() throws Exception {
+        Path home = createTempDir();
+        Path config = Files.createDirectories(home.resolve("config"));
+        write(config.resolve("tenant_a.txt"), "商品和服务 nz 1\n");
+        write(Files.createDirectories(config.resolve("copy")).resolve("tenant_a.txt"), "商品和服务 nz 1\n");
+        write(config.resolve("tenant_b.txt"), "北京大学工作\n");
+        org.elasticsearch.common.settings.Settings settings = settingsBuilder().put("path.home", home).build();
+        executor = new HanLpSegmentExecutor(EMPTY_SETTINGS);
+        pool = new HanLpSegmentPool(EMPTY_SETTINGS, new HanLpSegmentCache(EMPTY_SETTINGS), executor);
+        dictionaries = new HanLpIndexDictionaries(settings, new Environment(settings), pool);
+    }
+
+    @After
+    public void closePool() {
+        pool.close();
+        executor.close();
+    }
+
+    @Test
+    public void testIdenticalFilesAreShared() {
+        HanLpIndexDictionary first = dictionaries.acquire("tenant_a.txt");
+        HanLpIndexDictionary copy = dictionaries.acquire("copy/tenant_a.txt");
+        HanLpIndexDictionary other = dictionaries.acquire("tenant_b.txt");
+
+        assertThat(copy, sameInstance(first));
+        assertThat(other, not(sameInstance(first)));
+        assertThat(dictionaries.size(), equalTo(2));
+        assertThat(dictionaries.refCount(first), equalTo(2));
+        // configs with the same dictionary share their segments
+        assertThat(SegmentConfig.DEFAULT.withCustomDictionary(copy),
+                   equalTo(SegmentConfig.DEFAULT.withCustomDictionary(first)));
+        assertThat(SegmentConfig.DEFAULT.withCustomDictionary(other),
+                   not(equalTo(SegmentConfig.DEFAULT.withCustomDictionary(first))));
+
+        dictionaries.release(first);
+        assertThat(dictionaries.refCount(first), equalTo(1));
+        dictionaries.release(copy);
+        dictionaries.release(other);
+        assertThat(dictionaries.size(), equalTo(0));
+        // a default nature is part of the content
+        assertThat(dictionaries.acquire("tenant_b.txt nz"), not(sameInstance(other)));
+    }
+
+    @Test
+    public void testWordsAreMerged() {
+        HanLpIndexDictionary tenantA = dictionaries.acquire("tenant_a.txt");
+        HanLpIndexDictionary tenantB = dictionaries.acquire("tenant_b.txt");
+        String text = "商品和服务，王小明在北京大学工作";
+
+        assertThat(words(pool.acquire(SegmentConfig.DEFAULT).seg(text)),
+                   equalTo("商品/n 和/c 服务/vn ，/w 王小明/nr 在/p 北京大学/nt 工作/vn"));
+        assertThat(words(pool.acquire(SegmentConfig.DEFAULT.withCustomDictionary(tenantA)).seg(text)),
+                   equalTo("商品和服务/nz ，/w 王小明/nr 在/p 北京大学/nt 工作/vn"));
+        assertThat(words(pool.acquire(SegmentConfig.DEFAULT.withCustomDictionary(tenantB)).seg(text)),
+                   equalTo("商品/n 和/c 服务/vn ，/w 王小明/nr 在/p 北京大学工作/n"));
+    }
+
+    @Test
+    public void testIndexModeOffsets() {
+        HanLpIndexDictionary tenantA = dictionaries.acquire("tenant_a.txt");
+        SegmentConfig config = SegmentConfig.parse(settingsBuilder().put(Settings.INDEX_MODE, true).build())
+                                            .withCustomDictionary(tenantA);
+        String text = "我购买了商品和服务";
+        List<Term> terms = pool.acquire(config).seg(text);
+        boolean merged = false;
+        for (Term term : terms) {
+            assertThat(text.substring(term.offset, term.offset + term.length()), equalTo(term.word));
+            merged |= term.word.equals("商品和服务");
+        }
+        assertTrue(merged);
+    }
+
+    @Test
+    public void testReleaseDropsSegments() {
+        HanLpIndexDictionary tenantA = dictionaries.acquire("tenant_a.txt");
+        pool.acquire(SegmentConfig.DEFAULT);
+        pool.acquire(SegmentConfig.DEFAULT.withCustomDictionary(tenantA));
+        assertThat(pool.configurationCount(), equalTo(2));
+
+        dictionaries.release(tenantA);
+        assertThat(pool.configurationCount(), equalTo(1));
+    }
+
+    private static String words(List<Term> terms) {
+        StringBuilder words = new StringBuilder();
+        for (Term term : terms) {
+            if (words.length() > 0) {
+                words.append(' ');
+            }
+            words.append(term.word).append('/').append(term.nature);
+        }
+        return words.toString();
+    }
+
+    private static void write(Path path, String content) throws Exception {
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,107 @@
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.HanLP;
+import com.hankcs.hanlp.seg.Segment;
+import com.hankcs.hanlp.seg.common.Term;
+
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.elasticsearch.common.settings.Settings.Builder.EMPTY_SETTINGS;
+import static org.elasticsearch.common.settings.Settings.settingsBuilder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpSegmentCacheTests extends ESTestCase {
+
+    @Test
+    public void testDisabledByDefault() {
+        HanLpSegmentCache cache = new HanLpSegmentCache(EMPTY_SETTINGS);
+        HanLpSegmentPool pool = new HanLpSegmentPool(EMPTY_SETTINGS, cache, new HanLpSegmentExecutor(EMPTY_SETTINGS));
+
+        assertFalse(cache.enabled());
+        assertThat(pool.acquire(SegmentConfig.DEFAULT), not(instanceOf(CachingSegment.class)));
+    }
+
+    @Test
+    public void testCachedSegmentation() {
+        org.elasticsearch.common.settings.Settings settings = settingsBuilder()
+            .put(Settings.SEGMENT_CACHE_SIZE, "1mb")
+            .put(Settings.SEGMENT_CACHE_MAX_TEXT_LENGTH, 10)
+            .build();
+        HanLpSegmentCache cache = new HanLpSegmentCache(settings);
+        HanLpSegmentPool pool = new HanLpSegmentPool(settings, cache, new HanLpSegmentExecutor(settings));
+        Segment segment = pool.acquire(SegmentConfig.DEFAULT);
+
+        List<Term> first = segment.seg("我购买了道具和服装");
+        // callers are free to modify the returned terms
+        first.get(0).offset = 100;
+        List<Term> second = segment.seg("我购买了道具和服装");
+
+        assertThat(second.toString(), equalTo(first.toString()));
+        assertThat(second.get(0), not(sameInstance(first.get(0))));
+        assertThat(second.get(0).offset, equalTo(0));
+        assertThat(cache.hitCount(), equalTo(1L));
+        assertThat(cache.missCount(), equalTo(1L));
+        assertThat(cache.memorySizeInBytes(), greaterThan(0L));
+
+        // too long to be cached
+        segment.seg("我购买了道具和服装。商品和服务");
+        assertThat(cache.entryCount(), equalTo(1L));
+
+        cache.clear();
+        assertThat(cache.entryCount(), equalTo(0L));
+        assertThat(cache.memorySizeInBytes(), equalTo(0L));
+    }
+
+    @Test
+    public void testNormalizesInPlace() {
+        org.elasticsearch.common.settings.Settings settings = settingsBuilder()
+            .put(Settings.SEGMENT_CACHE_SIZE, "1mb")
+            .build();
+        HanLpSegmentCache cache = new HanLpSegmentCache(settings);
+        HanLpSegmentPool pool = new HanLpSegmentPool(settings, cache, new HanLpSegmentExecutor(settings));
+        boolean normalization = HanLP.Config.Normalization;
+        HanLP.Config.Normalization = true;
+        try {
+            Segment segment = pool.acquire(SegmentConfig.DEFAULT);
+            char[] expected = "ＨＥＬＬＯ，這個測試".toCharArray();
+            String terms = SegmentConfig.DEFAULT.newSegment().seg(expected).toString();
+
+            // on a miss and on a hit alike
+            for (int i = 0; i < 2; i++) {
+                char[] text = "ＨＥＬＬＯ，這個測試".toCharArray();
+                assertThat(segment.seg(text).toString(), equalTo(terms));
+                assertThat(new String(text), equalTo(new String(expected)));
+            }
+            assertThat(cache.hitCount(), equalTo(1L));
+        } finally {
+            HanLP.Config.Normalization = normalization;
+        }
+    }
+
+    @Test
+    public void testEviction() {
+        org.elasticsearch.common.settings.Settings settings = settingsBuilder()
+            .put(Settings.SEGMENT_CACHE_SIZE, "1kb")
+            .build();
+        HanLpSegmentCache cache = new HanLpSegmentCache(settings);
+        HanLpSegmentPool pool = new HanLpSegmentPool(settings, cache, new HanLpSegmentExecutor(settings));
+        Segment segment = pool.acquire(SegmentConfig.DEFAULT);
+
+        for (int i = 0; i < 100; i++) {
+            segment.seg("商品和服务" + i);
+        }
+
+        assertThat(cache.evictionCount(), greaterThan(0L));
+    }
+
+}
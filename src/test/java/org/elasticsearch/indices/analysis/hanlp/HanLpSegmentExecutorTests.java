@@ -0,0 +1,200 @@
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.HanLP;
+import com.hankcs.hanlp.seg.Segment;
+import com.hankcs.hanlp.seg.common.Term;
+
+import org.elasticsearch.test.ESTestCase;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.elasticsearch.common.settings.Settings.Builder.EMPTY_SETTINGS;
+import static org.elasticsearch.common.settings.Settings.settingsBuilder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpSegmentExecutorTests extends ESTestCase {
+
+    private static final String SENTENCES = "商品和服务。我购买了道具和服装！王小明在北京大学工作；\r\n";
+
+    private HanLpSegmentExecutor executor;
+
+    @After
+    public void closeExecutor() {
+        if (executor != null) {
+            executor.close();
+        }
+    }
+
+    @Test
+    public void testShortTextOnCallingThread() {
+        executor = new HanLpSegmentExecutor(EMPTY_SETTINGS);
+        SegmentConfig config = config(4, false);
+
+        List<Term> terms = executor.seg(config.newSegment(), config, SENTENCES.toCharArray());
+        assertThat(terms.toString(), equalTo(config.newSegment().seg(SENTENCES).toString()));
+        assertThat(executor.stats().getDocuments(), equalTo(0L));
+    }
+
+    @Test
+    public void testParallelSegmentation() {
+        executor = newExecutor(2, 1000);
+        String text = text(50);
+        for (boolean indexMode : new boolean[]{false, true}) {
+            SegmentConfig config = config(4, indexMode);
+            List<Term> terms = executor.seg(config.newSegment(), config, text.toCharArray());
+            assertThat(terms.toString(), equalTo(config.newSegment().seg(text).toString()));
+            if (indexMode) {
+                // the offsets of each batch are shifted to the whole text
+                for (Term term : terms) {
+                    assertThat(text.substring(term.offset, term.offset + term.length()), equalTo(term.word));
+                }
+            }
+        }
+        HanLpSegmentExecutorStats stats = executor.stats();
+        assertThat(stats.getDocuments(), equalTo(2L));
+        assertThat(stats.getBatches(), equalTo(8L));
+        assertThat(stats.getForked() + stats.getRejected(), lessThanOrEqualTo(6L));
+    }
+
+    @Test
+    public void testParallelNormalization() {
+        executor = newExecutor(2, 1000);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            builder.append("ＨＥＬＬＯ，這個測試。我購買了道具和服裝！");
+        }
+        String text = builder.toString();
+        SegmentConfig config = config(4, false);
+
+        boolean normalization = HanLP.Config.Normalization;
+        HanLP.Config.Normalization = true;
+        try {
+            char[] parallel = text.toCharArray();
+            List<Term> terms = executor.seg(config.newSegment(), config, parallel);
+            char[] serial = text.toCharArray();
+            assertThat(terms.toString(), equalTo(config.newSegment().seg(serial).toString()));
+            // every batch is normalized in place, like the whole text is by a single segment
+            assertThat(new String(parallel), equalTo(new String(serial)));
+            assertThat(new String(parallel), not(equalTo(text)));
+            assertThat(executor.stats().getBatches(), equalTo(4L));
+        } finally {
+            HanLP.Config.Normalization = normalization;
+        }
+    }
+
+    @Test
+    public void testSaturatedExecutor() {
+        executor = newExecutor(1, 1);
+        String text = text(200);
+        SegmentConfig config = config(16, true);
+        List<Term> terms = executor.seg(config.newSegment(), config, text.toCharArray());
+        assertThat(terms.toString(), equalTo(config.newSegment().seg(text).toString()));
+        assertThat(executor.stats().getBatches(), equalTo(16L));
+    }
+
+    @Test
+    public void testSplit() {
+        char[] text = text(4).toCharArray();
+        int[] ends = HanLpSegmentExecutor.split(text, 4);
+        assertThat(ends.length, equalTo(4));
+        assertThat(ends[ends.length - 1], equalTo(text.length));
+        for (int i = 0; i < ends.length - 1; i++) {
+            assertTrue(TextBoundaries.isSentenceDelimiter(text[ends[i] - 1]));
+            assertFalse(TextBoundaries.isSentenceDelimiter(text[ends[i]]));
+        }
+        // a single sentence is not cut
+        assertThat(HanLpSegmentExecutor.split("商品和服务商品和服务".toCharArray(), 4).length, equalTo(1));
+    }
+
+    @Test
+    public void testForEach() {
+        executor = newExecutor(2, 1);
+        final AtomicIntegerArray calls = new AtomicIntegerArray(1000);
+        executor.forEach(calls.length(), new HanLpSegmentExecutor.IndexConsumer() {
+            @Override
+            public void accept(int index) {
+                calls.incrementAndGet(index);
+            }
+        });
+        for (int i = 0; i < calls.length(); i++) {
+            assertThat(calls.get(i), equalTo(1));
+        }
+        assertThat(executor.stats().getForked(), lessThanOrEqualTo((long) calls.length()));
+    }
+
+    @Test
+    public void testForEachFailure() {
+        executor = newExecutor(2, 1);
+        final IllegalStateException failure = new IllegalStateException("failed");
+        final AtomicIntegerArray calls = new AtomicIntegerArray(1000);
+        try {
+            executor.forEach(calls.length(), new HanLpSegmentExecutor.IndexConsumer() {
+                @Override
+                public void accept(int index) {
+                    calls.incrementAndGet(index);
+                    if (index == 10) {
+                        throw failure;
+                    }
+                }
+            });
+            fail("expected the failure of index 10");
+        } catch (IllegalStateException e) {
+            assertThat(e, sameInstance(failure));
+        }
+        for (int i = 0; i < calls.length(); i++) {
+            assertThat(calls.get(i), lessThanOrEqualTo(1));
+        }
+    }
+
+    @Test
+    public void testPoolWrapsMultithreadedConfigs() {
+        executor = new HanLpSegmentExecutor(EMPTY_SETTINGS);
+        // without the memo, which would wrap the parallel segment
+        org.elasticsearch.common.settings.Settings settings = settingsBuilder()
+            .put(Settings.SEGMENT_MEMO_MAX_CHARS, 0)
+            .build();
+        HanLpSegmentPool pool = new HanLpSegmentPool(settings, new HanLpSegmentCache(settings), executor);
+
+        Segment segment = pool.acquire(config(4, false));
+        assertThat(segment, instanceOf(ParallelSegment.class));
+        assertThat(pool.acquire(SegmentConfig.DEFAULT), not(instanceOf(ParallelSegment.class)));
+        assertThat(segment.seg(SENTENCES).toString(), equalTo(SegmentConfig.DEFAULT.newSegment().seg(SENTENCES)
+                                                                                       .toString()));
+        pool.close();
+    }
+
+    private static HanLpSegmentExecutor newExecutor(int size, int queueSize) {
+        return new HanLpSegmentExecutor(settingsBuilder()
+                                            .put(Settings.SEGMENT_EXECUTOR_SIZE, size)
+                                            .put(Settings.SEGMENT_EXECUTOR_QUEUE_SIZE, queueSize)
+                                            .put(Settings.SEGMENT_EXECUTOR_MIN_TEXT_LENGTH, 100)
+                                            .build());
+    }
+
+    private static SegmentConfig config(int threads, boolean indexMode) {
+        SegmentConfig defaults = SegmentConfig.DEFAULT;
+        return new SegmentConfig(indexMode, defaults.nameRecognize(), defaults.translatedNameRecognize(),
+                                 defaults.japaneseNameRecognize(), defaults.placeRecognize(),
+                                 defaults.organizationRecognize(), defaults.useCustomDictionary(),
+                                 defaults.speechTagging(), defaults.numberQuantifierRecognize(), threads);
+    }
+
+    private static String text(int sentences) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < sentences; i++) {
+            text.append(SENTENCES);
+        }
+        return text.toString();
+    }
+
+}
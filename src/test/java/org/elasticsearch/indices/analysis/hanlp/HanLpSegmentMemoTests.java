@@ -0,0 +1,184 @@
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.HanLP;
+import com.hankcs.hanlp.seg.Segment;
+import com.hankcs.hanlp.seg.common.Term;
+
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.elasticsearch.index.analysis.HanLpTokenizer;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.elasticsearch.common.settings.Settings.Builder.EMPTY_SETTINGS;
+import static org.elasticsearch.common.settings.Settings.settingsBuilder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpSegmentMemoTests extends ESTestCase {
+
+    private static final String TEXT = "商品和服务，我购买了道具和服装。\n王小明在北京大学工作！\n\n攻城狮 hello world 3000元";
+
+    private static final org.elasticsearch.common.settings.Settings MEMO = settingsBuilder()
+        .put(Settings.SEGMENT_MEMO_MAX_CHARS, 16384)
+        .build();
+
+    private HanLpSegmentPool pool;
+
+    @After
+    public void closePool() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        HanLpSegmentMemo memo = new HanLpSegmentMemo(EMPTY_SETTINGS);
+        pool = newPool(EMPTY_SETTINGS, memo);
+
+        assertFalse(memo.enabled());
+        assertThat(pool.acquire(SegmentConfig.DEFAULT), not(instanceOf(MemoizingSegment.class)));
+    }
+
+    @Test
+    public void testReplayedSegmentation() {
+        HanLpSegmentMemo memo = new HanLpSegmentMemo(MEMO);
+        pool = newPool(MEMO, memo);
+        Segment segment = pool.acquire(SegmentConfig.DEFAULT);
+        assertThat(segment, instanceOf(MemoizingSegment.class));
+
+        List<Term> first = segment.seg("我购买了道具和服装".toCharArray());
+        List<Term> second = segment.seg("我购买了道具和服装".toCharArray());
+
+        // replayed as is, not copied
+        assertThat(second, sameInstance(first));
+        assertThat(memo.hitCount(), equalTo(1L));
+        assertThat(memo.missCount(), equalTo(1L));
+
+        // another config segments again
+        SegmentConfig indexMode = SegmentConfig.parse(settingsBuilder().put(Settings.INDEX_MODE, true).build());
+        pool.acquire(indexMode).seg("我购买了道具和服装");
+        assertThat(memo.missCount(), equalTo(2L));
+
+        // and so does another thread
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                pool.acquire(SegmentConfig.DEFAULT).seg("我购买了道具和服装");
+            }
+        };
+        thread.start();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+        assertThat(memo.missCount(), equalTo(3L));
+
+        memo.clear();
+        segment.seg("我购买了道具和服装");
+        assertThat(memo.hitCount(), equalTo(1L));
+        assertThat(memo.missCount(), equalTo(4L));
+    }
+
+    @Test
+    public void testFieldsShareSegmentation() throws Exception {
+        HanLpSegmentMemo memo = new HanLpSegmentMemo(MEMO);
+        pool = newPool(MEMO, memo);
+        SegmentConfig config = SegmentConfig.DEFAULT;
+
+        // a field and its multi-field, each with its own tokenizer
+        List<String> field = tokens(new HanLpTokenizer(pool.acquire(config), config, false), TEXT);
+        assertThat(memo.hitCount(), equalTo(0L));
+        List<String> multiField = tokens(new HanLpTokenizer(pool.acquire(config), config, false), TEXT);
+
+        assertThat(multiField, equalTo(field));
+        assertThat(multiField, equalTo(tokens(new HanLpTokenizer(config.newSegment(), config, false), TEXT)));
+        // one per non empty line
+        assertThat(memo.hitCount(), equalTo(3L));
+        assertThat(memo.missCount(), equalTo(3L));
+    }
+
+    @Test
+    public void testReplayedNormalization() {
+        boolean normalization = HanLP.Config.Normalization;
+        HanLP.Config.Normalization = true;
+        try {
+            pool = newPool(MEMO, new HanLpSegmentMemo(MEMO));
+            Segment segment = pool.acquire(SegmentConfig.DEFAULT);
+
+            char[] first = "ＨａｎＬＰ分詞很好用".toCharArray();
+            List<Term> terms = segment.seg(first);
+            assertThat(new String(first), not(equalTo("ＨａｎＬＰ分詞很好用")));
+
+            // normalized in place like the segment did
+            char[] second = "ＨａｎＬＰ分詞很好用".toCharArray();
+            assertThat(segment.seg(second).toString(), equalTo(terms.toString()));
+            assertThat(new String(second), equalTo(new String(first)));
+        } finally {
+            HanLP.Config.Normalization = normalization;
+        }
+    }
+
+    @Test
+    public void testMaxChars() {
+        org.elasticsearch.common.settings.Settings settings = settingsBuilder()
+            .put(Settings.SEGMENT_MEMO_MAX_CHARS, 20)
+            .build();
+        HanLpSegmentMemo memo = new HanLpSegmentMemo(settings);
+        pool = newPool(settings, memo);
+        Segment segment = pool.acquire(SegmentConfig.DEFAULT);
+
+        segment.seg("商品和服务商品和服务");
+        segment.seg("我购买了道具和服装我购买了道具");
+        // over the limit, the least recently used text was dropped
+        segment.seg("我购买了道具和服装我购买了道具");
+        segment.seg("商品和服务商品和服务");
+        assertThat(memo.hitCount(), equalTo(1L));
+        assertThat(memo.missCount(), equalTo(3L));
+
+        // never remembered
+        String text = "商品和服务，我购买了道具和服装。王小明在北京大学工作";
+        segment.seg(text);
+        segment.seg(text);
+        assertThat(memo.hitCount(), equalTo(1L));
+        assertThat(memo.missCount(), equalTo(3L));
+    }
+
+    private static HanLpSegmentPool newPool(org.elasticsearch.common.settings.Settings settings,
+                                            HanLpSegmentMemo memo) {
+        return new HanLpSegmentPool(settings, new HanLpDictionaryLoader(settings, new NoneCircuitBreakerService()),
+                                    new HanLpSegmentCache(settings), memo, new HanLpSegmentExecutor(settings));
+    }
+
+    /**
+     * Returns the terms and offsets of every token of {@code text}.
+     */
+    private static List<String> tokens(Tokenizer tokenizer, String text) throws Exception {
+        CharTermAttribute termAtt = tokenizer.addAttribute(CharTermAttribute.class);
+        OffsetAttribute offsetAtt = tokenizer.addAttribute(OffsetAttribute.class);
+        List<String> tokens = new ArrayList<>();
+        tokenizer.setReader(new StringReader(text));
+        tokenizer.reset();
+        while (tokenizer.incrementToken()) {
+            tokens.add(termAtt + "/" + offsetAtt.startOffset() + "-" + offsetAtt.endOffset());
+        }
+        tokenizer.end();
+        tokenizer.close();
+        return tokens;
+    }
+
+}
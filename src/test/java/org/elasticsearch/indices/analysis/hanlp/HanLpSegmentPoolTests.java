@@ -0,0 +1,106 @@
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.seg.Segment;
+
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.elasticsearch.common.settings.Settings.settingsBuilder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpSegmentPoolTests extends ESTestCase {
+
+    @Test
+    public void testThreadPoolReusesSegment() {
+        HanLpSegmentPool pool = newPool(settingsBuilder().build());
+        SegmentConfig config = SegmentConfig.DEFAULT;
+
+        Segment first = pool.acquire(config);
+        Segment second = pool.acquire(config);
+
+        assertThat(second, sameInstance(first));
+        assertThat(pool.missCount(), equalTo(1L));
+        assertThat(pool.hitCount(), equalTo(1L));
+        pool.close();
+    }
+
+    @Test
+    public void testSegmentsAreKeyedByConfig() {
+        HanLpSegmentPool pool = newPool(settingsBuilder().build());
+        SegmentConfig indexMode = SegmentConfig.parse(settingsBuilder().put(Settings.INDEX_MODE, true).build());
+
+        assertThat(pool.acquire(indexMode), not(sameInstance(pool.acquire(SegmentConfig.DEFAULT))));
+        assertThat(pool.acquire(indexMode), sameInstance(pool.acquire(indexMode)));
+        assertThat(pool.configurationCount(), equalTo(2));
+        pool.close();
+    }
+
+    @Test
+    public void testSharedPoolIsBounded() {
+        HanLpSegmentPool pool = newPool(settingsBuilder()
+                                            .put(Settings.SEGMENT_POOL_TYPE, "shared")
+                                            .put(Settings.SEGMENT_POOL_SIZE, 2)
+                                            .build());
+        for (int i = 0; i < 10; i++) {
+            pool.acquire(SegmentConfig.DEFAULT);
+        }
+
+        assertThat(pool.missCount(), equalTo(2L));
+        assertThat(pool.hitCount(), equalTo(8L));
+        pool.close();
+    }
+
+    @Test
+    public void testSharedPoolCountsInstalledSegments() throws Exception {
+        final HanLpSegmentPool pool = newPool(settingsBuilder()
+                                                  .put(Settings.SEGMENT_POOL_TYPE, "shared")
+                                                  .put(Settings.SEGMENT_POOL_SIZE, 1)
+                                                  .build());
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        throw new AssertionError(e);
+                    }
+                    pool.acquire(SegmentConfig.DEFAULT);
+                }
+            };
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // the threads racing to fill the slot are served by the one segment installed
+        assertThat(pool.missCount(), equalTo(1L));
+        assertThat(pool.hitCount(), equalTo(7L));
+        pool.close();
+    }
+
+    @Test
+    public void testNoPool() {
+        HanLpSegmentPool pool = newPool(settingsBuilder().put(Settings.SEGMENT_POOL_TYPE, "none").build());
+
+        assertThat(pool.acquire(SegmentConfig.DEFAULT), not(sameInstance(pool.acquire(SegmentConfig.DEFAULT))));
+        assertThat(pool.hitCount(), equalTo(0L));
+        pool.close();
+    }
+
+    private static HanLpSegmentPool newPool(org.elasticsearch.common.settings.Settings settings) {
+        return new HanLpSegmentPool(settings, new HanLpSegmentCache(settings), new HanLpSegmentExecutor(settings));
+    }
+
+}
@@ -0,0 +1,74 @@
+package org.elasticsearch.indices.analysis.hanlp;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.core.StopFilter;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.util.CharArraySet;
+import org.elasticsearch.index.analysis.HanLpTokenizer;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.elasticsearch.common.settings.Settings.settingsBuilder;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpStopWordsTests extends ESTestCase {
+
+    @Test
+    public void testDefaultStopWords() {
+        HanLpStopWords stopWords = new HanLpStopWords(settingsBuilder().build());
+
+        CharArraySet set = stopWords.defaultStopWords(false);
+        assertThat(set.size(), greaterThan(1000));
+        assertTrue(set.contains("的"));
+        assertTrue(set.contains("about"));
+        assertFalse(set.contains("About"));
+        assertTrue(stopWords.defaultStopWords(true).contains("About"));
+    }
+
+    @Test
+    public void testSetsAreShared() {
+        HanLpStopWords stopWords = new HanLpStopWords(settingsBuilder().build());
+
+        CharArraySet set = stopWords.stopWords(Arrays.asList("的", "了"), false);
+        assertThat(stopWords.stopWords(Arrays.asList("了", "的", "了"), false), sameInstance(set));
+        assertThat(stopWords.stopWords(Arrays.asList("的", "了"), true), not(sameInstance(set)));
+        assertThat(stopWords.stopWords(Arrays.asList(HanLpStopWords.DEFAULT), false),
+                   sameInstance(stopWords.defaultStopWords(false)));
+        assertThat(stopWords.size(), equalTo(3));
+
+        CharArraySet extended = stopWords.stopWords(Arrays.asList(HanLpStopWords.DEFAULT, "服装"), false);
+        assertThat(extended.size(), equalTo(stopWords.defaultWords().size() + 1));
+    }
+
+    @Test
+    public void testFilter() throws Exception {
+        HanLpStopWords stopWords = new HanLpStopWords(settingsBuilder().build());
+        HanLpTokenizer tokenizer = new HanLpTokenizer(SegmentConfig.DEFAULT.newSegment(), SegmentConfig.DEFAULT, false);
+        TokenStream stream = new StopFilter(tokenizer, stopWords.stopWords(Arrays.asList("了", "和", "。"), false));
+        CharTermAttribute termAtt = stream.addAttribute(CharTermAttribute.class);
+
+        List<String> tokens = new ArrayList<>();
+        tokenizer.setReader(new StringReader("我购买了道具和服装。"));
+        stream.reset();
+        while (stream.incrementToken()) {
+            tokens.add(termAtt.toString());
+        }
+        stream.end();
+        stream.close();
+
+        assertThat(tokens, contains("我", "购买", "道具", "服装"));
+    }
+
+}
@@ -0,0 +1,123 @@
+package org.elasticsearch.indices.analysis.hanlp;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.apache.lucene.analysis.synonym.SynonymFilter;
+import org.apache.lucene.analysis.synonym.SynonymMap;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.elasticsearch.env.Environment;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.elasticsearch.common.settings.Settings.settingsBuilder;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpSynonymsTests extends ESTestCase {
+
+    private Path config;
+    private HanLpSynonyms synonyms;
+
+    @Before
+    public void setUpSynonyms() throws Exception {
+        Path home = createTempDir();
+        config = Files.createDirectories(home.resolve("config"));
+        Files.write(config.resolve("synonyms.txt"),
+                    "番茄, 西红柿\n土豆 => 马铃薯\n".getBytes(StandardCharsets.UTF_8));
+        org.elasticsearch.common.settings.Settings settings = settingsBuilder().put("path.home", home).build();
+        synonyms = new HanLpSynonyms(settings, new Environment(settings));
+    }
+
+    @Test
+    public void testCoreSynonyms() throws Exception {
+        SynonymMap map = synonyms.acquire(true, null, true);
+        // Aa01A02= 人类 生人 全人类
+        assertThat(tokens(new SynonymFilter(whitespace("全人类 hello"), map, false)),
+                   contains("全人类/1", "人类/0", "生人/0", "hello/1"));
+    }
+
+    @Test
+    public void testCoreSynonymsWithoutExpand() throws Exception {
+        SynonymMap map = synonyms.acquire(true, null, false);
+        // Aa01A02= 人类 生人 全人类
+        assertThat(tokens(new SynonymFilter(whitespace("全人类 hello"), map, false)), contains("人类/1", "hello/1"));
+    }
+
+    @Test
+    public void testCustomSynonyms() throws Exception {
+        SynonymMap map = synonyms.acquire(false, "synonyms.txt", true);
+        assertThat(tokens(new SynonymFilter(whitespace("番茄 土豆 人类"), map, false)),
+                   contains("番茄/1", "西红柿/0", "马铃薯/1", "人类/1"));
+
+        map = synonyms.acquire(true, "synonyms.txt", true);
+        assertThat(tokens(new SynonymFilter(whitespace("番茄 全人类"), map, false)),
+                   contains("番茄/1", "西红柿/0", "全人类/1", "人类/0", "生人/0"));
+    }
+
+    @Test
+    public void testMapsAreShared() {
+        SynonymMap map = synonyms.acquire(false, "synonyms.txt", false);
+        assertThat(synonyms.acquire(false, "synonyms.txt", false), sameInstance(map));
+        assertThat(synonyms.size(), equalTo(1));
+    }
+
+    @Test
+    public void testEditedFileIsCompiledAgain() throws Exception {
+        SynonymMap map = synonyms.acquire(false, "synonyms.txt", true);
+        Files.write(config.resolve("synonyms.txt"), "番茄, 洋柿子\n".getBytes(StandardCharsets.UTF_8));
+        SynonymMap edited = synonyms.acquire(false, "synonyms.txt", true);
+        assertThat(edited, not(sameInstance(map)));
+        assertThat(tokens(new SynonymFilter(whitespace("番茄"), edited, false)), contains("番茄/1", "洋柿子/0"));
+        assertThat(synonyms.size(), equalTo(2));
+
+        // same content, other path
+        Files.write(config.resolve("copy.txt"), "番茄, 洋柿子\n".getBytes(StandardCharsets.UTF_8));
+        assertThat(synonyms.acquire(false, "copy.txt", true), sameInstance(edited));
+    }
+
+    @Test
+    public void testReleasedMapsAreDropped() {
+        SynonymMap map = synonyms.acquire(false, "synonyms.txt", true);
+        assertThat(synonyms.acquire(false, "synonyms.txt", true), sameInstance(map));
+        synonyms.release(map);
+        assertThat(synonyms.size(), equalTo(1));
+        synonyms.release(map);
+        assertThat(synonyms.size(), equalTo(0));
+        assertThat(synonyms.acquire(false, "synonyms.txt", true), not(sameInstance(map)));
+    }
+
+    private static Tokenizer whitespace(String text) {
+        Tokenizer tokenizer = new WhitespaceTokenizer();
+        tokenizer.setReader(new StringReader(text));
+        return tokenizer;
+    }
+
+    private static List<String> tokens(TokenStream stream) throws Exception {
+        CharTermAttribute termAtt = stream.addAttribute(CharTermAttribute.class);
+        PositionIncrementAttribute positionAtt = stream.addAttribute(PositionIncrementAttribute.class);
+        List<String> tokens = new ArrayList<>();
+        stream.reset();
+        while (stream.incrementToken()) {
+            tokens.add(termAtt + "/" + positionAtt.getPositionIncrement());
+        }
+        stream.end();
+        stream.close();
+        return tokens;
+    }
+
+}
@@ -0,0 +1,112 @@
+package org.elasticsearch.indices.analysis.hanlp;
+
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.env.Environment;
+import org.elasticsearch.indices.analysis.IndicesAnalysisService;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.elasticsearch.common.settings.Settings.settingsBuilder;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class HanLpWarmerTests extends ESTestCase {
+
+    @Test
+    public void testRequiredDictionaries() {
+        assertThat(HanLpDictionary.required(SegmentConfig.parse(settingsBuilder()
+                                                                    .put(Settings.NAME_RECOGNIZE, false)
+                                                                    .put(Settings.TRANSLATED_NAME_RECOGNIZE, false)
+                                                                    .put(Settings.USE_CUSTOM_DICTIONARY, false)
+                                                                    .build())),
+                   containsInAnyOrder(HanLpDictionary.CORE, HanLpDictionary.BIGRAM, HanLpDictionary.CHAR_TYPE));
+        assertThat(HanLpDictionary.required(SegmentConfig.parse(settingsBuilder()
+                                                                    .put(Settings.PLACE_RECOGNIZE, true)
+                                                                    .build())),
+                   hasItems(HanLpDictionary.TRANSFORM_MATRIX, HanLpDictionary.PERSON, HanLpDictionary.PLACE,
+                            HanLpDictionary.CUSTOM));
+    }
+
+    @Test
+    public void testWarmUp() throws Exception {
+        HanLpWarmer warmer = newWarmer(settingsBuilder().putArray(Settings.WARMUP_DICTIONARIES, "organization"));
+        assertThat(warmer.dictionaries(), hasItems(HanLpDictionary.CORE, HanLpDictionary.ORGANIZATION));
+
+        warmer.start();
+        assertTrue(warmer.awaitReady(TimeValue.timeValueMinutes(1)));
+        assertTrue(warmer.stats().isReady());
+
+        List<String> names = new ArrayList<>();
+        for (HanLpWarmupStats.Entry entry : warmer.stats().getEntries()) {
+            assertThat(entry.getFailure(), nullValue());
+            names.add(entry.getName());
+        }
+        assertThat(names.size(), equalTo(warmer.dictionaries().size()));
+        assertThat(names, hasItems("core", "bigram", "organization"));
+
+        List<HanLpDictionaryStats> dictionaries = warmer.dictionaryStats();
+        assertThat(dictionaries.size(), equalTo(names.size()));
+        for (HanLpDictionaryStats dictionary : dictionaries) {
+            if (dictionary.getName().equals("core") || dictionary.getName().equals("organization")) {
+                assertThat(dictionary.getEntries(), greaterThan(0L));
+            } else if (dictionary.getName().equals("bigram")) {
+                assertThat(dictionary.getEntries(), equalTo(-1L));
+            }
+        }
+        warmer.close();
+    }
+
+    @Test
+    public void testWaitBlocksStart() throws Exception {
+        HanLpWarmer warmer = newWarmer(settingsBuilder().put(Settings.WARMUP_WAIT, true));
+        warmer.start();
+        assertTrue(warmer.ready());
+        assertThat(warmer.stats().getEntries(), not(empty()));
+        warmer.close();
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        HanLpWarmer warmer = newWarmer(settingsBuilder().put(Settings.WARMUP_ENABLED, false));
+        assertFalse(warmer.ready());
+        warmer.start();
+        assertTrue(warmer.ready());
+        assertFalse(warmer.stats().isEnabled());
+        assertThat(warmer.stats().getEntries(), empty());
+        warmer.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownDictionary() {
+        newWarmer(settingsBuilder().putArray(Settings.WARMUP_DICTIONARIES, "unknown"));
+    }
+
+    private HanLpWarmer newWarmer(org.elasticsearch.common.settings.Settings.Builder builder) {
+        org.elasticsearch.common.settings.Settings settings = builder.put("path.home", createTempDir()).build();
+        HanLpDictionaryLoader dictionaryLoader = new HanLpDictionaryLoader(settings, new NoneCircuitBreakerService());
+        HanLpSegmentPool segmentPool = new HanLpSegmentPool(settings, dictionaryLoader, new HanLpSegmentCache(settings),
+                                                             new HanLpSegmentExecutor(settings));
+        HanLpIndicesAnalysis indicesAnalysis = new HanLpIndicesAnalysis(settings, new Environment(settings),
+                                                                        new IndicesAnalysisService(settings),
+                                                                        segmentPool,
+                                                                        new HanLpAnalyzerRegistry(settings, segmentPool),
+                                                                        new HanLpAnalysisMetrics(settings),
+                                                                        new HanLpStopWords(settings),
+                                                                        new HanLpConversions(settings),
+                                                                        new HanLpSynonyms(settings, new Environment(settings)));
+        return new HanLpWarmer(settings, indicesAnalysis, dictionaryLoader);
+    }
+
+}
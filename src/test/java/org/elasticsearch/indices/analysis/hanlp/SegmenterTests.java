@@ -0,0 +1,103 @@
+package org.elasticsearch.indices.analysis.hanlp;
+
+import com.hankcs.hanlp.seg.common.Term;
+
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.elasticsearch.index.analysis.HanLpStreamingTokenizer;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.elasticsearch.common.settings.Settings.Builder.EMPTY_SETTINGS;
+import static org.elasticsearch.common.settings.Settings.settingsBuilder;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.hasItem;
+
+/**
+ * @author <a href='mailto:donbeave@gmail.com'>Alexey Zhokhov</a>
+ */
+public class SegmenterTests extends ESTestCase {
+
+    private static final String TEXT = "商品和服务。王小明在北京大学附近的中国银行工作，每月工资3000元。";
+
+    @Test
+    public void testParse() {
+        assertThat(SegmentConfig.parse(EMPTY_SETTINGS).segmenter(), equalTo(Segmenter.VITERBI));
+        assertThat(SegmentConfig.parse(EMPTY_SETTINGS, "", SegmentConfig.SPEED).segmenter(), equalTo(Segmenter.SPEED));
+        SegmentConfig config = SegmentConfig.parse(settingsBuilder().put(Settings.SEGMENTER, "NShort").build());
+        assertThat(config.segmenter(), equalTo(Segmenter.NSHORT));
+        assertThat(config, not(equalTo(SegmentConfig.DEFAULT)));
+
+        try {
+            SegmentConfig.parse(settingsBuilder().put(Settings.SEGMENTER, "fastest").build());
+            fail("expected unknown segmenter to fail");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("unknown segmenter [fastest]"));
+        }
+    }
+
+    @Test
+    public void testMissingModelFailsEarly() {
+        // the portable distribution ships no crf model, HanLP would exit the JVM loading it
+        try {
+            SegmentConfig.parse(settingsBuilder().put(Settings.SEGMENTER, "crf").build());
+            fail("expected missing model to fail");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("segmenter [crf] needs its model"));
+        }
+    }
+
+    @Test
+    public void testSegmentersCoverText() {
+        for (Segmenter segmenter : new Segmenter[] {Segmenter.VITERBI, Segmenter.DIJKSTRA, Segmenter.NSHORT,
+                                                    Segmenter.SPEED}) {
+            SegmentConfig config = SegmentConfig.parse(settingsBuilder().put(Settings.SEGMENTER, segmenter.getName())
+                                                                        .build());
+            StringBuilder text = new StringBuilder();
+            List<String> words = new ArrayList<>();
+            for (Term term : config.newSegment().seg(TEXT)) {
+                text.append(term.word);
+                words.add(term.word);
+            }
+            assertThat(segmenter.getName(), text.toString(), equalTo(TEXT));
+            assertThat(segmenter.getName(), words, hasItem("商品"));
+        }
+    }
+
+    @Test
+    public void testSpeedRequiredDictionaries() {
+        assertThat(HanLpDictionary.required(SegmentConfig.SPEED),
+                   contains(HanLpDictionary.CORE, HanLpDictionary.CHAR_TYPE, HanLpDictionary.CUSTOM));
+    }
+
+    @Test
+    public void testOffsetIgnored() {
+        // still accepted, and shares the segments of the configs without it
+        assertThat(SegmentConfig.parse(settingsBuilder().put(Settings.OFFSET, true).build()),
+                   equalTo(SegmentConfig.DEFAULT));
+    }
+
+    @Test
+    public void testSpeedOffsets() throws Exception {
+        SegmentConfig config = SegmentConfig.SPEED;
+        Tokenizer tokenizer = new HanLpStreamingTokenizer(config.newSegment(), config, false, 16);
+        CharTermAttribute termAtt = tokenizer.addAttribute(CharTermAttribute.class);
+        OffsetAttribute offsetAtt = tokenizer.addAttribute(OffsetAttribute.class);
+        tokenizer.setReader(new StringReader(TEXT));
+        tokenizer.reset();
+        while (tokenizer.incrementToken()) {
+            assertThat(TEXT.substring(offsetAtt.startOffset(), offsetAtt.endOffset()), equalTo(termAtt.toString()));
+        }
+        tokenizer.end();
+        tokenizer.close();
+    }
+
+}